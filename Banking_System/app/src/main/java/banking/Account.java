@@ -0,0 +1,165 @@
+package banking;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Date;
+
+class Account {
+    // Returned by the paise-based balance operations when the change is rejected
+    public static final long REJECTED = Long.MIN_VALUE;
+
+    // Balance word of a closed account. Closing swaps a zero balance for it in
+    // the same compare-and-set step deposits and withdrawals use, so nothing
+    // can be posted to an account once it is closed.
+    static final long CLOSED = Long.MIN_VALUE;
+
+    private static final VarHandle BALANCE;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balancePaise", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private String accountNumber;
+    private int customerId;
+    private String accountType; // Savings, Current, Fixed Deposit, Recurring Deposit
+    private volatile long balancePaise; // Balance in paise, updated with compare-and-set; CLOSED once closed
+    private double interestRate;
+    private Date openingDate;
+    private volatile String status; // Active, Inactive, Frozen, Closed
+
+    public Account(String accountNumber, int customerId, String accountType, 
+                  double initialBalance, double interestRate) {
+        this.accountNumber = accountNumber;
+        this.customerId = customerId;
+        this.accountType = accountType;
+        this.balancePaise = toPaise(initialBalance);
+        this.interestRate = interestRate;
+        this.openingDate = new Date();
+        this.status = "Active";
+    }
+
+    // For views over records held elsewhere (AccountTable.Row), which override every accessor
+    Account() {
+    }
+
+    // Getters and Setters
+    public String getAccountNumber() { return accountNumber; }
+    public int getCustomerId() { return customerId; }
+    public String getAccountType() { return accountType; }
+    public double getBalance() { return getBalancePaise() / 100.0; }
+    public void setBalance(double balance) { this.balancePaise = toPaise(balance); }
+    public long getBalancePaise() {
+        long balance = balancePaise;
+        return balance == CLOSED ? 0 : balance;
+    }
+    public double getInterestRate() { return interestRate; }
+    public Date getOpeningDate() { return openingDate; }
+    public void setOpeningDate(Date openingDate) { this.openingDate = openingDate; }
+    public String getStatus() { return balancePaise == CLOSED ? "Closed" : status; }
+
+    // Restores or changes the status; closing a live account goes through closeIfEmpty()
+    public void setStatus(String status) {
+        if ("Closed".equals(status)) {
+            BALANCE.setVolatile(this, CLOSED);
+        }
+        this.status = status;
+    }
+
+    // Closes the account if its balance is zero; false if it is not, or is already closed
+    public boolean closeIfEmpty() {
+        if (!BALANCE.compareAndSet(this, 0L, CLOSED)) {
+            return false;
+        }
+        status = "Closed";
+        return true;
+    }
+
+    // Rupees as paise; NaN, infinities and amounts no balance can hold are refused
+    // rather than rounded to Long.MIN_VALUE or Long.MAX_VALUE
+    public static long toPaise(double amount) {
+        double paise = amount * 100;
+        if (!(Math.abs(paise) < 0x1p63)) {
+            throw new IllegalArgumentException("Invalid amount: " + amount);
+        }
+        return Math.round(paise);
+    }
+
+    public boolean deposit(double amount) {
+        return depositPaise(toPaise(amount)) != REJECTED;
+    }
+
+    public boolean withdraw(double amount) {
+        return withdrawPaise(toPaise(amount)) != REJECTED;
+    }
+
+    // A target that no longer takes deposits gets nothing and the source is
+    // refunded. Not guarded against the source closing in between: accounts
+    // that may close are posted to through TransferEngine, which closes under
+    // its locks.
+    public boolean transfer(Account targetAccount, double amount) {
+        long paise = toPaise(amount);
+        if (withdrawPaise(paise) == REJECTED) {
+            return false;
+        }
+        if (targetAccount.depositPaise(paise) == REJECTED) {
+            adjustBalancePaise(paise);
+            return false;
+        }
+        return true;
+    }
+
+    // Returns the balance after the deposit, or REJECTED if the account is not
+    // active or the balance would overflow
+    public long depositPaise(long amount) {
+        if (amount <= 0 || !"Active".equals(status)) {
+            return REJECTED;
+        }
+        long current;
+        do {
+            current = (long) BALANCE.getVolatile(this);
+            if (current == CLOSED || current > Long.MAX_VALUE - amount) {
+                return REJECTED;
+            }
+        } while (!BALANCE.compareAndSet(this, current, current + amount));
+        return current + amount;
+    }
+
+    // Checks funds and debits in one compare-and-set step; returns the new balance or REJECTED.
+    // A closed account's balance word (CLOSED) is below any amount, so it is rejected too.
+    public long withdrawPaise(long amount) {
+        if (amount <= 0 || !"Active".equals(status)) {
+            return REJECTED;
+        }
+        long current;
+        do {
+            current = (long) BALANCE.getVolatile(this);
+            if (amount > current) {
+                return REJECTED;
+            }
+        } while (!BALANCE.compareAndSet(this, current, current - amount));
+        return current - amount;
+    }
+
+    // Applies a signed balance change without the status checks (used when
+    // restoring state). A closed account stays at zero: a close can reach the
+    // journal ahead of the postings that emptied the account, and those net to
+    // nothing. Throws ArithmeticException rather than let the balance overflow.
+    public void adjustBalancePaise(long delta) {
+        long current;
+        do {
+            current = (long) BALANCE.getVolatile(this);
+            if (current == CLOSED) {
+                return;
+            }
+        } while (!BALANCE.compareAndSet(this, current, Math.addExact(current, delta)));
+    }
+
+    @Override
+    public String toString() {
+        return EntityRenderer.render(this);
+    }
+}
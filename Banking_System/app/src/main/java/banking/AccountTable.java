@@ -0,0 +1,469 @@
+package banking;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// Account table held off the heap, for banks with far more accounts than the
+// heap should carry as objects (one Account is an object, an account-number
+// String and a Date; at 100M accounts the collector spends its time marking them).
+//
+// Each account is a fixed-width 40-byte record in direct memory:
+//     0  account number (the digits after "ACC")   long
+//     8  balance in paise                           long, updated atomically; Account.CLOSED once closed
+//    16  interest rate                              double
+//    24  opening date, epoch millis                 long
+//    32  customer ID                                int
+//    36  type code                                  byte
+//    38  status code                                short, read and written as a volatile
+// Records live in chunks of 65,536 (2.5 MB) allocated as the table grows, and
+// an open-addressed index of record numbers (also off heap) finds a record by
+// account number; the index is kept at most half full by rebuilding it twice
+// the size. Balances change through VarHandle views of the chunks with the
+// same compare-and-set steps as Account, so deposits, withdrawals and
+// transfers run straight on the records and never create an object.
+//
+// view() gives a record as an Account: a flyweight that holds only the table
+// and the record number, reads every field from the record and posts balance
+// changes to it, so code written against Account (TransferEngine,
+// InterestEngine, the renderers) works on off-heap accounts unchanged. Views
+// are made per lookup; nothing may lock on one (TransferEngine locks by
+// account number).
+//
+// This is the bank's account store: BankingManagementSystem adds every
+// account here and hands out views. Adding accounts is serialized; lookups and
+// balance changes run concurrently. The table itself is not journaled; the
+// bank journals each change it makes.
+class AccountTable {
+    static final int RECORD_BYTES = 40;
+    private static final int NUMBER = 0;
+    private static final int BALANCE = 8;
+    private static final int RATE = 16;
+    private static final int OPENED = 24;
+    private static final int CUSTOMER = 32;
+    private static final int TYPE = 36;
+    private static final int STATUS = 38;
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+    private static final int INDEX_CHUNK_BITS = 24;
+    private static final int INDEX_CHUNK_MASK = (1 << INDEX_CHUNK_BITS) - 1;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle SHORTS = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.nativeOrder());
+
+    private static final String[] STATUSES = { "Active", "Inactive", "Frozen", "Closed" };
+
+    // Open-addressed slots holding record number + 1, 0 when empty. Replaced
+    // whole when it fills, so a reader probes one index from start to end.
+    private static final class Index {
+        final ByteBuffer[] slots;
+        final int mask;
+
+        Index(int slotCount) {
+            mask = slotCount - 1;
+            slots = new ByteBuffer[(slotCount + INDEX_CHUNK_MASK) >>> INDEX_CHUNK_BITS];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = allocate(Math.min(slotCount - (i << INDEX_CHUNK_BITS), 1 << INDEX_CHUNK_BITS) * 4L);
+            }
+        }
+
+        int slotCount() {
+            return mask + 1;
+        }
+
+        int at(int slot) {
+            return (int) INTS.getAcquire(slots[slot >>> INDEX_CHUNK_BITS], (slot & INDEX_CHUNK_MASK) * 4);
+        }
+
+        // Puts the record in the first free slot from the number's home slot
+        void insert(long number, int record) {
+            for (int slot = slotOf(number, mask); ; slot = (slot + 1) & mask) {
+                if (at(slot) == 0) {
+                    INTS.setRelease(slots[slot >>> INDEX_CHUNK_BITS], (slot & INDEX_CHUNK_MASK) * 4, record + 1);
+                    return;
+                }
+            }
+        }
+    }
+
+    private volatile Index index;
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private volatile String[] types = { "Savings", "Current", "Fixed Deposit", "Recurring Deposit" };
+    private volatile int size;
+    private final List<Account> views = new Views();
+
+    // expected sizes the index up front; it grows past that as accounts are added
+    public AccountTable(int expected) {
+        index = new Index(Integer.highestOneBit(Math.max(2, expected) * 2 - 1) << 1); // at most half full
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Direct memory held by the records and the index
+    public long offHeapBytes() {
+        long bytes = (long) chunks.length * CHUNK_RECORDS * RECORD_BYTES;
+        for (ByteBuffer slots : index.slots) {
+            bytes += slots.capacity();
+        }
+        return bytes;
+    }
+
+    // Adds an account and returns its record number
+    public synchronized int add(String accountNumber, int customerId, String accountType, long balancePaise,
+                                double interestRate, long openedMillis, String status) {
+        long number = numberOf(accountNumber);
+        if (number < 0) {
+            throw new IllegalArgumentException("Not an ACC account number: " + accountNumber);
+        }
+        if (find(number) >= 0) {
+            throw new IllegalArgumentException("Account already in the table: " + accountNumber);
+        }
+        byte type = typeCode(accountType);
+        short statusCode = statusCode(status);
+        int record = size;
+        if ((record >>> CHUNK_BITS) == chunks.length) {
+            ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = allocate((long) CHUNK_RECORDS * RECORD_BYTES);
+            chunks = grown;
+        }
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        chunk.putLong(at + NUMBER, number);
+        chunk.putLong(at + BALANCE, balancePaise);
+        chunk.putDouble(at + RATE, interestRate);
+        chunk.putLong(at + OPENED, openedMillis);
+        chunk.putInt(at + CUSTOMER, customerId);
+        chunk.put(at + TYPE, type);
+        chunk.putShort(at + STATUS, statusCode);
+        Index current = index;
+        if ((record + 1) * 2L > current.slotCount()) {
+            current = grow(current);
+        }
+        current.insert(number, record);
+        size = record + 1; // volatile write publishes the record
+        return record;
+    }
+
+    // A twice-as-large index holding every record so far, published once it is
+    // complete; readers still probing the old one find what was there before
+    private Index grow(Index old) {
+        Index grown = new Index(Math.multiplyExact(old.slotCount(), 2));
+        for (int record = 0, end = size; record < end; record++) {
+            grown.insert(chunkOf(record).getLong(offsetOf(record) + NUMBER), record);
+        }
+        index = grown;
+        return grown;
+    }
+
+    public int add(Account account) {
+        return add(account.getAccountNumber(), account.getCustomerId(), account.getAccountType(),
+            account.getBalancePaise(), account.getInterestRate(), account.getOpeningDate().getTime(),
+            account.getStatus());
+    }
+
+    // Gives the account type a code if it has none yet, so add() will not refuse
+    // it; throws IllegalStateException once the table knows 127 types
+    public void registerType(String accountType) {
+        typeCode(accountType);
+    }
+
+    // Record number of the account, or -1
+    public int find(String accountNumber) {
+        long number = numberOf(accountNumber);
+        return number < 0 ? -1 : find(number);
+    }
+
+    private int find(long number) {
+        Index current = index;
+        for (int slot = slotOf(number, current.mask); ; slot = (slot + 1) & current.mask) {
+            int entry = current.at(slot);
+            if (entry == 0) {
+                return -1;
+            }
+            if (chunkOf(entry - 1).getLong(offsetOf(entry - 1) + NUMBER) == number) {
+                return entry - 1;
+            }
+        }
+    }
+
+    // The record as an Account, or null if there is no such account
+    public Account view(String accountNumber) {
+        int record = find(accountNumber);
+        return record < 0 ? null : view(record);
+    }
+
+    public Account view(int record) {
+        return new Row(this, record);
+    }
+
+    // Every account as a view, in the order they were added; read-only, and
+    // its size follows the table
+    public List<Account> asList() {
+        return views;
+    }
+
+    public String getAccountNumber(int record) {
+        return "ACC" + chunkOf(record).getLong(offsetOf(record) + NUMBER);
+    }
+
+    public int getCustomerId(int record) {
+        return chunkOf(record).getInt(offsetOf(record) + CUSTOMER);
+    }
+
+    public String getAccountType(int record) {
+        return types[chunkOf(record).get(offsetOf(record) + TYPE)];
+    }
+
+    public long getBalancePaise(int record) {
+        long balance = (long) LONGS.getVolatile(chunkOf(record), offsetOf(record) + BALANCE);
+        return balance == Account.CLOSED ? 0 : balance;
+    }
+
+    public double getInterestRate(int record) {
+        return chunkOf(record).getDouble(offsetOf(record) + RATE);
+    }
+
+    public long getOpenedMillis(int record) {
+        return chunkOf(record).getLong(offsetOf(record) + OPENED);
+    }
+
+    public String getStatus(int record) {
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        if ((long) LONGS.getVolatile(chunk, at + BALANCE) == Account.CLOSED) {
+            return "Closed";
+        }
+        return STATUSES[statusAt(chunk, at)];
+    }
+
+    // Restores or changes the status; closing a live account goes through closeIfEmpty()
+    public void setStatus(int record, String status) {
+        short code = statusCode(status);
+        if ("Closed".equals(status)) {
+            LONGS.setVolatile(chunkOf(record), offsetOf(record) + BALANCE, Account.CLOSED);
+        }
+        SHORTS.setVolatile(chunkOf(record), offsetOf(record) + STATUS, code);
+    }
+
+    // Swaps a zero balance for Account.CLOSED, like Account.closeIfEmpty()
+    public boolean closeIfEmpty(int record) {
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        if (!LONGS.compareAndSet(chunk, at + BALANCE, 0L, Account.CLOSED)) {
+            return false;
+        }
+        SHORTS.setVolatile(chunk, at + STATUS, statusCode("Closed"));
+        return true;
+    }
+
+    public void setOpenedMillis(int record, long openedMillis) {
+        chunkOf(record).putLong(offsetOf(record) + OPENED, openedMillis);
+    }
+
+    // Returns the balance after the deposit, or Account.REJECTED if the account is
+    // not active or the balance would overflow
+    public long depositPaise(int record, long amount) {
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        if (amount <= 0 || statusAt(chunk, at) != 0) {
+            return Account.REJECTED;
+        }
+        long current;
+        do {
+            current = (long) LONGS.getVolatile(chunk, at + BALANCE);
+            if (current == Account.CLOSED || current > Long.MAX_VALUE - amount) {
+                return Account.REJECTED;
+            }
+        } while (!LONGS.compareAndSet(chunk, at + BALANCE, current, current + amount));
+        return current + amount;
+    }
+
+    // Checks funds and debits in one compare-and-set step; returns the new balance or Account.REJECTED
+    public long withdrawPaise(int record, long amount) {
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        if (amount <= 0 || statusAt(chunk, at) != 0) { // status 0 is Active
+            return Account.REJECTED;
+        }
+        long current;
+        do {
+            current = (long) LONGS.getVolatile(chunk, at + BALANCE);
+            if (amount > current) {
+                return Account.REJECTED;
+            }
+        } while (!LONGS.compareAndSet(chunk, at + BALANCE, current, current - amount));
+        return current - amount;
+    }
+
+    // Debits the source and credits the target, like Account.transfer
+    public boolean transferPaise(int source, int target, long amount) {
+        if (withdrawPaise(source, amount) == Account.REJECTED) {
+            return false;
+        }
+        if (depositPaise(target, amount) == Account.REJECTED) {
+            adjustBalancePaise(source, amount);
+            return false;
+        }
+        return true;
+    }
+
+    // Like Account.adjustBalancePaise(): no status checks, a closed record stays at
+    // zero, and an overflow throws ArithmeticException
+    public void adjustBalancePaise(int record, long delta) {
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        long current;
+        do {
+            current = (long) LONGS.getVolatile(chunk, at + BALANCE);
+            if (current == Account.CLOSED) {
+                return;
+            }
+        } while (!LONGS.compareAndSet(chunk, at + BALANCE, current, Math.addExact(current, delta)));
+    }
+
+    // Replaces the balance in one compare-and-set step, so no concurrent change is
+    // lost in between; a closed record stays closed
+    public void setBalancePaise(int record, long balancePaise) {
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        long current;
+        do {
+            current = (long) LONGS.getVolatile(chunk, at + BALANCE);
+            if (current == Account.CLOSED) {
+                return;
+            }
+        } while (!LONGS.compareAndSet(chunk, at + BALANCE, current, balancePaise));
+    }
+
+    public long totalBalancePaise() {
+        long total = 0;
+        for (int record = 0, end = size; record < end; record++) {
+            total += getBalancePaise(record);
+        }
+        return total;
+    }
+
+    private ByteBuffer chunkOf(int record) {
+        return chunks[record >>> CHUNK_BITS];
+    }
+
+    private static int offsetOf(int record) {
+        return (record & CHUNK_MASK) * RECORD_BYTES;
+    }
+
+    private static int slotOf(long number, int mask) {
+        long h = number * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // The digits of "ACC<digits>", or -1 for any other form
+    private static long numberOf(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() < 4 || accountNumber.length() > 21
+                || !accountNumber.startsWith("ACC")) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = 3; i < accountNumber.length(); i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9' || number > (Long.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        // "ACC0012" would come back as "ACC12"; such numbers are never issued
+        return accountNumber.charAt(3) == '0' && accountNumber.length() > 4 ? -1 : number;
+    }
+
+    private synchronized byte typeCode(String accountType) {
+        String[] known = types;
+        for (int i = 0; i < known.length; i++) {
+            if (known[i].equals(accountType)) {
+                return (byte) i;
+            }
+        }
+        if (known.length == Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many account types");
+        }
+        String[] grown = Arrays.copyOf(known, known.length + 1);
+        grown[known.length] = accountType;
+        types = grown;
+        return (byte) known.length;
+    }
+
+    // Volatile, like Account.status: a freeze or inactivation is seen by the next
+    // deposit or withdrawal on any thread
+    private static short statusAt(ByteBuffer chunk, int at) {
+        return (short) SHORTS.getVolatile(chunk, at + STATUS);
+    }
+
+    private static short statusCode(String status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return (short) i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown account status: " + status);
+    }
+
+    // Zeroed direct memory, aligned for the atomic views
+    private static ByteBuffer allocate(long bytes) {
+        return ByteBuffer.allocateDirect(Math.toIntExact(bytes + 7)).alignedSlice(8).order(ByteOrder.nativeOrder());
+    }
+
+    private final class Views extends AbstractList<Account> implements RandomAccess {
+        @Override
+        public Account get(int record) {
+            return view(Objects.checkIndex(record, size));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // Flyweight Account over one record: every call goes to the table
+    static final class Row extends Account {
+        private final AccountTable table;
+        private final int record;
+
+        Row(AccountTable table, int record) {
+            this.table = table;
+            this.record = record;
+        }
+
+        int getRecord() { return record; }
+
+        @Override public String getAccountNumber() { return table.getAccountNumber(record); }
+        @Override public int getCustomerId() { return table.getCustomerId(record); }
+        @Override public String getAccountType() { return table.getAccountType(record); }
+        @Override public double getBalance() { return table.getBalancePaise(record) / 100.0; }
+        @Override public long getBalancePaise() { return table.getBalancePaise(record); }
+        @Override public double getInterestRate() { return table.getInterestRate(record); }
+        @Override public Date getOpeningDate() { return new Date(table.getOpenedMillis(record)); }
+        @Override public void setOpeningDate(Date openingDate) { table.setOpenedMillis(record, openingDate.getTime()); }
+        @Override public String getStatus() { return table.getStatus(record); }
+        @Override public void setStatus(String status) { table.setStatus(record, status); }
+        @Override public long depositPaise(long amount) { return table.depositPaise(record, amount); }
+        @Override public long withdrawPaise(long amount) { return table.withdrawPaise(record, amount); }
+        @Override public void adjustBalancePaise(long delta) { table.adjustBalancePaise(record, delta); }
+        @Override public boolean closeIfEmpty() { return table.closeIfEmpty(record); }
+
+        @Override
+        public void setBalance(double balance) {
+            table.setBalancePaise(record, Account.toPaise(balance));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package banking;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+// Loan amortization: EMI factors and month-by-month repayment schedules.
+//
+// The EMI factor r(1+r)^n / ((1+r)^n - 1) depends only on the rate and the
+// term, and rates come from the small loan rate table, so factors are cached
+// per (rate, term) in a copy-on-write open-addressed table: lookups read the
+// current table without locking, and only a miss takes the lock to publish a
+// copy with the new entry.
+//
+// A schedule keeps the balance left after every month, in paise; each month's
+// interest is the balance before it at the monthly rate, rounded to the paisa,
+// and the last instalment clears whatever is left. Schedules are built on first
+// use, cached per loan and rebuilt when the loan's amount, rate or term no longer
+// match; a repricing rebuilds the cached ones it made stale in parallel. Only
+// open loans are cached: a loan's schedule is dropped once it is paid off or
+// defaulted, and one asked for after that is built without being kept.
+class AmortizationEngine {
+    private static final int CHUNK_SIZE = 1024;
+
+    // Copy-on-write (rate, term) -> factor table; a zero term marks an empty slot
+    private static final class FactorTable {
+        final double[] rates;
+        final int[] terms;
+        final double[] factors;
+        final int count;
+
+        FactorTable(int capacity, int count) {
+            this.rates = new double[capacity];
+            this.terms = new int[capacity];
+            this.factors = new double[capacity];
+            this.count = count;
+        }
+    }
+
+    private static volatile FactorTable factorTable = new FactorTable(64, 0);
+    private static final LongAdder factorHits = new LongAdder();
+    private static final LongAdder factorMisses = new LongAdder();
+
+    private static final Map<Integer, Schedule> schedules = new ConcurrentHashMap<>();
+
+    public static final class Schedule {
+        private final double loanAmount;
+        private final double interestRate;
+        private final int termMonths;
+        private final double monthlyRate;
+        private final long principalPaise;
+        private final long paymentPaise;
+        private final long[] balancePaise;
+
+        Schedule(double loanAmount, double interestRate, int termMonths) {
+            this.loanAmount = loanAmount;
+            this.interestRate = interestRate;
+            this.termMonths = termMonths;
+            this.monthlyRate = interestRate / 12 / 100;
+            this.principalPaise = Account.toPaise(loanAmount);
+            this.paymentPaise = Account.toPaise(monthlyPayment(loanAmount, interestRate, termMonths));
+            this.balancePaise = new long[termMonths];
+            long balance = principalPaise;
+            for (int month = 0; month < termMonths; month++) {
+                long interest = Math.round(balance * monthlyRate);
+                long principal = month == termMonths - 1 ? balance : Math.min(balance, paymentPaise - interest);
+                balance -= principal;
+                balancePaise[month] = balance;
+            }
+        }
+
+        public int getMonths() { return termMonths; }
+        public double getInterestRate() { return interestRate; }
+
+        // Months are numbered from 1
+        public long getBalancePaise(int month) {
+            return balancePaise[month - 1];
+        }
+
+        public long getPrincipalPaise(int month) {
+            return balanceBefore(month) - balancePaise[month - 1];
+        }
+
+        public long getInterestPaise(int month) {
+            long before = balanceBefore(month);
+            return before == 0 ? 0 : Math.round(before * monthlyRate);
+        }
+
+        public long getPaymentPaise(int month) {
+            return getPrincipalPaise(month) + getInterestPaise(month);
+        }
+
+        public long getTotalInterestPaise() {
+            long total = 0;
+            for (int month = 1; month <= termMonths; month++) {
+                total += getInterestPaise(month);
+            }
+            return total;
+        }
+
+        boolean matches(Loan loan) {
+            return loan.getLoanAmount() == loanAmount && loan.getInterestRate() == interestRate
+                && loan.getTermMonths() == termMonths;
+        }
+
+        private long balanceBefore(int month) {
+            return month == 1 ? principalPaise : balancePaise[month - 2];
+        }
+    }
+
+    // EMI for the amount at the annual rate (percent) over the term, in rupees
+    public static double monthlyPayment(double loanAmount, double interestRate, int termMonths) {
+        return loanAmount * emiFactor(interestRate, termMonths);
+    }
+
+    // r(1+r)^n / ((1+r)^n - 1) for the monthly rate r, i.e. the EMI per rupee borrowed
+    public static double emiFactor(double interestRate, int termMonths) {
+        if (termMonths <= 0) {
+            return computeFactor(interestRate, termMonths);
+        }
+        FactorTable table = factorTable;
+        int mask = table.terms.length - 1;
+        for (int i = hash(interestRate, termMonths) & mask; table.terms[i] != 0; i = (i + 1) & mask) {
+            if (table.terms[i] == termMonths && table.rates[i] == interestRate) {
+                factorHits.increment();
+                return table.factors[i];
+            }
+        }
+        factorMisses.increment();
+        return addFactor(interestRate, termMonths);
+    }
+
+    public static long getFactorHits() {
+        return factorHits.sum();
+    }
+
+    public static long getFactorMisses() {
+        return factorMisses.sum();
+    }
+
+    // The loan's schedule, built on first use and whenever its terms have changed since
+    public static Schedule scheduleFor(Loan loan) {
+        Schedule schedule = schedules.get(loan.getLoanId());
+        if (schedule == null || !schedule.matches(loan)) {
+            schedule = new Schedule(loan.getLoanAmount(), loan.getInterestRate(), loan.getTermMonths());
+            if (isClosed(loan)) {
+                schedules.remove(loan.getLoanId());
+            } else {
+                schedules.put(loan.getLoanId(), schedule);
+            }
+        }
+        return schedule;
+    }
+
+    // Drops the cached schedule of a loan that has left Active (paid off or defaulted)
+    public static void onLoanClosed(Loan loan) {
+        schedules.remove(loan.getLoanId());
+    }
+
+    // Schedules held in the cache
+    public static int getCachedScheduleCount() {
+        return schedules.size();
+    }
+
+    private static boolean isClosed(Loan loan) {
+        return "Paid".equals(loan.getStatus()) || "Defaulted".equals(loan.getStatus());
+    }
+
+    // Rebuilds the cached schedules of the given loans that no longer match them; loans
+    // without a schedule yet are left to scheduleFor. Returns how many were rebuilt.
+    public static int recompute(Loan[] loans) {
+        return inParallel(loans, loan -> {
+            Schedule cached = schedules.get(loan.getLoanId());
+            return cached != null && scheduleFor(loan) != cached;
+        });
+    }
+
+    // Builds the schedules of all the given loans that have none or a stale one
+    public static int buildAll(Loan[] loans) {
+        return inParallel(loans, loan -> {
+            Schedule cached = schedules.get(loan.getLoanId());
+            return scheduleFor(loan) != cached;
+        });
+    }
+
+    // Runs the work over the loans on the common pool, a chunk of loans per task,
+    // and counts the loans it returned true for
+    private static int inParallel(Loan[] loans, Predicate<Loan> work) {
+        LongAdder count = new LongAdder();
+        int chunkCount = (loans.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunkCount).parallel().forEach(c -> {
+            for (int i = c * CHUNK_SIZE; i < Math.min(loans.length, (c + 1) * CHUNK_SIZE); i++) {
+                if (work.test(loans[i])) {
+                    count.increment();
+                }
+            }
+        });
+        return count.intValue();
+    }
+
+    private static synchronized double addFactor(double interestRate, int termMonths) {
+        FactorTable table = factorTable;
+        int mask = table.terms.length - 1;
+        int i = hash(interestRate, termMonths) & mask;
+        for (; table.terms[i] != 0; i = (i + 1) & mask) {
+            if (table.terms[i] == termMonths && table.rates[i] == interestRate) {
+                return table.factors[i]; // added by another thread while this one waited
+            }
+        }
+        double factor = computeFactor(interestRate, termMonths);
+        int capacity = (table.count + 1) * 2 > table.terms.length ? table.terms.length * 2 : table.terms.length;
+        FactorTable copy = new FactorTable(capacity, table.count + 1);
+        for (int j = 0; j < table.terms.length; j++) {
+            if (table.terms[j] != 0) {
+                insert(copy, table.rates[j], table.terms[j], table.factors[j]);
+            }
+        }
+        insert(copy, interestRate, termMonths, factor);
+        factorTable = copy;
+        return factor;
+    }
+
+    private static void insert(FactorTable table, double interestRate, int termMonths, double factor) {
+        int mask = table.terms.length - 1;
+        int i = hash(interestRate, termMonths) & mask;
+        while (table.terms[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table.rates[i] = interestRate;
+        table.terms[i] = termMonths;
+        table.factors[i] = factor;
+    }
+
+    private static double computeFactor(double interestRate, int termMonths) {
+        double monthlyRate = interestRate / 12 / 100;
+        if (monthlyRate == 0) {
+            return 1.0 / termMonths;
+        }
+        double growth = Math.pow(1 + monthlyRate, termMonths);
+        return monthlyRate * growth / (growth - 1);
+    }
+
+    private static int hash(double interestRate, int termMonths) {
+        long h = (Double.doubleToLongBits(interestRate) * 31 + termMonths) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
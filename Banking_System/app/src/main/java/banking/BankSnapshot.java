@@ -0,0 +1,340 @@
+package banking;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Full persisted state of the bank: the latest snapshot file plus the journal
+// records applied on top of it.
+//
+// Snapshot file layout: a fixed-size header, then the customer, account, loan and
+// loan-rate sections. Transactions live in a separate append-only history file
+// next to it ("bank.snapshot.history"); the header records how many bytes of it
+// the snapshot covers, so compaction only appends the sealed segments' rows and
+// rewrites the (much smaller) image, and bytes a failed compaction left past that
+// length are cut off by the next one. Version 1 snapshots held the transactions
+// between the header and the customers; they are still read, and the first
+// compaction moves them into the history file.
+class BankSnapshot {
+    private static final int MAGIC = 0x424D5353; // "BMSS"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 120;
+
+    interface TransactionSink {
+        void accept(Transaction transaction) throws IOException;
+    }
+
+    final Map<Integer, Customer> customers = new LinkedHashMap<>();
+    final Map<String, Account> accounts = new LinkedHashMap<>();
+    final Map<Integer, Loan> loans = new LinkedHashMap<>();
+    final Map<String, Double> loanRates = new LinkedHashMap<>(); // changed rates only, by lowercased type
+    int customerIdCounter = 1001;
+    int transactionIdCounter = 1;
+    int loanIdCounter = 1;
+    long accountNumberMark; // past every numeric "ACC" account number; 0 in snapshots that predate it
+    long transactionCount;
+    long replayFromSegment = 1; // first journal segment not folded into this snapshot
+
+    private TransactionSink sink;
+
+    // Header fields of the file this state was loaded from
+    private long transactionOffset;
+    private long transactionBytes; // transactions held in the snapshot itself (version 1 only)
+    private long historyBytes; // length of the history file the snapshot covers
+
+    public BankSnapshot(TransactionSink sink) {
+        this.sink = sink;
+    }
+
+    // Applies one journal record on top of this state
+    public void apply(byte type, DataInput in) throws IOException {
+        switch (type) {
+            case TransactionJournal.CUSTOMER: {
+                Customer customer = EntityCodec.readCustomer(in);
+                customers.put(customer.getCustomerId(), customer);
+                customerIdCounter = Math.max(customerIdCounter, customer.getCustomerId() + 1);
+                break;
+            }
+            case TransactionJournal.ACCOUNT: {
+                Account account = EntityCodec.readAccount(in);
+                accounts.put(account.getAccountNumber(), account);
+                observeAccountNumber(account.getAccountNumber());
+                break;
+            }
+            case TransactionJournal.ACCOUNT_STATUS: {
+                Account account = accounts.get(in.readUTF());
+                String status = in.readUTF();
+                if (account != null) {
+                    account.setStatus(status);
+                }
+                break;
+            }
+            case TransactionJournal.POSTING: {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Transaction transaction = EntityCodec.readTransaction(in);
+                    long delta = in.readLong();
+                    Account account = accounts.get(transaction.getAccountNumber());
+                    if (account != null) {
+                        account.adjustBalancePaise(delta);
+                    }
+                    transactionIdCounter = Math.max(transactionIdCounter, transaction.getTransactionId() + 1);
+                    transactionCount++;
+                    if (sink != null) {
+                        sink.accept(transaction);
+                    }
+                }
+                break;
+            }
+            case TransactionJournal.LOAN: {
+                Loan loan = EntityCodec.readLoan(in);
+                loans.put(loan.getLoanId(), loan);
+                loanIdCounter = Math.max(loanIdCounter, loan.getLoanId() + 1);
+                break;
+            }
+            case TransactionJournal.LOAN_RATE: {
+                String loanType = in.readUTF();
+                loanRates.put(loanType, in.readDouble());
+                break;
+            }
+            case TransactionJournal.ID_BLOCK: {
+                byte sequence = in.readByte();
+                long end = in.readLong();
+                switch (sequence) {
+                    case IdAllocator.CUSTOMER: customerIdCounter = (int) Math.max(customerIdCounter, end); break;
+                    case IdAllocator.TRANSACTION: transactionIdCounter = (int) Math.max(transactionIdCounter, end); break;
+                    case IdAllocator.LOAN: loanIdCounter = (int) Math.max(loanIdCounter, end); break;
+                    case IdAllocator.ACCOUNT_NUMBER: accountNumberMark = Math.max(accountNumberMark, end); break;
+                    default: throw new IOException("Unknown ID sequence " + sequence);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    // Account numbers are "ACC" and digits when the bank assigned them
+    private void observeAccountNumber(String accountNumber) {
+        if (accountNumber.length() > 3 && accountNumber.length() <= 21 && accountNumber.startsWith("ACC")) {
+            long number = 0;
+            for (int i = 3; i < accountNumber.length(); i++) {
+                char c = accountNumber.charAt(i);
+                if (c < '0' || c > '9') {
+                    return;
+                }
+                number = number * 10 + (c - '0');
+            }
+            accountNumberMark = Math.max(accountNumberMark, number + 1);
+        }
+    }
+
+    // The transaction history that goes with a snapshot file
+    static Path historyPath(Path snapshotPath) {
+        return snapshotPath.resolveSibling(snapshotPath.getFileName() + ".history");
+    }
+
+    // Loads a snapshot through a memory mapping. Transactions are handed to the
+    // sink one by one; with a null sink the history is not read.
+    public static BankSnapshot load(Path path, TransactionSink sink) throws IOException {
+        BankSnapshot state = new BankSnapshot(sink);
+        if (!Files.exists(path)) {
+            return state;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedFileInput in = new MappedFileInput(channel, 0);
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Not a banking snapshot file: " + path);
+            }
+            state.replayFromSegment = in.readLong();
+            state.customerIdCounter = in.readInt();
+            state.transactionIdCounter = in.readInt();
+            state.loanIdCounter = in.readInt();
+            in.readInt(); // reserved
+            state.transactionCount = in.readLong();
+            state.transactionOffset = in.readLong();
+            long customerCount = in.readLong();
+            long customerOffset = in.readLong();
+            long accountCount = in.readLong();
+            long accountOffset = in.readLong();
+            long loanCount = in.readLong();
+            long loanOffset = in.readLong();
+            state.accountNumberMark = in.readLong();
+            long loanRateOffset = in.readLong(); // 0 in snapshots that predate the section
+            if (version == 1) {
+                state.transactionBytes = customerOffset - state.transactionOffset;
+            } else {
+                state.historyBytes = in.readLong();
+            }
+
+            if (sink != null && state.transactionCount > 0) {
+                if (version == 1) {
+                    in.seek(state.transactionOffset);
+                    readTransactions(in, state.transactionCount, sink);
+                } else {
+                    Path history = historyPath(path);
+                    try (FileChannel historyChannel = FileChannel.open(history, StandardOpenOption.READ)) {
+                        if (historyChannel.size() < state.historyBytes) {
+                            throw new IOException(history + " is shorter than " + path + " says");
+                        }
+                        readTransactions(new MappedFileInput(historyChannel, 0), state.transactionCount, sink);
+                    }
+                }
+            }
+            in.seek(customerOffset);
+            for (long i = 0; i < customerCount; i++) {
+                Customer customer = EntityCodec.readCustomer(in);
+                state.customers.put(customer.getCustomerId(), customer);
+            }
+            in.seek(accountOffset);
+            for (long i = 0; i < accountCount; i++) {
+                Account account = EntityCodec.readAccount(in);
+                state.accounts.put(account.getAccountNumber(), account);
+                state.observeAccountNumber(account.getAccountNumber());
+            }
+            in.seek(loanOffset);
+            for (long i = 0; i < loanCount; i++) {
+                Loan loan = EntityCodec.readLoan(in);
+                state.loans.put(loan.getLoanId(), loan);
+            }
+            if (loanRateOffset > 0) {
+                in.seek(loanRateOffset);
+                for (int i = in.readInt(); i > 0; i--) {
+                    String loanType = in.readUTF();
+                    state.loanRates.put(loanType, in.readDouble());
+                }
+            }
+        }
+        return state;
+    }
+
+    private static void readTransactions(DataInput in, long count, TransactionSink sink) throws IOException {
+        for (long i = 0; i < count; i++) {
+            sink.accept(EntityCodec.readTransaction(in));
+        }
+    }
+
+    // Writes a new snapshot made of the previous snapshot plus the sealed journal
+    // segments [replayFromSegment, sealedBefore). Works purely from files, so the
+    // live bank keeps running while it happens. The segments' transactions are
+    // appended to the history file and made durable first; the new image then
+    // replaces the old one atomically, and the rename is made durable before
+    // returning, so the caller may delete the segments. Returns the number of
+    // journal records folded in.
+    public static int compact(Path snapshotPath, Path journalBase, long sealedBefore) throws IOException {
+        BankSnapshot state = load(snapshotPath, null);
+        Path historyPath = historyPath(snapshotPath);
+        int folded;
+        try (FileChannel history = FileChannel.open(historyPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (state.transactionBytes > 0) {
+                // Version 1 snapshot: its transactions become the start of the history
+                history.truncate(0);
+                try (FileChannel previous = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+                    long copied = 0;
+                    while (copied < state.transactionBytes) {
+                        copied += previous.transferTo(state.transactionOffset + copied,
+                            state.transactionBytes - copied, history);
+                    }
+                }
+            } else {
+                history.truncate(state.historyBytes);
+                history.position(state.historyBytes);
+            }
+            DataOutputStream data = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(history), 1 << 16));
+            state.sink = transaction -> EntityCodec.writeTransaction(data, transaction);
+            folded = replaySealed(state, journalBase, sealedBefore);
+            state.replayFromSegment = sealedBefore;
+            data.flush();
+            history.force(true);
+            state.historyBytes = history.position();
+        }
+        forceDirectory(historyPath.toAbsolutePath().getParent()); // a new history file is named before it is used
+
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.position(HEADER_SIZE);
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16));
+            long customerOffset = out.position();
+            for (Customer customer : state.customers.values()) {
+                EntityCodec.writeCustomer(data, customer);
+            }
+            data.flush();
+            long accountOffset = out.position();
+            for (Account account : state.accounts.values()) {
+                EntityCodec.writeAccount(data, account);
+            }
+            data.flush();
+            long loanOffset = out.position();
+            for (Loan loan : state.loans.values()) {
+                EntityCodec.writeLoan(data, loan);
+            }
+            data.flush();
+            long loanRateOffset = out.position();
+            data.writeInt(state.loanRates.size());
+            for (Map.Entry<String, Double> rate : state.loanRates.entrySet()) {
+                data.writeUTF(rate.getKey());
+                data.writeDouble(rate.getValue());
+            }
+            data.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION)
+                .putLong(state.replayFromSegment)
+                .putInt(state.customerIdCounter).putInt(state.transactionIdCounter)
+                .putInt(state.loanIdCounter).putInt(0)
+                .putLong(state.transactionCount).putLong(0)
+                .putLong(state.customers.size()).putLong(customerOffset)
+                .putLong(state.accounts.size()).putLong(accountOffset)
+                .putLong(state.loans.size()).putLong(loanOffset)
+                .putLong(state.accountNumberMark).putLong(loanRateOffset)
+                .putLong(state.historyBytes);
+            header.flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += out.write(header, position);
+            }
+            out.force(true);
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(snapshotPath.toAbsolutePath().getParent());
+        return folded;
+    }
+
+    // Makes the directory's entries durable: a rename is only on disk once its
+    // directory is. Platforms that cannot open a directory as a channel (Windows)
+    // have no such call and are skipped.
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    private static int replaySealed(BankSnapshot state, Path journalBase, long sealedBefore) throws IOException {
+        int count = 0;
+        for (long segment : TransactionJournal.listSegments(journalBase)) {
+            if (segment >= state.replayFromSegment && segment < sealedBefore) {
+                count += TransactionJournal.replaySegment(journalBase, segment, state::apply);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,175 @@
+package banking;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bank-wide aggregates kept up to date on every mutation, so the statistics
+// screen (or a monitoring poller) reads counters instead of scanning the lists.
+//
+// Balances move through BankingManagementSystem.postTransactions, which reports
+// each posting's paise delta here; registrations and status changes report
+// themselves. The 7-day transaction count is kept in hourly buckets, so the
+// window starts at the top of the hour seven days ago.
+// check() recomputes everything from the lists and compares.
+class BankStatistics {
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    private static final int WINDOW_HOURS = 7 * 24;
+    private static final int SLOTS = WINDOW_HOURS + 1; // the window plus the current hour
+
+    private static final LongAdder totalDepositsPaise = new LongAdder();
+    private static final LongAdder activeAccounts = new LongAdder();
+    private static final LongAdder activeLoans = new LongAdder();
+    private static final LongAdder totalLoanAmountPaise = new LongAdder();
+    private static final Map<String, LongAdder> accountsByType = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> customersByType = new ConcurrentHashMap<>();
+
+    // Ring of hourly transaction counts; slotHours holds the hour each slot counts
+    private static final AtomicLongArray slotHours = new AtomicLongArray(SLOTS);
+    private static final AtomicLongArray slotCounts = new AtomicLongArray(SLOTS);
+
+    public static void onCustomerAdded(Customer customer) {
+        increment(customersByType, customer.getCustomerType(), 1);
+    }
+
+    public static void onCustomerTypeChanged(String oldType, String newType) {
+        increment(customersByType, oldType, -1);
+        increment(customersByType, newType, 1);
+    }
+
+    public static void onAccountAdded(Account account) {
+        increment(accountsByType, account.getAccountType(), 1);
+        totalDepositsPaise.add(account.getBalancePaise());
+        if ("Active".equals(account.getStatus())) {
+            activeAccounts.increment();
+        }
+    }
+
+    public static void onAccountStatusChanged(String oldStatus, String newStatus) {
+        activeAccounts.add(("Active".equals(newStatus) ? 1 : 0) - ("Active".equals(oldStatus) ? 1 : 0));
+    }
+
+    public static void onBalanceChanged(long deltaPaise) {
+        totalDepositsPaise.add(deltaPaise);
+    }
+
+    public static void onLoanAdded(Loan loan) {
+        totalLoanAmountPaise.add(Account.toPaise(loan.getLoanAmount()));
+        if ("Active".equals(loan.getStatus())) {
+            activeLoans.increment();
+        }
+    }
+
+    public static void onLoanStatusChanged(String oldStatus, String newStatus) {
+        activeLoans.add(("Active".equals(newStatus) ? 1 : 0) - ("Active".equals(oldStatus) ? 1 : 0));
+    }
+
+    public static void onTransaction(long epochMillis) {
+        long hour = epochMillis / HOUR_MILLIS;
+        if (hour < System.currentTimeMillis() / HOUR_MILLIS - WINDOW_HOURS) {
+            return; // already outside the window (recovered history)
+        }
+        int slot = (int) (hour % SLOTS);
+        if (slotHours.get(slot) != hour) {
+            synchronized (slotHours) {
+                if (slotHours.get(slot) < hour) {
+                    slotCounts.set(slot, 0);
+                    slotHours.set(slot, hour);
+                }
+            }
+        }
+        if (slotHours.get(slot) == hour) {
+            slotCounts.incrementAndGet(slot);
+        }
+    }
+
+    public static long getTotalDepositsPaise() { return totalDepositsPaise.sum(); }
+    public static long getActiveAccounts() { return activeAccounts.sum(); }
+    public static long getActiveLoans() { return activeLoans.sum(); }
+    public static long getTotalLoanAmountPaise() { return totalLoanAmountPaise.sum(); }
+    public static Map<String, Long> getAccountsByType() { return snapshot(accountsByType); }
+    public static Map<String, Long> getCustomersByType() { return snapshot(customersByType); }
+
+    // Transactions since the start of the hour seven days ago
+    public static long getRecentTransactions() {
+        long currentHour = System.currentTimeMillis() / HOUR_MILLIS;
+        long count = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long hour = slotHours.get(slot);
+            if (hour >= currentHour - WINDOW_HOURS && hour <= currentHour) {
+                count += slotCounts.get(slot);
+            }
+        }
+        return count;
+    }
+
+    public static long getRecentWindowStart() {
+        return (System.currentTimeMillis() / HOUR_MILLIS - WINDOW_HOURS) * HOUR_MILLIS;
+    }
+
+    // Consistency check: recomputes every aggregate with full passes and reports
+    // any counter that disagrees. Run it while the bank is quiet; postings in
+    // flight can make it report a transient difference.
+    public static boolean check(List<Customer> customers, List<Account> accounts, List<Loan> loans,
+                                TransactionStore transactions) {
+        long deposits = 0;
+        long active = 0;
+        Map<String, Long> byAccountType = new TreeMap<>();
+        synchronized (accounts) {
+            for (Account account : accounts) {
+                deposits += account.getBalancePaise();
+                if ("Active".equals(account.getStatus())) {
+                    active++;
+                }
+                byAccountType.merge(account.getAccountType(), 1L, Long::sum);
+            }
+        }
+        Map<String, Long> byCustomerType = new TreeMap<>();
+        for (Customer customer : customers) {
+            byCustomerType.merge(customer.getCustomerType(), 1L, Long::sum);
+        }
+        long loansActive = 0;
+        long loanAmount = 0;
+        for (Loan loan : loans) {
+            loanAmount += Account.toPaise(loan.getLoanAmount());
+            if ("Active".equals(loan.getStatus())) {
+                loansActive++;
+            }
+        }
+        long recent = transactions.countSince(getRecentWindowStart() - 1);
+
+        boolean consistent = compare("Total deposits (paise)", getTotalDepositsPaise(), deposits);
+        consistent &= compare("Active accounts", getActiveAccounts(), active);
+        consistent &= compare("Active loans", getActiveLoans(), loansActive);
+        consistent &= compare("Total loan amount (paise)", getTotalLoanAmountPaise(), loanAmount);
+        consistent &= compare("Transactions (last 7 days)", getRecentTransactions(), recent);
+        consistent &= compare("Accounts by type", getAccountsByType(), byAccountType);
+        consistent &= compare("Customers by type", getCustomersByType(), byCustomerType);
+        return consistent;
+    }
+
+    private static boolean compare(String name, Object counter, Object recomputed) {
+        boolean same = counter.equals(recomputed);
+        System.out.println(name + ": counter " + counter + " | recomputed " + recomputed + (same ? " | OK" : " | MISMATCH"));
+        return same;
+    }
+
+    private static void increment(Map<String, LongAdder> counts, String key, long delta) {
+        counts.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+    }
+
+    // Sorted copy without the types whose count has dropped to zero
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counts) {
+        Map<String, Long> result = new TreeMap<>();
+        counts.forEach((key, count) -> {
+            long value = count.sum();
+            if (value != 0) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+}
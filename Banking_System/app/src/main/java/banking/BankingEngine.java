@@ -0,0 +1,432 @@
+package banking;
+
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Headless API over the bank: every operation the console screens offer, as a
+// plain method call that validates its input, applies the change (journaled
+// like everything else) and returns an OperationResult instead of printing.
+// Safe to call from many threads at once.
+class BankingEngine {
+    // Outcome of one operation: the created or changed entity, or why it failed
+    static final class OperationResult<T> {
+        private final T value;
+        private final String error;
+
+        private OperationResult(T value, String error) {
+            this.value = value;
+            this.error = error;
+        }
+
+        static <T> OperationResult<T> ok(T value) {
+            return new OperationResult<>(value, null);
+        }
+
+        static <T> OperationResult<T> failed(String error) {
+            return new OperationResult<>(null, error);
+        }
+
+        public boolean isSuccess() { return error == null; }
+        public T getValue() { return value; }
+        public String getError() { return error; }
+    }
+
+    // Largest amount, in rupees, that one deposit, withdrawal, transfer, opening
+    // balance, loan or loan payment may carry; far below what a balance in paise holds
+    static final double MAX_AMOUNT = 1e15;
+
+    // Serializes rate changes, so the journal records them in the order they took effect
+    private static final Object loanRateLock = new Object();
+
+    // Results of keyed deposits, withdrawals and transfers, for clients that retry
+    private static final IdempotencyCache requestKeys = new IdempotencyCache(
+        TimeUnit.MINUTES.toMillis(Long.getLong("bank.idempotency.minutes", 10)),
+        Integer.getInteger("bank.idempotency.keys", 500_000));
+
+    // Throws IllegalArgumentException for NaN, infinities and amounts of MAX_AMOUNT
+    // or more; every amount is checked here, whichever front end it came from,
+    // before it reaches the paise arithmetic
+    static void checkAmount(double amount) {
+        if (!Double.isFinite(amount) || Math.abs(amount) >= MAX_AMOUNT) {
+            throw new IllegalArgumentException("Invalid amount! It must be a number below " + (long) MAX_AMOUNT + ".");
+        }
+    }
+
+    // Runs a change under its timer. A change the journal could not write is
+    // reported as failed, never as done, and once the journal has stopped no
+    // change is started at all.
+    private static <T> OperationResult<T> change(OperationMetrics.Timer timer, Supplier<OperationResult<T>> operation) {
+        return timer.time(() -> {
+            try {
+                BankingManagementSystem.requireWritable();
+                return operation.get();
+            } catch (UncheckedIOException e) {
+                return OperationResult.failed(e.getMessage());
+            }
+        });
+    }
+
+    public static OperationResult<Customer> registerCustomer(String firstName, String lastName, String email,
+            String phone, String address, String idNumber, Date dateOfBirth, String customerType) {
+        return change(OperationMetrics.REGISTER_CUSTOMER, () -> {
+            Customer customer = new Customer(BankingManagementSystem.nextCustomerId(), firstName, lastName, email,
+                phone, address, idNumber, dateOfBirth, customerType);
+            BankingManagementSystem.registerCustomer(customer);
+            return OperationResult.ok(customer);
+        });
+    }
+
+    // Changes one field of a customer: first, last, email, phone, address or type.
+    // A new name is re-indexed for search; the customer is journaled in full.
+    public static OperationResult<Customer> updateCustomer(int customerId, String field, String value) {
+        return change(OperationMetrics.UPDATE_CUSTOMER, () -> {
+            Optional<Customer> customer = BankingManagementSystem.findCustomerById(customerId);
+            if (customer.isEmpty()) {
+                return OperationResult.failed("Customer not found!");
+            }
+            String newValue = value.trim();
+            if (newValue.isEmpty()) {
+                return OperationResult.failed("Invalid value! It cannot be empty.");
+            }
+            Customer target = customer.get();
+            synchronized (target) {
+                String oldFullName = target.getFullName();
+                switch (field.trim().toLowerCase()) {
+                    case "first":
+                        target.setFirstName(newValue);
+                        break;
+                    case "last":
+                        target.setLastName(newValue);
+                        break;
+                    case "email":
+                        target.setEmail(newValue);
+                        break;
+                    case "phone":
+                        target.setPhone(newValue);
+                        break;
+                    case "address":
+                        target.setAddress(newValue);
+                        break;
+                    case "type": {
+                        String oldType = target.getCustomerType();
+                        target.setCustomerType(newValue);
+                        BankStatistics.onCustomerTypeChanged(oldType, newValue);
+                        PortfolioProjection.onCustomerTypeChanged(customerId, oldType, newValue);
+                        break;
+                    }
+                    default:
+                        return OperationResult.failed("Unknown field! Use first, last, email, phone, address or type.");
+                }
+                BankingManagementSystem.reindexCustomerName(customerId, oldFullName, target.getFullName());
+            }
+            BankingManagementSystem.awaitDurable(BankingManagementSystem.journalCustomer(target));
+            return OperationResult.ok(target);
+        });
+    }
+
+    // Credits the period's interest to every eligible account; InterestEngine times the
+    // run and refuses a period that has not started
+    public static OperationResult<InterestEngine.Result> applyMonthlyInterest(YearMonth period) {
+        try {
+            return OperationResult.ok(BankingManagementSystem.runMonthlyInterest(period));
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            return OperationResult.failed(e.getMessage());
+        }
+    }
+
+    public static OperationResult<Account> openAccount(int customerId, String accountType, double initialDeposit) {
+        checkAmount(initialDeposit);
+        return change(OperationMetrics.OPEN_ACCOUNT, () -> {
+            if (BankingManagementSystem.findCustomerById(customerId).isEmpty()) {
+                return OperationResult.failed("Customer not found!");
+            }
+            String type = accountTypeName(accountType);
+            if (type == null) {
+                return OperationResult.failed("Invalid account type! Use Savings, Current, Fixed Deposit or Recurring Deposit.");
+            }
+            if (initialDeposit < 0) {
+                return OperationResult.failed("Invalid amount! Initial deposit cannot be negative.");
+            }
+            Account account = new Account(BankingManagementSystem.generateAccountNumber(), customerId, type,
+                initialDeposit, accountInterestRate(type));
+            return OperationResult.ok(BankingManagementSystem.registerAccount(account));
+        });
+    }
+
+    // Only an empty account can be closed
+    public static OperationResult<Account> closeAccount(String accountNumber) {
+        return change(OperationMetrics.CLOSE_ACCOUNT, () -> {
+            Optional<Account> account = findAccount(accountNumber);
+            if (account.isEmpty()) {
+                return OperationResult.failed("Account not found!");
+            }
+            String previousStatus = account.get().getStatus();
+            if ("Closed".equals(previousStatus)) {
+                return OperationResult.failed("Account is already closed.");
+            }
+            if (!TransferEngine.close(account.get())) {
+                return "Closed".equals(account.get().getStatus())
+                    ? OperationResult.failed("Account is already closed.")
+                    : OperationResult.failed("Cannot close account! Balance must be zero.");
+            }
+            BankStatistics.onAccountStatusChanged(previousStatus, "Closed");
+            BankingManagementSystem.awaitDurable(BankingManagementSystem.journalAccountStatus(account.get()));
+            return OperationResult.ok(account.get());
+        });
+    }
+
+    // Account lookup for the operations here and the teller server, counted and
+    // timed as findAccountByNumber (the index lookup itself is left bare)
+    public static Optional<Account> findAccount(String accountNumber) {
+        long start = OperationMetrics.FIND_ACCOUNT.start();
+        Optional<Account> account = BankingManagementSystem.findAccountByNumber(accountNumber);
+        OperationMetrics.FIND_ACCOUNT.stop(start, account.isPresent());
+        return account;
+    }
+
+    // The account type the bank offers under this name in any casing, or null
+    public static String accountTypeName(String accountType) {
+        switch (accountType == null ? "" : accountType.trim().toLowerCase()) {
+            case "savings": return "Savings";
+            case "current": return "Current";
+            case "fixed deposit": return "Fixed Deposit";
+            case "recurring deposit": return "Recurring Deposit";
+            default: return null;
+        }
+    }
+
+    public static double accountInterestRate(String accountType) {
+        switch (accountType.toLowerCase()) {
+            case "savings": return 3.5;
+            case "current": return 0.0;
+            case "fixed deposit": return 6.5;
+            case "recurring deposit": return 5.5;
+            default: return 3.0;
+        }
+    }
+
+    public static OperationResult<Transaction> deposit(String accountNumber, double amount) {
+        checkAmount(amount);
+        return change(OperationMetrics.DEPOSIT, () -> {
+            Optional<Account> account = findAccount(accountNumber);
+            if (account.isEmpty()) {
+                return OperationResult.failed("Account not found!");
+            }
+            if (amount <= 0) {
+                return OperationResult.failed("Invalid amount! Amount must be positive.");
+            }
+            Transaction transaction = TransferEngine.deposit(account.get(), amount, "Deposit", "Cash deposit");
+            return transaction != null ? OperationResult.ok(transaction)
+                : OperationResult.failed("Deposit failed! Account may be inactive.");
+        });
+    }
+
+    public static OperationResult<Transaction> withdraw(String accountNumber, double amount) {
+        checkAmount(amount);
+        return change(OperationMetrics.WITHDRAW, () -> {
+            Optional<Account> account = findAccount(accountNumber);
+            if (account.isEmpty()) {
+                return OperationResult.failed("Account not found!");
+            }
+            if (amount <= 0) {
+                return OperationResult.failed("Invalid amount! Amount must be positive.");
+            }
+            Transaction transaction = TransferEngine.withdraw(account.get(), amount, "Cash withdrawal");
+            return transaction != null ? OperationResult.ok(transaction)
+                : OperationResult.failed("Withdrawal failed! Insufficient funds or account inactive.");
+        });
+    }
+
+    // The keyed variants are for clients that may retry a request: a repeated
+    // request key returns the first result instead of posting again. A null key
+    // posts unconditionally, like the plain variants.
+    public static OperationResult<Transaction> deposit(String requestKey, String accountNumber, double amount) {
+        checkAmount(amount);
+        return keyed(requestKey, IdempotencyCache.fingerprint("deposit", accountNumber, null, amount),
+            () -> deposit(accountNumber, amount));
+    }
+
+    public static OperationResult<Transaction> withdraw(String requestKey, String accountNumber, double amount) {
+        checkAmount(amount);
+        return keyed(requestKey, IdempotencyCache.fingerprint("withdraw", accountNumber, null, amount),
+            () -> withdraw(accountNumber, amount));
+    }
+
+    public static OperationResult<Transaction[]> transfer(String requestKey, String sourceAccountNumber,
+                                                          String targetAccountNumber, double amount) {
+        checkAmount(amount);
+        return keyed(requestKey,
+            IdempotencyCache.fingerprint("transfer", sourceAccountNumber, targetAccountNumber, amount),
+            () -> transfer(sourceAccountNumber, targetAccountNumber, amount));
+    }
+
+    private static <T> OperationResult<T> keyed(String requestKey, long fingerprint,
+                                                Supplier<OperationResult<T>> operation) {
+        if (requestKey == null) {
+            return operation.get();
+        }
+        if (requestKey.isEmpty() || requestKey.length() > IdempotencyCache.MAX_KEY_LENGTH) {
+            return OperationResult.failed("Invalid request key!");
+        }
+        return requestKeys.execute(requestKey, fingerprint, operation);
+    }
+
+    // On success the value holds the source and the target transaction
+    public static OperationResult<Transaction[]> transfer(String sourceAccountNumber, String targetAccountNumber,
+                                                          double amount) {
+        checkAmount(amount);
+        return change(OperationMetrics.TRANSFER, () -> {
+            Optional<Account> source = findAccount(sourceAccountNumber);
+            if (source.isEmpty()) {
+                return OperationResult.failed("Source account not found!");
+            }
+            Optional<Account> target = findAccount(targetAccountNumber);
+            if (target.isEmpty()) {
+                return OperationResult.failed("Target account not found!");
+            }
+            if (sourceAccountNumber.equals(targetAccountNumber)) {
+                return OperationResult.failed("Cannot transfer to the same account!");
+            }
+            if (amount <= 0) {
+                return OperationResult.failed("Invalid amount! Amount must be positive.");
+            }
+            Transaction[] posted = TransferEngine.transfer(source.get(), target.get(), amount);
+            return posted != null ? OperationResult.ok(posted)
+                : OperationResult.failed("Transfer failed! Insufficient funds or account issues.");
+        });
+    }
+
+    public static OperationResult<Loan> applyForLoan(int customerId, String loanType, double loanAmount,
+                                                     int termMonths) {
+        checkAmount(loanAmount);
+        return change(OperationMetrics.APPLY_LOAN, () -> {
+            if (BankingManagementSystem.findCustomerById(customerId).isEmpty()) {
+                return OperationResult.failed("Customer not found!");
+            }
+            if (loanAmount <= 0 || termMonths <= 0) {
+                return OperationResult.failed("Invalid loan amount or term!");
+            }
+            Loan loan = new Loan(BankingManagementSystem.nextLoanId(), customerId, loanType, loanAmount,
+                BankingManagementSystem.determineInterestRate(loanType), termMonths);
+            BankingManagementSystem.registerLoan(loan);
+            return OperationResult.ok(loan);
+        });
+    }
+
+    public static OperationResult<Loan> approveLoan(int loanId) {
+        return change(OperationMetrics.APPROVE_LOAN, () -> {
+            Optional<Loan> loan = BankingManagementSystem.findLoanById(loanId);
+            if (loan.isEmpty()) {
+                return OperationResult.failed("Loan not found!");
+            }
+            synchronized (loan.get()) {
+                if (!"Pending".equals(loan.get().getStatus())) {
+                    return OperationResult.failed("Loan is not in pending status.");
+                }
+                BankStatistics.onLoanStatusChanged("Pending", "Approved");
+                loan.get().setStatus("Approved");
+            }
+            BankingManagementSystem.awaitDurable(BankingManagementSystem.journalLoan(loan.get()));
+            return OperationResult.ok(loan.get());
+        });
+    }
+
+    // Pays out an approved loan: it becomes active, and its term starts today
+    public static OperationResult<Loan> disburseLoan(int loanId) {
+        return change(OperationMetrics.DISBURSE_LOAN, () -> {
+            Optional<Loan> loan = BankingManagementSystem.findLoanById(loanId);
+            if (loan.isEmpty()) {
+                return OperationResult.failed("Loan not found!");
+            }
+            synchronized (loan.get()) {
+                if (!"Approved".equals(loan.get().getStatus())) {
+                    return OperationResult.failed("Loan is not in approved status.");
+                }
+                PortfolioProjection.onLoanChanging(loan.get());
+                BankStatistics.onLoanStatusChanged("Approved", "Active");
+                loan.get().setStatus("Active");
+                loan.get().setStartDate(new Date());
+                PortfolioProjection.onLoanChanged(loan.get());
+            }
+            BankingManagementSystem.awaitDurable(BankingManagementSystem.journalLoan(loan.get()));
+            return OperationResult.ok(loan.get());
+        });
+    }
+
+    public static OperationResult<Loan> makeLoanPayment(int loanId, double payment) {
+        checkAmount(payment);
+        return change(OperationMetrics.LOAN_PAYMENT, () -> {
+            Optional<Loan> loan = BankingManagementSystem.findLoanById(loanId);
+            if (loan.isEmpty()) {
+                return OperationResult.failed("Loan not found or not active!");
+            }
+            synchronized (loan.get()) {
+                if (!"Active".equals(loan.get().getStatus())) {
+                    return OperationResult.failed("Loan not found or not active!");
+                }
+                if (payment <= 0 || payment > loan.get().getRemainingBalance()) {
+                    return OperationResult.failed("Invalid payment amount!");
+                }
+                PortfolioProjection.onLoanChanging(loan.get());
+                loan.get().setRemainingBalance(loan.get().getRemainingBalance() - payment);
+                if (loan.get().getRemainingBalance() == 0) {
+                    BankStatistics.onLoanStatusChanged("Active", "Paid");
+                    loan.get().setStatus("Paid");
+                    AmortizationEngine.onLoanClosed(loan.get());
+                }
+                PortfolioProjection.onLoanChanged(loan.get());
+            }
+            BankingManagementSystem.awaitDurable(BankingManagementSystem.journalLoan(loan.get()));
+            return OperationResult.ok(loan.get());
+        });
+    }
+
+    // Changes the rate of a loan type for new applications and reprices its open
+    // (pending, approved or active) loans, whose schedules are then rebuilt in
+    // parallel. Returns the number of loans repriced. The new rate and the
+    // repriced loans are journaled.
+    public static OperationResult<Integer> changeLoanRate(String loanType, double interestRate) {
+        return change(OperationMetrics.CHANGE_LOAN_RATE, () -> {
+            if (interestRate < 0 || interestRate > 100) {
+                return OperationResult.failed("Invalid interest rate!");
+            }
+            List<Loan> repriced = new ArrayList<>();
+            List<CompletableFuture<Void>> durable = new ArrayList<>();
+            synchronized (loanRateLock) {
+                if (!BankingManagementSystem.setLoanRate(loanType, interestRate)) {
+                    return OperationResult.failed("Unknown loan type!");
+                }
+                CompletableFuture<Void> rateWritten = BankingManagementSystem.journalLoanRate(loanType, interestRate);
+                if (rateWritten != null) {
+                    durable.add(rateWritten);
+                }
+                for (Loan loan : BankingManagementSystem.getLoanTable()) {
+                    synchronized (loan) {
+                        if (!loan.getLoanType().equalsIgnoreCase(loanType) || "Paid".equals(loan.getStatus())
+                                || "Defaulted".equals(loan.getStatus())) {
+                            continue;
+                        }
+                        PortfolioProjection.onLoanChanging(loan);
+                        loan.setInterestRate(interestRate);
+                        PortfolioProjection.onLoanChanged(loan);
+                    }
+                    repriced.add(loan);
+                    CompletableFuture<Void> written = BankingManagementSystem.journalLoan(loan);
+                    if (written != null) {
+                        durable.add(written);
+                    }
+                }
+                AmortizationEngine.recompute(repriced.toArray(new Loan[0]));
+            }
+            BankingManagementSystem.awaitDurable(CompletableFuture.allOf(durable.toArray(new CompletableFuture<?>[0])));
+            return OperationResult.ok(repriced.size());
+        });
+    }
+}
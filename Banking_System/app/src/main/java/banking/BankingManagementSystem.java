@@ -0,0 +1,1709 @@
+package banking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+// Main Banking Management System
+public class BankingManagementSystem {
+    private static Scanner scanner = new Scanner(System.in);
+    private static SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+    private static DecimalFormat currencyFormat = new DecimalFormat("#,##0.00");
+    
+    // In-memory data storage
+    private static List<Customer> customers = Collections.synchronizedList(new ArrayList<>());
+    // Accounts are records in an off-heap table; lookups and listings get views over them
+    private static final AccountTable accountTable = new AccountTable(1 << 16);
+    private static final List<Account> accounts = accountTable.asList();
+    private static TransactionStore transactions = new TransactionStore();
+    private static List<Loan> loans = Collections.synchronizedList(new ArrayList<>());
+    
+    // Primary-key indexes (customer ID -> customer, loan ID -> loan; the account table indexes account numbers)
+    private static Map<Integer, Customer> customerIndex = new ConcurrentHashMap<>();
+    private static Map<Integer, Loan> loanIndex = new ConcurrentHashMap<>();
+    private static CustomerNameIndex customerNames = new CustomerNameIndex(id -> customerIndex.get(id));
+    
+    // Loan rates by lowercased loan type (Indian rates); changed through BankingEngine.changeLoanRate,
+    // which journals the new rate
+    private static Map<String, Double> loanRates = new ConcurrentHashMap<>(Map.of(
+        "personal", 10.5,   // Personal loan rate in India
+        "home", 6.5,        // Home loan rate
+        "auto", 7.5,        // Auto loan rate
+        "business", 12.0,   // Business loan rate
+        "education", 8.0)); // Education loan rate
+    
+    // ID sequences; every block they reserve is journaled, so restarts never reuse an ID
+    private static IdAllocator customerIds = new IdAllocator(IdAllocator.CUSTOMER, 1001, Integer.MAX_VALUE,
+        BankingManagementSystem::journalIdBlock);
+    private static IdAllocator transactionIds = new IdAllocator(IdAllocator.TRANSACTION, 1, Integer.MAX_VALUE,
+        BankingManagementSystem::journalIdBlock);
+    private static IdAllocator loanIds = new IdAllocator(IdAllocator.LOAN, 1, Integer.MAX_VALUE,
+        BankingManagementSystem::journalIdBlock);
+    private static IdAllocator accountNumbers = new IdAllocator(IdAllocator.ACCOUNT_NUMBER, 1000000001L,
+        Long.MAX_VALUE, BankingManagementSystem::journalIdBlock);
+    
+    // Write-ahead journal; null when journaling is off (stress runs, replay)
+    private static TransactionJournal journal;
+
+    public static void main(String[] args) {
+        SnapshotManager snapshots = openBank();
+        if (snapshots == null) {
+            return;
+        }
+        if (args.length > 0 && "--check-statistics".equals(args[0])) {
+            boolean consistent = checkStatistics();
+            closeBank(snapshots);
+            System.exit(consistent ? 0 : 1);
+        }
+        if (args.length > 0 && "--ingest".equals(args[0])) {
+            boolean ok = args.length > 1 && ingestBatchFile(args[1], args.length > 2 ? args[2] : args[1] + ".rejects.csv");
+            closeBank(snapshots);
+            System.exit(ok ? 0 : 1);
+        }
+        if (args.length > 0 && "--export".equals(args[0])) {
+            boolean ok = args.length > 3 && exportReport(args[1], args[2], Paths.get(args[3]));
+            if (args.length <= 3) {
+                System.out.println("Usage: --export <customers|transactions|loans> <csv|json> <file>");
+            }
+            closeBank(snapshots);
+            System.exit(ok ? 0 : 1);
+        }
+        if (args.length > 0 && "--serve".equals(args[0])) {
+            serveTellers(snapshots, System.getProperty("bank.server.host", "127.0.0.1"),
+                args.length > 1 ? Integer.parseInt(args[1]) : 7070);
+            return;
+        }
+        
+        System.out.println("=== BANKING MANAGEMENT SYSTEM ===");
+        System.out.println("           INDIAN RUPEE (₹)           ");
+        System.out.println("All Data Stored In Memory - Changes Journaled To " + journal.getBase());
+        
+        boolean running = true;
+        while (running) {
+            displayMainMenu();
+            System.out.print("Enter your choice (1-9): ");
+            int choice = getIntInput();
+            
+            try {
+                switch (choice) {
+                    case 1:
+                        customerManagement();
+                        break;
+                    case 2:
+                        accountManagement();
+                        break;
+                    case 3:
+                        transactionManagement();
+                        break;
+                    case 4:
+                        loanManagement();
+                        break;
+                    case 5:
+                        viewBankStatistics();
+                        break;
+                    case 6:
+                        searchFunctionality();
+                        break;
+                    case 7:
+                        generateReports();
+                        break;
+                    case 8:
+                        interestCalculation();
+                        break;
+                    case 9:
+                        running = false;
+                        System.out.println("Thank you for using Banking Management System!");
+                        break;
+                    default:
+                        System.out.println("Invalid choice! Please try again.");
+                }
+            } catch (UncheckedIOException e) {
+                // The journal failed: the change was not saved and no further change will be
+                System.out.println("Error: " + e.getMessage() + ". The bank is read-only until it is restarted.");
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage()); // input BankingEngine refuses, such as an amount out of range
+            }
+        }
+        scanner.close();
+        closeBank(snapshots);
+    }
+
+    // Restores the latest snapshot plus the journal tail, or starts from sample data on first run
+    public static SnapshotManager openBank() {
+        Path journalPath = Paths.get(System.getProperty("bank.journal", "bank.journal"));
+        Path snapshotPath = Paths.get(System.getProperty("bank.snapshot", "bank.snapshot"));
+        SnapshotManager snapshots = new SnapshotManager(snapshotPath, journalPath);
+        long tierDays = Long.getLong("bank.tier.days", 90);
+        Path tierPath = Paths.get(System.getProperty("bank.tier.dir", "bank.tier"));
+        try {
+            long start = System.nanoTime();
+            if (tierDays > 0) {
+                openTierSegments(tierPath);
+            }
+            BankSnapshot state = snapshots.recover(BankingManagementSystem::recordTransaction);
+            if (!transactions.finishRecovery()) {
+                // Statistics already counted every recovered row; only the store is refilled
+                System.out.println("Segment files in " + tierPath + " do not match the journal; rebuilding them");
+                transactions = new TransactionStore();
+                snapshots.recover(transactions::append);
+            }
+            installState(state);
+            journal = TransactionJournal.open(journalPath);
+            if (customers.isEmpty() && accounts.isEmpty() && transactions.isEmpty()) {
+                initializeSampleData();
+            } else {
+                System.out.println("Restored " + customers.size() + " customers, " + accounts.size() + " accounts, "
+                    + transactions.size() + " transactions in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        } catch (IOException e) {
+            System.out.println("Error restoring from " + snapshotPath + " / " + journalPath + ": " + e.getMessage());
+            return null;
+        }
+        snapshots.start(journal, Long.getLong("bank.snapshot.minutes", 15));
+        OperationMetrics.registerMBeans();
+        long metricsSeconds = Long.getLong("bank.metrics.dump.seconds", 60);
+        if (metricsSeconds > 0) {
+            OperationMetrics.startDump(Paths.get(System.getProperty("bank.metrics.file", "bank.metrics.log")),
+                metricsSeconds);
+        }
+        if (tierDays > 0) {
+            try {
+                transactions.startTiering(tierPath, tierDays * 24 * 60 * 60 * 1000L, 60);
+            } catch (IOException e) {
+                System.out.println("Old transactions stay in memory; cannot use " + tierPath + ": " + e.getMessage());
+            }
+        }
+        return snapshots;
+    }
+
+    // Maps the transaction pages an earlier run moved to segment files, so
+    // recovery does not append their rows again
+    private static void openTierSegments(Path tierPath) {
+        try {
+            int pages = transactions.openSegments(tierPath);
+            if (pages > 0) {
+                System.out.println("Mapped " + pages + " transaction segment files from " + tierPath);
+            }
+        } catch (IOException e) {
+            System.out.println("Old transactions are recovered into memory; cannot read " + tierPath + ": "
+                + e.getMessage());
+            transactions = new TransactionStore();
+        }
+    }
+
+    // Takes a final snapshot and closes the journal
+    public static void closeBank(SnapshotManager snapshots) {
+        transactions.stopTiering();
+        OperationMetrics.stopDump();
+        snapshots.snapshotNow();
+        snapshots.close();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        }
+    }
+
+    // Serves teller connections until the process is stopped (Ctrl+C or SIGTERM),
+    // then disconnects the tellers and closes the bank
+    public static void serveTellers(SnapshotManager snapshots, String host, int port) {
+        TellerServer server;
+        try {
+            server = TellerServer.start(InetAddress.getByName(host), port);
+        } catch (IOException e) {
+            System.out.println("Cannot listen on " + host + ":" + port + ": " + e.getMessage());
+            closeBank(snapshots);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.out.println("Error stopping teller server: " + e.getMessage());
+            }
+            closeBank(snapshots);
+            System.out.println("Teller server stopped after " + server.getRequestCount() + " requests");
+        }, "teller-shutdown"));
+        System.out.println("Serving tellers on " + host + ":" + server.getPort() + " (stop with Ctrl+C)");
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Posts a settlement file through the batch pipeline and reports throughput
+    public static boolean ingestBatchFile(String inputFile, String rejectFile) {
+        System.out.println("Ingesting " + inputFile + " (rejects -> " + rejectFile + ")");
+        try {
+            BatchIngestion.Result result = BatchIngestion.run(Paths.get(inputFile), Paths.get(rejectFile));
+            System.out.printf("Rows: %,d | Applied: %,d | Rejected: %,d | %,.0f rows/sec%n",
+                result.getRows(), result.getApplied(), result.getRejected(), result.getRowsPerSecond());
+            return true;
+        } catch (IOException e) {
+            System.out.println("Batch ingestion failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Batch ingestion interrupted.");
+        }
+        return false;
+    }
+
+    // Function 1: Display main menu
+    public static void displayMainMenu() {
+        System.out.println("\n=== BANKING MANAGEMENT SYSTEM ===");
+        System.out.println("1. Customer Management");
+        System.out.println("2. Account Management");
+        System.out.println("3. Transaction Management");
+        System.out.println("4. Loan Management");
+        System.out.println("5. Bank Statistics");
+        System.out.println("6. Search");
+        System.out.println("7. Reports");
+        System.out.println("8. Interest Calculation");
+        System.out.println("9. Exit");
+        System.out.println("================================");
+    }
+
+    // Function 2: Customer Management
+    public static void customerManagement() {
+        System.out.println("\n--- CUSTOMER MANAGEMENT ---");
+        System.out.println("1. Register New Customer");
+        System.out.println("2. View All Customers");
+        System.out.println("3. Find Customer by ID");
+        System.out.println("4. Update Customer Information");
+        System.out.println("5. View Customer Accounts");
+        System.out.println("6. Back to Main Menu");
+        System.out.print("Enter your choice: ");
+        
+        int choice = getIntInput();
+        switch (choice) {
+            case 1:
+                registerNewCustomer();
+                break;
+            case 2:
+                viewAllCustomers();
+                break;
+            case 3:
+                findCustomerById();
+                break;
+            case 4:
+                updateCustomerInfo();
+                break;
+            case 5:
+                viewCustomerAccounts();
+                break;
+            case 6:
+                return;
+            default:
+                System.out.println("Invalid choice!");
+        }
+    }
+
+    // Function 3: Register New Customer
+    public static void registerNewCustomer() {
+        System.out.println("\n--- REGISTER NEW CUSTOMER ---");
+        
+        System.out.print("First Name: ");
+        String firstName = scanner.nextLine();
+        
+        System.out.print("Last Name: ");
+        String lastName = scanner.nextLine();
+        
+        System.out.print("Email: ");
+        String email = scanner.nextLine();
+        
+        System.out.print("Phone: ");
+        String phone = scanner.nextLine();
+        
+        System.out.print("Address: ");
+        String address = scanner.nextLine();
+        
+        System.out.print("Aadhaar/PAN Number: ");
+        String idNumber = scanner.nextLine();
+        
+        Date dob = null;
+        while (dob == null) {
+            System.out.print("Date of Birth (YYYY-MM-DD): ");
+            String dobStr = scanner.nextLine();
+            try {
+                dob = dateFormat.parse(dobStr);
+            } catch (Exception e) {
+                System.out.println("Invalid date format! Please use YYYY-MM-DD.");
+            }
+        }
+        
+        System.out.print("Customer Type (Regular/Premium/VIP): ");
+        String customerType = scanner.nextLine();
+        
+        BankingEngine.OperationResult<Customer> result = BankingEngine.registerCustomer(firstName, lastName, email,
+            phone, address, idNumber, dob, customerType);
+        if (!result.isSuccess()) {
+            System.out.println(result.getError());
+            return;
+        }
+        Customer customer = result.getValue();
+        
+        System.out.println("Customer registered successfully!");
+        System.out.println("Customer ID: " + customer.getCustomerId());
+        
+        // Automatically create a savings account for new customer
+        createAccountForCustomer(customer.getCustomerId());
+    }
+
+    // Function 4: Create account for new customer
+    public static void createAccountForCustomer(int customerId) {
+        BankingEngine.OperationResult<Account> result = BankingEngine.openAccount(customerId, "Savings", 0);
+        if (!result.isSuccess()) {
+            System.out.println("Savings account not created: " + result.getError());
+            return;
+        }
+        System.out.println("Savings account created: " + result.getValue().getAccountNumber());
+    }
+
+    // Function 5: Generate unique account number
+    public static String generateAccountNumber() {
+        return "ACC" + accountNumbers.next();
+    }
+
+    // Function 6: View All Customers
+    public static void viewAllCustomers() {
+        System.out.println("\n--- ALL CUSTOMERS ---");
+        if (customers.isEmpty()) {
+            System.out.println("No customers registered.");
+            return;
+        }
+        
+        System.out.printf("%-6s %-15s %-15s %-20s %-15s %-12s%n", 
+            "ID", "First Name", "Last Name", "Email", "Phone", "Type");
+        System.out.println("--------------------------------------------------------------------------------");
+        
+        printLines(customers, (renderer, customer) -> renderCustomerRow(renderer, customer));
+        System.out.println("\nTotal customers: " + customers.size());
+    }
+
+    // Function 7: Account Management
+    public static void accountManagement() {
+        System.out.println("\n--- ACCOUNT MANAGEMENT ---");
+        System.out.println("1. View All Accounts");
+        System.out.println("2. Open New Account");
+        System.out.println("3. Close Account");
+        System.out.println("4. View Account Details");
+        System.out.println("5. View Account Statement");
+        System.out.println("6. View Monthly Statement");
+        System.out.println("7. Back to Main Menu");
+        System.out.print("Enter your choice: ");
+        
+        int choice = getIntInput();
+        switch (choice) {
+            case 1:
+                viewAllAccounts();
+                break;
+            case 2:
+                openNewAccount();
+                break;
+            case 3:
+                closeAccount();
+                break;
+            case 4:
+                viewAccountDetails();
+                break;
+            case 5:
+                viewAccountStatement();
+                break;
+            case 6:
+                viewMonthlyStatement();
+                break;
+            case 7:
+                return;
+            default:
+                System.out.println("Invalid choice!");
+        }
+    }
+
+    // Function 8: View All Accounts
+    public static void viewAllAccounts() {
+        System.out.println("\n--- ALL ACCOUNTS ---");
+        if (accounts.isEmpty()) {
+            System.out.println("No accounts available.");
+            return;
+        }
+        
+        System.out.printf("%-15s %-8s %-10s %-15s %-10s %-12s%n", 
+            "Account No", "Cust ID", "Type", "Balance", "Interest", "Status");
+        System.out.println("------------------------------------------------------------------------");
+        
+        printLines(accounts, (renderer, account) -> renderer.text(account.getAccountNumber(), 15).text(" ")
+            .number(account.getCustomerId(), 8).text(" ").text(account.getAccountType(), 10).text(" ₹")
+            .rupees(account.getBalancePaise(), 14).text(" ").fixed2(account.getInterestRate(), 10).text("% ")
+            .text(account.getStatus(), 12));
+        System.out.println("\nTotal accounts: " + accounts.size());
+    }
+
+    // Function 9: Transaction Management
+    public static void transactionManagement() {
+        System.out.println("\n--- TRANSACTION MANAGEMENT ---");
+        System.out.println("1. Deposit Money");
+        System.out.println("2. Withdraw Money");
+        System.out.println("3. Transfer Funds");
+        System.out.println("4. View All Transactions");
+        System.out.println("5. View Transaction History");
+        System.out.println("6. Back to Main Menu");
+        System.out.print("Enter your choice: ");
+        
+        int choice = getIntInput();
+        switch (choice) {
+            case 1:
+                depositMoney();
+                break;
+            case 2:
+                withdrawMoney();
+                break;
+            case 3:
+                transferFunds();
+                break;
+            case 4:
+                viewAllTransactions();
+                break;
+            case 5:
+                viewTransactionHistory();
+                break;
+            case 6:
+                return;
+            default:
+                System.out.println("Invalid choice!");
+        }
+    }
+
+    // Function 10: Deposit Money
+    public static void depositMoney() {
+        System.out.println("\n--- DEPOSIT MONEY ---");
+        
+        System.out.print("Enter Account Number: ");
+        String accountNumber = scanner.nextLine();
+        
+        if (findAccountByNumber(accountNumber).isEmpty()) {
+            System.out.println("Account not found!");
+            return;
+        }
+        
+        System.out.print("Enter deposit amount: ₹");
+        double amount = getDoubleInput();
+        
+        BankingEngine.OperationResult<Transaction> result = BankingEngine.deposit(accountNumber, amount);
+        if (result.isSuccess()) {
+            Transaction transaction = result.getValue();
+            double newBalance = transaction.getBalanceAfter();
+            
+            System.out.println("Deposit successful!");
+            System.out.println("Old Balance: ₹" + currencyFormat.format(newBalance - transaction.getAmount()));
+            System.out.println("Amount Deposited: ₹" + currencyFormat.format(amount));
+            System.out.println("New Balance: ₹" + currencyFormat.format(newBalance));
+            System.out.println("Transaction ID: " + transaction.getTransactionId());
+        } else {
+            System.out.println(result.getError());
+        }
+    }
+
+    // Function 11: Withdraw Money
+    public static void withdrawMoney() {
+        System.out.println("\n--- WITHDRAW MONEY ---");
+        
+        System.out.print("Enter Account Number: ");
+        String accountNumber = scanner.nextLine();
+        
+        if (findAccountByNumber(accountNumber).isEmpty()) {
+            System.out.println("Account not found!");
+            return;
+        }
+        
+        System.out.print("Enter withdrawal amount: ₹");
+        double amount = getDoubleInput();
+        
+        BankingEngine.OperationResult<Transaction> result = BankingEngine.withdraw(accountNumber, amount);
+        if (result.isSuccess()) {
+            Transaction transaction = result.getValue();
+            double newBalance = transaction.getBalanceAfter();
+            
+            System.out.println("Withdrawal successful!");
+            System.out.println("Old Balance: ₹" + currencyFormat.format(newBalance + transaction.getAmount()));
+            System.out.println("Amount Withdrawn: ₹" + currencyFormat.format(amount));
+            System.out.println("New Balance: ₹" + currencyFormat.format(newBalance));
+            System.out.println("Transaction ID: " + transaction.getTransactionId());
+        } else {
+            System.out.println(result.getError());
+        }
+    }
+
+    // Function 12: Transfer Funds
+    public static void transferFunds() {
+        System.out.println("\n--- TRANSFER FUNDS ---");
+        
+        System.out.print("Enter Source Account Number: ");
+        String sourceAccountNumber = scanner.nextLine();
+        
+        if (findAccountByNumber(sourceAccountNumber).isEmpty()) {
+            System.out.println("Source account not found!");
+            return;
+        }
+        
+        System.out.print("Enter Target Account Number: ");
+        String targetAccountNumber = scanner.nextLine();
+        
+        if (findAccountByNumber(targetAccountNumber).isEmpty()) {
+            System.out.println("Target account not found!");
+            return;
+        }
+        
+        if (sourceAccountNumber.equals(targetAccountNumber)) {
+            System.out.println("Cannot transfer to the same account!");
+            return;
+        }
+        
+        System.out.print("Enter transfer amount: ₹");
+        double amount = getDoubleInput();
+        
+        // Posts one transaction for the source account and one for the target account
+        BankingEngine.OperationResult<Transaction[]> result =
+            BankingEngine.transfer(sourceAccountNumber, targetAccountNumber, amount);
+        if (result.isSuccess()) {
+            Transaction[] posted = result.getValue();
+            Transaction sourceTransaction = posted[0];
+            double sourceNewBalance = sourceTransaction.getBalanceAfter();
+            double targetNewBalance = posted[1].getBalanceAfter();
+            
+            System.out.println("Transfer successful!");
+            System.out.println("Amount Transferred: ₹" + currencyFormat.format(amount));
+            System.out.println("From Account: " + sourceAccountNumber + " | New Balance: ₹" + currencyFormat.format(sourceNewBalance));
+            System.out.println("To Account: " + targetAccountNumber + " | New Balance: ₹" + currencyFormat.format(targetNewBalance));
+            System.out.println("Transaction ID: " + sourceTransaction.getTransactionId());
+        } else {
+            System.out.println(result.getError());
+        }
+    }
+
+    // Function 13: Loan Management
+    public static void loanManagement() {
+        System.out.println("\n--- LOAN MANAGEMENT ---");
+        System.out.println("1. Apply for Loan");
+        System.out.println("2. View All Loans");
+        System.out.println("3. Approve Loan");
+        System.out.println("4. Disburse Loan");
+        System.out.println("5. Make Loan Payment");
+        System.out.println("6. View Loan Details");
+        System.out.println("7. View Amortization Schedule");
+        System.out.println("8. Back to Main Menu");
+        System.out.print("Enter your choice: ");
+        
+        int choice = getIntInput();
+        switch (choice) {
+            case 1:
+                applyForLoan();
+                break;
+            case 2:
+                viewAllLoans();
+                break;
+            case 3:
+                approveLoan();
+                break;
+            case 4:
+                disburseLoan();
+                break;
+            case 5:
+                makeLoanPayment();
+                break;
+            case 6:
+                viewLoanDetails();
+                break;
+            case 7:
+                viewAmortizationSchedule();
+                break;
+            case 8:
+                return;
+            default:
+                System.out.println("Invalid choice!");
+        }
+    }
+
+    // Function 14: Apply for Loan
+    public static void applyForLoan() {
+        System.out.println("\n--- APPLY FOR LOAN ---");
+        
+        System.out.print("Enter Customer ID: ");
+        int customerId = getIntInput();
+        
+        Optional<Customer> customer = findCustomerById(customerId);
+            
+        if (customer.isEmpty()) {
+            System.out.println("Customer not found!");
+            return;
+        }
+        
+        System.out.print("Loan Type (Personal/Home/Auto/Business/Education): ");
+        String loanType = scanner.nextLine();
+        
+        System.out.print("Loan Amount: ₹");
+        double loanAmount = getDoubleInput();
+        
+        System.out.print("Term (months): ");
+        int termMonths = getIntInput();
+        
+        // Interest rate is determined by the loan type (Indian rates)
+        BankingEngine.OperationResult<Loan> result = BankingEngine.applyForLoan(customerId, loanType, loanAmount, termMonths);
+        if (!result.isSuccess()) {
+            System.out.println(result.getError());
+            return;
+        }
+        Loan loan = result.getValue();
+        
+        System.out.println("Loan application submitted successfully!");
+        System.out.println("Loan ID: " + loan.getLoanId());
+        System.out.println("Estimated Monthly Payment: ₹" + currencyFormat.format(loan.calculateMonthlyPayment()));
+    }
+
+    // Function 15: Determine interest rate based on loan type (Indian rates)
+    public static double determineInterestRate(String loanType) {
+        return loanRates.getOrDefault(loanType.toLowerCase(), 11.0);
+    }
+
+    // Sets the rate of a known loan type for new applications; false for an unknown type
+    public static boolean setLoanRate(String loanType, double interestRate) {
+        return loanRates.replace(loanType.toLowerCase(), interestRate) != null;
+    }
+
+    // Function 16: Bank Statistics
+    public static void viewBankStatistics() {
+        OperationMetrics.BANK_STATISTICS.time(() -> {
+            System.out.println("\n=== BANK STATISTICS ===");
+        
+            System.out.println("Total Customers: " + customers.size());
+            System.out.println("Total Accounts: " + accounts.size());
+            System.out.println("Total Loans: " + loans.size());
+            System.out.println("Total Transactions: " + transactions.size());
+        
+            // Aggregates are maintained incrementally by BankStatistics
+            System.out.println("Active Accounts: " + BankStatistics.getActiveAccounts());
+            System.out.println("Total Bank Deposits: ₹" + currencyFormat.format(BankStatistics.getTotalDepositsPaise() / 100.0));
+            System.out.println("Active Loans: " + BankStatistics.getActiveLoans());
+            System.out.println("Total Loan Amount: ₹" + currencyFormat.format(BankStatistics.getTotalLoanAmountPaise() / 100.0));
+        
+            // Accounts by type
+            System.out.println("\nAccounts by Type:");
+            BankStatistics.getAccountsByType().forEach((type, count) -> 
+                System.out.println("  " + type + ": " + count));
+        
+            // Customers by type
+            System.out.println("\nCustomers by Type:");
+            BankStatistics.getCustomersByType().forEach((type, count) -> 
+                System.out.println("  " + type + ": " + count));
+        
+            // Recent transactions count
+            System.out.println("Transactions (last 7 days): " + BankStatistics.getRecentTransactions());
+        });
+    }
+
+    // Function 17: Search Functionality
+    public static void searchFunctionality() {
+        System.out.println("\n--- SEARCH ---");
+        System.out.println("1. Search Customers by Name");
+        System.out.println("2. Search Accounts by Customer");
+        System.out.println("3. Search Transactions by Account");
+        System.out.println("4. Search Transactions by Date Range");
+        System.out.println("5. Back to Main Menu");
+        System.out.print("Enter your choice: ");
+        
+        int choice = getIntInput();
+        switch (choice) {
+            case 1:
+                searchCustomersByName();
+                break;
+            case 2:
+                searchAccountsByCustomer();
+                break;
+            case 3:
+                searchTransactionsByAccount();
+                break;
+            case 4:
+                searchTransactionsByDate();
+                break;
+            case 5:
+                return;
+            default:
+                System.out.println("Invalid choice!");
+        }
+    }
+
+    // Function 18: Generate Reports
+    public static void generateReports() {
+        System.out.println("\n--- REPORTS ---");
+        System.out.println("1. Customer Report");
+        System.out.println("2. Account Summary Report");
+        System.out.println("3. Transaction Report");
+        System.out.println("4. Loan Portfolio Report");
+        System.out.println("5. Statistics Consistency Check");
+        System.out.println("6. Export Report to File");
+        System.out.println("7. Loan Portfolio Projection");
+        System.out.println("8. Back to Main Menu");
+        System.out.print("Enter your choice: ");
+        
+        int choice = getIntInput();
+        switch (choice) {
+            case 1:
+                generateCustomerReport();
+                break;
+            case 2:
+                generateAccountSummaryReport();
+                break;
+            case 3:
+                generateTransactionReport();
+                break;
+            case 4:
+                generateLoanPortfolioReport();
+                break;
+            case 5:
+                checkStatistics();
+                break;
+            case 6:
+                exportReport();
+                break;
+            case 7:
+                generateLoanProjectionReport();
+                break;
+            case 8:
+                return;
+            default:
+                System.out.println("Invalid choice!");
+        }
+    }
+
+    public static boolean checkStatistics() {
+        return OperationMetrics.STATISTICS_CHECK.time(() -> {
+            System.out.println("\n=== STATISTICS CONSISTENCY CHECK ===");
+            boolean consistent = BankStatistics.check(customers, accounts, loans, transactions);
+            consistent &= PortfolioProjection.check(getLoanTable());
+            System.out.println(consistent ? "All counters match a full recomputation." : "Counters differ from a full recomputation!");
+            return consistent;
+        });
+    }
+
+    // Function 19: Interest Calculation
+    public static void interestCalculation() {
+        System.out.println("\n--- INTEREST CALCULATION ---");
+        System.out.println("1. Calculate Account Interest");
+        System.out.println("2. Calculate Loan Interest");
+        System.out.println("3. Apply Monthly Interest");
+        System.out.println("4. Change Loan Rate");
+        System.out.println("5. Back to Main Menu");
+        System.out.print("Enter your choice: ");
+        
+        int choice = getIntInput();
+        switch (choice) {
+            case 1:
+                calculateAccountInterest();
+                break;
+            case 2:
+                calculateLoanInterest();
+                break;
+            case 3:
+                applyMonthlyInterest();
+                break;
+            case 4:
+                changeLoanRate();
+                break;
+            case 5:
+                return;
+            default:
+                System.out.println("Invalid choice!");
+        }
+    }
+
+    // Helper methods
+    public static Optional<Account> findAccountByNumber(String accountNumber) {
+        return Optional.ofNullable(accountTable.view(accountNumber));
+    }
+
+    public static Optional<Customer> findCustomerById(int customerId) {
+        return Optional.ofNullable(customerIndex.get(customerId));
+    }
+
+    public static Optional<Loan> findLoanById(int loanId) {
+        return Optional.ofNullable(loanIndex.get(loanId));
+    }
+
+    public static List<Account> findAccountsByCustomer(int customerId) {
+        List<Account> owned = new ArrayList<>();
+        for (int record = 0, end = accountTable.size(); record < end; record++) {
+            if (accountTable.getCustomerId(record) == customerId) {
+                owned.add(accountTable.view(record));
+            }
+        }
+        return owned;
+    }
+
+    public static void registerCustomer(Customer customer) {
+        CompletableFuture<Void> durable = journalCustomer(customer);
+        customers.add(customer);
+        customerIndex.put(customer.getCustomerId(), customer);
+        customerNames.add(customer.getCustomerId(), customer.getFullName());
+        BankStatistics.onCustomerAdded(customer);
+        awaitDurable(durable);
+    }
+
+    // Moves a renamed customer in the name index (a no-op when the name is unchanged)
+    public static void reindexCustomerName(int customerId, String oldFullName, String newFullName) {
+        if (!oldFullName.equals(newFullName)) {
+            customerNames.update(customerId, oldFullName, newFullName);
+        }
+    }
+
+    // Copies an account into the account table and returns its view there; the
+    // object passed in is not the account afterwards, so callers carry on with the view
+    public static Account registerAccount(Account account) {
+        // A type the table would refuse must fail here, before the journal holds an account that was never stored
+        accountTable.registerType(account.getAccountType());
+        // Journal the opening balance before the account becomes visible to deposits
+        CompletableFuture<Void> durable = journal == null ? null
+            : journal.append(TransactionJournal.ACCOUNT, out -> EntityCodec.writeAccount(out, account));
+        Account stored = accountTable.view(accountTable.add(account));
+        BankStatistics.onAccountAdded(stored);
+        awaitDurable(durable);
+        return stored;
+    }
+
+    public static void registerLoan(Loan loan) {
+        CompletableFuture<Void> durable = journalLoan(loan);
+        loans.add(loan);
+        loanIndex.put(loan.getLoanId(), loan);
+        BankStatistics.onLoanAdded(loan);
+        PortfolioProjection.onLoanAdded(loan);
+        awaitDurable(durable);
+    }
+
+    public static int nextCustomerId() {
+        return (int) customerIds.next();
+    }
+
+    // Copy of the loan list for bulk passes
+    public static Loan[] getLoanTable() {
+        synchronized (loans) {
+            return loans.toArray(new Loan[0]);
+        }
+    }
+
+    public static int nextLoanId() {
+        return (int) loanIds.next();
+    }
+
+    // Reserve contiguous ID blocks and return the first ID of the block
+    public static int reserveCustomerIds(int count) {
+        return (int) customerIds.reserve(count);
+    }
+
+    public static int reserveLoanIds(int count) {
+        return (int) loanIds.reserve(count);
+    }
+
+    public static int nextTransactionId() {
+        return (int) transactionIds.next();
+    }
+
+    public static int reserveTransactionIds(int count) {
+        return (int) transactionIds.reserve(count);
+    }
+
+    public static long reserveAccountNumbers(int count) {
+        return accountNumbers.reserve(count);
+    }
+
+    public static TransactionStore getTransactionStore() {
+        return transactions;
+    }
+
+    // Drops every recorded transaction; only for benchmarks that post repeatedly
+    static void resetTransactionStore() {
+        transactions = new TransactionStore();
+    }
+
+    // Records transactions and journals them together with the balance change
+    // (in paise) each one made; the caller waits on the result with awaitDurable
+    public static CompletableFuture<Void> postTransactions(long[] deltasPaise, Transaction... posted) {
+        for (int i = 0; i < posted.length; i++) {
+            recordTransaction(posted[i]);
+            BankStatistics.onBalanceChanged(deltasPaise[i]);
+        }
+        if (journal == null) {
+            return null;
+        }
+        return journal.append(TransactionJournal.POSTING, out -> {
+            out.writeInt(posted.length);
+            for (int i = 0; i < posted.length; i++) {
+                EntityCodec.writeTransaction(out, posted[i]);
+                out.writeLong(deltasPaise[i]);
+            }
+        });
+    }
+
+    public static CompletableFuture<Void> journalCustomer(Customer customer) {
+        return journal == null ? null
+            : journal.append(TransactionJournal.CUSTOMER, out -> EntityCodec.writeCustomer(out, customer));
+    }
+
+    public static CompletableFuture<Void> journalAccountStatus(Account account) {
+        return journal == null ? null
+            : journal.append(TransactionJournal.ACCOUNT_STATUS, out -> {
+                out.writeUTF(account.getAccountNumber());
+                out.writeUTF(account.getStatus());
+            });
+    }
+
+    private static void journalIdBlock(byte sequence, long end) {
+        if (journal != null) {
+            IdAllocator.journalBlock(journal, sequence, end);
+        }
+    }
+
+    public static CompletableFuture<Void> journalLoanRate(String loanType, double interestRate) {
+        return journal == null ? null
+            : journal.append(TransactionJournal.LOAN_RATE, out -> {
+                out.writeUTF(loanType.toLowerCase());
+                out.writeDouble(interestRate);
+            });
+    }
+
+    public static CompletableFuture<Void> journalLoan(Loan loan) {
+        return journal == null ? null
+            : journal.append(TransactionJournal.LOAN, out -> EntityCodec.writeLoan(out, loan));
+    }
+
+    // Blocks until a journaled change is on disk. Throws UncheckedIOException if
+    // the journal could not write it: the change is then in memory only, would be
+    // gone after a restart, and must not be reported as done.
+    public static void awaitDurable(CompletableFuture<Void> durable) {
+        if (durable == null) {
+            return;
+        }
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException("Change could not be written to the journal: "
+                    + e.getCause().getMessage(), (IOException) e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    // Once a journal write has failed the bank takes no more changes; every
+    // change checks this before it touches anything in memory
+    public static void requireWritable() {
+        TransactionJournal current = journal;
+        IOException failure = current == null ? null : current.getFailure();
+        if (failure != null) {
+            throw new UncheckedIOException("Changes are stopped, the journal failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    // Runs the bank against the given journal (null turns journaling off); for tests
+    static void setJournal(TransactionJournal journal) {
+        BankingManagementSystem.journal = journal;
+    }
+
+    // Installs recovered customers, accounts, loans, loan rates and ID counters (transactions
+    // were already recorded while the snapshot and journal were read)
+    private static void installState(BankSnapshot state) {
+        for (Customer customer : state.customers.values()) {
+            customers.add(customer);
+            customerIndex.put(customer.getCustomerId(), customer);
+            customerNames.add(customer.getCustomerId(), customer.getFullName());
+            BankStatistics.onCustomerAdded(customer);
+        }
+        for (Account account : state.accounts.values()) {
+            registerAccount(account);
+        }
+        for (Loan loan : state.loans.values()) {
+            loans.add(loan);
+            loanIndex.put(loan.getLoanId(), loan);
+            BankStatistics.onLoanAdded(loan);
+            PortfolioProjection.onLoanAdded(loan);
+        }
+        state.loanRates.forEach(BankingManagementSystem::setLoanRate);
+        customerIds.advanceTo(state.customerIdCounter);
+        transactionIds.advanceTo(state.transactionIdCounter);
+        loanIds.advanceTo(state.loanIdCounter);
+        accountNumbers.advanceTo(state.accountNumberMark);
+    }
+
+    // Appends a transaction to the columnar store (which also chains its account's ledger)
+    public static void recordTransaction(Transaction transaction) {
+        transactions.append(transaction);
+        BankStatistics.onTransaction(transaction.getTransactionDate().getTime());
+    }
+
+    // Same, from the fields of a transaction (bulk loading)
+    public static void recordTransaction(int transactionId, String accountNumber, String transactionType,
+                                         String description, long amountPaise, long balanceAfterPaise, long epochMillis) {
+        transactions.append(transactionId, accountNumber, null, transactionType, description, amountPaise,
+            balanceAfterPaise, epochMillis);
+        BankStatistics.onTransaction(epochMillis);
+    }
+
+    public static List<Transaction> getAccountLedger(String accountNumber) {
+        return transactions.forAccount(accountNumber);
+    }
+
+    public static int getIntInput() {
+        while (true) {
+            try {
+                int input = scanner.nextInt();
+                scanner.nextLine(); // Consume newline
+                return input;
+            } catch (Exception e) {
+                System.out.print("Invalid input! Please enter a number: ");
+                scanner.nextLine(); // Clear invalid input
+            }
+        }
+    }
+
+    public static double getDoubleInput() {
+        while (true) {
+            try {
+                double input = scanner.nextDouble();
+                scanner.nextLine(); // Consume newline
+                return input;
+            } catch (Exception e) {
+                System.out.print("Invalid input! Please enter a number: ");
+                scanner.nextLine(); // Clear invalid input
+            }
+        }
+    }
+
+    // Initialize with sample data (Indian context)
+    public static void initializeSampleData() {
+        try {
+            // Sample Indian customers
+            registerCustomer(new Customer(nextCustomerId(), "Raj", "Sharma", 
+                "raj.sharma@email.com", "9876543210", "123 MG Road, Mumbai", "AADHAAR1001", 
+                dateFormat.parse("1985-03-15"), "Premium"));
+            registerCustomer(new Customer(nextCustomerId(), "Priya", "Patel", 
+                "priya.patel@email.com", "9876543211", "456 Connaught Place, Delhi", "AADHAAR1002", 
+                dateFormat.parse("1990-07-22"), "Regular"));
+            registerCustomer(new Customer(nextCustomerId(), "Amit", "Kumar", 
+                "amit.kumar@email.com", "9876543212", "789 Brigade Road, Bangalore", "AADHAAR1003", 
+                dateFormat.parse("1978-11-30"), "VIP"));
+
+            // Sample accounts with Indian interest rates
+            String salaryAccount = generateAccountNumber();
+            registerAccount(new Account(salaryAccount, 1001, "Savings", 50000.00, 3.5));   // Savings account interest
+            registerAccount(new Account(generateAccountNumber(), 1001, "Current", 25000.00, 0.0));   // Current account no interest
+            registerAccount(new Account(generateAccountNumber(), 1002, "Savings", 30000.00, 3.5));
+            registerAccount(new Account(generateAccountNumber(), 1003, "Fixed Deposit", 100000.00, 6.5)); // FD interest rate
+
+            // Sample transactions (already included in the opening balance above)
+            awaitDurable(postTransactions(new long[] { 0, 0 },
+                new Transaction(nextTransactionId(), salaryAccount, 
+                    "Deposit", 10000.00, "Initial deposit", 10000.00),
+                new Transaction(nextTransactionId(), salaryAccount, 
+                    "Deposit", 40000.00, "Salary credit", 50000.00)));
+
+            // Sample loans with Indian interest rates
+            Loan loan1 = new Loan(nextLoanId(), 1001, "Personal", 50000.00, 10.5, 24);
+            loan1.setStatus("Active");
+            registerLoan(loan1);
+
+            System.out.println("Sample banking data initialized successfully!");
+            System.out.println("All amounts are in Indian Rupees (₹)");
+        } catch (Exception e) {
+            System.out.println("Error initializing sample data: " + e.getMessage());
+        }
+    }
+
+    // Implemented methods
+    public static void findCustomerById() {
+        System.out.print("Enter Customer ID: ");
+        int id = getIntInput();
+        findCustomerById(id)
+                .ifPresentOrElse(
+                    System.out::println,
+                    () -> System.out.println("Customer not found!")
+                );
+    }
+
+    public static void viewAllTransactions() {
+        System.out.println("\n--- ALL TRANSACTIONS ---");
+        if (transactions.isEmpty()) {
+            System.out.println("No transactions found.");
+            return;
+        }
+        EntityRenderer renderer = EntityRenderer.get();
+        for (int row = 0, end = transactions.size(); row < end; row++) {
+            renderer.transaction(transactions, row).newLine().flushIfFull(System.out);
+        }
+        renderer.flush(System.out);
+    }
+
+    public static void viewAllLoans() {
+        System.out.println("\n--- ALL LOANS ---");
+        if (loans.isEmpty()) {
+            System.out.println("No loans found.");
+            return;
+        }
+        printLines(loans, EntityRenderer::loan);
+    }
+
+    // Renders one line per item through this thread's renderer and writes them out in batches
+    private static <T> void printLines(Iterable<T> items, BiConsumer<EntityRenderer, T> renderLine) {
+        EntityRenderer renderer = EntityRenderer.get();
+        for (T item : items) {
+            renderLine.accept(renderer, item);
+            renderer.newLine().flushIfFull(System.out);
+        }
+        renderer.flush(System.out);
+    }
+
+    private static void printTransactionRows(int[] rows) {
+        EntityRenderer renderer = EntityRenderer.get();
+        for (int row : rows) {
+            renderer.transaction(transactions, row).newLine().flushIfFull(System.out);
+        }
+        renderer.flush(System.out);
+    }
+
+    // "%-6d %-15s %-15s %-20s %-15s %-12s" as in the customer list and report
+    private static EntityRenderer renderCustomerRow(EntityRenderer renderer, Customer customer) {
+        return renderer.number(customer.getCustomerId(), 6).text(" ").text(customer.getFirstName(), 15).text(" ")
+            .text(customer.getLastName(), 15).text(" ").text(customer.getEmail(), 20).text(" ")
+            .text(customer.getPhone(), 15).text(" ").text(customer.getCustomerType(), 12);
+    }
+
+    public static void searchCustomersByName() {
+        System.out.print("Enter customer name to search: ");
+        List<Customer> results = findCustomersByName(scanner.nextLine());
+        System.out.println("Found " + results.size() + " customers:");
+        printLines(results, EntityRenderer::customer);
+    }
+
+    public static List<Customer> findCustomersByName(String name) {
+        return findCustomersByName(name, Integer.MAX_VALUE);
+    }
+
+    // Customers whose full name contains the given text, ignoring case, at most limit of them.
+    // Queries of three or more characters go through the trigram index; shorter ones scan.
+    public static List<Customer> findCustomersByName(String name, int limit) {
+        if (CustomerNameIndex.canSearch(name)) {
+            return customerNames.search(name, limit);
+        }
+        String lowerName = CustomerNameIndex.lowerCase(name);
+        synchronized (customers) {
+            return customers.stream()
+                .filter(c -> CustomerNameIndex.matches(c, lowerName))
+                .limit(limit)
+                .collect(Collectors.toList());
+        }
+    }
+
+    // Other implemented methods (same as before but with ₹ symbol)
+    public static void updateCustomerInfo() {
+        System.out.print("Enter Customer ID to update: ");
+        int customerId = getIntInput();
+        
+        Optional<Customer> customer = findCustomerById(customerId);
+            
+        if (customer.isPresent()) {
+            System.out.println("Current Information:");
+            System.out.println("1. First Name: " + customer.get().getFirstName());
+            System.out.println("2. Last Name: " + customer.get().getLastName());
+            System.out.println("3. Phone: " + customer.get().getPhone());
+            System.out.println("4. Email: " + customer.get().getEmail());
+            System.out.println("5. Address: " + customer.get().getAddress());
+            System.out.println("6. Customer Type: " + customer.get().getCustomerType());
+            
+            System.out.print("Enter field number to update (1-6): ");
+            int field = getIntInput();
+            
+            String[] fields = { "first", "last", "phone", "email", "address", "type" };
+            String[] prompts = { "First Name", "Last Name", "Phone", "Email", "Address", "Customer Type" };
+            if (field < 1 || field > fields.length) {
+                System.out.println("Invalid field number!");
+                return;
+            }
+            System.out.print("Enter new " + prompts[field - 1] + ": ");
+            BankingEngine.OperationResult<Customer> result =
+                BankingEngine.updateCustomer(customerId, fields[field - 1], scanner.nextLine());
+            System.out.println(result.isSuccess() ? "Customer information updated successfully!" : result.getError());
+        } else {
+            System.out.println("Customer not found!");
+        }
+    }
+
+    public static void viewCustomerAccounts() {
+        System.out.print("Enter Customer ID: ");
+        int customerId = getIntInput();
+        
+        List<Account> customerAccounts = findAccountsByCustomer(customerId);
+            
+        if (customerAccounts.isEmpty()) {
+            System.out.println("No accounts found for this customer.");
+        } else {
+            System.out.println("Accounts for Customer ID " + customerId + ":");
+            printLines(customerAccounts, EntityRenderer::account);
+        }
+    }
+
+    public static void openNewAccount() {
+        System.out.print("Enter Customer ID: ");
+        int customerId = getIntInput();
+        
+        Optional<Customer> customer = findCustomerById(customerId);
+            
+        if (customer.isEmpty()) {
+            System.out.println("Customer not found!");
+            return;
+        }
+        
+        System.out.print("Account Type (Savings/Current/Fixed Deposit/Recurring Deposit): ");
+        String accountType = scanner.nextLine();
+        
+        System.out.print("Initial Deposit: ₹");
+        double initialDeposit = getDoubleInput();
+        
+        BankingEngine.OperationResult<Account> result = BankingEngine.openAccount(customerId, accountType, initialDeposit);
+        if (!result.isSuccess()) {
+            System.out.println(result.getError());
+            return;
+        }
+        String accountNumber = result.getValue().getAccountNumber();
+        
+        System.out.println("Account created successfully!");
+        System.out.println("Account Number: " + accountNumber);
+        System.out.println("Account Type: " + result.getValue().getAccountType());
+        System.out.println("Initial Balance: ₹" + currencyFormat.format(initialDeposit));
+    }
+
+    public static void closeAccount() {
+        System.out.print("Enter Account Number to close: ");
+        String accountNumber = scanner.nextLine();
+        
+        BankingEngine.OperationResult<Account> result = BankingEngine.closeAccount(accountNumber);
+        System.out.println(result.isSuccess() ? "Account closed successfully!" : result.getError());
+    }
+
+    public static void viewAccountDetails() {
+        System.out.print("Enter Account Number: ");
+        String accountNumber = scanner.nextLine();
+        
+        Optional<Account> account = findAccountByNumber(accountNumber);
+        if (account.isPresent()) {
+            Optional<Customer> customer = findCustomerById(account.get().getCustomerId());
+                
+            System.out.println("\n--- ACCOUNT DETAILS ---");
+            System.out.println("Account Number: " + account.get().getAccountNumber());
+            System.out.println("Account Type: " + account.get().getAccountType());
+            System.out.println("Balance: ₹" + currencyFormat.format(account.get().getBalance()));
+            System.out.println("Interest Rate: " + account.get().getInterestRate() + "%");
+            System.out.println("Status: " + account.get().getStatus());
+            customer.ifPresent(c -> System.out.println("Customer: " + c.getFullName()));
+        } else {
+            System.out.println("Account not found!");
+        }
+    }
+
+    public static void viewAccountStatement() {
+        System.out.print("Enter Account Number: ");
+        String accountNumber = scanner.nextLine();
+        printAccountStatement(accountNumber);
+    }
+
+    public static void printAccountStatement(String accountNumber) {
+        int[] rows = transactions.rowsForAccount(accountNumber);
+            
+        if (rows.length == 0) {
+            System.out.println("No transactions found for this account.");
+        } else {
+            System.out.println("Transaction History for Account: " + accountNumber);
+            printTransactionRows(rows);
+        }
+    }
+
+    public static void viewMonthlyStatement() {
+        System.out.print("Enter Account Number: ");
+        String accountNumber = scanner.nextLine();
+        System.out.print("Enter month (yyyy-MM): ");
+        YearMonth month;
+        try {
+            month = YearMonth.parse(scanner.nextLine().trim());
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid month format!");
+            return;
+        }
+        int[] rows = getStatementRows(accountNumber, month.atDay(1), month.atEndOfMonth());
+        if (rows.length == 0) {
+            System.out.println("No transactions found for this account in " + month + ".");
+        } else {
+            System.out.println("Statement for Account " + accountNumber + ", " + month + ":");
+            printTransactionRows(rows);
+        }
+    }
+
+    // Credits the period's interest to every account in the bank: InterestEngine works on views over the account table
+    public static InterestEngine.Result runMonthlyInterest(YearMonth period) {
+        return InterestEngine.run(accounts.toArray(new Account[0]), period);
+    }
+
+    // One account's transactions within a calendar month (local time), oldest first
+    public static List<Transaction> getAccountStatement(String accountNumber, YearMonth month) {
+        return transactions.forAccountBetween(accountNumber, startOfDay(month.atDay(1)),
+            startOfDay(month.plusMonths(1).atDay(1)));
+    }
+
+    // Store rows of one account's transactions from the first day to the last (inclusive, local time), oldest first
+    public static int[] getStatementRows(String accountNumber, LocalDate from, LocalDate to) {
+        return transactions.rowsForAccountBetween(accountNumber, startOfDay(from), startOfDay(to.plusDays(1)));
+    }
+
+    // A copy of the loan book, for reports
+    public static List<Loan> getLoans() {
+        synchronized (loans) {
+            return new ArrayList<>(loans);
+        }
+    }
+
+    // Bank-wide transactions stamped in [fromMillis, toMillis)
+    public static List<Transaction> getTransactionsBetween(long fromMillis, long toMillis) {
+        return transactions.between(fromMillis, toMillis);
+    }
+
+    private static long startOfDay(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public static void viewTransactionHistory() {
+        System.out.print("Enter Account Number: ");
+        String accountNumber = scanner.nextLine();
+        printAccountStatement(accountNumber); // Reuse the same functionality
+    }
+
+    public static void approveLoan() {
+        System.out.print("Enter Loan ID to approve: ");
+        int loanId = getIntInput();
+        
+        BankingEngine.OperationResult<Loan> result = BankingEngine.approveLoan(loanId);
+        System.out.println(result.isSuccess() ? "Loan approved successfully!" : result.getError());
+    }
+
+    public static void disburseLoan() {
+        System.out.print("Enter Loan ID to disburse: ");
+        int loanId = getIntInput();
+        
+        BankingEngine.OperationResult<Loan> result = BankingEngine.disburseLoan(loanId);
+        System.out.println(result.isSuccess() ? "Loan disbursed successfully!" : result.getError());
+    }
+
+    public static void makeLoanPayment() {
+        System.out.print("Enter Loan ID: ");
+        int loanId = getIntInput();
+        
+        Optional<Loan> loan = findLoanById(loanId);
+            
+        if (loan.isPresent() && "Active".equals(loan.get().getStatus())) {
+            double monthlyPayment = loan.get().calculateMonthlyPayment();
+            System.out.println("Monthly Payment: ₹" + currencyFormat.format(monthlyPayment));
+            System.out.print("Enter payment amount: ₹");
+            double payment = getDoubleInput();
+            
+            BankingEngine.OperationResult<Loan> result = BankingEngine.makeLoanPayment(loanId, payment);
+            if (result.isSuccess()) {
+                System.out.println("Payment successful!");
+                System.out.println("Remaining Balance: ₹" + currencyFormat.format(loan.get().getRemainingBalance()));
+                
+                if ("Paid".equals(loan.get().getStatus())) {
+                    System.out.println("Loan fully paid!");
+                }
+            } else {
+                System.out.println(result.getError());
+            }
+        } else {
+            System.out.println("Loan not found or not active!");
+        }
+    }
+
+    public static void viewLoanDetails() {
+        System.out.print("Enter Loan ID: ");
+        int loanId = getIntInput();
+        
+        Optional<Loan> loan = findLoanById(loanId);
+            
+        if (loan.isPresent()) {
+            Optional<Customer> customer = findCustomerById(loan.get().getCustomerId());
+                
+            System.out.println("\n--- LOAN DETAILS ---");
+            System.out.println("Loan ID: " + loan.get().getLoanId());
+            System.out.println("Loan Type: " + loan.get().getLoanType());
+            System.out.println("Loan Amount: ₹" + currencyFormat.format(loan.get().getLoanAmount()));
+            System.out.println("Remaining Balance: ₹" + currencyFormat.format(loan.get().getRemainingBalance()));
+            System.out.println("Interest Rate: " + loan.get().getInterestRate() + "%");
+            System.out.println("Term: " + loan.get().getTermMonths() + " months");
+            System.out.println("Monthly Payment: ₹" + currencyFormat.format(loan.get().calculateMonthlyPayment()));
+            System.out.println("Status: " + loan.get().getStatus());
+            customer.ifPresent(c -> System.out.println("Customer: " + c.getFullName()));
+        } else {
+            System.out.println("Loan not found!");
+        }
+    }
+
+    public static void viewAmortizationSchedule() {
+        System.out.print("Enter Loan ID: ");
+        int loanId = getIntInput();
+        
+        Optional<Loan> loan = findLoanById(loanId);
+        if (loan.isEmpty()) {
+            System.out.println("Loan not found!");
+            return;
+        }
+        AmortizationEngine.Schedule schedule = AmortizationEngine.scheduleFor(loan.get());
+        System.out.println("\n--- AMORTIZATION SCHEDULE: LOAN " + loanId + " ---");
+        System.out.println("Rate: " + schedule.getInterestRate() + "%, Term: " + schedule.getMonths() + " months");
+        System.out.printf("%-6s %-15s %-15s %-15s %-15s%n", "Month", "Payment", "Principal", "Interest", "Balance");
+        System.out.println("----------------------------------------------------------------------");
+        EntityRenderer renderer = EntityRenderer.get();
+        for (int month = 1; month <= schedule.getMonths(); month++) {
+            renderer.number(month, 6).text(" ₹").rupees(schedule.getPaymentPaise(month), 14)
+                .text(" ₹").rupees(schedule.getPrincipalPaise(month), 14)
+                .text(" ₹").rupees(schedule.getInterestPaise(month), 14)
+                .text(" ₹").rupees(schedule.getBalancePaise(month), 14).newLine().flushIfFull(System.out);
+        }
+        renderer.flush(System.out);
+        System.out.println("Total Interest: ₹" + currencyFormat.format(schedule.getTotalInterestPaise() / 100.0));
+    }
+
+    public static void searchAccountsByCustomer() {
+        System.out.print("Enter Customer ID: ");
+        int customerId = getIntInput();
+        viewCustomerAccounts(); // Reuse existing functionality
+    }
+
+    public static void searchTransactionsByAccount() {
+        System.out.print("Enter Account Number: ");
+        String accountNumber = scanner.nextLine();
+        printAccountStatement(accountNumber); // Reuse existing functionality
+    }
+
+    public static void searchTransactionsByDate() {
+        LocalDate from;
+        LocalDate to;
+        try {
+            System.out.print("Enter from date (yyyy-MM-dd): ");
+            from = LocalDate.parse(scanner.nextLine().trim());
+            System.out.print("Enter to date (yyyy-MM-dd): ");
+            to = LocalDate.parse(scanner.nextLine().trim());
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format!");
+            return;
+        }
+        int[] rows = transactions.rowsBetween(startOfDay(from), startOfDay(to.plusDays(1)));
+        System.out.println("Found " + rows.length + " transactions:");
+        printTransactionRows(rows);
+    }
+
+    public static void generateCustomerReport() {
+        OperationMetrics.CUSTOMER_REPORT.time(() -> {
+            System.out.println("\n--- CUSTOMER REPORT ---");
+            System.out.printf("%-6s %-15s %-15s %-20s %-15s %-12s%n", 
+                "ID", "First Name", "Last Name", "Email", "Phone", "Type");
+            System.out.println("--------------------------------------------------------------------------------");
+        
+            // One pass over the accounts instead of one per customer
+            Map<Integer, Long> accountCounts = accounts.stream()
+                .collect(Collectors.groupingBy(Account::getCustomerId, Collectors.counting()));
+            printLines(customers, (renderer, customer) -> renderCustomerRow(renderer, customer).text(" (Accounts: ")
+                .number(accountCounts.getOrDefault(customer.getCustomerId(), 0L), 0).text(")"));
+        });
+    }
+
+    public static void generateAccountSummaryReport() {
+        OperationMetrics.ACCOUNT_REPORT.time(() -> {
+            System.out.println("\n--- ACCOUNT SUMMARY REPORT ---");
+            viewAllAccounts(); // Reuse existing functionality
+        });
+    }
+
+    public static void generateTransactionReport() {
+        OperationMetrics.TRANSACTION_REPORT.time(() -> {
+            System.out.println("\n--- TRANSACTION REPORT ---");
+            viewAllTransactions(); // Reuse existing functionality
+        });
+    }
+
+    public static void exportReport() {
+        System.out.print("Report to export (customers/transactions/loans): ");
+        String report = scanner.nextLine().trim();
+        System.out.print("Format (csv/json): ");
+        String format = scanner.nextLine().trim();
+        System.out.print("Output file: ");
+        String file = scanner.nextLine().trim();
+        exportReport(report, format, Paths.get(file));
+    }
+
+    // Streams one report to a file; returns false, after saying why, if it could not
+    public static boolean exportReport(String report, String format, Path file) {
+        return OperationMetrics.EXPORT_REPORT.time(() -> {
+            boolean json = "json".equalsIgnoreCase(format);
+            if (!json && !"csv".equalsIgnoreCase(format)) {
+                System.out.println("Invalid format! Use csv or json.");
+                return false;
+            }
+            long start = System.nanoTime();
+            long rows;
+            try {
+                switch (report.toLowerCase()) {
+                    case "customers":
+                        rows = ReportExporter.exportCustomers(customers, accounts, file, json);
+                        break;
+                    case "transactions":
+                        rows = ReportExporter.exportTransactions(transactions, file, json);
+                        break;
+                    case "loans":
+                        rows = ReportExporter.exportLoans(loans, file, json);
+                        break;
+                    default:
+                        System.out.println("Unknown report! Use customers, transactions or loans.");
+                        return false;
+                }
+            } catch (IOException e) {
+                System.out.println("Error exporting to " + file + ": " + e.getMessage());
+                return false;
+            }
+            System.out.printf("Exported %,d rows to %s in %d ms%n", rows, file, (System.nanoTime() - start) / 1_000_000);
+            return true;
+        });
+    }
+
+    public static void generateLoanPortfolioReport() {
+        OperationMetrics.LOAN_REPORT.time(() -> {
+            System.out.println("\n--- LOAN PORTFOLIO REPORT ---");
+            double totalLoanAmount = loans.stream()
+                .mapToDouble(Loan::getLoanAmount)
+                .sum();
+            double totalRemaining = loans.stream()
+                .mapToDouble(Loan::getRemainingBalance)
+                .sum();
+            
+            System.out.println("Total Loans: " + loans.size());
+            System.out.println("Total Loan Amount: ₹" + currencyFormat.format(totalLoanAmount));
+            System.out.println("Total Remaining Balance: ₹" + currencyFormat.format(totalRemaining));
+            viewAllLoans(); // Reuse existing functionality
+        });
+    }
+
+    public static void generateLoanProjectionReport() {
+        System.out.print("Projection horizon (12-" + PortfolioProjection.MAX_HORIZON + " months): ");
+        int horizon = getIntInput();
+        if (horizon < 12 || horizon > PortfolioProjection.MAX_HORIZON) {
+            System.out.println("Invalid horizon!");
+            return;
+        }
+        // Kept current on every loan change, so this only expands the aggregates
+        long start = OperationMetrics.PROJECTION_REPORT.start();
+        PortfolioProjection.Projection projection = PortfolioProjection.project(horizon);
+        
+        System.out.println("\n--- LOAN PORTFOLIO PROJECTION (" + horizon + " MONTHS) ---");
+        System.out.printf("%-12s %-10s %8s %18s %18s %18s %18s%n", "Loan Type", "Customer", "Loans",
+            "Outstanding", "Outstanding (end)", "Interest", "EMI Cash Flow");
+        System.out.println("------------------------------------------------------------------------------------------------------------------");
+        for (PortfolioProjection.Group group : projection.getGroups()) {
+            printProjectionRow(group, horizon);
+        }
+        printProjectionRow(projection.getTotal(), horizon);
+        
+        System.out.println("\nBy year (whole book):");
+        System.out.printf("%-6s %18s %18s %18s%n", "Year", "Interest", "EMI Cash Flow", "Outstanding (end)");
+        PortfolioProjection.Group total = projection.getTotal();
+        for (int year = 1; year * 12 <= horizon; year++) {
+            double interest = 0;
+            double cashFlow = 0;
+            for (int month = year * 12 - 11; month <= year * 12; month++) {
+                interest += total.getInterest(month);
+                cashFlow += total.getCashFlow(month);
+            }
+            System.out.printf("%-6d %18s %18s %18s%n", year, currencyFormat.format(interest),
+                currencyFormat.format(cashFlow), currencyFormat.format(total.getOutstanding(year * 12)));
+        }
+        OperationMetrics.PROJECTION_REPORT.stop(start, true);
+    }
+
+    private static void printProjectionRow(PortfolioProjection.Group group, int horizon) {
+        System.out.printf("%-12s %-10s %8d %18s %18s %18s %18s%n", group.getLoanType(), group.getCustomerType(),
+            group.getLoans(), currencyFormat.format(group.getCurrentBalance()),
+            currencyFormat.format(group.getOutstanding(horizon)), currencyFormat.format(group.getTotalInterest()),
+            currencyFormat.format(group.getTotalCashFlow()));
+    }
+
+    public static void calculateAccountInterest() {
+        System.out.print("Enter Account Number: ");
+        String accountNumber = scanner.nextLine();
+        
+        Optional<Account> account = findAccountByNumber(accountNumber);
+        if (account.isPresent()) {
+            double annualInterest = account.get().getBalance() * account.get().getInterestRate() / 100;
+            double monthlyInterest = annualInterest / 12;
+            System.out.println("Annual Interest: ₹" + currencyFormat.format(annualInterest));
+            System.out.println("Monthly Interest: ₹" + currencyFormat.format(monthlyInterest));
+        } else {
+            System.out.println("Account not found!");
+        }
+    }
+
+    public static void calculateLoanInterest() {
+        System.out.print("Enter Loan ID: ");
+        int loanId = getIntInput();
+        
+        Optional<Loan> loan = findLoanById(loanId);
+            
+        if (loan.isPresent()) {
+            double monthlyInterest = loan.get().getRemainingBalance() * loan.get().getInterestRate() / 12 / 100;
+            double annualInterest = monthlyInterest * 12;
+            System.out.println("Monthly Interest: ₹" + currencyFormat.format(monthlyInterest));
+            System.out.println("Annual Interest: ₹" + currencyFormat.format(annualInterest));
+        } else {
+            System.out.println("Loan not found!");
+        }
+    }
+
+    public static void changeLoanRate() {
+        System.out.print("Loan Type (Personal/Home/Auto/Business/Education): ");
+        String loanType = scanner.nextLine();
+        System.out.println("Current Rate: " + determineInterestRate(loanType) + "%");
+        System.out.print("New Rate (%): ");
+        double interestRate = getDoubleInput();
+        
+        BankingEngine.OperationResult<Integer> result = BankingEngine.changeLoanRate(loanType, interestRate);
+        if (result.isSuccess()) {
+            System.out.println("Rate changed. " + result.getValue() + " open loans repriced and their schedules rebuilt.");
+        } else {
+            System.out.println(result.getError());
+        }
+    }
+
+    public static void applyMonthlyInterest() {
+        YearMonth period = YearMonth.now();
+        System.out.println("Applying monthly interest for " + period + " to all savings accounts...");
+        InterestEngine.Result result = runMonthlyInterest(period);
+        System.out.println("Monthly interest applied to " + result.getCredited() + " accounts (₹"
+            + currencyFormat.format(result.getCreditedPaise() / 100.0) + ") in " + result.getElapsedMillis() + " ms.");
+        if (result.getAlreadyCredited() > 0) {
+            System.out.println(result.getAlreadyCredited() + " accounts were already credited for " + period + ".");
+        }
+    }
+}
\ No newline at end of file
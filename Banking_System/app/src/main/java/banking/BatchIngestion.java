@@ -0,0 +1,264 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Bulk posting of settlement files through a parse -> validate -> apply pipeline.
+//
+// Input is CSV, one movement per line:
+//     type,account,amount[,target account][,description]
+// where type is Deposit, Withdrawal or Transfer (case-insensitive). A header
+// line starting with "type" and blank lines are skipped; the description is
+// everything after the fourth comma.
+//
+// Each stage runs on its own thread and hands chunks of rows to the next stage
+// through a bounded queue, so a fast reader cannot run ahead of posting. Rows are
+// posted through TransferEngine exactly like the interactive screens, and rows
+// that fail are written, in input order, to the reject file with the reason.
+class BatchIngestion {
+    private static final int CHUNK_SIZE = 1024;
+    private static final int QUEUE_CHUNKS = 64;
+
+    private static final class Row {
+        final long lineNumber;
+        final String line;
+        String type;
+        String accountNumber;
+        String targetNumber;
+        double amount;
+        String description;
+        Account account;
+        Account target;
+        String rejectReason;
+
+        Row(long lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+
+    // Marks the end of the stream on each queue
+    private static final List<Row> END = new ArrayList<>();
+
+    public static final class Result {
+        long rows;
+        long applied;
+        long rejected;
+        long elapsedNanos;
+
+        public long getRows() { return rows; }
+        public long getApplied() { return applied; }
+        public long getRejected() { return rejected; }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
+    public static Result run(Path input, Path rejectFile) throws IOException, InterruptedException {
+        try {
+            BankingManagementSystem.requireWritable();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        BlockingQueue<List<Row>> parsed = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        BlockingQueue<List<Row>> validated = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Result result = new Result();
+        long start = System.nanoTime();
+
+        Thread parser = new Thread(() -> {
+            try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+                long lineNumber = 0;
+                for (String line; failure.get() == null && (line = reader.readLine()) != null; ) {
+                    lineNumber++;
+                    if (line.isBlank() || (lineNumber == 1 && line.regionMatches(true, 0, "type", 0, 4))) {
+                        continue;
+                    }
+                    chunk.add(parse(lineNumber, line));
+                    if (chunk.size() == CHUNK_SIZE) {
+                        parsed.put(chunk);
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    parsed.put(chunk);
+                }
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                endStream(parsed, failure);
+            }
+        }, "ingest-parse");
+
+        Thread validator = new Thread(() -> {
+            try {
+                for (List<Row> chunk; (chunk = parsed.take()) != END; ) {
+                    for (Row row : chunk) {
+                        validate(row);
+                    }
+                    validated.put(chunk);
+                }
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+                parsed.clear(); // unblock the parser if it is waiting for space
+            } finally {
+                endStream(validated, failure);
+            }
+        }, "ingest-validate");
+
+        parser.start();
+        validator.start();
+
+        // Apply stage runs on the calling thread
+        try (BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+            rejects.write("line,reason,row");
+            rejects.newLine();
+            List<CompletableFuture<Void>> pending = new ArrayList<>(CHUNK_SIZE);
+            for (List<Row> chunk; (chunk = validated.take()) != END; ) {
+                for (Row row : chunk) {
+                    result.rows++;
+                    if (row.rejectReason == null) {
+                        TransferEngine.Posting posting = apply(row);
+                        if (posting != null) {
+                            result.applied++;
+                            if (posting.durable != null) {
+                                pending.add(posting.durable);
+                            }
+                            continue;
+                        }
+                        row.rejectReason = "Insufficient funds or account inactive";
+                    }
+                    result.rejected++;
+                    rejects.write(row.lineNumber + "," + row.rejectReason + "," + row.line);
+                    rejects.newLine();
+                }
+                // One wait per chunk: the journal writer groups the whole chunk into few fsyncs
+                try {
+                    BankingManagementSystem.awaitDurable(
+                        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause(); // the chunk is not saved; stop the file here
+                }
+                pending.clear();
+            }
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+            parser.interrupt();
+            validator.interrupt();
+            throw e;
+        } finally {
+            parser.join();
+            validator.join();
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+
+        Throwable error = failure.get();
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error != null) {
+            throw new IOException("Batch ingestion failed: " + error, error);
+        }
+        return result;
+    }
+
+    private static Row parse(long lineNumber, String line) {
+        Row row = new Row(lineNumber, line);
+        String[] fields = line.split(",", 5);
+        if (fields.length < 3) {
+            row.rejectReason = "Expected type,account,amount";
+            return row;
+        }
+        row.type = fields[0].trim();
+        row.accountNumber = fields[1].trim();
+        row.targetNumber = fields.length > 3 ? fields[3].trim() : "";
+        row.description = fields.length > 4 ? fields[4].trim() : "";
+        try {
+            row.amount = Double.parseDouble(fields[2].trim());
+        } catch (NumberFormatException e) {
+            row.amount = Double.NaN;
+        }
+        // parseDouble takes "NaN", "Infinity" and 1e300 too; none of them is an amount
+        if (!Double.isFinite(row.amount) || Math.abs(row.amount) >= BankingEngine.MAX_AMOUNT) {
+            row.rejectReason = "Invalid amount";
+        }
+        return row;
+    }
+
+    private static void validate(Row row) {
+        if (row.rejectReason != null) {
+            return;
+        }
+        if (row.amount <= 0) {
+            row.rejectReason = "Amount must be positive";
+            return;
+        }
+        Optional<Account> account = BankingManagementSystem.findAccountByNumber(row.accountNumber);
+        if (account.isEmpty()) {
+            row.rejectReason = "Account not found";
+            return;
+        }
+        row.account = account.get();
+        switch (row.type.toLowerCase()) {
+            case "deposit":
+                row.type = "Deposit";
+                break;
+            case "withdrawal":
+                row.type = "Withdrawal";
+                break;
+            case "transfer":
+                row.type = "Transfer";
+                Optional<Account> target = BankingManagementSystem.findAccountByNumber(row.targetNumber);
+                if (target.isEmpty()) {
+                    row.rejectReason = "Target account not found";
+                } else if (target.get().getAccountNumber().equals(row.account.getAccountNumber())) {
+                    row.rejectReason = "Cannot transfer to the same account";
+                } else {
+                    row.target = target.get();
+                }
+                break;
+            default:
+                row.rejectReason = "Unknown transaction type";
+        }
+    }
+
+    private static TransferEngine.Posting apply(Row row) {
+        switch (row.type) {
+            case "Deposit":
+                return TransferEngine.postDeposit(row.account, row.amount, "Deposit",
+                    row.description.isEmpty() ? "Cash deposit" : row.description);
+            case "Withdrawal":
+                return TransferEngine.postWithdrawal(row.account, row.amount,
+                    row.description.isEmpty() ? "Cash withdrawal" : row.description);
+            default:
+                return TransferEngine.postTransfer(row.account, row.target, row.amount);
+        }
+    }
+
+    // After a failure nobody drains the rest of the stream, so drop it rather than block
+    private static void endStream(BlockingQueue<List<Row>> queue, AtomicReference<Throwable> failure) {
+        try {
+            if (failure.get() == null) {
+                queue.put(END);
+                return;
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+        }
+        queue.clear();
+        queue.offer(END);
+    }
+}
@@ -0,0 +1,58 @@
+package banking;
+
+import java.util.Date;
+
+class Customer {
+    private int customerId;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phone;
+    private String address;
+    private String idNumber; // Aadhaar or PAN
+    private Date dateOfBirth;
+    private Date registrationDate;
+    private String customerType; // Regular, Premium, VIP
+
+    public Customer(int customerId, String firstName, String lastName, String email, 
+                   String phone, String address, String idNumber, Date dateOfBirth, String customerType) {
+        this.customerId = customerId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
+        this.address = address;
+        this.idNumber = idNumber;
+        this.dateOfBirth = dateOfBirth;
+        this.registrationDate = new Date();
+        this.customerType = customerType;
+    }
+
+    // Getters and Setters
+    public int getCustomerId() { return customerId; }
+    public String getFirstName() { return firstName; }
+    public void setFirstName(String firstName) { this.firstName = firstName; }
+    public String getLastName() { return lastName; }
+    public void setLastName(String lastName) { this.lastName = lastName; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+    public String getIdNumber() { return idNumber; }
+    public Date getDateOfBirth() { return dateOfBirth; }
+    public Date getRegistrationDate() { return registrationDate; }
+    public void setRegistrationDate(Date registrationDate) { this.registrationDate = registrationDate; }
+    public String getCustomerType() { return customerType; }
+    public void setCustomerType(String customerType) { this.customerType = customerType; }
+
+    @Override
+    public String toString() {
+        return EntityRenderer.render(this);
+    }
+
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+}
@@ -0,0 +1,257 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+// Trigram index over customer full names ("First Last", lowercased) for
+// substring search. Each distinct three-character run of a name maps to the
+// IDs of the customers whose name contains it. A query walks the shortest
+// list among its own trigrams and checks each candidate's current name, so a
+// search costs about as much as the rarest part of the query, and a limited
+// search stops as soon as it has enough results.
+//
+// Queries shorter than three characters have no trigram; canSearch() is false
+// for them and the caller scans instead.
+//
+// Searches share a read lock and run side by side; adding and renaming take
+// the write lock. Posting lists are kept sorted by customer ID, so a rename
+// finds the ID it drops by binary search, and IDs (handed out in increasing
+// order) are almost always appended at the end.
+class CustomerNameIndex {
+    private static final long EMPTY = -1;
+
+    private final IntFunction<Customer> lookup;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Open-addressed table: trigram key -> posting list slot
+    private long[] keys = newKeyTable(1024);
+    private int[] slotOf = new int[1024];
+    private int keyCount;
+
+    // Posting lists of customer IDs, in ascending order
+    private int[][] postings = new int[256][];
+    private int[] postingSizes = new int[256];
+
+    public CustomerNameIndex(IntFunction<Customer> lookup) {
+        this.lookup = lookup;
+    }
+
+    public void add(int customerId, String fullName) {
+        long[] keys = trigramsOf(fullName);
+        lock.writeLock().lock();
+        try {
+            for (long key : keys) {
+                insert(slotFor(key), customerId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Re-indexes a renamed customer; trigrams both names share stay where they are
+    public void update(int customerId, String oldFullName, String newFullName) {
+        long[] oldKeys = trigramsOf(oldFullName);
+        long[] newKeys = trigramsOf(newFullName);
+        lock.writeLock().lock();
+        try {
+            for (long key : oldKeys) {
+                if (!contains(newKeys, key)) {
+                    remove(find(key), customerId);
+                }
+            }
+            for (long key : newKeys) {
+                if (!contains(oldKeys, key)) {
+                    insert(slotFor(key), customerId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static boolean canSearch(String query) {
+        return query.length() >= 3;
+    }
+
+    // Customers whose full name contains the query (ignoring case), at most limit of them
+    public List<Customer> search(String query, int limit) {
+        List<Customer> results = new ArrayList<>();
+        long[] queryKeys = trigramsOf(query);
+        String lowerQuery = lowerCase(query);
+        lock.readLock().lock();
+        try {
+            int shortest = -1;
+            for (long key : queryKeys) {
+                int slot = find(key);
+                if (slot < 0) {
+                    return results;
+                }
+                if (shortest < 0 || postingSizes[slot] < postingSizes[shortest]) {
+                    shortest = slot;
+                }
+            }
+            int[] ids = postings[shortest];
+            for (int i = 0, size = postingSizes[shortest]; i < size && results.size() < limit; i++) {
+                Customer customer = lookup.apply(ids[i]);
+                if (customer != null && matches(customer, lowerQuery)) {
+                    results.add(customer);
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Substring test against "first last" without building the full name
+    public static boolean matches(Customer customer, String lowerQuery) {
+        String first = customer.getFirstName();
+        String last = customer.getLastName();
+        int length = first.length() + 1 + last.length();
+        for (int start = 0; start + lowerQuery.length() <= length; start++) {
+            int i = 0;
+            while (i < lowerQuery.length() && charAt(first, last, start + i) == lowerQuery.charAt(i)) {
+                i++;
+            }
+            if (i == lowerQuery.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static String lowerCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static char charAt(String first, String last, int index) {
+        if (index < first.length()) {
+            return Character.toLowerCase(first.charAt(index));
+        }
+        return index == first.length() ? ' ' : Character.toLowerCase(last.charAt(index - first.length() - 1));
+    }
+
+    // Distinct trigram keys of the lowercased text, each three chars packed into 48 bits
+    private static long[] trigramsOf(String text) {
+        long[] found = new long[Math.max(0, text.length() - 2)];
+        int count = 0;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            long key = (long) Character.toLowerCase(text.charAt(i)) << 32
+                | (long) Character.toLowerCase(text.charAt(i + 1)) << 16
+                | Character.toLowerCase(text.charAt(i + 2));
+            if (!contains(found, count, key)) {
+                found[count++] = key;
+            }
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    private static boolean contains(long[] keys, long key) {
+        return contains(keys, keys.length, key);
+    }
+
+    private static boolean contains(long[] keys, int count, long key) {
+        for (int i = 0; i < count; i++) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Adds the ID in order (at the end, for a newly registered customer)
+    private void insert(int slot, int customerId) {
+        int[] ids = postings[slot];
+        int size = postingSizes[slot];
+        int at = size == 0 || ids[size - 1] < customerId ? size : Arrays.binarySearch(ids, 0, size, customerId);
+        if (at >= 0 && at < size) {
+            return; // already listed
+        }
+        at = at < 0 ? -at - 1 : at;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 4);
+            postings[slot] = ids;
+        }
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        ids[at] = customerId;
+        postingSizes[slot] = size + 1;
+    }
+
+    private void remove(int slot, int customerId) {
+        int[] ids = postings[slot];
+        int size = postingSizes[slot];
+        int at = Arrays.binarySearch(ids, 0, size, customerId);
+        if (at >= 0) {
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            postingSizes[slot] = size - 1;
+        }
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return slotOf[i];
+            }
+        }
+        return -1;
+    }
+
+    private int slotFor(long key) {
+        int slot = find(key);
+        if (slot >= 0) {
+            return slot;
+        }
+        if ((keyCount + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        slot = keyCount++;
+        if (slot == postings.length) {
+            postings = Arrays.copyOf(postings, slot * 2);
+            postingSizes = Arrays.copyOf(postingSizes, slot * 2);
+        }
+        postings[slot] = new int[4];
+        place(key, slot);
+        return slot;
+    }
+
+    private void place(long key, int slot) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        slotOf[i] = slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldSlots = slotOf;
+        keys = newKeyTable(capacity);
+        slotOf = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                place(oldKeys[i], oldSlots[i]);
+            }
+        }
+    }
+
+    private static long[] newKeyTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,333 @@
+package banking;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+// Deterministic synthetic bank for capacity tests and benchmarks.
+//
+// Customers are generated in fixed chunks in parallel. Every chunk draws from
+// its own random streams derived from (seed, chunk), so the output does not
+// depend on the number of cores or on scheduling. A first pass only decides
+// shapes (accounts, loans and history length per customer); prefix sums over
+// those counts fix every chunk's customer, loan and transaction IDs, and a
+// second pass builds the entities. Chunks are then registered in order, so
+// the same seed always gives the same bank, row for row.
+//
+// Dates are laid out backwards from midnight (UTC) of the generation day.
+// Account histories are deposits and withdrawals that start from an opening
+// balance and end at the account's balance. There are no transfers, because
+// they would tie chunks together.
+class DataGenerator {
+    private static final int CHUNK_SIZE = 10_000;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final String[] FIRST_NAMES = { "Aarav", "Vivaan", "Aditya", "Arjun", "Sai", "Rohan", "Rahul",
+        "Vikram", "Raj", "Amit", "Suresh", "Karthik", "Ananya", "Diya", "Priya", "Kavya", "Neha", "Pooja",
+        "Sneha", "Anita", "Lakshmi", "Meera", "Isha", "Aditi" };
+    private static final String[] LAST_NAMES = { "Sharma", "Patel", "Kumar", "Singh", "Reddy", "Iyer", "Nair",
+        "Gupta", "Mehta", "Joshi", "Rao", "Das", "Chatterjee", "Banerjee", "Pillai", "Menon", "Verma", "Agarwal",
+        "Shah", "Desai" };
+    private static final String[] CITIES = { "Mumbai", "Delhi", "Bangalore", "Chennai", "Kolkata", "Hyderabad",
+        "Pune", "Ahmedabad", "Jaipur", "Lucknow", "Kochi", "Indore" };
+    private static final String[] STREETS = { "MG Road", "Station Road", "Park Street", "Brigade Road",
+        "Nehru Nagar", "Gandhi Marg", "Anna Salai", "Linking Road" };
+
+    // Loan types with amount range (rupees) and typical term (months); rates come from determineInterestRate
+    private static final String[] LOAN_TYPES = { "Personal", "Home", "Auto", "Business", "Education" };
+    private static final int[] LOAN_TYPE_WEIGHTS = { 35, 25, 20, 10, 10 };
+    private static final double[][] LOAN_AMOUNTS = { { 50_000, 1_500_000 }, { 1_000_000, 10_000_000 },
+        { 300_000, 2_000_000 }, { 500_000, 5_000_000 }, { 200_000, 2_500_000 } };
+    private static final int[][] LOAN_TERMS = { { 12, 60 }, { 120, 360 }, { 36, 84 }, { 12, 120 }, { 36, 120 } };
+
+    public static final class Result {
+        Customer[] customers;
+        Account[] accounts;
+        Loan[] loans;
+        long transactions;
+        long elapsedNanos;
+
+        public Customer[] getCustomers() { return customers; }
+        public Account[] getAccounts() { return accounts; }
+        public Loan[] getLoans() { return loans; }
+        public long getTransactions() { return transactions; }
+        public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+    }
+
+    // Shape of one chunk (pass 1) and, after pass 2, its entities
+    private static final class Chunk {
+        final int firstCustomer;
+        final int customerCount;
+        byte[] accountMasks;     // bit 0 Savings, 1 Current, 2 Fixed Deposit, 3 Recurring Deposit
+        boolean[] hasLoan;
+        int[] historyLengths;    // per account, in generation order
+        int accountCount;
+        int loanCount;
+        long transactionCount;
+        int firstCustomerId;
+        int firstLoanId;
+        int firstTransactionId;
+        long firstAccountNumber;
+        Customer[] customers;
+        Account[] accounts;
+        Loan[] loans;
+        // Transactions as columns: account (index into accounts), kind, amount, balance after, time
+        int[] transactionAccounts;
+        byte[] transactionKinds;
+        long[] transactionAmounts;
+        long[] transactionBalances;
+        long[] transactionTimes;
+
+        Chunk(int firstCustomer, int customerCount) {
+            this.firstCustomer = firstCustomer;
+            this.customerCount = customerCount;
+        }
+    }
+
+    private static final String[] ACCOUNT_TYPES = { "Savings", "Current", "Fixed Deposit", "Recurring Deposit" };
+
+    // Transaction kinds: the first three are deposits, the rest withdrawals
+    private static final String[] TRANSACTION_DESCRIPTIONS = { "Salary credit", "Cash deposit", "UPI credit",
+        "ATM withdrawal", "UPI payment", "Bill payment" };
+
+    // Generates the given number of customers (about two accounts each, and a
+    // loan for one in four) with on average historyPerAccount transactions per
+    // account, and registers everything with the bank
+    public static Result generate(long seed, int customerCount, int historyPerAccount) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis() / DAY_MILLIS * DAY_MILLIS;
+        int chunkCount = (customerCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Chunk[] chunks = new Chunk[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            int first = c * CHUNK_SIZE;
+            chunks[c] = new Chunk(first, Math.min(CHUNK_SIZE, customerCount - first));
+        }
+
+        // Pass 1: shapes
+        IntStream.range(0, chunkCount).parallel().forEach(c -> planChunk(chunks[c], seed, c, historyPerAccount));
+
+        // IDs: one reserved block per entity kind, sliced by prefix sums
+        int customerIds = BankingManagementSystem.reserveCustomerIds(customerCount);
+        int loanTotal = 0;
+        long transactionTotal = 0;
+        for (Chunk chunk : chunks) {
+            loanTotal += chunk.loanCount;
+            transactionTotal += chunk.transactionCount;
+        }
+        if (transactionTotal > Integer.MAX_VALUE - BankingManagementSystem.getTransactionStore().size()) {
+            throw new IllegalArgumentException("Too many transactions for int transaction IDs: " + transactionTotal);
+        }
+        int loanIds = BankingManagementSystem.reserveLoanIds(loanTotal);
+        int transactionIds = BankingManagementSystem.reserveTransactionIds((int) transactionTotal);
+        int accountTotal = 0;
+        for (Chunk chunk : chunks) {
+            accountTotal += chunk.accountCount;
+        }
+        long accountNumbers = BankingManagementSystem.reserveAccountNumbers(accountTotal);
+        for (Chunk chunk : chunks) {
+            chunk.firstCustomerId = customerIds + chunk.firstCustomer;
+            chunk.firstLoanId = loanIds;
+            chunk.firstTransactionId = transactionIds;
+            chunk.firstAccountNumber = accountNumbers;
+            loanIds += chunk.loanCount;
+            transactionIds += (int) chunk.transactionCount;
+            accountNumbers += chunk.accountCount;
+        }
+
+        // Pass 2: entities
+        IntStream.range(0, chunkCount).parallel().forEach(c -> buildChunk(chunks[c], seed, c, now));
+
+        // Registration in chunk order keeps lists, indexes and store rows deterministic
+        Result result = new Result();
+        result.customers = new Customer[customerCount];
+        result.accounts = new Account[accountTotal];
+        result.loans = new Loan[loanTotal];
+        int customerAt = 0;
+        int accountAt = 0;
+        int loanAt = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            for (Customer customer : chunk.customers) {
+                BankingManagementSystem.registerCustomer(customer);
+                result.customers[customerAt++] = customer;
+            }
+            for (Account account : chunk.accounts) {
+                result.accounts[accountAt++] = BankingManagementSystem.registerAccount(account);
+            }
+            for (Loan loan : chunk.loans) {
+                BankingManagementSystem.registerLoan(loan);
+                result.loans[loanAt++] = loan;
+            }
+            for (int t = 0; t < chunk.transactionTimes.length; t++) {
+                int kind = chunk.transactionKinds[t];
+                BankingManagementSystem.recordTransaction(chunk.firstTransactionId + t,
+                    chunk.accounts[chunk.transactionAccounts[t]].getAccountNumber(), kind < 3 ? "Deposit" : "Withdrawal",
+                    TRANSACTION_DESCRIPTIONS[kind], chunk.transactionAmounts[t], chunk.transactionBalances[t],
+                    chunk.transactionTimes[t]);
+            }
+            chunks[c] = null;
+        }
+        result.transactions = transactionTotal;
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static SplittableRandom randomFor(long seed, int chunk, int stream) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + chunk * 31L + stream);
+    }
+
+    private static void planChunk(Chunk chunk, long seed, int c, int historyPerAccount) {
+        SplittableRandom random = randomFor(seed, c, 0);
+        SplittableRandom historyRandom = randomFor(seed, c, 2);
+        chunk.accountMasks = new byte[chunk.customerCount];
+        chunk.hasLoan = new boolean[chunk.customerCount];
+        int[] histories = new int[chunk.customerCount * ACCOUNT_TYPES.length];
+        for (int i = 0; i < chunk.customerCount; i++) {
+            int mask = 1; // everyone has a savings account
+            if (random.nextInt(100) < 45) mask |= 2;
+            if (random.nextInt(100) < 35) mask |= 4;
+            if (random.nextInt(100) < 20) mask |= 8;
+            chunk.accountMasks[i] = (byte) mask;
+            chunk.hasLoan[i] = random.nextInt(4) == 0;
+            if (chunk.hasLoan[i]) {
+                chunk.loanCount++;
+            }
+            for (int type = 0; type < ACCOUNT_TYPES.length; type++) {
+                if ((mask & (1 << type)) != 0) {
+                    int length = historyPerAccount == 0 ? 0 : historyRandom.nextInt(2 * historyPerAccount + 1);
+                    histories[chunk.accountCount++] = length;
+                    chunk.transactionCount += length;
+                }
+            }
+        }
+        chunk.historyLengths = Arrays.copyOf(histories, chunk.accountCount);
+    }
+
+    private static void buildChunk(Chunk chunk, long seed, int c, long now) {
+        SplittableRandom random = randomFor(seed, c, 1);
+        chunk.customers = new Customer[chunk.customerCount];
+        chunk.accounts = new Account[chunk.accountCount];
+        chunk.loans = new Loan[chunk.loanCount];
+        int transactionCount = (int) chunk.transactionCount;
+        chunk.transactionAccounts = new int[transactionCount];
+        chunk.transactionKinds = new byte[transactionCount];
+        chunk.transactionAmounts = new long[transactionCount];
+        chunk.transactionBalances = new long[transactionCount];
+        chunk.transactionTimes = new long[transactionCount];
+        int accountAt = 0;
+        int loanAt = 0;
+        int transactionAt = 0;
+
+        for (int i = 0; i < chunk.customerCount; i++) {
+            int customerIndex = chunk.firstCustomer + i;
+            int customerId = chunk.firstCustomerId + i;
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            int typeRoll = random.nextInt(100);
+            String customerType = typeRoll < 70 ? "Regular" : typeRoll < 92 ? "Premium" : "VIP";
+            long registered = now - random.nextLong(10 * 365 * DAY_MILLIS);
+            Customer customer = new Customer(customerId, first, last,
+                first.toLowerCase() + "." + last.toLowerCase() + customerIndex + "@email.com",
+                String.valueOf(6_000_000_000L + random.nextLong(4_000_000_000L)),
+                (1 + random.nextInt(999)) + " " + STREETS[random.nextInt(STREETS.length)] + ", "
+                    + CITIES[random.nextInt(CITIES.length)],
+                "AADHAAR" + (100_000_000_000L + customerIndex),
+                new Date(now - (18 + random.nextInt(60)) * 365 * DAY_MILLIS - random.nextLong(365 * DAY_MILLIS)),
+                customerType);
+            customer.setRegistrationDate(new Date(registered));
+            chunk.customers[i] = customer;
+
+            int mask = chunk.accountMasks[i];
+            for (int type = 0; type < ACCOUNT_TYPES.length; type++) {
+                if ((mask & (1 << type)) == 0) {
+                    continue;
+                }
+                String accountType = ACCOUNT_TYPES[type];
+                String accountNumber = "ACC" + (chunk.firstAccountNumber + accountAt);
+                long opened = registered + random.nextLong(Math.max(1, now - registered));
+                long balance = (1_000 + random.nextLong(type == 2 ? 1_000_000 : 200_000)) * 100;
+
+                // History: deposits and withdrawals spread between opening and now
+                int length = chunk.historyLengths[accountAt];
+                for (int h = 0; h < length; h++) {
+                    long at = opened + (now - opened) * (h + 1) / (length + 1);
+                    boolean deposit = balance < 1_000_00 || random.nextInt(100) < 50;
+                    int kind = random.nextInt(3);
+                    long amount;
+                    if (deposit) {
+                        amount = (kind == 0 ? 20_000 + random.nextLong(130_000) : 500 + random.nextLong(25_000)) * 100;
+                        balance += amount;
+                    } else {
+                        kind += 3;
+                        amount = Math.min(balance, (100 + random.nextLong(10_000)) * 100);
+                        balance -= amount;
+                    }
+                    chunk.transactionAccounts[transactionAt] = accountAt;
+                    chunk.transactionKinds[transactionAt] = (byte) kind;
+                    chunk.transactionAmounts[transactionAt] = amount;
+                    chunk.transactionBalances[transactionAt] = balance;
+                    chunk.transactionTimes[transactionAt] = at;
+                    transactionAt++;
+                }
+
+                Account account = new Account(accountNumber, customerId, accountType, balance / 100.0,
+                    BankingEngine.accountInterestRate(accountType));
+                account.setOpeningDate(new Date(opened));
+                int statusRoll = random.nextInt(100);
+                if (statusRoll < 2) {
+                    account.setStatus("Inactive");
+                } else if (statusRoll < 3) {
+                    account.setStatus("Frozen");
+                }
+                chunk.accounts[accountAt++] = account;
+            }
+
+            if (chunk.hasLoan[i]) {
+                int loanType = pickWeighted(random, LOAN_TYPE_WEIGHTS);
+                double[] amounts = LOAN_AMOUNTS[loanType];
+                double amount = Math.round((amounts[0] + random.nextDouble() * (amounts[1] - amounts[0])) / 1000) * 1000.0;
+                int[] terms = LOAN_TERMS[loanType];
+                int term = (terms[0] + random.nextInt(terms[1] - terms[0] + 1)) / 12 * 12;
+                String type = LOAN_TYPES[loanType];
+                Loan loan = new Loan(chunk.firstLoanId + loanAt, customerId, type, amount,
+                    BankingManagementSystem.determineInterestRate(type), Math.max(12, term));
+                loan.setStartDate(new Date(registered + random.nextLong(Math.max(1, now - registered))));
+                int statusRoll = random.nextInt(100);
+                if (statusRoll < 60) {
+                    loan.setStatus("Active");
+                    loan.setRemainingBalance(Math.round(amount * (0.05 + 0.95 * random.nextDouble())));
+                } else if (statusRoll < 70) {
+                    loan.setStatus("Pending");
+                } else if (statusRoll < 75) {
+                    loan.setStatus("Approved");
+                } else if (statusRoll < 95) {
+                    loan.setStatus("Paid");
+                    loan.setRemainingBalance(0);
+                } else {
+                    loan.setStatus("Defaulted");
+                    loan.setRemainingBalance(Math.round(amount * random.nextDouble()));
+                }
+                chunk.loans[loanAt++] = loan;
+            }
+        }
+        chunk.accountMasks = null;
+        chunk.hasLoan = null;
+        chunk.historyLengths = null;
+    }
+
+    private static int pickWeighted(SplittableRandom random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
@@ -0,0 +1,152 @@
+package banking;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Binary encoding of the banking entities, shared by the journal and snapshots
+class EntityCodec {
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    // Types and statuses repeat on every row; share one String per distinct value
+    private static final Map<String, String> symbols = new ConcurrentHashMap<>();
+
+    public static void writeCustomer(DataOutput out, Customer customer) throws IOException {
+        out.writeInt(customer.getCustomerId());
+        writeString(out, customer.getFirstName());
+        writeString(out, customer.getLastName());
+        writeString(out, customer.getEmail());
+        writeString(out, customer.getPhone());
+        writeString(out, customer.getAddress());
+        writeString(out, customer.getIdNumber());
+        writeDate(out, customer.getDateOfBirth());
+        writeDate(out, customer.getRegistrationDate());
+        writeString(out, customer.getCustomerType());
+    }
+
+    public static Customer readCustomer(DataInput in) throws IOException {
+        int customerId = in.readInt();
+        String firstName = readString(in);
+        String lastName = readString(in);
+        String email = readString(in);
+        String phone = readString(in);
+        String address = readString(in);
+        String idNumber = readString(in);
+        Date dateOfBirth = readDate(in);
+        Date registrationDate = readDate(in);
+        String customerType = readSymbol(in);
+        Customer customer = new Customer(customerId, firstName, lastName, email,
+            phone, address, idNumber, dateOfBirth, customerType);
+        customer.setRegistrationDate(registrationDate);
+        return customer;
+    }
+
+    public static void writeAccount(DataOutput out, Account account) throws IOException {
+        writeString(out, account.getAccountNumber());
+        out.writeInt(account.getCustomerId());
+        writeString(out, account.getAccountType());
+        out.writeLong(account.getBalancePaise());
+        out.writeDouble(account.getInterestRate());
+        writeDate(out, account.getOpeningDate());
+        writeString(out, account.getStatus());
+    }
+
+    public static Account readAccount(DataInput in) throws IOException {
+        String accountNumber = readString(in);
+        int customerId = in.readInt();
+        String accountType = readSymbol(in);
+        long balancePaise = in.readLong();
+        double interestRate = in.readDouble();
+        Date openingDate = readDate(in);
+        String status = readSymbol(in);
+        Account account = new Account(accountNumber, customerId, accountType, 0.0, interestRate);
+        account.adjustBalancePaise(balancePaise);
+        account.setOpeningDate(openingDate);
+        account.setStatus(status);
+        return account;
+    }
+
+    public static void writeTransaction(DataOutput out, Transaction transaction) throws IOException {
+        out.writeInt(transaction.getTransactionId());
+        writeString(out, transaction.getAccountNumber());
+        writeString(out, transaction.getTransactionType());
+        out.writeDouble(transaction.getAmount());
+        writeString(out, transaction.getDescription());
+        writeDate(out, transaction.getTransactionDate());
+        writeString(out, transaction.getTargetAccount());
+        out.writeDouble(transaction.getBalanceAfter());
+    }
+
+    public static Transaction readTransaction(DataInput in) throws IOException {
+        int transactionId = in.readInt();
+        String accountNumber = readString(in);
+        String transactionType = readSymbol(in);
+        double amount = in.readDouble();
+        String description = readString(in);
+        Date transactionDate = readDate(in);
+        String targetAccount = readString(in);
+        double balanceAfter = in.readDouble();
+        Transaction transaction = new Transaction(transactionId, accountNumber, transactionType,
+            amount, description, balanceAfter);
+        transaction.setTransactionDate(transactionDate);
+        transaction.setTargetAccount(targetAccount);
+        return transaction;
+    }
+
+    public static void writeLoan(DataOutput out, Loan loan) throws IOException {
+        out.writeInt(loan.getLoanId());
+        out.writeInt(loan.getCustomerId());
+        writeString(out, loan.getLoanType());
+        out.writeDouble(loan.getLoanAmount());
+        out.writeDouble(loan.getInterestRate());
+        out.writeInt(loan.getTermMonths());
+        writeDate(out, loan.getStartDate());
+        out.writeDouble(loan.getRemainingBalance());
+        writeString(out, loan.getStatus());
+    }
+
+    public static Loan readLoan(DataInput in) throws IOException {
+        int loanId = in.readInt();
+        int customerId = in.readInt();
+        String loanType = readSymbol(in);
+        double loanAmount = in.readDouble();
+        double interestRate = in.readDouble();
+        int termMonths = in.readInt();
+        Date startDate = readDate(in);
+        double remainingBalance = in.readDouble();
+        String status = readSymbol(in);
+        Loan loan = new Loan(loanId, customerId, loanType, loanAmount, interestRate, termMonths);
+        loan.setStartDate(startDate);
+        loan.setRemainingBalance(remainingBalance);
+        loan.setStatus(status);
+        return loan;
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public static String readSymbol(DataInput in) throws IOException {
+        String value = readString(in);
+        return value == null ? null : symbols.computeIfAbsent(value, v -> v);
+    }
+
+    public static void writeDate(DataOutput out, Date date) throws IOException {
+        out.writeLong(date != null ? date.getTime() : NO_DATE);
+    }
+
+    public static Date readDate(DataInput in) throws IOException {
+        long time = in.readLong();
+        return time != NO_DATE ? new Date(time) : null;
+    }
+}
@@ -0,0 +1,289 @@
+package banking;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+// Text rendering of customers, accounts, transactions and loans for the
+// console screens, without formatters: rupee amounts ("#,##0.00"), padded
+// columns and dates are appended into a reused char buffer, which is encoded
+// into a reused byte buffer and written out in batches. Rendering a row
+// allocates nothing.
+//
+// Each thread has its own renderer (get()); a listing appends rows with
+// newLine(), calls flushIfFull(out) as it goes and flush(out) at the end.
+// The toString() of the entities goes through render(), which builds only
+// the returned String.
+class EntityRenderer {
+    private static final int FLUSH_THRESHOLD = 8192;
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private static final ThreadLocal<EntityRenderer> CURRENT = ThreadLocal.withInitial(EntityRenderer::new);
+
+    private char[] chars = new char[2 * FLUSH_THRESHOLD];
+    private int length;
+    private CharBuffer charView = CharBuffer.wrap(chars);
+    private final byte[] bytes = new byte[4 * FLUSH_THRESHOLD];
+    private final ByteBuffer byteView = ByteBuffer.wrap(bytes);
+    private CharsetEncoder encoder;
+
+    // Local "yyyy-MM-dd HH" of the last hour a date fell in, and where that hour starts
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final char[] hourPrefix = new char[13];
+    private long hourStart = Long.MAX_VALUE;
+
+    public static EntityRenderer get() {
+        return CURRENT.get();
+    }
+
+    // Renders one entity on its own, for toString()
+    public static String render(Object entity) {
+        EntityRenderer renderer = CURRENT.get();
+        int start = renderer.length; // keep whatever a listing in progress has buffered
+        if (entity instanceof Account) {
+            renderer.account((Account) entity);
+        } else if (entity instanceof Transaction) {
+            renderer.transaction((Transaction) entity);
+        } else if (entity instanceof Loan) {
+            renderer.loan((Loan) entity);
+        } else {
+            renderer.customer((Customer) entity);
+        }
+        String text = new String(renderer.chars, start, renderer.length - start);
+        renderer.length = start;
+        return text;
+    }
+
+    // "ID: %-4d Name: %-12s %-12s Email: %-20s Phone: %-12s"
+    public EntityRenderer customer(Customer customer) {
+        return text("ID: ").number(customer.getCustomerId(), 4).text(" Name: ").text(customer.getFirstName(), 12)
+            .text(" ").text(customer.getLastName(), 12).text(" Email: ").text(customer.getEmail(), 20)
+            .text(" Phone: ").text(customer.getPhone(), 12);
+    }
+
+    // "Account: %-12s Type: %-10s Balance: ₹%-12s Status: %-8s"
+    public EntityRenderer account(Account account) {
+        return text("Account: ").text(account.getAccountNumber(), 12).text(" Type: ").text(account.getAccountType(), 10)
+            .text(" Balance: ₹").rupees(account.getBalancePaise(), 12).text(" Status: ").text(account.getStatus(), 8);
+    }
+
+    // "TX%d | %s | %-10s | ₹%-10s | %s%s | Balance: ₹%s", the %s%s being the
+    // description and " to <target>" for rows with a target account
+    public EntityRenderer transaction(Transaction transaction) {
+        text("TX").number(transaction.getTransactionId(), 0).text(" | ")
+            .dateTime(transaction.getTransactionDate().getTime()).text(" | ")
+            .text(transaction.getTransactionType(), 10).text(" | ₹")
+            .rupees(Account.toPaise(transaction.getAmount()), 10).text(" | ").text(transaction.getDescription());
+        if (transaction.getTargetAccount() != null) {
+            text(" to ").text(transaction.getTargetAccount());
+        }
+        return text(" | Balance: ₹").rupees(Account.toPaise(transaction.getBalanceAfter()), 0);
+    }
+
+    // The same line straight from the store's columns, without building a Transaction
+    public EntityRenderer transaction(TransactionStore store, int row) {
+        String target = store.getTargetAccount(row);
+        text("TX").number(store.getTransactionId(row), 0).text(" | ").dateTime(store.getTimestamp(row)).text(" | ")
+            .text(store.getTransactionType(row), 10).text(" | ₹").rupees(store.getAmountPaise(row), 10).text(" | ")
+            .text(store.getDescriptionLead(row));
+        if (store.descriptionEndsWithTarget(row)) {
+            text(target);
+        }
+        if (target != null) {
+            text(" to ").text(target);
+        }
+        return text(" | Balance: ₹").rupees(store.getBalanceAfterPaise(row), 0);
+    }
+
+    // "Loan ID: %-4d Type: %-10s Amount: ₹%-12s Balance: ₹%-12s Status: %-10s"
+    public EntityRenderer loan(Loan loan) {
+        return text("Loan ID: ").number(loan.getLoanId(), 4).text(" Type: ").text(loan.getLoanType(), 10)
+            .text(" Amount: ₹").rupees(Account.toPaise(loan.getLoanAmount()), 12)
+            .text(" Balance: ₹").rupees(Account.toPaise(loan.getRemainingBalance()), 12)
+            .text(" Status: ").text(loan.getStatus(), 10);
+    }
+
+    public EntityRenderer text(String value) {
+        return text(value, 0);
+    }
+
+    // Left-aligned in at least width chars, like %-<width>s
+    public EntityRenderer text(String value, int width) {
+        if (value == null) {
+            value = "null";
+        }
+        int count = value.length();
+        ensure(count + width);
+        value.getChars(0, count, chars, length);
+        length += count;
+        return pad(count, width);
+    }
+
+    // Left-aligned in at least width chars, like %-<width>d
+    public EntityRenderer number(long value, int width) {
+        int start = length;
+        ensure(20 + width);
+        if (value < 0) {
+            chars[length++] = '-';
+            value = -value; // Long.MIN_VALUE never reaches a screen
+        }
+        int end = length + digitCount(value);
+        for (int i = end - 1; i >= length; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length = end;
+        return pad(length - start, width);
+    }
+
+    // Paise as rupees with thousands separators and two decimals ("#,##0.00"), left-aligned in width
+    public EntityRenderer rupees(long paise, int width) {
+        int start = length;
+        ensure(32 + width);
+        if (paise < 0) {
+            chars[length++] = '-';
+            paise = -paise;
+        }
+        long rupees = paise / 100;
+        int digits = digitCount(rupees);
+        int end = length + digits + (digits - 1) / 3;
+        for (int i = end - 1, written = 0; i >= length; i--) {
+            if (written > 0 && written % 3 == 0) {
+                chars[i--] = ',';
+            }
+            chars[i] = (char) ('0' + rupees % 10);
+            rupees /= 10;
+            written++;
+        }
+        length = end;
+        fraction((int) (paise % 100));
+        return pad(length - start, width);
+    }
+
+    // A rate or other double with two decimals, left-aligned in width, like %-<width>.2f. Formatter rounds
+    // the decimal the double prints as half up, so a value such as 73.195 (stored as 73.19499...) that
+    // prints with a trailing 5 in the third place rounds up here too.
+    public EntityRenderer fixed2(double value, int width) {
+        int start = length;
+        double magnitude = Math.abs(value);
+        long thousandths = Math.round(magnitude * 1000);
+        long hundredths = thousandths % 10 == 5 && Math.abs(magnitude * 1000 - thousandths) < 1e-6
+            ? thousandths / 10 + 1
+            : Math.round(magnitude * 100);
+        ensure(32 + width);
+        if (value < 0 && hundredths != 0) {
+            chars[length++] = '-';
+        }
+        number(hundredths / 100, 0);
+        fraction((int) (hundredths % 100));
+        return pad(length - start, width);
+    }
+
+    // "yyyy-MM-dd HH:mm:ss" in local time
+    public EntityRenderer dateTime(long epochMillis) {
+        if (epochMillis < hourStart || epochMillis >= hourStart + HOUR_MILLIS) {
+            LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+            hourStart = epochMillis - (local.getMinute() * 60_000L + local.getSecond() * 1000L
+                + local.getNano() / 1_000_000);
+            writeDigits(hourPrefix, 0, local.getYear(), 4);
+            hourPrefix[4] = '-';
+            writeDigits(hourPrefix, 5, local.getMonthValue(), 2);
+            hourPrefix[7] = '-';
+            writeDigits(hourPrefix, 8, local.getDayOfMonth(), 2);
+            hourPrefix[10] = ' ';
+            writeDigits(hourPrefix, 11, local.getHour(), 2);
+        }
+        ensure(19);
+        System.arraycopy(hourPrefix, 0, chars, length, hourPrefix.length);
+        int seconds = (int) ((epochMillis - hourStart) / 1000);
+        chars[length + 13] = ':';
+        writeDigits(chars, length + 14, seconds / 60, 2);
+        chars[length + 16] = ':';
+        writeDigits(chars, length + 17, seconds % 60, 2);
+        length += 19;
+        return this;
+    }
+
+    public EntityRenderer newLine() {
+        return text(LINE_SEPARATOR);
+    }
+
+    // Writes out the buffered text once a batch has built up
+    public void flushIfFull(PrintStream out) {
+        if (length >= FLUSH_THRESHOLD) {
+            flush(out);
+        }
+    }
+
+    // Encodes the buffered text in the stream's charset and writes it
+    public void flush(PrintStream out) {
+        if (encoder == null || !encoder.charset().equals(out.charset())) {
+            encoder = out.charset().newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        charView.clear().limit(length);
+        encoder.reset();
+        CoderResult result;
+        do {
+            byteView.clear();
+            result = encoder.encode(charView, byteView, true);
+            out.write(bytes, 0, byteView.position());
+        } while (result.isOverflow());
+        byteView.clear();
+        encoder.flush(byteView); // stateless for the charsets a console uses
+        out.write(bytes, 0, byteView.position());
+        out.flush();
+        length = 0;
+    }
+
+    // Drops whatever has been buffered
+    public void discard() {
+        length = 0;
+    }
+
+    private void fraction(int hundredths) {
+        chars[length++] = '.';
+        chars[length++] = (char) ('0' + hundredths / 10);
+        chars[length++] = (char) ('0' + hundredths % 10);
+    }
+
+    private EntityRenderer pad(int written, int width) {
+        for (int i = written; i < width; i++) {
+            chars[length++] = ' ';
+        }
+        return this;
+    }
+
+    private void ensure(int count) {
+        if (length + count > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(length + count, chars.length * 2));
+            charView = CharBuffer.wrap(chars);
+        }
+    }
+
+    private static int digitCount(long value) {
+        long bound = 10;
+        for (int digits = 1; digits < 19; digits++) {
+            if (value < bound) {
+                return digits;
+            }
+            bound *= 10;
+        }
+        return 19;
+    }
+
+    private static void writeDigits(char[] target, int offset, int value, int width) {
+        for (int i = width - 1; i >= 0; i--) {
+            target[offset + i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
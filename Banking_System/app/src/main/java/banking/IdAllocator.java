@@ -0,0 +1,120 @@
+package banking;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// One ID sequence (customer IDs, transaction IDs, loan IDs, account numbers).
+//
+// A shared high-water mark hands out blocks of BLOCK_SIZE IDs, and threads
+// allocate from the block of their own stripe: a stripe is picked by thread ID,
+// like the cells of a LongAdder, and there are four times as many stripes as
+// cores, so the mark is touched once per block. Nothing is locked: an ID is
+// taken from the stripe's block with one atomic increment, and a used-up block
+// is replaced with a compare-and-set, so virtual threads sharing a stripe never
+// block each other or pin their carrier. A thread that loses the race to
+// replace a block still takes the first ID of the block it reserved and leaves
+// the rest unused, a gap like any other.
+// IDs therefore increase within a block but not across threads.
+//
+// Every block is reported to the listener before any ID from it is handed out;
+// the bank journals it (ID_BLOCK record), so after a restart the sequence
+// resumes past every block ever reserved, whether or not its IDs were used.
+// reserve() takes a contiguous range straight from the mark, for bulk loaders.
+class IdAllocator {
+    public static final byte CUSTOMER = 0;
+    public static final byte TRANSACTION = 1;
+    public static final byte LOAN = 2;
+    public static final byte ACCOUNT_NUMBER = 3;
+
+    static final int BLOCK_SIZE = 1024;
+
+    interface BlockListener {
+        void reserved(byte sequence, long end);
+    }
+
+    // The block the threads of one stripe are using up; next runs past end once it is
+    private static final class Block {
+        private static final VarHandle NEXT;
+
+        static {
+            try {
+                NEXT = MethodHandles.lookup().findVarHandle(Block.class, "next", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile long next;
+        final long end;
+
+        Block(long first, long end) {
+            this.next = first;
+            this.end = end;
+        }
+
+        long take() {
+            return (long) NEXT.getAndAdd(this, 1L);
+        }
+    }
+
+    private static final Block USED_UP = new Block(0, 0);
+
+    private final byte sequence;
+    private final long limit;
+    private final BlockListener listener;
+    private final AtomicLong mark;
+    private final AtomicReferenceArray<Block> stripes;
+
+    public IdAllocator(byte sequence, long first, long limit, BlockListener listener) {
+        this.sequence = sequence;
+        this.limit = limit;
+        this.listener = listener;
+        this.mark = new AtomicLong(first);
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4 - 1)) << 1;
+        this.stripes = new AtomicReferenceArray<>(count);
+        for (int i = 0; i < count; i++) {
+            stripes.set(i, USED_UP);
+        }
+    }
+
+    public long next() {
+        long probe = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        int stripe = (int) (probe >>> 32) & (stripes.length() - 1);
+        Block block = stripes.get(stripe);
+        if (block != USED_UP) {
+            long id = block.take();
+            if (id < block.end) {
+                return id;
+            }
+        }
+        long first = reserve(BLOCK_SIZE);
+        stripes.compareAndSet(stripe, block, new Block(first + 1, first + BLOCK_SIZE));
+        return first;
+    }
+
+    // First of count consecutive IDs that no other caller will get
+    public long reserve(int count) {
+        long first = mark.getAndAdd(count);
+        if (first > limit - count) {
+            throw new IllegalStateException("ID sequence " + sequence + " is exhausted");
+        }
+        listener.reserved(sequence, first + count);
+        return first;
+    }
+
+    // Moves the mark past IDs that are already taken (recovered state); never moves it back
+    public void advanceTo(long end) {
+        mark.accumulateAndGet(end, Math::max);
+    }
+
+    // Journal record: sequence, end of the reserved block
+    public static CompletableFuture<Void> journalBlock(TransactionJournal journal, byte sequence, long end) {
+        return journal.append(TransactionJournal.ID_BLOCK, out -> {
+            out.writeByte(sequence);
+            out.writeLong(end);
+        });
+    }
+}
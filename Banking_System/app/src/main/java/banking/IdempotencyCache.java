@@ -0,0 +1,167 @@
+package banking;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Results of keyed requests, so a client retrying a deposit or transfer after
+// a timeout gets the original outcome back instead of posting the money twice.
+//
+// Keys live in one ConcurrentHashMap. Each entry is the future of its result,
+// stamped with the time slice (a sixteenth of the retention time) it was
+// created in: the first caller of a key runs the operation and completes the
+// entry, and repeats of the key, including ones arriving while it still runs,
+// wait on that entry. A request is a map lookup plus, for a new key, one
+// putIfAbsent and one count increment. A background thread drops expired
+// entries once per slice; nothing is swept on the request path.
+//
+// An entry is never dropped before its retention time is up, as a retry of it
+// would then post the money again. The key limit is enforced by refusing new
+// keys instead: once it is reached, a new key fails with a "retry later" error
+// (nothing is posted) until expired entries make room, and an early sweep is
+// asked of the background thread. Size the limit (bank.idempotency.keys) for
+// the retention time times the peak rate of keyed requests.
+//
+// A key is tied to the request it was first used for (operation, accounts
+// and amount); reusing it for a different request fails rather than returning
+// an unrelated result. Keys are kept in memory only, so a restart forgets them.
+class IdempotencyCache {
+    static final int MAX_KEY_LENGTH = 128;
+    private static final int SLICES = 16;
+
+    // The result of one keyed request, or the promise of it while it runs
+    private static final class Entry extends CompletableFuture<BankingEngine.OperationResult<?>> {
+        final long fingerprint;
+        final long slice;
+
+        Entry(long fingerprint, long slice) {
+            this.fingerprint = fingerprint;
+            this.slice = slice;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long sliceNanos;
+    private final int maxKeys;
+    private final AtomicInteger held = new AtomicInteger(); // entries in the map, at most maxKeys
+    private final LongAdder repeats = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder refusals = new LongAdder();
+    private final AtomicBoolean sweepRequested = new AtomicBoolean();
+    private final ScheduledExecutorService sweeper;
+
+    public IdempotencyCache(long retentionMillis, int maxKeys) {
+        this.sliceNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(retentionMillis) / SLICES);
+        this.maxKeys = maxKeys;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "idempotency-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sliceNanos, sliceNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Runs the operation once per key: a repeat of the key returns the first
+    // result, waiting for it if the first call is still running. Results that
+    // are failures are kept too; an operation that throws is forgotten, so a
+    // retry runs it again. A new key is refused, without running the operation,
+    // while the cache is full.
+    @SuppressWarnings("unchecked")
+    public <T> BankingEngine.OperationResult<T> execute(String key, long fingerprint,
+                                                        Supplier<BankingEngine.OperationResult<T>> operation) {
+        long slice = System.nanoTime() / sliceNanos;
+        Entry mine = null;
+        while (true) {
+            Entry existing = entries.get(key);
+            if (existing != null && slice - existing.slice <= SLICES) {
+                if (existing.fingerprint != fingerprint) {
+                    return BankingEngine.OperationResult.failed("Request key was already used for a different request!");
+                }
+                try {
+                    BankingEngine.OperationResult<?> result = existing.join();
+                    repeats.increment();
+                    return (BankingEngine.OperationResult<T>) result;
+                } catch (CompletionException e) {
+                    continue; // the first call threw and its entry is gone; try again
+                }
+            }
+            if (mine == null) {
+                mine = new Entry(fingerprint, slice);
+            }
+            if (existing != null) {
+                if (entries.replace(key, existing, mine)) { // an expired entry: its place is reused
+                    break;
+                }
+                continue;
+            }
+            if (!admit()) {
+                refusals.increment();
+                if (sweepRequested.compareAndSet(false, true)) {
+                    sweeper.execute(this::sweep);
+                }
+                return BankingEngine.OperationResult.failed("Too many keyed requests in progress; retry later.");
+            }
+            if (entries.putIfAbsent(key, mine) == null) {
+                break;
+            }
+            held.decrementAndGet(); // another caller added the key first
+        }
+        try {
+            BankingEngine.OperationResult<T> result = operation.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (entries.remove(key, mine)) {
+                held.decrementAndGet();
+            }
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Takes room for one more entry, or returns false if the cache is full
+    private boolean admit() {
+        int count;
+        do {
+            count = held.get();
+            if (count >= maxKeys) {
+                return false;
+            }
+        } while (!held.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    // Repeated keys answered from the cache
+    public long getRepeats() { return repeats.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    // New keys turned away because the cache was full
+    public long getRefusals() { return refusals.sum(); }
+    public int size() { return held.get(); }
+
+    // Identity of a request, so a key reused for something else is caught
+    public static long fingerprint(String operation, String firstAccount, String secondAccount, double amount) {
+        long h = operation.hashCode();
+        h = h * 31 + firstAccount.hashCode();
+        h = h * 31 + (secondAccount == null ? 0 : secondAccount.hashCode());
+        return h * 31 + Double.doubleToLongBits(amount);
+    }
+
+    // Drops expired entries; runs on the sweeper thread only
+    private void sweep() {
+        sweepRequested.set(false);
+        long current = System.nanoTime() / sliceNanos;
+        entries.forEach(1 << 30, (key, entry) -> {
+            if (current - entry.slice > SLICES && entries.remove(key, entry)) {
+                held.decrementAndGet();
+                evictions.increment();
+            }
+        });
+    }
+}
@@ -0,0 +1,202 @@
+package banking;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Month-end interest run over the whole account table on a ForkJoinPool.
+//
+// The table is cut into fixed chunks and processed in two parallel passes:
+// first every chunk picks its eligible savings accounts and their interest,
+// then, once a prefix sum over the chunk counts has fixed each chunk's slice of
+// a reserved ID block, every chunk credits its accounts into its own buffer.
+// The buffers are merged into the transaction store and the journal in chunk
+// order, so transaction IDs and row order follow the account table no matter
+// how the chunks were scheduled. An account that stops taking deposits between
+// the passes (depositPaise() checks the status and the closed state in its
+// compare-and-set) gets no credit; its reserved ID is left unused, and the
+// result counts only the credits actually posted.
+//
+// Each credit is an "Interest" row carrying the period in its description
+// ("Monthly interest 2026-10"); accounts that already have such a row are
+// skipped, and counted as already credited, which makes a repeated run for the
+// same period - or the rest of an interrupted one - a no-op. Only this engine posts "Interest" rows, so a deposit
+// or batch row with the same description does not count, and as credits are
+// stamped when the run happens, never before the period starts, only the store's
+// days from the first of the period on are read. Periods still to come are refused.
+class InterestEngine {
+    private static final int CHUNK_SIZE = 4096;
+    private static final String TRANSACTION_TYPE = "Interest";
+
+    public static final class Result {
+        int credited;
+        int alreadyCredited;
+        long creditedPaise;
+        long elapsedNanos;
+
+        public int getCredited() { return credited; }
+        public int getAlreadyCredited() { return alreadyCredited; }
+        public long getCreditedPaise() { return creditedPaise; }
+        public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+    }
+
+    // Per-chunk buffer, only touched by the task working on that chunk until the merge
+    private static final class Chunk {
+        Account[] eligible;
+        long[] interestPaise;
+        int count;
+        int alreadyCredited;
+        int firstId;
+        Transaction[] posted;
+        long[] deltasPaise;
+        int postedCount;
+    }
+
+    public static String descriptionFor(YearMonth period) {
+        return "Monthly interest " + period;
+    }
+
+    // Runs are serialized so that a second run for a period sees the first one's rows
+    public static synchronized Result run(Account[] table, YearMonth period) {
+        if (period.isAfter(YearMonth.now())) {
+            throw new IllegalArgumentException("Invalid period! " + period + " has not started yet.");
+        }
+        BankingManagementSystem.requireWritable();
+        long start = System.nanoTime();
+        String description = descriptionFor(period);
+        TransactionStore store = BankingManagementSystem.getTransactionStore();
+        long periodStart = period.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        BitSet alreadyCredited = store.accountsWithPosting(TRANSACTION_TYPE, description, periodStart);
+
+        Chunk[] chunks = new Chunk[(table.length + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new Chunk();
+        }
+        Result result = new Result();
+
+        // Pass 1: eligible accounts and their interest
+        parallel(chunks.length, c -> {
+            Chunk chunk = chunks[c];
+            int from = c * CHUNK_SIZE;
+            int to = Math.min(from + CHUNK_SIZE, table.length);
+            chunk.eligible = new Account[to - from];
+            chunk.interestPaise = new long[to - from];
+            for (int i = from; i < to; i++) {
+                Account account = table[i];
+                if (!"Savings".equals(account.getAccountType()) || !"Active".equals(account.getStatus())) {
+                    continue;
+                }
+                if (!alreadyCredited.isEmpty()) {
+                    int code = store.findAccountCode(account.getAccountNumber());
+                    if (code >= 0 && alreadyCredited.get(code)) {
+                        chunk.alreadyCredited++;
+                        continue;
+                    }
+                }
+                long interest = Account.toPaise(account.getBalance() * account.getInterestRate() / 12 / 100);
+                if (interest > 0) {
+                    chunk.eligible[chunk.count] = account;
+                    chunk.interestPaise[chunk.count] = interest;
+                    chunk.count++;
+                }
+            }
+        });
+
+        // Deterministic IDs: chunk c owns [firstId, firstId + count) of one reserved block
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.count;
+        }
+        int nextId = total == 0 ? 0 : BankingManagementSystem.reserveTransactionIds(total);
+        for (Chunk chunk : chunks) {
+            chunk.firstId = nextId;
+            nextId += chunk.count;
+        }
+
+        // Pass 2: credit balances into per-chunk buffers
+        Date postedAt = new Date();
+        parallel(chunks.length, c -> {
+            Chunk chunk = chunks[c];
+            chunk.posted = new Transaction[chunk.count];
+            chunk.deltasPaise = new long[chunk.count];
+            for (int i = 0; i < chunk.count; i++) {
+                Account account = chunk.eligible[i];
+                long interest = chunk.interestPaise[i];
+                long balanceAfter = account.depositPaise(interest);
+                if (balanceAfter == Account.REJECTED) {
+                    continue; // closed, frozen or made inactive since pass 1; its ID is left as a gap
+                }
+                Transaction transaction = new Transaction(chunk.firstId + i, account.getAccountNumber(),
+                    TRANSACTION_TYPE, interest / 100.0, description, balanceAfter / 100.0);
+                transaction.setTransactionDate(postedAt);
+                chunk.posted[chunk.postedCount] = transaction;
+                chunk.deltasPaise[chunk.postedCount] = interest;
+                chunk.postedCount++;
+            }
+            chunk.eligible = null;
+        });
+
+        // Merge in chunk order: one journal record per chunk, one wait for all of them
+        CompletableFuture<?>[] durable = new CompletableFuture<?>[chunks.length];
+        for (int c = 0; c < chunks.length; c++) {
+            Chunk chunk = chunks[c];
+            result.alreadyCredited += chunk.alreadyCredited;
+            if (chunk.postedCount > 0) {
+                Transaction[] posted = chunk.postedCount == chunk.count ? chunk.posted
+                    : Arrays.copyOf(chunk.posted, chunk.postedCount);
+                long[] deltas = Arrays.copyOf(chunk.deltasPaise, chunk.postedCount);
+                durable[c] = BankingManagementSystem.postTransactions(deltas, posted);
+                for (long delta : deltas) {
+                    result.creditedPaise += delta;
+                }
+                result.credited += chunk.postedCount;
+            }
+            chunks[c] = null;
+        }
+        CompletableFuture<?>[] pending = Arrays.stream(durable)
+            .filter(f -> f != null).toArray(CompletableFuture<?>[]::new);
+        if (pending.length > 0) {
+            BankingManagementSystem.awaitDurable(CompletableFuture.allOf(pending));
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        OperationMetrics.MONTHLY_INTEREST.record(result.elapsedNanos, true);
+        return result;
+    }
+
+    private static void parallel(int chunkCount, IntConsumer work) {
+        ForkJoinPool.commonPool().invoke(new ChunkTask(0, chunkCount, work));
+    }
+
+    // Splits a range of chunk indexes in halves until a single chunk is left
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient IntConsumer work;
+
+        ChunkTask(int from, int to, IntConsumer work) {
+            this.from = from;
+            this.to = to;
+            this.work = work;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    work.accept(from);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, mid, work), new ChunkTask(mid, to, work));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package banking;
+
+// Log-linear histogram of latencies in nanoseconds. Each power-of-two range is
+// split into 64 equal sub-buckets, so a recorded value is off by at most ~1.6%
+// while the whole histogram stays a fixed array of a few thousand counters.
+// Not thread-safe: give each thread its own and merge them, or count into
+// shared atomic buckets laid out like these (bucketOf) and copy them in.
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int RANGES = 64 - SUB_BUCKET_BITS;
+    static final int BUCKETS = (RANGES + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private long max;
+
+    LatencyHistogram() {
+    }
+
+    // A histogram of bucket counts gathered elsewhere, indexed by bucketOf
+    LatencyHistogram(long[] bucketCounts, long max) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = bucketCounts[i];
+            totalCount += bucketCounts[i];
+        }
+        this.max = max;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucketOf(value)]++;
+        totalCount++;
+        max = Math.max(max, value);
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        max = Math.max(max, other.max);
+    }
+
+    // What was recorded since the earlier copy of this histogram was taken; its
+    // max is only known to the precision of the highest bucket
+    public LatencyHistogram since(LatencyHistogram earlier) {
+        LatencyHistogram interval = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts[i] - earlier.counts[i];
+            if (count > 0) {
+                interval.counts[i] = count;
+                interval.totalCount += count;
+                interval.max = Math.min(upperBoundOf(i), max);
+            }
+        }
+        return interval;
+    }
+
+    public long getCount() { return totalCount; }
+    public long getMax() { return max; }
+
+    // Upper bound of the bucket holding the given percentile (0-100)
+    public long percentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    // Values below 64 map one-to-one; above that, the top 6 bits below the
+    // leading one pick the sub-bucket within the value's power-of-two range
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int range = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> (range - 1)) & (SUB_BUCKETS - 1);
+        return range * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int index) {
+        int range = index / SUB_BUCKETS;
+        int subBucket = index % SUB_BUCKETS;
+        if (range == 0) {
+            return subBucket;
+        }
+        long base = (long) (SUB_BUCKETS + subBucket) << (range - 1);
+        return base + (1L << (range - 1)) - 1;
+    }
+}
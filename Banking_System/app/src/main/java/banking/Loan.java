@@ -0,0 +1,52 @@
+package banking;
+
+import java.util.Date;
+
+class Loan {
+    private int loanId;
+    private int customerId;
+    private String loanType; // Personal, Home, Auto, Business, Education
+    private double loanAmount;
+    private double interestRate;
+    private int termMonths;
+    private Date startDate;
+    private double remainingBalance;
+    private String status; // Pending, Approved, Active, Paid, Defaulted
+
+    public Loan(int loanId, int customerId, String loanType, double loanAmount, 
+                double interestRate, int termMonths) {
+        this.loanId = loanId;
+        this.customerId = customerId;
+        this.loanType = loanType;
+        this.loanAmount = loanAmount;
+        this.interestRate = interestRate;
+        this.termMonths = termMonths;
+        this.startDate = new Date();
+        this.remainingBalance = loanAmount;
+        this.status = "Pending";
+    }
+
+    // Getters and Setters
+    public int getLoanId() { return loanId; }
+    public int getCustomerId() { return customerId; }
+    public String getLoanType() { return loanType; }
+    public double getLoanAmount() { return loanAmount; }
+    public double getInterestRate() { return interestRate; }
+    public int getTermMonths() { return termMonths; }
+    public void setInterestRate(double interestRate) { this.interestRate = interestRate; }
+    public Date getStartDate() { return startDate; }
+    public void setStartDate(Date startDate) { this.startDate = startDate; }
+    public double getRemainingBalance() { return remainingBalance; }
+    public void setRemainingBalance(double remainingBalance) { this.remainingBalance = remainingBalance; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public double calculateMonthlyPayment() {
+        return AmortizationEngine.monthlyPayment(loanAmount, interestRate, termMonths);
+    }
+
+    @Override
+    public String toString() {
+        return EntityRenderer.render(this);
+    }
+}
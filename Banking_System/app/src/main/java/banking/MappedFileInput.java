@@ -0,0 +1,138 @@
+package banking;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// DataInput over a memory-mapped file. The file is mapped in windows so that
+// files larger than 2 GB can be read; a window is remapped when a read would
+// run past its end.
+class MappedFileInput implements DataInput {
+    private static final long WINDOW = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart;
+    private MappedByteBuffer buffer;
+
+    public MappedFileInput(FileChannel channel, long position) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        map(position);
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+    }
+
+    public long position() {
+        return windowStart + buffer.position();
+    }
+
+    public void seek(long position) throws IOException {
+        if (position >= windowStart && position <= windowStart + buffer.limit()) {
+            buffer.position((int) (position - windowStart));
+        } else {
+            map(position);
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            long position = position();
+            if (position + bytes > size) {
+                throw new EOFException();
+            }
+            map(position);
+        }
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        ensure(len);
+        buffer.get(b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) throws IOException {
+        int skipped = (int) Math.min(n, size - position());
+        seek(position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        ensure(1);
+        return buffer.get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        ensure(2);
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        ensure(2);
+        return buffer.getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        ensure(4);
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        ensure(8);
+        return buffer.getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        ensure(4);
+        return buffer.getFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        ensure(8);
+        return buffer.getDouble();
+    }
+
+    @Override
+    public String readLine() {
+        throw new UnsupportedOperationException("readLine");
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+}
@@ -0,0 +1,377 @@
+package banking;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+// Calls, failures and latency of every business operation, in production.
+//
+// Each operation has a Timer: LongAdders count its calls and failures (a failed
+// OperationResult, a lookup that found nothing, a report that threw), and its
+// latencies go into atomic bucket counters laid out like LatencyHistogram's, so
+// recording is an increment and never takes a lock. The buckets are striped by
+// thread (as IdAllocator stripes its blocks) so threads on different cores do
+// not fight over the same bucket. Frequent operations are timed on a random
+// sample of calls, as reading the clock twice costs more than the rest of the
+// bookkeeping; their counts stay exact and the percentiles come from the sample.
+//
+// Account lookups are timed where the engine and the teller server make them
+// (BankingEngine.findAccount), not inside BankingManagementSystem's index
+// lookup: that takes 15 to 40 ns, and even a never-taken branch there costs
+// 10-15% of it, while the console screens and benchmarks call it directly.
+//
+// The timers are published as MBeans (banking:type=Operation,name=<operation>)
+// with cumulative counts and percentiles, and a background thread appends a
+// table of the last interval's calls per second and percentiles to a log file.
+// -Dbank.metrics=false turns all of it off.
+class OperationMetrics {
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("bank.metrics"));
+
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final int STRIPES =
+        Math.min(8, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+    private static final List<Timer> timers = new ArrayList<>();
+
+    static final Timer REGISTER_CUSTOMER = timer("registerCustomer", 1);
+    static final Timer UPDATE_CUSTOMER = timer("updateCustomer", 1);
+    static final Timer OPEN_ACCOUNT = timer("openAccount", 1);
+    static final Timer CLOSE_ACCOUNT = timer("closeAccount", 1);
+    static final Timer FIND_ACCOUNT = timer("findAccountByNumber", 8);
+    static final Timer DEPOSIT = timer("deposit", 8);
+    static final Timer WITHDRAW = timer("withdraw", 8);
+    static final Timer TRANSFER = timer("transfer", 8);
+    static final Timer APPLY_LOAN = timer("applyForLoan", 1);
+    static final Timer APPROVE_LOAN = timer("approveLoan", 1);
+    static final Timer DISBURSE_LOAN = timer("disburseLoan", 1);
+    static final Timer LOAN_PAYMENT = timer("makeLoanPayment", 1);
+    static final Timer CHANGE_LOAN_RATE = timer("changeLoanRate", 1);
+    static final Timer MONTHLY_INTEREST = timer("applyMonthlyInterest", 1);
+    static final Timer BANK_STATISTICS = timer("bankStatistics", 1);
+    static final Timer STATISTICS_CHECK = timer("statisticsCheck", 1);
+    static final Timer CUSTOMER_REPORT = timer("customerReport", 1);
+    static final Timer ACCOUNT_REPORT = timer("accountSummaryReport", 1);
+    static final Timer TRANSACTION_REPORT = timer("transactionReport", 1);
+    static final Timer LOAN_REPORT = timer("loanPortfolioReport", 1);
+    static final Timer PROJECTION_REPORT = timer("loanProjectionReport", 1);
+    static final Timer EXPORT_REPORT = timer("exportReport", 1);
+
+    private static ScheduledExecutorService dumper;
+    private static Path dumpFile;
+    private static long lastDumpNanos = System.nanoTime();
+
+    // One operation's counters and latency buckets
+    static final class Timer {
+        private final String name;
+        private final int sampleMask;
+        private final AtomicLongArray[] buckets = new AtomicLongArray[STRIPES];
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        // State of the previous dump, touched by the dump thread only
+        private LatencyHistogram dumped = new LatencyHistogram();
+        private long dumpedCalls;
+        private long dumpedFailures;
+
+        private Timer(String name, int sampleEvery) {
+            this.name = name;
+            this.sampleMask = sampleEvery - 1;
+            for (int i = 0; i < STRIPES; i++) {
+                buckets[i] = new AtomicLongArray(LatencyHistogram.BUCKETS);
+            }
+        }
+
+        public String getName() { return name; }
+        public long getCalls() { return calls.sum(); }
+        public long getFailures() { return failures.sum(); }
+
+        // Start of a call, to hand to stop(); calls left out of the sample are not timed
+        public long start() {
+            if (!ENABLED || (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0)) {
+                return NOT_TIMED;
+            }
+            return System.nanoTime();
+        }
+
+        public void stop(long start, boolean succeeded) {
+            if (!ENABLED) {
+                return;
+            }
+            calls.increment();
+            if (!succeeded) {
+                failures.increment();
+            }
+            if (start != NOT_TIMED) {
+                recordLatency(System.nanoTime() - start);
+            }
+        }
+
+        // For operations that time themselves
+        public void record(long elapsedNanos, boolean succeeded) {
+            if (ENABLED) {
+                calls.increment();
+                if (!succeeded) {
+                    failures.increment();
+                }
+                recordLatency(elapsedNanos);
+            }
+        }
+
+        public <T> BankingEngine.OperationResult<T> time(Supplier<BankingEngine.OperationResult<T>> operation) {
+            long start = start();
+            boolean succeeded = false;
+            try {
+                BankingEngine.OperationResult<T> result = operation.get();
+                succeeded = result.isSuccess();
+                return result;
+            } finally {
+                stop(start, succeeded);
+            }
+        }
+
+        public boolean time(BooleanSupplier operation) {
+            long start = start();
+            boolean succeeded = false;
+            try {
+                succeeded = operation.getAsBoolean();
+                return succeeded;
+            } finally {
+                stop(start, succeeded);
+            }
+        }
+
+        public void time(Runnable operation) {
+            long start = start();
+            boolean succeeded = false;
+            try {
+                operation.run();
+                succeeded = true;
+            } finally {
+                stop(start, succeeded);
+            }
+        }
+
+        private void recordLatency(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets[stripe()].getAndIncrement(LatencyHistogram.bucketOf(value));
+            if (value > max.get()) {
+                max.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        // Latencies recorded so far (a sample of the calls for sampled operations).
+        // Taken while calls are recorded, so it may be a few calls behind the counters.
+        public LatencyHistogram snapshot() {
+            long[] counts = new long[LatencyHistogram.BUCKETS];
+            for (AtomicLongArray stripe : buckets) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += stripe.get(i);
+                }
+            }
+            return new LatencyHistogram(counts, max.get());
+        }
+    }
+
+    private static int stripe() {
+        long probe = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return (int) (probe >>> 32) & (STRIPES - 1);
+    }
+
+    // Counts every call, times one in sampleEvery (a power of two)
+    private static Timer timer(String name, int sampleEvery) {
+        Timer timer = new Timer(name, sampleEvery);
+        timers.add(timer);
+        return timer;
+    }
+
+    public static List<Timer> getTimers() {
+        return Collections.unmodifiableList(timers);
+    }
+
+    public static ObjectName objectName(Timer timer) throws JMException {
+        return new ObjectName("banking:type=Operation,name=" + timer.getName());
+    }
+
+    // Registers one MBean per operation with the platform MBean server; a no-op when already registered
+    public static synchronized void registerMBeans() {
+        if (!ENABLED) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Timer timer : timers) {
+                ObjectName name = objectName(timer);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new TimerMBean(timer), name);
+                }
+            }
+        } catch (JMException e) {
+            System.out.println("Operation metrics not published over JMX: " + e.getMessage());
+        }
+    }
+
+    // Appends a table of the operations called in each interval to the file
+    public static synchronized void startDump(Path file, long intervalSeconds) {
+        if (!ENABLED || dumper != null) {
+            return;
+        }
+        dumpFile = file;
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleWithFixedDelay(OperationMetrics::dumpInterval, intervalSeconds, intervalSeconds,
+            TimeUnit.SECONDS);
+    }
+
+    // Stops the dump thread after a last dump of whatever was not dumped yet
+    public static synchronized void stopDump() {
+        if (dumper == null) {
+            return;
+        }
+        dumper.shutdownNow();
+        try {
+            dumper.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dumper = null;
+        dumpInterval();
+    }
+
+    private static synchronized void dumpInterval() {
+        long now = System.nanoTime();
+        String text = intervalReport((now - lastDumpNanos) / 1e9);
+        lastDumpNanos = now;
+        try {
+            Files.writeString(dumpFile, text, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.out.println("Error writing operation metrics to " + dumpFile + ": " + e.getMessage());
+        }
+    }
+
+    // Operations called since the previous interval report, with their calls per
+    // second, failures and latency percentiles in microseconds
+    static synchronized String intervalReport(double seconds) {
+        StringBuilder out = new StringBuilder();
+        out.append("=== ").append(LocalDateTime.now().withNano(0).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+            .append(String.format(" (%.0f s) ===%n", seconds));
+        out.append(String.format("%-22s %12s %10s %10s %10s %10s %10s %10s%n", "operation", "calls", "calls/s",
+            "failed", "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (Timer timer : timers) {
+            long calls = timer.getCalls();
+            long failures = timer.getFailures();
+            LatencyHistogram histogram = timer.snapshot();
+            LatencyHistogram interval = histogram.since(timer.dumped);
+            long intervalCalls = calls - timer.dumpedCalls;
+            if (intervalCalls > 0) {
+                out.append(String.format("%-22s %,12d %,10.0f %,10d %10.1f %10.1f %10.1f %10.1f%n", timer.getName(),
+                    intervalCalls, intervalCalls / seconds, failures - timer.dumpedFailures,
+                    interval.percentile(50) / 1000.0, interval.percentile(99) / 1000.0,
+                    interval.percentile(99.9) / 1000.0, interval.getMax() / 1000.0));
+            }
+            timer.dumped = histogram;
+            timer.dumpedCalls = calls;
+            timer.dumpedFailures = failures;
+        }
+        return out.toString();
+    }
+
+    // The read-only view of one Timer over JMX: cumulative counts and percentiles
+    private static final class TimerMBean implements DynamicMBean {
+        private static final String[] LONGS = { "Calls", "Failures", "TimedCalls" };
+        private static final String[] DOUBLES = { "P50Micros", "P90Micros", "P99Micros", "P999Micros", "MaxMicros" };
+
+        private final Timer timer;
+
+        TimerMBean(Timer timer) {
+            this.timer = timer;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            switch (attribute) {
+                case "Calls": return timer.getCalls();
+                case "Failures": return timer.getFailures();
+                case "TimedCalls": return timer.snapshot().getCount();
+                case "P50Micros": return timer.snapshot().percentile(50) / 1000.0;
+                case "P90Micros": return timer.snapshot().percentile(90) / 1000.0;
+                case "P99Micros": return timer.snapshot().percentile(99) / 1000.0;
+                case "P999Micros": return timer.snapshot().percentile(99.9) / 1000.0;
+                case "MaxMicros": return timer.snapshot().getMax() / 1000.0;
+                default: throw new AttributeNotFoundException(attribute);
+            }
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // left out, as the JMX contract asks
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String name : LONGS) {
+                attributes.add(new MBeanAttributeInfo(name, "long", name, true, false, false));
+            }
+            for (String name : DOUBLES) {
+                attributes.add(new MBeanAttributeInfo(name, "double", name, true, false, false));
+            }
+            return new MBeanInfo(TimerMBean.class.getName(), "Calls and latency of " + timer.getName(),
+                attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+// Projection of the active loan book: outstanding balance, interest income and
+// EMI cash flow for each of the next 1 to 360 months, by loan type and customer
+// type.
+//
+// A loan that keeps paying its EMI E on balance B at monthly rate r owes
+//     B(k) = B g^k - E (g^k - 1) / r        with g = 1 + r
+// after k months, until the month n it pays off in (its last instalment is just
+// what is left). That is linear in B and E, so loans of one segment (loan type,
+// customer type, rate) that pay off in the same month can be summed before
+// projecting: a segment holds the total balance and EMI per payoff month, each
+// loan costs O(1) to add, and expanding a segment into the monthly figures costs
+// O(months) however many loans it holds.
+//
+// compute() builds segments from a loan list in parallel chunks, each with its
+// own accumulators, then merges them. The live projection is kept up to date
+// the way BankStatistics is: loans are added as they are registered, and
+// payments, repricings and customer type changes take a loan out and put it
+// back with its new figures, so project() is always current. check() compares
+// the live figures with a full recomputation.
+class PortfolioProjection {
+    public static final int MAX_HORIZON = 360;
+    private static final int CHUNK_SIZE = 16384;
+    private static final int BEYOND = MAX_HORIZON + 1; // payoff bucket for loans still running after MAX_HORIZON
+
+    // Total balance and EMI of a segment's loans per payoff month (1..MAX_HORIZON, BEYOND)
+    private static final class Segment {
+        final String loanType;
+        final String customerType;
+        final double interestRate;
+        final double monthlyRate;
+        final double[] balances = new double[BEYOND + 1];
+        final double[] emis = new double[BEYOND + 1];
+        int loans;
+
+        Segment(String loanType, String customerType, double interestRate) {
+            this.loanType = loanType;
+            this.customerType = customerType;
+            this.interestRate = interestRate;
+            this.monthlyRate = interestRate / 12 / 100;
+        }
+
+        synchronized void add(double balance, double emi, int sign) {
+            int payoff = payoffMonth(balance, emi, monthlyRate);
+            balances[payoff] += sign * balance;
+            emis[payoff] += sign * emi;
+            loans += sign;
+        }
+
+        synchronized void addAll(Segment other) {
+            for (int month = 1; month <= BEYOND; month++) {
+                balances[month] += other.balances[month];
+                emis[month] += other.emis[month];
+            }
+            loans += other.loans;
+        }
+    }
+
+    // Segments looked up by a linear scan (there are a few dozen); copy-on-write so
+    // the live table is read without locking
+    private static final class SegmentTable {
+        private volatile Segment[] segments = new Segment[0];
+
+        Segment find(String loanType, String customerType, double interestRate) {
+            Segment[] current = segments;
+            for (Segment segment : current) {
+                if (segment.interestRate == interestRate && segment.loanType.equals(loanType)
+                        && segment.customerType.equals(customerType)) {
+                    return segment;
+                }
+            }
+            return create(loanType, customerType, interestRate);
+        }
+
+        private synchronized Segment create(String loanType, String customerType, double interestRate) {
+            for (Segment segment : segments) {
+                if (segment.interestRate == interestRate && segment.loanType.equals(loanType)
+                        && segment.customerType.equals(customerType)) {
+                    return segment;
+                }
+            }
+            Segment[] grown = new Segment[segments.length + 1];
+            System.arraycopy(segments, 0, grown, 0, segments.length);
+            grown[segments.length] = new Segment(loanType, customerType, interestRate);
+            segments = grown;
+            return grown[segments.length - 1];
+        }
+
+        Segment[] snapshot() {
+            return segments;
+        }
+    }
+
+    // Monthly figures of one loan type and customer type (or the whole book), month 1 first
+    public static final class Group {
+        private final String loanType;
+        private final String customerType;
+        private final double[] outstanding;
+        private final double[] interest;
+        private final double[] cashFlow;
+        private int loans;
+        private double currentBalance;
+
+        Group(String loanType, String customerType, int horizon) {
+            this.loanType = loanType;
+            this.customerType = customerType;
+            this.outstanding = new double[horizon];
+            this.interest = new double[horizon];
+            this.cashFlow = new double[horizon];
+        }
+
+        public String getLoanType() { return loanType; }
+        public String getCustomerType() { return customerType; }
+        public int getLoans() { return loans; }
+        public double getCurrentBalance() { return currentBalance; }
+        public double getOutstanding(int month) { return outstanding[month - 1]; }
+        public double getInterest(int month) { return interest[month - 1]; }
+        public double getCashFlow(int month) { return cashFlow[month - 1]; }
+
+        public double getTotalInterest() {
+            double total = 0;
+            for (double value : interest) {
+                total += value;
+            }
+            return total;
+        }
+
+        public double getTotalCashFlow() {
+            double total = 0;
+            for (double value : cashFlow) {
+                total += value;
+            }
+            return total;
+        }
+    }
+
+    public static final class Projection {
+        private final int horizon;
+        private final List<Group> groups;
+        private final Group total;
+
+        Projection(int horizon, List<Group> groups, Group total) {
+            this.horizon = horizon;
+            this.groups = groups;
+            this.total = total;
+        }
+
+        public int getHorizon() { return horizon; }
+        public List<Group> getGroups() { return groups; }
+        public Group getTotal() { return total; }
+    }
+
+    private static final SegmentTable live = new SegmentTable();
+
+    public static void onLoanAdded(Loan loan) {
+        apply(live, loan, customerTypeOf(loan), 1);
+    }
+
+    // A loan's balance, rate or status is about to change; call onLoanChanged once it has,
+    // both under the loan's lock
+    public static void onLoanChanging(Loan loan) {
+        apply(live, loan, customerTypeOf(loan), -1);
+    }
+
+    public static void onLoanChanged(Loan loan) {
+        apply(live, loan, customerTypeOf(loan), 1);
+    }
+
+    // Moves the customer's active loans from the old customer type's segments to the new one's
+    public static void onCustomerTypeChanged(int customerId, String oldType, String newType) {
+        for (Loan loan : BankingManagementSystem.getLoanTable()) {
+            if (loan.getCustomerId() == customerId) {
+                synchronized (loan) {
+                    apply(live, loan, oldType, -1);
+                    apply(live, loan, newType, 1);
+                }
+            }
+        }
+    }
+
+    // The live projection over the given number of months
+    public static Projection project(int horizon) {
+        return expand(live.snapshot(), horizon);
+    }
+
+    // A full recomputation over the loans, spread over the common pool
+    public static Projection compute(Loan[] loans, int horizon) {
+        int chunkCount = (loans.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SegmentTable[] chunks = new SegmentTable[chunkCount];
+        IntStream.range(0, chunkCount).parallel().forEach(c -> {
+            SegmentTable table = new SegmentTable();
+            for (int i = c * CHUNK_SIZE; i < Math.min(loans.length, (c + 1) * CHUNK_SIZE); i++) {
+                apply(table, loans[i], customerTypeOf(loans[i]), 1);
+            }
+            chunks[c] = table;
+        });
+        SegmentTable merged = new SegmentTable();
+        for (SegmentTable chunk : chunks) {
+            for (Segment segment : chunk.snapshot()) {
+                merged.find(segment.loanType, segment.customerType, segment.interestRate).addAll(segment);
+            }
+        }
+        return expand(merged.snapshot(), horizon);
+    }
+
+    // Live figures against a full recomputation, to within a paisa per million rupees
+    public static boolean check(Loan[] loans) {
+        Projection expected = compute(loans, MAX_HORIZON);
+        Projection actual = project(MAX_HORIZON);
+        boolean consistent = expected.getTotal().getLoans() == actual.getTotal().getLoans();
+        for (int month = 1; month <= MAX_HORIZON; month++) {
+            consistent &= close(expected.getTotal().getOutstanding(month), actual.getTotal().getOutstanding(month))
+                && close(expected.getTotal().getInterest(month), actual.getTotal().getInterest(month))
+                && close(expected.getTotal().getCashFlow(month), actual.getTotal().getCashFlow(month));
+        }
+        System.out.printf("Loan projection (active loans, %d months): live %d | recomputed %d | %s%n", MAX_HORIZON,
+            actual.getTotal().getLoans(), expected.getTotal().getLoans(), consistent ? "OK" : "MISMATCH");
+        return consistent;
+    }
+
+    private static void apply(SegmentTable table, Loan loan, String customerType, int sign) {
+        if (!"Active".equals(loan.getStatus())) {
+            return;
+        }
+        table.find(loan.getLoanType(), customerType, loan.getInterestRate())
+            .add(loan.getRemainingBalance(), loan.calculateMonthlyPayment(), sign);
+    }
+
+    private static String customerTypeOf(Loan loan) {
+        return BankingManagementSystem.findCustomerById(loan.getCustomerId())
+            .map(Customer::getCustomerType).orElse("Unknown");
+    }
+
+    // First month whose balance B g^k - E (g^k - 1) / r reaches zero; BEYOND if after MAX_HORIZON or never
+    private static int payoffMonth(double balance, double emi, double monthlyRate) {
+        if (balance <= 0) {
+            return 1;
+        }
+        if (!(emi > 0)) {
+            return BEYOND;
+        }
+        double months;
+        if (monthlyRate == 0) {
+            months = balance / emi;
+        } else if (emi > monthlyRate * balance) {
+            months = Math.log(emi / (emi - monthlyRate * balance)) / Math.log1p(monthlyRate);
+        } else {
+            return BEYOND; // the EMI does not cover the interest
+        }
+        double payoff = Math.ceil(months - 1e-9);
+        return payoff > MAX_HORIZON ? BEYOND : Math.max(1, (int) payoff);
+    }
+
+    private static Projection expand(Segment[] segments, int horizon) {
+        Map<String, Group> groups = new TreeMap<>();
+        Group total = new Group("All", "All", horizon);
+        double[] balanceAfter = new double[BEYOND + 2]; // suffix sums: loans paying off in month k or later
+        double[] emiAfter = new double[BEYOND + 2];
+        for (Segment segment : segments) {
+            Group group = groups.computeIfAbsent(segment.loanType + " / " + segment.customerType,
+                key -> new Group(segment.loanType, segment.customerType, horizon));
+            synchronized (segment) {
+                for (int month = BEYOND; month >= 1; month--) {
+                    balanceAfter[month] = balanceAfter[month + 1] + segment.balances[month];
+                    emiAfter[month] = emiAfter[month + 1] + segment.emis[month];
+                }
+                double rate = segment.monthlyRate;
+                double growth = 1;      // g^(k-1)
+                double annuity = 0;     // (g^(k-1) - 1) / r, or k - 1 at a zero rate
+                for (int month = 1; month <= horizon; month++) {
+                    double before = balanceAfter[month] * growth - emiAfter[month] * annuity;
+                    double finalBalance = segment.balances[month] * growth - segment.emis[month] * annuity;
+                    double interest = rate * before;
+                    double cashFlow = emiAfter[month + 1] + (1 + rate) * finalBalance;
+                    annuity = annuity * (1 + rate) + 1;
+                    growth *= 1 + rate;
+                    double after = balanceAfter[month + 1] * growth - emiAfter[month + 1] * annuity;
+                    add(group, month, after, interest, cashFlow);
+                    add(total, month, after, interest, cashFlow);
+                }
+                group.loans += segment.loans;
+                total.loans += segment.loans;
+                group.currentBalance += balanceAfter[1];
+                total.currentBalance += balanceAfter[1];
+            }
+        }
+        return new Projection(horizon, new ArrayList<>(groups.values()), total);
+    }
+
+    private static void add(Group group, int month, double outstanding, double interest, double cashFlow) {
+        group.outstanding[month - 1] += outstanding;
+        group.interest[month - 1] += interest;
+        group.cashFlow[month - 1] += cashFlow;
+    }
+
+    private static boolean close(double expected, double actual) {
+        return Math.abs(expected - actual) <= 0.01 + Math.abs(expected) * 1e-8;
+    }
+}
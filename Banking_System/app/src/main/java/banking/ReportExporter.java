@@ -0,0 +1,451 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+// Streams the customer, transaction and loan reports to a CSV or JSON file.
+//
+// Rows are encoded field by field straight into a 4 MB byte buffer, which goes
+// to the file channel whenever it fills, so memory stays constant however many
+// rows there are. Transactions are read column by column from the store
+// without building Transaction objects, and dates are formatted from a cache
+// of "yyyy-MM-dd HH" prefixes instead of a date formatter. CSV gets a header line; JSON is an
+// array with one object per line. Amounts are plain rupees with two decimals,
+// dates are local time.
+class ReportExporter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 4 << 20;
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    private static final String HEX_DIGITS = "0123456789abcdef";
+    private static final byte[] DIGIT_TENS = new byte[100];
+    private static final byte[] DIGIT_ONES = new byte[100];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_TENS[i] = (byte) ('0' + i / 10);
+            DIGIT_ONES[i] = (byte) ('0' + i % 10);
+        }
+    }
+    private static final int HOUR_CACHE = 1 << 12; // hours, about half a year
+
+    private static final String[] CUSTOMER_FIELDS = { "customer_id", "first_name", "last_name", "email", "phone",
+        "address", "id_number", "date_of_birth", "registration_date", "customer_type", "accounts" };
+    private static final String[] TRANSACTION_FIELDS = { "transaction_id", "date", "account_number", "type",
+        "amount", "balance_after", "target_account", "description" };
+    private static final String[] LOAN_FIELDS = { "loan_id", "customer_id", "loan_type", "loan_amount",
+        "interest_rate", "term_months", "start_date", "remaining_balance", "status" };
+
+    private final FileChannel channel;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer view = ByteBuffer.wrap(buffer);
+    private final boolean json;
+    private final String[] fields;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private int position;
+    private int field;
+    private long rows;
+
+    // Direct-mapped cache of local hours: where each starts, and its "yyyy-MM-dd HH"
+    private final long[] hourStarts = new long[HOUR_CACHE];
+    private final byte[] hourPrefixes = new byte[HOUR_CACHE * 13];
+    private final long standardOffsetMillis;
+
+    private ReportExporter(Path file, boolean json, String[] fields) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        this.json = json;
+        this.fields = fields;
+        Arrays.fill(hourStarts, Long.MAX_VALUE);
+        standardOffsetMillis = zone.getRules().getStandardOffset(Instant.now()).getTotalSeconds() * 1000L;
+        if (json) {
+            put('[');
+        } else {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    put(',');
+                }
+                putRaw(fields[i]);
+            }
+            put('\n');
+        }
+    }
+
+    // Customer report, with each customer's number of accounts; returns the rows written
+    public static long exportCustomers(List<Customer> customers, List<Account> accounts, Path file, boolean json)
+            throws IOException {
+        int count = customers.size();
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int id = customers.get(i).getCustomerId();
+            minId = Math.min(minId, id);
+            maxId = Math.max(maxId, id);
+        }
+        int[] accountCounts = new int[count == 0 ? 0 : maxId - minId + 1];
+        for (int i = 0, end = accounts.size(); i < end; i++) {
+            int id = accounts.get(i).getCustomerId();
+            if (id >= minId && id <= maxId) {
+                accountCounts[id - minId]++;
+            }
+        }
+        // Lists only ever grow, so rows below the size read at the start are stable
+        try (ReportExporter out = new ReportExporter(file, json, CUSTOMER_FIELDS)) {
+            for (int i = 0; i < count; i++) {
+                Customer customer = customers.get(i);
+                out.beginRow();
+                out.number(customer.getCustomerId());
+                out.text(customer.getFirstName());
+                out.text(customer.getLastName());
+                out.text(customer.getEmail());
+                out.text(customer.getPhone());
+                out.text(customer.getAddress());
+                out.text(customer.getIdNumber());
+                out.date(customer.getDateOfBirth(), false);
+                out.date(customer.getRegistrationDate(), false);
+                out.text(customer.getCustomerType());
+                out.number(accountCounts[customer.getCustomerId() - minId]);
+                out.endRow();
+            }
+            return out.rows;
+        }
+    }
+
+    public static long exportTransactions(TransactionStore store, Path file, boolean json) throws IOException {
+        try (ReportExporter out = new ReportExporter(file, json, TRANSACTION_FIELDS)) {
+            for (int row = 0, end = store.size(); row < end; row++) {
+                out.beginRow();
+                out.number(store.getTransactionId(row));
+                out.dateTime(store.getTimestamp(row), true);
+                out.text(store.getAccountNumber(row));
+                out.text(store.getTransactionType(row));
+                out.twoDecimals(store.getAmountPaise(row));
+                out.twoDecimals(store.getBalanceAfterPaise(row));
+                out.text(store.getTargetAccount(row));
+                out.text(store.getDescription(row));
+                out.endRow();
+            }
+            return out.rows;
+        }
+    }
+
+    public static long exportLoans(List<Loan> loans, Path file, boolean json) throws IOException {
+        try (ReportExporter out = new ReportExporter(file, json, LOAN_FIELDS)) {
+            for (int i = 0, end = loans.size(); i < end; i++) {
+                Loan loan = loans.get(i);
+                out.beginRow();
+                out.number(loan.getLoanId());
+                out.number(loan.getCustomerId());
+                out.text(loan.getLoanType());
+                out.twoDecimals(Account.toPaise(loan.getLoanAmount()));
+                out.twoDecimals(Account.toPaise(loan.getInterestRate()));
+                out.number(loan.getTermMonths());
+                out.date(loan.getStartDate(), false);
+                out.twoDecimals(Account.toPaise(loan.getRemainingBalance()));
+                out.text(loan.getStatus());
+                out.endRow();
+            }
+            return out.rows;
+        }
+    }
+
+    private void beginRow() throws IOException {
+        if (json) {
+            putRaw(rows == 0 ? "\n{" : ",\n{");
+        }
+        field = 0;
+    }
+
+    private void endRow() throws IOException {
+        put(json ? '}' : '\n');
+        rows++;
+    }
+
+    // Separator and, for JSON, the quoted field name
+    private void nextField() throws IOException {
+        if (field > 0) {
+            put(',');
+        }
+        if (json) {
+            put('"');
+            putRaw(fields[field]);
+            putRaw("\":");
+        }
+        field++;
+    }
+
+    private void number(long value) throws IOException {
+        nextField();
+        putLong(value);
+    }
+
+    // Amounts in paise and rates in hundredths of a percent, written with two decimals
+    private void twoDecimals(long hundredths) throws IOException {
+        nextField();
+        if (hundredths < 0) {
+            put('-');
+            hundredths = -hundredths;
+        }
+        putLong(hundredths / 100);
+        put('.');
+        long fraction = hundredths % 100;
+        put((char) ('0' + fraction / 10));
+        put((char) ('0' + fraction % 10));
+    }
+
+    private void text(String value) throws IOException {
+        nextField();
+        if (value == null) {
+            if (json) {
+                putRaw("null");
+            }
+            return;
+        }
+        if (json) {
+            putJsonString(value);
+        } else {
+            putCsvField(value);
+        }
+    }
+
+    private void date(Date value, boolean withTime) throws IOException {
+        if (value == null) {
+            text(null);
+        } else {
+            dateTime(value.getTime(), withTime);
+        }
+    }
+
+    private void dateTime(long epochMillis, boolean withTime) throws IOException {
+        nextField();
+        int slot = Math.floorMod(Math.floorDiv(epochMillis + standardOffsetMillis, HOUR_MILLIS), HOUR_CACHE);
+        long hourStart = hourStarts[slot];
+        if (epochMillis < hourStart || epochMillis >= hourStart + HOUR_MILLIS) {
+            LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+            hourStart = epochMillis - (local.getMinute() * 60_000L + local.getSecond() * 1000L
+                + local.getNano() / 1_000_000);
+            hourStarts[slot] = hourStart;
+            int prefix = slot * 13;
+            writeDigits(hourPrefixes, prefix, local.getYear(), 4);
+            hourPrefixes[prefix + 4] = '-';
+            writeDigits(hourPrefixes, prefix + 5, local.getMonthValue(), 2);
+            hourPrefixes[prefix + 7] = '-';
+            writeDigits(hourPrefixes, prefix + 8, local.getDayOfMonth(), 2);
+            hourPrefixes[prefix + 10] = ' ';
+            writeDigits(hourPrefixes, prefix + 11, local.getHour(), 2);
+        }
+        ensure(21);
+        if (json) {
+            buffer[position++] = '"';
+        }
+        int length = withTime ? 13 : 10;
+        System.arraycopy(hourPrefixes, slot * 13, buffer, position, length);
+        position += length;
+        if (withTime) {
+            int seconds = (int) ((epochMillis - hourStart) / 1000);
+            buffer[position++] = ':';
+            writeDigits(buffer, position, seconds / 60, 2);
+            buffer[position + 2] = ':';
+            writeDigits(buffer, position + 3, seconds % 60, 2);
+            position += 5;
+        }
+        if (json) {
+            buffer[position++] = '"';
+        }
+    }
+
+    private static void writeDigits(byte[] target, int offset, int value, int width) {
+        for (int i = width - 1; i >= 0; i--) {
+            target[offset + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private void putLong(long value) throws IOException {
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            if (value == Long.MIN_VALUE) {
+                putRaw("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        // Digits are written backwards from the end, two per division, in int arithmetic once it fits
+        int end = position + digitCount(value);
+        int i = end;
+        while (value > Integer.MAX_VALUE) {
+            long quotient = value / 100;
+            int pair = (int) (value - quotient * 100);
+            buffer[--i] = DIGIT_ONES[pair];
+            buffer[--i] = DIGIT_TENS[pair];
+            value = quotient;
+        }
+        int rest = (int) value;
+        while (rest >= 100) {
+            int quotient = rest / 100;
+            int pair = rest - quotient * 100;
+            buffer[--i] = DIGIT_ONES[pair];
+            buffer[--i] = DIGIT_TENS[pair];
+            rest = quotient;
+        }
+        buffer[--i] = DIGIT_ONES[rest];
+        if (rest >= 10) {
+            buffer[--i] = DIGIT_TENS[rest];
+        }
+        position = end;
+    }
+
+    private static int digitCount(long value) {
+        long bound = 10;
+        for (int digits = 1; digits < 19; digits++) {
+            if (value < bound) {
+                return digits;
+            }
+            bound *= 10;
+        }
+        return 19;
+    }
+
+    // Written unquoted in one pass; only a value that turns out to hold a comma,
+    // quote or line break is rewound and written again, quoted
+    private void putCsvField(String value) throws IOException {
+        int length = value.length();
+        if (length * 3 <= BUFFER_SIZE) {
+            ensure(length * 3);
+            int start = position;
+            int i = 0;
+            for (; i < length; i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    break;
+                }
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else {
+                    i = putChar(value, i, c);
+                }
+            }
+            if (i >= length) {
+                return;
+            }
+            position = start;
+        }
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            ensure(6);
+            if (c == '"') {
+                buffer[position++] = '"';
+            }
+            i = putChar(value, i, c);
+        }
+        put('"');
+    }
+
+    private void putJsonString(String value) throws IOException {
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            ensure(6);
+            if (c == '"' || c == '\\') {
+                buffer[position++] = '\\';
+                buffer[position++] = (byte) c;
+            } else if (c < 0x20) {
+                buffer[position++] = '\\';
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = (byte) HEX_DIGITS.charAt(c >> 4);
+                buffer[position++] = (byte) HEX_DIGITS.charAt(c & 0xF);
+            } else {
+                i = putChar(value, i, c);
+            }
+        }
+        put('"');
+    }
+
+    // Text that needs no quoting or escaping; one capacity check covers the
+    // whole string unless it is longer than the buffer
+    private void putRaw(String value) throws IOException {
+        int length = value.length();
+        boolean fits = length * 3 <= BUFFER_SIZE;
+        if (fits) {
+            ensure(length * 3);
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!fits) {
+                ensure(4);
+            }
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else {
+                i = putChar(value, i, c);
+            }
+        }
+    }
+
+    // UTF-8 encodes the char at index, together with its low surrogate if it has
+    // one, into at most 4 bytes the caller has made room for; returns the index
+    // of the last char consumed
+    private int putChar(String value, int index, char c) {
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | c >> 6);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+            buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            return index + 1;
+        } else {
+            buffer[position++] = (byte) (0xE0 | c >> 12);
+            buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+        }
+        return index;
+    }
+
+    private void put(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > BUFFER_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        view.clear().limit(position);
+        while (view.hasRemaining()) {
+            channel.write(view);
+        }
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (json) {
+                putRaw(rows == 0 ? "]\n" : "\n]\n");
+            }
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Takes periodic snapshots and truncates the journal segments they cover.
+//
+// A snapshot is taken by rotating the journal (a single marker in the writer
+// queue, so appenders never pause) and then folding the sealed segments into
+// the previous snapshot on a background thread. Startup loads the latest
+// snapshot and replays only the segments written after it.
+class SnapshotManager implements AutoCloseable {
+    private final Path snapshotPath;
+    private final Path journalBase;
+    private final ScheduledExecutorService scheduler;
+    private TransactionJournal journal;
+
+    public SnapshotManager(Path snapshotPath, Path journalBase) {
+        this.snapshotPath = snapshotPath;
+        this.journalBase = journalBase;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Path getSnapshotPath() { return snapshotPath; }
+
+    // Loads the latest snapshot and replays the journal tail on top of it
+    public BankSnapshot recover(BankSnapshot.TransactionSink sink) throws IOException {
+        BankSnapshot state = BankSnapshot.load(snapshotPath, sink);
+        TransactionJournal.replay(journalBase, state.replayFromSegment, state::apply);
+        return state;
+    }
+
+    public void start(TransactionJournal journal, long intervalMinutes) {
+        this.journal = journal;
+        if (intervalMinutes > 0) {
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    // Rotates the journal, writes a new snapshot covering everything before the
+    // rotation and deletes the segments it made redundant
+    public int snapshot() throws IOException {
+        long sealedBefore = journal.rotate().join();
+        int folded = BankSnapshot.compact(snapshotPath, journalBase, sealedBefore);
+        TransactionJournal.deleteSegmentsBefore(journalBase, sealedBefore);
+        return folded;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            System.out.println("Warning: snapshot failed: " + e.getMessage());
+        }
+    }
+
+    // Runs a snapshot on the background thread and waits for it (used at shutdown)
+    public void snapshotNow() {
+        try {
+            scheduler.submit(this::snapshot).get();
+        } catch (Exception e) {
+            System.out.println("Warning: snapshot failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,640 @@
+package banking;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Network front-end for teller terminals: a line-based protocol over TCP with
+// one virtual thread per connection, every request served through BankingEngine.
+//
+// A request is one line, the command and its arguments separated by '|', and
+// the reply is one line starting with OK or ERR:
+//     DEPOSIT|ACC1000000001|2500.00   ->   OK|17|12500.00
+//     DEPOSIT|ACC999|2500.00          ->   ERR|Account not found!
+// Listings (FIND, ACCOUNTS, the statements, PROJECTION) reply "OK|<n>" followed
+// by n row lines.
+// Amounts are rupees with two decimals; text fields never contain '|' or line
+// breaks (stored text has them replaced by spaces). A teller may pipeline
+// requests: replies are flushed once no further request is already buffered.
+//
+//     PING                                        OK
+//     REGISTER|first|last|email|phone|address|idNumber|yyyy-MM-dd|type
+//                                                 OK|customerId|savingsAccountNumber; if only the
+//                                                 account fails, ERR names the registered customer
+//     CUSTOMER|customerId                         OK|id|first|last|email|phone|type
+//     CUSTOMER_UPDATE|customerId|field|value      OK|row as CUSTOMER; field is first, last, email,
+//                                                 phone, address or type
+//     FIND|name                                   OK|n, rows as CUSTOMER (at most 100)
+//     ACCOUNTS|customerId                         OK|n, rows as ACCOUNT
+//     OPEN|customerId|type|initialDeposit         OK|accountNumber
+//     CLOSE|accountNumber                         OK|accountNumber
+//     ACCOUNT|accountNumber                       OK|number|customerId|type|balance|rate|status
+//     STATEMENT|accountNumber[|n]                 OK|n, last n rows (default 10, at most 1000), oldest first:
+//                                                 id|epochMillis|type|amount|description|target|balanceAfter
+//     STATEMENT_RANGE|accountNumber|yyyy-MM-dd|yyyy-MM-dd
+//                                                 OK|n, rows as STATEMENT for those days (inclusive),
+//                                                 oldest first, at most the first 1000
+//     STATEMENT_MONTH|accountNumber|yyyy-MM       OK|n, as STATEMENT_RANGE for that month
+//     DEPOSIT|accountNumber|amount[|key]          OK|transactionId|balanceAfter
+//     WITHDRAW|accountNumber|amount[|key]         OK|transactionId|balanceAfter
+//     TRANSFER|from|to|amount[|key]               OK|sourceTransactionId|targetTransactionId|sourceBalanceAfter
+//     LOAN_APPLY|customerId|type|amount|months    OK|loanId|rate|monthlyPayment
+//     LOAN_APPROVE|loanId                         OK|loanId|status
+//     LOAN_DISBURSE|loanId                        OK|loanId|status
+//     LOAN_PAY|loanId|amount                      OK|loanId|remainingBalance|status
+//     LOAN|loanId                                 OK|id|customerId|type|amount|rate|months|remainingBalance|status
+//     INTEREST_RUN|yyyy-MM                        OK|credited|alreadyCredited|creditedAmount
+//     LOAN_REPORT                                 OK|loans|totalAmount|totalRemaining
+//     PROJECTION|months                           OK|n, one row per loan type and customer type:
+//                                                 loanType|customerType|loans|outstanding|
+//                                                 outstandingEnd|interest|cashFlow
+//     STATS                                       OK|customers|accounts|activeAccounts|activeLoans|totalDeposits
+//     QUIT                                        OK, then the connection is closed
+//
+// A teller that may resend a DEPOSIT, WITHDRAW or TRANSFER after a timeout
+// passes a request key; a resend with the same key gets the first reply
+// instead of moving the money again (see IdempotencyCache).
+//
+// Each session holds only a small read buffer and a small write buffer, so
+// thousands of sessions fit comfortably next to the bank itself.
+class TellerServer implements AutoCloseable {
+    static final int MAX_LINE = 4096;
+    private static final int BUFFER_SIZE = 512;
+    private static final int BACKLOG = 4096;
+    private static final int MAX_FOUND = 100;
+    private static final int STATEMENT_ROWS = 10;
+    private static final int MAX_STATEMENT_ROWS = 1000;
+
+    private final ServerSocket listener;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> openSessions = ConcurrentHashMap.newKeySet();
+    private final LongAdder requests = new LongAdder();
+    private final Thread acceptor;
+
+    private TellerServer(ServerSocket listener) {
+        this.listener = listener;
+        this.acceptor = Thread.ofVirtual().name("teller-accept").start(this::acceptLoop);
+    }
+
+    // Listens on the given address; port 0 picks a free port (see getPort())
+    public static TellerServer start(InetAddress address, int port) throws IOException {
+        return new TellerServer(new ServerSocket(port, BACKLOG, address));
+    }
+
+    public int getPort() { return listener.getLocalPort(); }
+    public int getSessionCount() { return openSessions.size(); }
+    public long getRequestCount() { return requests.sum(); }
+
+    // Stops accepting, disconnects every teller and waits for their sessions to end
+    @Override
+    public void close() throws IOException {
+        listener.close();
+        for (Socket socket : openSessions) {
+            socket.close();
+        }
+        sessions.shutdown();
+        try {
+            acceptor.join();
+            sessions.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!listener.isClosed()) {
+            try {
+                Socket socket = listener.accept();
+                openSessions.add(socket);
+                try {
+                    sessions.execute(() -> serve(socket));
+                } catch (RejectedExecutionException e) {
+                    openSessions.remove(socket); // accepted while closing
+                    socket.close();
+                }
+            } catch (IOException e) {
+                if (!listener.isClosed()) {
+                    System.out.println("Teller server accept failed: " + e.getMessage());
+                    LockSupport.parkNanos(10_000_000L); // e.g. out of file descriptors; don't spin
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            LineReader in = new LineReader(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE * 2);
+            StringBuilder reply = new StringBuilder(128);
+            String line;
+            while ((line = in.readLine()) != null) {
+                reply.setLength(0);
+                boolean quit = handle(line, reply);
+                requests.increment();
+                out.write(reply.toString().getBytes(StandardCharsets.UTF_8));
+                if (quit || !in.hasBuffered()) {
+                    out.flush();
+                }
+                if (quit) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // the teller disconnected or sent an overlong line; nothing to reply to
+        } finally {
+            openSessions.remove(socket);
+        }
+    }
+
+    // '\n'-terminated UTF-8 lines (a trailing '\r' is dropped) read through a small buffer
+    static final class LineReader {
+        private final InputStream in;
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        private int start;
+        private int end;
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        // The next line, or null at end of stream; lines longer than MAX_LINE are an error
+        String readLine() throws IOException {
+            int scanned = start;
+            while (true) {
+                for (int i = scanned; i < end; i++) {
+                    if (buffer[i] == '\n') {
+                        int length = i > start && buffer[i - 1] == '\r' ? i - 1 - start : i - start;
+                        String line = new String(buffer, start, length, StandardCharsets.UTF_8);
+                        start = i + 1;
+                        return line;
+                    }
+                }
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    end -= start;
+                    start = 0;
+                }
+                if (end == buffer.length) {
+                    if (end >= MAX_LINE) {
+                        throw new IOException("Request line longer than " + MAX_LINE + " bytes");
+                    }
+                    buffer = Arrays.copyOf(buffer, Math.min(MAX_LINE, buffer.length * 2));
+                }
+                scanned = end;
+                int read = in.read(buffer, end, buffer.length - end);
+                if (read < 0) {
+                    return null;
+                }
+                end += read;
+            }
+        }
+
+        boolean hasBuffered() {
+            return start < end;
+        }
+    }
+
+    // Serves one request line into reply (newline-terminated); returns true if the session should end
+    static boolean handle(String line, StringBuilder reply) {
+        String[] args = line.split("\\|", -1);
+        String command = args[0].trim().toUpperCase();
+        try {
+            switch (command) {
+                case "PING":
+                    reply.append("OK");
+                    break;
+                case "REGISTER":
+                    register(args, reply);
+                    break;
+                case "CUSTOMER":
+                    expect(args, 2, "CUSTOMER|customerId");
+                    customer(reply, BankingManagementSystem.findCustomerById(parseId(args[1])));
+                    break;
+                case "CUSTOMER_UPDATE": {
+                    expect(args, 4, "CUSTOMER_UPDATE|customerId|field|value");
+                    BankingEngine.OperationResult<Customer> result =
+                        BankingEngine.updateCustomer(parseId(args[1]), args[2], args[3]);
+                    if (ok(result, reply)) {
+                        customerRow(reply.append('|'), result.getValue());
+                    }
+                    break;
+                }
+                case "FIND":
+                    expect(args, 2, "FIND|name");
+                    findCustomers(args[1], reply);
+                    break;
+                case "ACCOUNTS":
+                    expect(args, 2, "ACCOUNTS|customerId");
+                    customerAccounts(parseId(args[1]), reply);
+                    break;
+                case "OPEN": {
+                    expect(args, 4, "OPEN|customerId|type|initialDeposit");
+                    BankingEngine.OperationResult<Account> result =
+                        BankingEngine.openAccount(parseId(args[1]), args[2], parseAmount(args[3]));
+                    if (ok(result, reply)) {
+                        reply.append('|').append(result.getValue().getAccountNumber());
+                    }
+                    break;
+                }
+                case "CLOSE": {
+                    expect(args, 2, "CLOSE|accountNumber");
+                    BankingEngine.OperationResult<Account> result = BankingEngine.closeAccount(args[1]);
+                    if (ok(result, reply)) {
+                        reply.append('|').append(result.getValue().getAccountNumber());
+                    }
+                    break;
+                }
+                case "ACCOUNT":
+                    expect(args, 2, "ACCOUNT|accountNumber");
+                    account(reply, BankingEngine.findAccount(args[1]));
+                    break;
+                case "STATEMENT":
+                    statement(args, reply);
+                    break;
+                case "STATEMENT_RANGE":
+                    expect(args, 4, "STATEMENT_RANGE|accountNumber|yyyy-MM-dd|yyyy-MM-dd");
+                    statementBetween(args[1], parseDate(args[2]), parseDate(args[3]), reply);
+                    break;
+                case "STATEMENT_MONTH": {
+                    expect(args, 3, "STATEMENT_MONTH|accountNumber|yyyy-MM");
+                    YearMonth month = parseMonth(args[2]);
+                    statementBetween(args[1], month.atDay(1), month.atEndOfMonth(), reply);
+                    break;
+                }
+                case "DEPOSIT":
+                case "WITHDRAW": {
+                    expect(args, 3, 4, command + "|accountNumber|amount[|key]");
+                    String key = args.length == 4 ? args[3] : null;
+                    BankingEngine.OperationResult<Transaction> result = "DEPOSIT".equals(command)
+                        ? BankingEngine.deposit(key, args[1], parseAmount(args[2]))
+                        : BankingEngine.withdraw(key, args[1], parseAmount(args[2]));
+                    if (ok(result, reply)) {
+                        Transaction transaction = result.getValue();
+                        reply.append('|').append(transaction.getTransactionId()).append('|');
+                        amount(reply, Account.toPaise(transaction.getBalanceAfter()));
+                    }
+                    break;
+                }
+                case "TRANSFER": {
+                    expect(args, 4, 5, "TRANSFER|from|to|amount[|key]");
+                    BankingEngine.OperationResult<Transaction[]> result = BankingEngine.transfer(
+                        args.length == 5 ? args[4] : null, args[1], args[2], parseAmount(args[3]));
+                    if (ok(result, reply)) {
+                        Transaction[] posted = result.getValue();
+                        reply.append('|').append(posted[0].getTransactionId()).append('|')
+                            .append(posted[1].getTransactionId()).append('|');
+                        amount(reply, Account.toPaise(posted[0].getBalanceAfter()));
+                    }
+                    break;
+                }
+                case "LOAN_APPLY": {
+                    expect(args, 5, "LOAN_APPLY|customerId|type|amount|months");
+                    BankingEngine.OperationResult<Loan> result = BankingEngine.applyForLoan(parseId(args[1]),
+                        args[2], parseAmount(args[3]), parseId(args[4]));
+                    if (ok(result, reply)) {
+                        Loan loan = result.getValue();
+                        reply.append('|').append(loan.getLoanId()).append('|').append(loan.getInterestRate())
+                            .append('|');
+                        amount(reply, Account.toPaise(loan.calculateMonthlyPayment()));
+                    }
+                    break;
+                }
+                case "LOAN_APPROVE": {
+                    expect(args, 2, "LOAN_APPROVE|loanId");
+                    BankingEngine.OperationResult<Loan> result = BankingEngine.approveLoan(parseId(args[1]));
+                    if (ok(result, reply)) {
+                        reply.append('|').append(result.getValue().getLoanId()).append('|')
+                            .append(result.getValue().getStatus());
+                    }
+                    break;
+                }
+                case "LOAN_DISBURSE": {
+                    expect(args, 2, "LOAN_DISBURSE|loanId");
+                    BankingEngine.OperationResult<Loan> result = BankingEngine.disburseLoan(parseId(args[1]));
+                    if (ok(result, reply)) {
+                        reply.append('|').append(result.getValue().getLoanId()).append('|')
+                            .append(result.getValue().getStatus());
+                    }
+                    break;
+                }
+                case "LOAN_PAY": {
+                    expect(args, 3, "LOAN_PAY|loanId|amount");
+                    BankingEngine.OperationResult<Loan> result =
+                        BankingEngine.makeLoanPayment(parseId(args[1]), parseAmount(args[2]));
+                    if (ok(result, reply)) {
+                        Loan loan = result.getValue();
+                        reply.append('|').append(loan.getLoanId()).append('|');
+                        amount(reply, Account.toPaise(loan.getRemainingBalance()));
+                        reply.append('|').append(loan.getStatus());
+                    }
+                    break;
+                }
+                case "LOAN":
+                    expect(args, 2, "LOAN|loanId");
+                    loan(reply, BankingManagementSystem.findLoanById(parseId(args[1])));
+                    break;
+                case "INTEREST_RUN": {
+                    expect(args, 2, "INTEREST_RUN|yyyy-MM");
+                    BankingEngine.OperationResult<InterestEngine.Result> result =
+                        BankingEngine.applyMonthlyInterest(parseMonth(args[1]));
+                    if (ok(result, reply)) {
+                        InterestEngine.Result run = result.getValue();
+                        reply.append('|').append(run.getCredited()).append('|').append(run.getAlreadyCredited())
+                            .append('|');
+                        amount(reply, run.getCreditedPaise());
+                    }
+                    break;
+                }
+                case "LOAN_REPORT":
+                    expect(args, 1, "LOAN_REPORT");
+                    loanReport(reply);
+                    break;
+                case "PROJECTION":
+                    expect(args, 2, "PROJECTION|months");
+                    projection(parseId(args[1]), reply);
+                    break;
+                case "STATS":
+                    reply.append("OK|").append(total(BankStatistics.getCustomersByType())).append('|')
+                        .append(total(BankStatistics.getAccountsByType())).append('|')
+                        .append(BankStatistics.getActiveAccounts()).append('|')
+                        .append(BankStatistics.getActiveLoans()).append('|');
+                    amount(reply, BankStatistics.getTotalDepositsPaise());
+                    break;
+                case "QUIT":
+                    reply.append("OK\n");
+                    return true;
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + field(args[0]));
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            reply.setLength(0);
+            reply.append("ERR|").append(field(e.getMessage()));
+        }
+        reply.append('\n');
+        return false;
+    }
+
+    // Registers the customer and opens their savings account, as the console does
+    private static void register(String[] args, StringBuilder reply) {
+        expect(args, 9, "REGISTER|first|last|email|phone|address|idNumber|yyyy-MM-dd|type");
+        Date dateOfBirth;
+        try {
+            dateOfBirth = Date.from(LocalDate.parse(args[7]).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format! Please use YYYY-MM-DD.");
+        }
+        BankingEngine.OperationResult<Customer> registered = BankingEngine.registerCustomer(args[1], args[2],
+            args[3], args[4], args[5], args[6], dateOfBirth, args[8]);
+        if (!ok(registered, reply)) {
+            return;
+        }
+        int customerId = registered.getValue().getCustomerId();
+        BankingEngine.OperationResult<Account> savings = BankingEngine.openAccount(customerId, "Savings", 0);
+        reply.setLength(0);
+        if (ok(savings, reply)) {
+            reply.append('|').append(customerId).append('|').append(savings.getValue().getAccountNumber());
+        } else {
+            // The customer stays registered; the teller needs the ID to open the account later
+            reply.append(field(" (customer " + customerId + " is registered without an account)"));
+        }
+    }
+
+    private static void findCustomers(String name, StringBuilder reply) {
+        List<Customer> found = BankingManagementSystem.findCustomersByName(name, MAX_FOUND);
+        reply.append("OK|").append(found.size());
+        for (Customer customer : found) {
+            reply.append('\n');
+            customerRow(reply, customer);
+        }
+    }
+
+    private static void customerAccounts(int customerId, StringBuilder reply) {
+        if (BankingManagementSystem.findCustomerById(customerId).isEmpty()) {
+            throw new IllegalArgumentException("Customer not found!");
+        }
+        List<Account> owned = BankingManagementSystem.findAccountsByCustomer(customerId);
+        reply.append("OK|").append(owned.size());
+        for (Account account : owned) {
+            reply.append('\n');
+            accountRow(reply, account);
+        }
+    }
+
+    private static void statement(String[] args, StringBuilder reply) {
+        expect(args, 2, 3, "STATEMENT|accountNumber[|n]");
+        if (BankingEngine.findAccount(args[1]).isEmpty()) {
+            throw new IllegalArgumentException("Account not found!");
+        }
+        int limit = args.length == 3 ? parseId(args[2]) : STATEMENT_ROWS;
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid row count! It must be at least 1.");
+        }
+        limit = Math.min(limit, MAX_STATEMENT_ROWS);
+        TransactionStore store = BankingManagementSystem.getTransactionStore();
+        int[] rows = store.rowsForAccount(args[1]);
+        int from = Math.max(0, rows.length - limit);
+        reply.append("OK|").append(rows.length - from);
+        for (int i = from; i < rows.length; i++) {
+            statementRow(reply.append('\n'), store, rows[i]);
+        }
+    }
+
+    private static void statementBetween(String accountNumber, LocalDate from, LocalDate to, StringBuilder reply) {
+        if (BankingEngine.findAccount(accountNumber).isEmpty()) {
+            throw new IllegalArgumentException("Account not found!");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The end date is before the start date!");
+        }
+        TransactionStore store = BankingManagementSystem.getTransactionStore();
+        int[] rows = BankingManagementSystem.getStatementRows(accountNumber, from, to);
+        int count = Math.min(rows.length, MAX_STATEMENT_ROWS);
+        reply.append("OK|").append(count);
+        for (int i = 0; i < count; i++) {
+            statementRow(reply.append('\n'), store, rows[i]);
+        }
+    }
+
+    private static void statementRow(StringBuilder reply, TransactionStore store, int row) {
+        String target = store.getTargetAccount(row);
+        reply.append(store.getTransactionId(row)).append('|').append(store.getTimestamp(row)).append('|')
+            .append(store.getTransactionType(row)).append('|');
+        amount(reply, store.getAmountPaise(row));
+        reply.append('|').append(field(store.getDescription(row))).append('|').append(target == null ? "" : target)
+            .append('|');
+        amount(reply, store.getBalanceAfterPaise(row));
+    }
+
+    // The totals of the console's loan portfolio report
+    private static void loanReport(StringBuilder reply) {
+        List<Loan> book = BankingManagementSystem.getLoans();
+        long totalPaise = 0;
+        long remainingPaise = 0;
+        for (Loan loan : book) {
+            totalPaise += Account.toPaise(loan.getLoanAmount());
+            remainingPaise += Account.toPaise(loan.getRemainingBalance());
+        }
+        reply.append("OK|").append(book.size()).append('|');
+        amount(reply, totalPaise);
+        reply.append('|');
+        amount(reply, remainingPaise);
+    }
+
+    private static void projection(int horizon, StringBuilder reply) {
+        if (horizon < 12 || horizon > PortfolioProjection.MAX_HORIZON) {
+            throw new IllegalArgumentException("Invalid horizon! Use 12-" + PortfolioProjection.MAX_HORIZON
+                + " months.");
+        }
+        long start = OperationMetrics.PROJECTION_REPORT.start();
+        List<PortfolioProjection.Group> groups = PortfolioProjection.project(horizon).getGroups();
+        reply.append("OK|").append(groups.size());
+        for (PortfolioProjection.Group group : groups) {
+            reply.append('\n').append(field(group.getLoanType())).append('|').append(field(group.getCustomerType()))
+                .append('|').append(group.getLoans()).append('|');
+            amount(reply, Account.toPaise(group.getCurrentBalance()));
+            reply.append('|');
+            amount(reply, Account.toPaise(group.getOutstanding(horizon)));
+            reply.append('|');
+            amount(reply, Account.toPaise(group.getTotalInterest()));
+            reply.append('|');
+            amount(reply, Account.toPaise(group.getTotalCashFlow()));
+        }
+        OperationMetrics.PROJECTION_REPORT.stop(start, true);
+    }
+
+    private static void customer(StringBuilder reply, Optional<Customer> customer) {
+        customerRow(reply.append("OK|"), customer.orElseThrow(() -> new IllegalArgumentException("Customer not found!")));
+    }
+
+    private static void customerRow(StringBuilder reply, Customer customer) {
+        reply.append(customer.getCustomerId()).append('|').append(field(customer.getFirstName())).append('|')
+            .append(field(customer.getLastName())).append('|').append(field(customer.getEmail())).append('|')
+            .append(field(customer.getPhone())).append('|').append(field(customer.getCustomerType()));
+    }
+
+    private static void account(StringBuilder reply, Optional<Account> account) {
+        accountRow(reply.append("OK|"), account.orElseThrow(() -> new IllegalArgumentException("Account not found!")));
+    }
+
+    private static void accountRow(StringBuilder reply, Account account) {
+        reply.append(account.getAccountNumber()).append('|').append(account.getCustomerId()).append('|')
+            .append(field(account.getAccountType())).append('|');
+        amount(reply, account.getBalancePaise());
+        reply.append('|').append(account.getInterestRate()).append('|').append(account.getStatus());
+    }
+
+    private static void loan(StringBuilder reply, Optional<Loan> found) {
+        Loan loan = found.orElseThrow(() -> new IllegalArgumentException("Loan not found!"));
+        reply.append("OK|").append(loan.getLoanId()).append('|').append(loan.getCustomerId()).append('|')
+            .append(field(loan.getLoanType())).append('|');
+        amount(reply, Account.toPaise(loan.getLoanAmount()));
+        reply.append('|').append(loan.getInterestRate()).append('|').append(loan.getTermMonths()).append('|');
+        amount(reply, Account.toPaise(loan.getRemainingBalance()));
+        reply.append('|').append(loan.getStatus());
+    }
+
+    // "OK" on success, otherwise "ERR|<reason>"; returns whether the operation succeeded
+    private static boolean ok(BankingEngine.OperationResult<?> result, StringBuilder reply) {
+        if (result.isSuccess()) {
+            reply.append("OK");
+            return true;
+        }
+        reply.append("ERR|").append(field(result.getError()));
+        return false;
+    }
+
+    private static void expect(String[] args, int count, String usage) {
+        expect(args, count, count, usage);
+    }
+
+    private static void expect(String[] args, int min, int max, String usage) {
+        if (args.length < min || args.length > max) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + field(value));
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format! Please use YYYY-MM-DD.");
+        }
+    }
+
+    private static YearMonth parseMonth(String value) {
+        try {
+            return YearMonth.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid month format! Please use YYYY-MM.");
+        }
+    }
+
+    private static double parseAmount(String value) {
+        try {
+            double amount = Double.parseDouble(value.trim());
+            if (Double.isFinite(amount) && Math.abs(amount) < BankingEngine.MAX_AMOUNT) {
+                return amount;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid amount: " + field(value));
+    }
+
+    // Paise as rupees with two decimals, e.g. 1234567 -> "12345.67"
+    static void amount(StringBuilder reply, long paise) {
+        if (paise < 0) {
+            reply.append('-');
+            paise = -paise;
+        }
+        long fraction = paise % 100;
+        reply.append(paise / 100).append('.').append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+
+    private static long total(Map<String, Long> counts) {
+        long total = 0;
+        for (long count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Text as a protocol field: separators and line breaks become spaces
+    private static String field(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace('|', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
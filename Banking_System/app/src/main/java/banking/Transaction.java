@@ -0,0 +1,42 @@
+package banking;
+
+import java.util.Date;
+
+class Transaction {
+    private int transactionId;
+    private String accountNumber;
+    private String transactionType; // Deposit, Withdrawal, Transfer, Interest
+    private double amount;
+    private String description;
+    private Date transactionDate;
+    private String targetAccount; // For transfers
+    private double balanceAfter;
+
+    public Transaction(int transactionId, String accountNumber, String transactionType, 
+                      double amount, String description, double balanceAfter) {
+        this.transactionId = transactionId;
+        this.accountNumber = accountNumber;
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.description = description;
+        this.transactionDate = new Date();
+        this.balanceAfter = balanceAfter;
+    }
+
+    // Getters
+    public int getTransactionId() { return transactionId; }
+    public String getAccountNumber() { return accountNumber; }
+    public String getTransactionType() { return transactionType; }
+    public double getAmount() { return amount; }
+    public String getDescription() { return description; }
+    public Date getTransactionDate() { return transactionDate; }
+    public void setTransactionDate(Date transactionDate) { this.transactionDate = transactionDate; }
+    public String getTargetAccount() { return targetAccount; }
+    public void setTargetAccount(String targetAccount) { this.targetAccount = targetAccount; }
+    public double getBalanceAfter() { return balanceAfter; }
+
+    @Override
+    public String toString() {
+        return EntityRenderer.render(this);
+    }
+}
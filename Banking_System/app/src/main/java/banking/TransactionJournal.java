@@ -0,0 +1,372 @@
+package banking;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+// Append-only binary journal of every mutation to the in-memory bank.
+//
+// The journal is a sequence of numbered segment files (<base>.000001, ...).
+// Each segment is an 8-byte header (magic, version) followed by records of
+// [int length][byte type][payload][int crc32 of type+payload]. Every process
+// start, and every rotate(), begins a new segment; older segments are sealed
+// and can be folded into a snapshot and deleted.
+//
+// Callers encode a record and enqueue it; a single writer thread drains
+// everything queued so far, writes it with one gathering write and one
+// fsync, and then completes all of the callers' futures together (group commit).
+//
+// A failed write or fsync fails every record of its batch, and the journal
+// takes nothing after it: whatever it did put on disk past the last good
+// record is torn, so later appends fail at once rather than land behind it.
+class TransactionJournal implements AutoCloseable {
+    public static final byte CUSTOMER = 1;       // full customer, insert or update
+    public static final byte ACCOUNT = 2;        // account opened
+    public static final byte ACCOUNT_STATUS = 3; // account number, new status
+    public static final byte POSTING = 4;        // n x (transaction, signed balance change in paise)
+    public static final byte LOAN = 5;           // full loan, insert or update
+    public static final byte ID_BLOCK = 6;       // ID sequence, end of a block reserved from it
+    public static final byte LOAN_RATE = 7;      // lowercased loan type, its rate for new applications
+
+    private static final int MAGIC = 0x424D534A; // "BMSJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_BATCH = 4096;
+
+    interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    interface RecordHandler {
+        void apply(byte type, DataInput in) throws IOException;
+    }
+
+    // Creates the file of a new segment (tests substitute channels that fail)
+    interface SegmentOpener {
+        FileChannel open(Path file) throws IOException;
+    }
+
+    private static final SegmentOpener FILES = file -> FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE);
+
+    private static final class PendingRecord {
+        final ByteBuffer bytes; // null for a rotation marker
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingRecord(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private static final PendingRecord SHUTDOWN = new PendingRecord(ByteBuffer.allocate(0));
+
+    private final Path base;
+    private final SegmentOpener opener;
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private FileChannel channel;           // touched only by the writer thread after open
+    private volatile long currentSegment;
+    private volatile boolean closed;
+    private volatile IOException failure;  // the first failed write; nothing is taken after it
+
+    private TransactionJournal(Path base, long segment, SegmentOpener opener) throws IOException {
+        this.base = base;
+        this.opener = opener;
+        this.currentSegment = segment;
+        this.channel = createSegment(opener, base, segment);
+        this.writer = new Thread(this::writeLoop, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Starts a new segment after the highest existing one and accepts appends into it
+    public static TransactionJournal open(Path base) throws IOException {
+        return open(base, FILES);
+    }
+
+    static TransactionJournal open(Path base, SegmentOpener opener) throws IOException {
+        List<Long> segments = listSegments(base);
+        long next = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        return new TransactionJournal(base, next, opener);
+    }
+
+    public static Path segmentPath(Path base, long segment) {
+        return base.resolveSibling(base.getFileName() + String.format(".%06d", segment));
+    }
+
+    public static List<Long> listSegments(Path base) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        Path dir = base.toAbsolutePath().getParent();
+        String prefix = base.getFileName() + ".";
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, base.getFileName() + ".*")) {
+            for (Path file : stream) {
+                String suffix = file.getFileName().toString().substring(prefix.length());
+                if (suffix.matches("\\d{6,}")) {
+                    segments.add(Long.parseLong(suffix));
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    // Replays every segment numbered fromSegment or higher, in order. A torn record
+    // at the tail of the newest segment, left by a crash mid-write, is truncated away.
+    public static int replay(Path base, long fromSegment, RecordHandler handler) throws IOException {
+        List<Long> segments = listSegments(base);
+        int count = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            long segment = segments.get(i);
+            if (segment < fromSegment) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segmentPath(base, segment),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long[] validEnd = new long[1];
+                count += replaySegment(channel, handler, validEnd);
+                if (validEnd[0] < channel.size()) {
+                    if (i != segments.size() - 1) {
+                        throw new IOException("Corrupt record in sealed journal segment " + segment);
+                    }
+                    channel.truncate(validEnd[0]);
+                    channel.force(true);
+                }
+            }
+        }
+        return count;
+    }
+
+    // Replays a single sealed segment
+    public static int replaySegment(Path base, long segment, RecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(base, segment), StandardOpenOption.READ)) {
+            return replaySegment(channel, handler, new long[1]);
+        }
+    }
+
+    // Removes sealed segments that a snapshot has made redundant
+    public static void deleteSegmentsBefore(Path base, long segment) throws IOException {
+        for (long existing : listSegments(base)) {
+            if (existing < segment) {
+                Files.deleteIfExists(segmentPath(base, existing));
+            }
+        }
+    }
+
+    private static FileChannel createSegment(SegmentOpener opener, Path base, long segment) throws IOException {
+        FileChannel channel = opener.open(segmentPath(base, segment));
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+        return channel;
+    }
+
+    private static int replaySegment(FileChannel channel, RecordHandler handler, long[] validEnd) throws IOException {
+        channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        validEnd[0] = 0;
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a banking journal file");
+            }
+        } catch (EOFException e) {
+            return 0; // crashed before the header was written
+        }
+        long position = HEADER_SIZE;
+        int count = 0;
+        CRC32 crc = new CRC32();
+        while (true) {
+            byte[] record;
+            int expectedCrc;
+            try {
+                int length = in.readInt();
+                if (length < 1) {
+                    break;
+                }
+                record = new byte[length];
+                in.readFully(record);
+                expectedCrc = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            handler.apply(record[0], new DataInputStream(new ByteArrayInputStream(record, 1, record.length - 1)));
+            position += 4 + record.length + 4;
+            count++;
+        }
+        validEnd[0] = position;
+        return count;
+    }
+
+    public Path getBase() { return base; }
+    public long getCurrentSegment() { return currentSegment; }
+
+    // The write that stopped the journal, or null while it is healthy
+    public IOException getFailure() { return failure; }
+
+    // Encodes the record now and queues it; the future completes once it is on disk
+    public CompletableFuture<Void> append(byte type, RecordBody body) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            out.writeInt(0); // length placeholder
+            out.writeByte(type);
+            body.write(out);
+            out.writeInt(0); // crc placeholder
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] bytes = buffer.toByteArray();
+        int length = bytes.length - 8;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 4, length);
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        record.putInt(0, length);
+        record.putInt(bytes.length - 4, (int) crc.getValue());
+        return enqueue(new PendingRecord(record));
+    }
+
+    // Seals the current segment and starts a new one. Every record appended before
+    // this call ends up in a sealed segment; the future yields the new segment number.
+    public CompletableFuture<Long> rotate() {
+        return enqueue(new PendingRecord(null)).thenApply(v -> currentSegment);
+    }
+
+    private CompletableFuture<Void> enqueue(PendingRecord pending) {
+        if (closed) {
+            pending.durable.completeExceptionally(new IOException("Journal is closed"));
+            return pending.durable;
+        }
+        if (failure != null) {
+            pending.durable.completeExceptionally(stopped());
+            return pending.durable;
+        }
+        queue.add(pending);
+        return pending.durable;
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>();
+        List<PendingRecord> run = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            boolean shutdown = batch.remove(SHUTDOWN);
+            for (PendingRecord pending : batch) {
+                if (pending.bytes != null) {
+                    run.add(pending);
+                    continue;
+                }
+                writeRun(run);
+                if (failure != null) {
+                    pending.durable.completeExceptionally(stopped());
+                    continue;
+                }
+                try {
+                    channel.close();
+                    channel = createSegment(opener, base, currentSegment + 1);
+                    currentSegment++;
+                    pending.durable.complete(null);
+                } catch (IOException e) {
+                    failure = e;
+                    pending.durable.completeExceptionally(e);
+                }
+            }
+            writeRun(run);
+            batch.clear();
+            if (shutdown) {
+                return;
+            }
+        }
+    }
+
+    // Writes the records with one gathering write and one fsync, then acknowledges them
+    private void writeRun(List<PendingRecord> run) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (failure != null) {
+            for (PendingRecord pending : run) {
+                pending.durable.completeExceptionally(stopped());
+            }
+            run.clear();
+            return;
+        }
+        try {
+            ByteBuffer[] buffers = new ByteBuffer[run.size()];
+            long remaining = 0;
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = run.get(i).bytes;
+                remaining += buffers[i].remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+        }
+        for (PendingRecord pending : run) {
+            if (failure == null) {
+                pending.durable.complete(null);
+            } else {
+                pending.durable.completeExceptionally(failure);
+            }
+        }
+        run.clear();
+    }
+
+    private IOException stopped() {
+        return new IOException("Journal stopped after a failed write: " + failure.getMessage(), failure);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(SHUTDOWN);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything that raced with close() never reached the writer
+        for (PendingRecord pending; (pending = queue.poll()) != null; ) {
+            pending.durable.completeExceptionally(new IOException("Journal is closed"));
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,1089 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Columnar (struct-of-arrays) store for every posted transaction.
+//
+// Each row is spread over primitive columns held in fixed-size pages: ID,
+// amount and balance-after in paise, epoch millis, and dictionary codes for the
+// account number, target account, type and description. Transfer descriptions
+// ("Transfer to X" / "Transfer from X") are not stored at all; they are rebuilt
+// from the target account. The description dictionary is capped: once it holds
+// MAX_DESCRIPTION_CODES strings, new descriptions (per-row references from a
+// settlement file, say) are kept verbatim with their page instead, so they
+// leave the heap with it rather than staying in the dictionary for good.
+// A per-row back pointer chains each account's rows
+// together, so one account's history is read without touching anyone else's.
+//
+// Rows are also filed into one bucket per (UTC) day, so a date-range query only
+// reads the days it covers. Per-account windows walk the account's chain from
+// its newest row and stop at the first row before the window, which is exact
+// as long as the account's rows were appended in time order; accounts that
+// received an older row after a newer one are remembered and walked in full.
+//
+// Appends are serialized; readers may run concurrently and see every row below
+// size(). Transaction objects are only materialized as views for display.
+//
+// Rows never change once appended, so old history can leave the heap: a full
+// page whose rows are all older than the tiering age is written to an
+// immutable segment file, memory-mapped read-only, and its arrays are
+// dropped. Column reads go to the heap page or, once it is gone, to the
+// mapped segment, so every reader sees both tiers alike. Segments are a copy
+// of what the snapshot and journal already hold, and they outlive a restart:
+// each file names its page and carries the strings its codes stand for, so
+// the next start maps the files again (openSegments) and recovery only checks
+// the rows they hold instead of appending them. Day buckets and dictionaries
+// stay on heap.
+class TransactionStore {
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final int NO_TARGET = -1;
+    private static final int DESC_TRANSFER_TO = -2;
+    private static final int DESC_TRANSFER_FROM = -3;
+    private static final int DESC_VERBATIM = -4; // -4 - k: the k-th verbatim description of the row's page
+    private static final int MAX_DESCRIPTION_CODES = 1 << 16;
+    private static final int NO_ROW = -1;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    // Segment file header: what the file holds and where its string tables start
+    private static final int SEG_MAGIC = 0x54534731; // "TSG1"
+    private static final int SEG_VERSION = 1;
+    private static final int HDR_MAGIC = 0;
+    private static final int HDR_VERSION = 4;
+    private static final int HDR_PAGE = 8;
+    private static final int HDR_ROWS = 12;
+    private static final int HDR_LENGTH = 16;
+    private static final int HDR_ACCOUNT_STRINGS = 20;
+    private static final int HDR_TYPE_STRINGS = 24;
+    private static final int HDR_DESCRIPTION_STRINGS = 28;
+    private static final int HDR_VERBATIM = 32;
+    private static final int SEG_HEADER = 64;
+    // Column offsets within a segment file (one page of every column)
+    private static final int SEG_IDS = SEG_HEADER;
+    private static final int SEG_AMOUNTS = SEG_IDS + 4 * PAGE_SIZE;
+    private static final int SEG_BALANCES = SEG_AMOUNTS + 8 * PAGE_SIZE;
+    private static final int SEG_TIMESTAMPS = SEG_BALANCES + 8 * PAGE_SIZE;
+    private static final int SEG_ACCOUNTS = SEG_TIMESTAMPS + 8 * PAGE_SIZE;
+    private static final int SEG_TARGETS = SEG_ACCOUNTS + 4 * PAGE_SIZE;
+    private static final int SEG_TYPES = SEG_TARGETS + 4 * PAGE_SIZE;
+    private static final int SEG_DESCRIPTIONS = SEG_TYPES + 4 * PAGE_SIZE;
+    private static final int SEG_PREVIOUS = SEG_DESCRIPTIONS + 4 * PAGE_SIZE;
+    private static final int SEG_BYTES = SEG_PREVIOUS + 4 * PAGE_SIZE;
+    // ... followed by four string tables: the account numbers, types and
+    // dictionary descriptions the page's code columns refer to (codes in a
+    // segment are its own, numbered from 0 per table, so a segment stays
+    // readable whatever the dictionaries hold after a restart), then the page's
+    // verbatim descriptions. Each table is int count, int[count + 1] offsets
+    // into the UTF-8 bytes that come after them, the bytes.
+
+    // Dictionary encoding for repeated strings; codes are dense ints from 0
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private volatile String[] values = new String[64];
+
+        synchronized int encode(String value) {
+            return encode(value, Integer.MAX_VALUE);
+        }
+
+        // Code of the value, or -1 if it is new and the dictionary already holds limit values
+        synchronized int encode(String value, int limit) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                if (codes.size() >= limit) {
+                    return -1;
+                }
+                code = codes.size();
+                String[] current = values;
+                if (code == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+                current[code] = value;
+                values = current;
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        synchronized int find(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String decode(int code) {
+            return values[code];
+        }
+
+        synchronized int size() {
+            return codes.size();
+        }
+    }
+
+    // Rows stamped within one day, in append order. Readers take size first and
+    // then rows; the volatile size makes every row below it visible.
+    private static final class DayBucket {
+        private int[] rows = new int[64];
+        private volatile int size;
+
+        void add(int row) { // called under the store's lock
+            int count = size;
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count] = row;
+            size = count + 1;
+        }
+    }
+
+    // Descriptions of one page that did not fit in the dictionary, in the order
+    // their rows were appended; values is replaced as it grows (under the store's lock)
+    private static final class VerbatimDescriptions {
+        String[] values = new String[16];
+        int count;
+
+        int add(String value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count] = value;
+            return count++;
+        }
+    }
+
+    // One page of rows moved off the heap: every column of the page, mapped from
+    // its segment file, and the translation of the segment's codes to the store's
+    private static final class ColdPage {
+        private final MappedByteBuffer segment;
+        private final int[] accountCodes; // segment code -> store code, for accounts and targets
+        private final int[] typeCodes;
+        private final int[] descriptionCodes; // a store code, or a verbatim code once the dictionary was full
+        private final int verbatimCount; // verbatim descriptions in the file; overflow holds the ones after them
+        private final String[] overflow;
+
+        private ColdPage(MappedByteBuffer segment, int[] accountCodes, int[] typeCodes, int[] descriptionCodes,
+                         String[] overflow) {
+            this.segment = segment;
+            this.accountCodes = accountCodes;
+            this.typeCodes = typeCodes;
+            this.descriptionCodes = descriptionCodes;
+            this.verbatimCount = segment.getInt(segment.getInt(HDR_VERBATIM));
+            this.overflow = overflow;
+        }
+
+        int intAt(int column, int slot) {
+            return segment.getInt(column + slot * 4);
+        }
+
+        long longAt(int column, int slot) {
+            return segment.getLong(column + slot * 8);
+        }
+
+        // A code column's value as the store's code; negative markers pass through
+        int codeAt(int column, int slot) {
+            int code = intAt(column, slot);
+            if (code < 0) {
+                return code;
+            }
+            switch (column) {
+                case SEG_ACCOUNTS:
+                case SEG_TARGETS:
+                    return accountCodes[code];
+                case SEG_TYPES:
+                    return typeCodes[code];
+                default:
+                    return descriptionCodes[code];
+            }
+        }
+
+        String verbatim(int k) {
+            return k < verbatimCount ? stringAt(segment, segment.getInt(HDR_VERBATIM), k) : overflow[k - verbatimCount];
+        }
+
+        private static String stringAt(ByteBuffer segment, int table, int k) {
+            int from = segment.getInt(table + 4 + k * 4);
+            int to = segment.getInt(table + 8 + k * 4);
+            byte[] bytes = new byte[to - from];
+            segment.get(table + 8 + segment.getInt(table) * 4 + from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Writes one page to its segment file and maps it read-only. The file is
+        // written under a temporary name and renamed once it is on disk, so a
+        // segment file is either whole or absent.
+        static ColdPage write(Path file, int page, int[] ids, long[] amounts, long[] balancesAfter,
+                              long[] timestamps, int[] accounts, int[] targets, int[] types, int[] descriptions,
+                              int[] previousForAccount, VerbatimDescriptions verbatim, Dictionary accountDictionary,
+                              Dictionary typeDictionary, Dictionary descriptionDictionary) throws IOException {
+            LocalCodes accountCodes = new LocalCodes();
+            LocalCodes typeCodes = new LocalCodes();
+            LocalCodes descriptionCodes = new LocalCodes();
+            int[] localAccounts = accountCodes.localize(accounts);
+            int[] localTargets = accountCodes.localize(targets);
+            int[] localTypes = typeCodes.localize(types);
+            int[] localDescriptions = descriptionCodes.localize(descriptions);
+            byte[][][] tables = {
+                accountCodes.strings(accountDictionary),
+                typeCodes.strings(typeDictionary),
+                descriptionCodes.strings(descriptionDictionary),
+                verbatimStrings(verbatim)
+            };
+            int[] tableOffsets = new int[tables.length];
+            int bytes = SEG_BYTES;
+            for (int t = 0; t < tables.length; t++) {
+                tableOffsets[t] = bytes;
+                bytes += tableBytes(tables[t]);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.nativeOrder());
+            buffer.putInt(HDR_MAGIC, SEG_MAGIC).putInt(HDR_VERSION, SEG_VERSION).putInt(HDR_PAGE, page)
+                .putInt(HDR_ROWS, PAGE_SIZE).putInt(HDR_LENGTH, bytes)
+                .putInt(HDR_ACCOUNT_STRINGS, tableOffsets[0]).putInt(HDR_TYPE_STRINGS, tableOffsets[1])
+                .putInt(HDR_DESCRIPTION_STRINGS, tableOffsets[2]).putInt(HDR_VERBATIM, tableOffsets[3]);
+            buffer.position(SEG_IDS).asIntBuffer().put(ids);
+            buffer.position(SEG_AMOUNTS).asLongBuffer().put(amounts);
+            buffer.position(SEG_BALANCES).asLongBuffer().put(balancesAfter);
+            buffer.position(SEG_TIMESTAMPS).asLongBuffer().put(timestamps);
+            buffer.position(SEG_ACCOUNTS).asIntBuffer().put(localAccounts);
+            buffer.position(SEG_TARGETS).asIntBuffer().put(localTargets);
+            buffer.position(SEG_TYPES).asIntBuffer().put(localTypes);
+            buffer.position(SEG_DESCRIPTIONS).asIntBuffer().put(localDescriptions);
+            buffer.position(SEG_PREVIOUS).asIntBuffer().put(previousForAccount);
+            buffer.position(SEG_BYTES);
+            for (byte[][] table : tables) {
+                putTable(buffer, table);
+            }
+            buffer.clear();
+
+            Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new ColdPage(map(file, bytes), accountCodes.codes(), typeCodes.codes(), descriptionCodes.codes(),
+                new String[0]);
+        }
+
+        // Maps a segment file a previous run wrote for this page, adding its
+        // strings to the store's dictionaries; null if the file is not such a segment
+        static ColdPage open(Path file, int page, Dictionary accountDictionary, Dictionary typeDictionary,
+                             Dictionary descriptionDictionary) throws IOException {
+            long size = Files.size(file);
+            if (size < SEG_BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer segment = map(file, (int) size);
+            if (segment.getInt(HDR_MAGIC) != SEG_MAGIC || segment.getInt(HDR_VERSION) != SEG_VERSION
+                    || segment.getInt(HDR_PAGE) != page || segment.getInt(HDR_ROWS) != PAGE_SIZE
+                    || segment.getInt(HDR_LENGTH) != size) {
+                return null;
+            }
+            int[] accountCodes = encodeTable(segment, HDR_ACCOUNT_STRINGS, accountDictionary, Integer.MAX_VALUE);
+            int[] typeCodes = encodeTable(segment, HDR_TYPE_STRINGS, typeDictionary, Integer.MAX_VALUE);
+            int[] descriptionCodes = encodeTable(segment, HDR_DESCRIPTION_STRINGS, descriptionDictionary,
+                MAX_DESCRIPTION_CODES);
+            // Descriptions the (full) dictionary turned away become verbatim ones held on heap
+            int table = segment.getInt(HDR_DESCRIPTION_STRINGS);
+            int verbatimCount = segment.getInt(segment.getInt(HDR_VERBATIM));
+            List<String> overflow = new ArrayList<>();
+            for (int code = 0; code < descriptionCodes.length; code++) {
+                if (descriptionCodes[code] < 0) {
+                    descriptionCodes[code] = DESC_VERBATIM - verbatimCount - overflow.size();
+                    overflow.add(stringAt(segment, table, code));
+                }
+            }
+            return new ColdPage(segment, accountCodes, typeCodes, descriptionCodes, overflow.toArray(new String[0]));
+        }
+
+        private static int[] encodeTable(ByteBuffer segment, int header, Dictionary dictionary, int limit) {
+            int table = segment.getInt(header);
+            int[] codes = new int[segment.getInt(table)];
+            for (int k = 0; k < codes.length; k++) {
+                codes[k] = dictionary.encode(stringAt(segment, table, k), limit);
+            }
+            return codes;
+        }
+
+        private static MappedByteBuffer map(Path file, int bytes) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+                mapped.order(ByteOrder.nativeOrder());
+                return mapped;
+            }
+        }
+
+        private static byte[][] verbatimStrings(VerbatimDescriptions verbatim) {
+            int count = verbatim == null ? 0 : verbatim.count;
+            byte[][] strings = new byte[count][];
+            for (int k = 0; k < count; k++) {
+                strings[k] = verbatim.values[k].getBytes(StandardCharsets.UTF_8);
+            }
+            return strings;
+        }
+
+        private static int tableBytes(byte[][] strings) {
+            int bytes = 8 + strings.length * 4;
+            for (byte[] string : strings) {
+                bytes += string.length;
+            }
+            return bytes;
+        }
+
+        private static void putTable(ByteBuffer buffer, byte[][] strings) {
+            buffer.putInt(strings.length);
+            int offset = 0;
+            for (byte[] string : strings) {
+                buffer.putInt(offset);
+                offset += string.length;
+            }
+            buffer.putInt(offset);
+            for (byte[] string : strings) {
+                buffer.put(string);
+            }
+        }
+    }
+
+    // Numbers the store codes one page uses from 0, in order of first use
+    private static final class LocalCodes {
+        private final Map<Integer, Integer> local = new HashMap<>();
+        private int[] codes = new int[64]; // local code -> store code
+
+        int[] localize(int[] column) {
+            int[] localized = new int[column.length];
+            for (int slot = 0; slot < column.length; slot++) {
+                int code = column[slot];
+                if (code < 0) {
+                    localized[slot] = code;
+                    continue;
+                }
+                Integer known = local.get(code);
+                if (known == null) {
+                    known = local.size();
+                    if (known == codes.length) {
+                        codes = Arrays.copyOf(codes, known * 2);
+                    }
+                    codes[known] = code;
+                    local.put(code, known);
+                }
+                localized[slot] = known;
+            }
+            return localized;
+        }
+
+        int[] codes() {
+            return Arrays.copyOf(codes, local.size());
+        }
+
+        byte[][] strings(Dictionary dictionary) {
+            byte[][] strings = new byte[local.size()][];
+            for (int k = 0; k < strings.length; k++) {
+                strings[k] = dictionary.decode(codes[k]).getBytes(StandardCharsets.UTF_8);
+            }
+            return strings;
+        }
+    }
+
+    private final Dictionary accountCodes = new Dictionary();
+    private final Dictionary typeCodes = new Dictionary();
+    private final Dictionary descriptionCodes = new Dictionary();
+
+    private volatile int[][] ids = new int[0][];
+    private volatile long[][] amounts = new long[0][];
+    private volatile long[][] balancesAfter = new long[0][];
+    private volatile long[][] timestamps = new long[0][];
+    private volatile int[][] accounts = new int[0][];
+    private volatile int[][] targets = new int[0][];
+    private volatile int[][] types = new int[0][];
+    private volatile int[][] descriptions = new int[0][];
+    private volatile int[][] previousForAccount = new int[0][];
+    private volatile VerbatimDescriptions[] verbatim = new VerbatimDescriptions[0]; // null for pages without any
+    // Pages moved off the heap, by page number; a page's entry is set before its arrays are dropped
+    private volatile ColdPage[] coldPages = new ColdPage[0];
+    private Path tierDirectory; // guarded by this
+    private ScheduledExecutorService tierer; // guarded by this
+    private final Object tierLock = new Object(); // one tiering pass at a time
+    // While recovery appends into segments openSegments() mapped: their rows as
+    // (transaction ID << 32 | row), sorted, and which of them recovery supplied; guarded by this
+    private long[] segmentRows;
+    private BitSet recoveredSegmentRows;
+    private boolean segmentMismatch;
+
+    private int[] lastRowForAccount = newRowIndex(64); // guarded by this
+    private final BitSet outOfOrderAccounts = new BitSet(); // guarded by this
+    // Day buckets by day number (UTC days since the epoch) minus firstDay; guarded by this
+    private DayBucket[] days = new DayBucket[0];
+    private long firstDay;
+    private volatile int size;
+
+    public int append(Transaction transaction) {
+        return append(transaction.getTransactionId(), transaction.getAccountNumber(), transaction.getTargetAccount(),
+            transaction.getTransactionType(), transaction.getDescription(), Account.toPaise(transaction.getAmount()),
+            Account.toPaise(transaction.getBalanceAfter()), transaction.getTransactionDate().getTime());
+    }
+
+    // Appends one row from its fields, for bulk loaders that never build a Transaction
+    public synchronized int append(int transactionId, String accountNumber, String targetAccount, String transactionType,
+                                   String description, long amountPaise, long balanceAfterPaise, long epochMillis) {
+        if (segmentRows != null) {
+            int index = segmentIndex(transactionId);
+            if (index >= 0) {
+                return recoverSegmentRow(index, accountNumber, targetAccount, transactionType, amountPaise,
+                    balanceAfterPaise, epochMillis);
+            }
+        }
+        int row = size;
+        int page = row >>> PAGE_BITS;
+        if (page == ids.length) {
+            addPage();
+        }
+        int slot = row & PAGE_MASK;
+
+        int account = accountCodes.encode(accountNumber);
+        int target = targetAccount == null ? NO_TARGET : accountCodes.encode(targetAccount);
+        int type = typeCodes.encode(transactionType);
+        int descriptionCode;
+        if (targetAccount != null && description.equals("Transfer to " + targetAccount)) {
+            descriptionCode = DESC_TRANSFER_TO;
+        } else if (targetAccount != null && description.equals("Transfer from " + targetAccount)) {
+            descriptionCode = DESC_TRANSFER_FROM;
+        } else {
+            descriptionCode = descriptionCodes.encode(description, MAX_DESCRIPTION_CODES);
+            if (descriptionCode < 0) {
+                if (verbatim[page] == null) {
+                    verbatim[page] = new VerbatimDescriptions();
+                }
+                descriptionCode = DESC_VERBATIM - verbatim[page].add(description);
+            }
+        }
+
+        ids[page][slot] = transactionId;
+        amounts[page][slot] = amountPaise;
+        balancesAfter[page][slot] = balanceAfterPaise;
+        timestamps[page][slot] = epochMillis;
+        accounts[page][slot] = account;
+        targets[page][slot] = target;
+        types[page][slot] = type;
+        descriptions[page][slot] = descriptionCode;
+        previousForAccount[page][slot] = chain(account, row, epochMillis);
+
+        size = row + 1; // volatile write publishes the row to readers
+        return row;
+    }
+
+    // Files a row under its account and its day; returns the account's previous row
+    private int chain(int account, int row, long epochMillis) {
+        if (account >= lastRowForAccount.length) {
+            int oldLength = lastRowForAccount.length;
+            lastRowForAccount = Arrays.copyOf(lastRowForAccount, Math.max(account + 1, oldLength * 2));
+            Arrays.fill(lastRowForAccount, oldLength, lastRowForAccount.length, NO_ROW);
+        }
+        int previous = lastRowForAccount[account];
+        if (previous != NO_ROW && getTimestamp(previous) > epochMillis) {
+            outOfOrderAccounts.set(account);
+        }
+        lastRowForAccount[account] = row;
+        dayBucket(Math.floorDiv(epochMillis, DAY_MILLIS)).add(row);
+        return previous;
+    }
+
+    // Position in segmentRows of the mapped row holding this transaction, or -1
+    private int segmentIndex(int transactionId) {
+        int index = Arrays.binarySearch(segmentRows, (long) transactionId << 32);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < segmentRows.length && (int) (segmentRows[index] >>> 32) == transactionId ? index : -1;
+    }
+
+    // A recovered row that a mapped segment already holds: compared with it
+    // rather than appended again
+    private int recoverSegmentRow(int index, String accountNumber, String targetAccount, String transactionType,
+                                  long amountPaise, long balanceAfterPaise, long epochMillis) {
+        int row = (int) segmentRows[index];
+        if (recoveredSegmentRows.get(index) || getTimestamp(row) != epochMillis || getAmountPaise(row) != amountPaise
+                || getBalanceAfterPaise(row) != balanceAfterPaise || !getAccountNumber(row).equals(accountNumber)
+                || !Objects.equals(getTargetAccount(row), targetAccount)
+                || !getTransactionType(row).equals(transactionType)) {
+            segmentMismatch = true;
+        }
+        recoveredSegmentRows.set(index);
+        return row;
+    }
+
+    // The bucket for a day, widening the bucket array on either side as needed
+    private DayBucket dayBucket(long day) {
+        if (days.length == 0) {
+            firstDay = day;
+            days = new DayBucket[16];
+        } else if (day < firstDay) {
+            long shift = Math.max(firstDay - day, days.length);
+            DayBucket[] widened = new DayBucket[Math.toIntExact(days.length + shift)];
+            System.arraycopy(days, 0, widened, (int) shift, days.length);
+            days = widened;
+            firstDay -= shift;
+        } else if (day - firstDay >= days.length) {
+            days = Arrays.copyOf(days, Math.toIntExact(Math.max(day - firstDay + 1, days.length * 2L)));
+        }
+        int index = (int) (day - firstDay);
+        if (days[index] == null) {
+            days[index] = new DayBucket();
+        }
+        return days[index];
+    }
+
+    private static int[] newRowIndex(int length) {
+        int[] index = new int[length];
+        Arrays.fill(index, NO_ROW);
+        return index;
+    }
+
+    private void addPage() {
+        ids = appendPage(ids, new int[PAGE_SIZE]);
+        amounts = appendPage(amounts, new long[PAGE_SIZE]);
+        balancesAfter = appendPage(balancesAfter, new long[PAGE_SIZE]);
+        timestamps = appendPage(timestamps, new long[PAGE_SIZE]);
+        accounts = appendPage(accounts, new int[PAGE_SIZE]);
+        targets = appendPage(targets, new int[PAGE_SIZE]);
+        types = appendPage(types, new int[PAGE_SIZE]);
+        descriptions = appendPage(descriptions, new int[PAGE_SIZE]);
+        previousForAccount = appendPage(previousForAccount, new int[PAGE_SIZE]);
+        verbatim = Arrays.copyOf(verbatim, verbatim.length + 1);
+    }
+
+    private static int[][] appendPage(int[][] pages, int[] page) {
+        int[][] grown = Arrays.copyOf(pages, pages.length + 1);
+        grown[pages.length] = page;
+        return grown;
+    }
+
+    private static long[][] appendPage(long[][] pages, long[] page) {
+        long[][] grown = Arrays.copyOf(pages, pages.length + 1);
+        grown[pages.length] = page;
+        return grown;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTimestamp(int row) {
+        return longAt(timestamps, SEG_TIMESTAMPS, row);
+    }
+
+    public long getAmountPaise(int row) {
+        return longAt(amounts, SEG_AMOUNTS, row);
+    }
+
+    public String getAccountNumber(int row) {
+        return accountCodes.decode(codeAt(accounts, SEG_ACCOUNTS, row));
+    }
+
+    public String getTransactionType(int row) {
+        return typeCodes.decode(codeAt(types, SEG_TYPES, row));
+    }
+
+    public int getTransactionId(int row) {
+        return intAt(ids, SEG_IDS, row);
+    }
+
+    public long getBalanceAfterPaise(int row) {
+        return longAt(balancesAfter, SEG_BALANCES, row);
+    }
+
+    public String getTargetAccount(int row) {
+        int target = codeAt(targets, SEG_TARGETS, row);
+        return target == NO_TARGET ? null : accountCodes.decode(target);
+    }
+
+    // A column value from the heap page, or from the mapped segment once the page has moved
+    private int intAt(int[][] column, int segmentColumn, int row) {
+        int[] page = column[row >>> PAGE_BITS];
+        return page != null ? page[row & PAGE_MASK] : coldPages[row >>> PAGE_BITS].intAt(segmentColumn, row & PAGE_MASK);
+    }
+
+    // A dictionary code column's value; a mapped segment's own codes are translated to the store's
+    private int codeAt(int[][] column, int segmentColumn, int row) {
+        int[] page = column[row >>> PAGE_BITS];
+        return page != null ? page[row & PAGE_MASK] : coldPages[row >>> PAGE_BITS].codeAt(segmentColumn, row & PAGE_MASK);
+    }
+
+    private long longAt(long[][] column, int segmentColumn, int row) {
+        long[] page = column[row >>> PAGE_BITS];
+        return page != null ? page[row & PAGE_MASK] : coldPages[row >>> PAGE_BITS].longAt(segmentColumn, row & PAGE_MASK);
+    }
+
+    private int previousRow(int row) {
+        return intAt(previousForAccount, SEG_PREVIOUS, row);
+    }
+
+    public String getDescription(int row) {
+        String lead = getDescriptionLead(row);
+        return descriptionEndsWithTarget(row) ? lead + getTargetAccount(row) : lead;
+    }
+
+    // The description, or for a transfer the text before the target account, so
+    // renderers can write transfer descriptions without concatenating
+    public String getDescriptionLead(int row) {
+        int descriptionCode = codeAt(descriptions, SEG_DESCRIPTIONS, row);
+        if (descriptionCode == DESC_TRANSFER_TO) {
+            return "Transfer to ";
+        } else if (descriptionCode == DESC_TRANSFER_FROM) {
+            return "Transfer from ";
+        } else if (descriptionCode <= DESC_VERBATIM) {
+            return verbatimDescription(row, DESC_VERBATIM - descriptionCode);
+        }
+        return descriptionCodes.decode(descriptionCode);
+    }
+
+    private String verbatimDescription(int row, int k) {
+        VerbatimDescriptions page = verbatim[row >>> PAGE_BITS];
+        return page != null ? page.values[k] : coldPages[row >>> PAGE_BITS].verbatim(k);
+    }
+
+    public boolean descriptionEndsWithTarget(int row) {
+        int descriptionCode = codeAt(descriptions, SEG_DESCRIPTIONS, row);
+        return descriptionCode == DESC_TRANSFER_TO || descriptionCode == DESC_TRANSFER_FROM;
+    }
+
+    // Materializes one row as a Transaction view (for display and reporting)
+    public Transaction get(int row) {
+        Transaction transaction = new Transaction(getTransactionId(row), getAccountNumber(row),
+            getTransactionType(row), getAmountPaise(row) / 100.0, getDescription(row),
+            getBalanceAfterPaise(row) / 100.0);
+        transaction.setTransactionDate(new Date(getTimestamp(row)));
+        transaction.setTargetAccount(getTargetAccount(row));
+        return transaction;
+    }
+
+    public void forEach(Consumer<Transaction> action) {
+        int end = size;
+        for (int row = 0; row < end; row++) {
+            action.accept(get(row));
+        }
+    }
+
+    // Rows of one account, oldest first, found by walking that account's chain
+    public int[] rowsForAccount(String accountNumber) {
+        int account = accountCodes.find(accountNumber);
+        if (account < 0) {
+            return new int[0];
+        }
+        int row;
+        synchronized (this) {
+            row = account < lastRowForAccount.length ? lastRowForAccount[account] : NO_ROW;
+        }
+        int[] rows = new int[16];
+        int count = 0;
+        while (row != NO_ROW) {
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+            row = previousRow(row);
+        }
+        int[] oldestFirst = new int[count];
+        for (int i = 0; i < count; i++) {
+            oldestFirst[i] = rows[count - 1 - i];
+        }
+        return oldestFirst;
+    }
+
+    public List<Transaction> forAccount(String accountNumber) {
+        int[] rows = rowsForAccount(accountNumber);
+        if (rows.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Transaction> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(get(row));
+        }
+        return result;
+    }
+
+    // Dictionary code of an account number, or -1 if it has no transactions
+    public int findAccountCode(String accountNumber) {
+        return accountCodes.find(accountNumber);
+    }
+
+    // Codes of the accounts that have a row of this type with this exact description
+    // (in the dictionary, or stored verbatim once the dictionary was full) stamped
+    // at or after fromMillis; only the day buckets from then on are read
+    public BitSet accountsWithPosting(String transactionType, String description, long fromMillis) {
+        BitSet result = new BitSet();
+        int typeCode = typeCodes.find(transactionType);
+        if (typeCode < 0) {
+            return result;
+        }
+        int code = descriptionCodes.find(description);
+        for (DayBucket bucket : daysBetween(fromMillis, Long.MAX_VALUE)) {
+            int end = bucket.size;
+            int[] rows = bucket.rows;
+            for (int i = 0; i < end; i++) {
+                int row = rows[i];
+                if (codeAt(types, SEG_TYPES, row) != typeCode || getTimestamp(row) < fromMillis) {
+                    continue;
+                }
+                int rowCode = codeAt(descriptions, SEG_DESCRIPTIONS, row);
+                if (code >= 0 ? rowCode == code
+                        : rowCode <= DESC_VERBATIM && verbatimDescription(row, DESC_VERBATIM - rowCode).equals(description)) {
+                    result.set(codeAt(accounts, SEG_ACCOUNTS, row));
+                }
+            }
+        }
+        return result;
+    }
+
+    // Rows stamped after the given instant
+    public long countSince(long epochMillis) {
+        return epochMillis == Long.MAX_VALUE ? 0 : countBetween(epochMillis + 1, Long.MAX_VALUE);
+    }
+
+    // Rows stamped in [fromMillis, toMillis); only the first and last day are filtered row by row
+    public long countBetween(long fromMillis, long toMillis) {
+        long count = 0;
+        for (DayBucket bucket : daysBetween(fromMillis, toMillis)) {
+            int end = bucket.size;
+            int[] rows = bucket.rows;
+            for (int i = 0; i < end; i++) {
+                long at = getTimestamp(rows[i]);
+                if (at >= fromMillis && at < toMillis) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Rows stamped in [fromMillis, toMillis), bank-wide, day by day and in append order within a day
+    public int[] rowsBetween(long fromMillis, long toMillis) {
+        int[] found = new int[16];
+        int count = 0;
+        for (DayBucket bucket : daysBetween(fromMillis, toMillis)) {
+            int end = bucket.size;
+            int[] rows = bucket.rows;
+            for (int i = 0; i < end; i++) {
+                long at = getTimestamp(rows[i]);
+                if (at >= fromMillis && at < toMillis) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = rows[i];
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    // Rows of one account stamped in [fromMillis, toMillis), oldest first
+    public int[] rowsForAccountBetween(String accountNumber, long fromMillis, long toMillis) {
+        int account = accountCodes.find(accountNumber);
+        if (account < 0) {
+            return new int[0];
+        }
+        int row;
+        boolean ordered;
+        synchronized (this) {
+            row = account < lastRowForAccount.length ? lastRowForAccount[account] : NO_ROW;
+            ordered = !outOfOrderAccounts.get(account);
+        }
+        int[] rows = new int[16];
+        int count = 0;
+        while (row != NO_ROW) {
+            long at = getTimestamp(row);
+            if (at < fromMillis && ordered) {
+                break;
+            }
+            if (at >= fromMillis && at < toMillis) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+            row = previousRow(row);
+        }
+        int[] oldestFirst = new int[count];
+        for (int i = 0; i < count; i++) {
+            oldestFirst[i] = rows[count - 1 - i];
+        }
+        return oldestFirst;
+    }
+
+    public List<Transaction> between(long fromMillis, long toMillis) {
+        return materialize(rowsBetween(fromMillis, toMillis));
+    }
+
+    public List<Transaction> forAccountBetween(String accountNumber, long fromMillis, long toMillis) {
+        return materialize(rowsForAccountBetween(accountNumber, fromMillis, toMillis));
+    }
+
+    private List<Transaction> materialize(int[] rows) {
+        List<Transaction> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(get(row));
+        }
+        return result;
+    }
+
+    // The day buckets overlapping [fromMillis, toMillis), oldest first
+    private synchronized List<DayBucket> daysBetween(long fromMillis, long toMillis) {
+        long from = Math.max(Math.floorDiv(fromMillis, DAY_MILLIS) - firstDay, 0);
+        long to = Math.min(Math.floorDiv(toMillis - 1, DAY_MILLIS) - firstDay, days.length - 1L);
+        if (fromMillis >= toMillis || from > to) {
+            return Collections.emptyList();
+        }
+        List<DayBucket> buckets = new ArrayList<>();
+        for (int index = (int) from; index <= to; index++) {
+            if (days[index] != null) {
+                buckets.add(days[index]);
+            }
+        }
+        return buckets;
+    }
+
+    // Moves old pages off the heap now and then every intervalMinutes: full pages
+    // whose rows are all older than maxAgeMillis go to segment files in the
+    // directory. Segment files there that openSegments() did not map are deleted first.
+    public synchronized void startTiering(Path directory, long maxAgeMillis, long intervalMinutes) throws IOException {
+        useTierDirectory(directory);
+        tierer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transaction-tierer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tierer.scheduleWithFixedDelay(() -> tierQuietly(maxAgeMillis), 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    // Where tierPagesBefore() writes segments, for callers that move pages themselves
+    synchronized void useTierDirectory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        deleteStaleSegments(directory);
+        tierDirectory = directory;
+    }
+
+    // Maps the segment files an earlier run left in the directory, before
+    // recovery appends anything: page 0 onwards, for as long as they follow on
+    // from one another (files after the first gap are deleted). Their rows count
+    // as appended; when recovery then appends a row they hold, it is checked
+    // against the segment instead of being added again, and finishRecovery()
+    // tells whether the segments and the recovered history agreed. Returns the
+    // number of pages mapped.
+    synchronized int openSegments(Path directory) throws IOException {
+        if (size != 0) {
+            throw new IllegalStateException("Segments are opened before anything is appended");
+        }
+        Files.createDirectories(directory);
+        int pages = 0;
+        while (true) {
+            Path file = segmentFile(directory, pages);
+            ColdPage cold = Files.exists(file)
+                ? ColdPage.open(file, pages, accountCodes, typeCodes, descriptionCodes) : null;
+            if (cold == null) {
+                break;
+            }
+            addColdPage(cold);
+            pages++;
+        }
+        tierDirectory = directory;
+        deleteStaleSegments(directory);
+        segmentRows = new long[size];
+        for (int row = 0; row < size; row++) {
+            segmentRows[row] = (long) getTransactionId(row) << 32 | row;
+        }
+        Arrays.sort(segmentRows);
+        recoveredSegmentRows = new BitSet(size);
+        segmentMismatch = false;
+        return pages;
+    }
+
+    // Ends recovery into segments mapped by openSegments(): true if recovery
+    // supplied every row they hold, as they hold it. Otherwise they do not
+    // belong to the recovered history (files of another bank, or rows the
+    // journal never received) and the caller recovers into a fresh store.
+    synchronized boolean finishRecovery() {
+        boolean agreed = segmentRows == null
+            || !segmentMismatch && recoveredSegmentRows.cardinality() == segmentRows.length;
+        segmentRows = null;
+        recoveredSegmentRows = null;
+        return agreed;
+    }
+
+    // Adds the next page as one already in a segment file, filing its rows under their accounts and days
+    private void addColdPage(ColdPage cold) {
+        int page = ids.length;
+        ColdPage[] published = Arrays.copyOf(coldPages, page + 1);
+        published[page] = cold;
+        coldPages = published;
+        ids = Arrays.copyOf(ids, page + 1);
+        amounts = Arrays.copyOf(amounts, page + 1);
+        balancesAfter = Arrays.copyOf(balancesAfter, page + 1);
+        timestamps = Arrays.copyOf(timestamps, page + 1);
+        accounts = Arrays.copyOf(accounts, page + 1);
+        targets = Arrays.copyOf(targets, page + 1);
+        types = Arrays.copyOf(types, page + 1);
+        descriptions = Arrays.copyOf(descriptions, page + 1);
+        previousForAccount = Arrays.copyOf(previousForAccount, page + 1);
+        verbatim = Arrays.copyOf(verbatim, page + 1);
+        for (int slot = 0; slot < PAGE_SIZE; slot++) {
+            chain(cold.codeAt(SEG_ACCOUNTS, slot), (page << PAGE_BITS) + slot, cold.longAt(SEG_TIMESTAMPS, slot));
+        }
+        size = (page + 1) << PAGE_BITS;
+    }
+
+    // Deletes segment files (and unfinished ones) in the directory that are not mapped into this store
+    private void deleteStaleSegments(Path directory) throws IOException {
+        boolean ours = directory.equals(tierDirectory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "page-*.seg*")) {
+            for (Path file : files) {
+                int page = -1;
+                String name = file.getFileName().toString();
+                if (name.endsWith(".seg")) {
+                    try {
+                        page = Integer.parseInt(name.substring("page-".length(), name.length() - ".seg".length()));
+                    } catch (NumberFormatException e) {
+                        // not a segment name; deleted below
+                    }
+                }
+                if (!ours || page < 0 || page >= coldPages.length || coldPages[page] == null
+                        || !file.equals(segmentFile(directory, page))) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static Path segmentFile(Path directory, int page) {
+        return directory.resolve("page-" + page + ".seg");
+    }
+
+    public synchronized void stopTiering() {
+        if (tierer != null) {
+            tierer.shutdownNow();
+            tierer = null;
+        }
+    }
+
+    private void tierQuietly(long maxAgeMillis) {
+        try {
+            tierPagesBefore(System.currentTimeMillis() - maxAgeMillis);
+        } catch (IOException e) {
+            System.out.println("Error moving old transactions to " + tierDirectory + ": " + e.getMessage());
+        }
+    }
+
+    // Moves every full page whose rows are all stamped before cutoffMillis into a
+    // segment file and drops its arrays; returns the number of pages moved.
+    // Appends and reads carry on meanwhile: a page is written out first and
+    // only then swapped for its mapping.
+    public int tierPagesBefore(long cutoffMillis) throws IOException {
+        Path directory;
+        synchronized (this) {
+            directory = tierDirectory;
+        }
+        if (directory == null) {
+            throw new IllegalStateException("Tiering has not been started");
+        }
+        synchronized (tierLock) {
+            int moved = 0;
+            int fullPages = size >>> PAGE_BITS;
+            for (int page = 0; page < fullPages; page++) {
+                long[] pageTimestamps = timestamps[page];
+                if (pageTimestamps == null || Arrays.stream(pageTimestamps).max().getAsLong() >= cutoffMillis) {
+                    continue;
+                }
+                ColdPage cold = ColdPage.write(segmentFile(directory, page), page, ids[page], amounts[page],
+                    balancesAfter[page], pageTimestamps, accounts[page], targets[page], types[page],
+                    descriptions[page], previousForAccount[page], verbatim[page], accountCodes, typeCodes,
+                    descriptionCodes);
+                synchronized (this) { // addPage() replaces the outer arrays too
+                    ColdPage[] published = Arrays.copyOf(coldPages, Math.max(coldPages.length, page + 1));
+                    published[page] = cold;
+                    coldPages = published;
+                    ids = withoutPage(ids, page);
+                    amounts = withoutPage(amounts, page);
+                    balancesAfter = withoutPage(balancesAfter, page);
+                    timestamps = withoutPage(timestamps, page);
+                    accounts = withoutPage(accounts, page);
+                    targets = withoutPage(targets, page);
+                    types = withoutPage(types, page);
+                    descriptions = withoutPage(descriptions, page);
+                    previousForAccount = withoutPage(previousForAccount, page);
+                    VerbatimDescriptions[] remaining = verbatim.clone();
+                    remaining[page] = null;
+                    verbatim = remaining;
+                }
+                moved++;
+            }
+            return moved;
+        }
+    }
+
+    private static int[][] withoutPage(int[][] pages, int page) {
+        int[][] copy = pages.clone();
+        copy[page] = null;
+        return copy;
+    }
+
+    private static long[][] withoutPage(long[][] pages, int page) {
+        long[][] copy = pages.clone();
+        copy[page] = null;
+        return copy;
+    }
+
+    // Distinct descriptions held in the dictionary
+    int getDescriptionCodeCount() {
+        return descriptionCodes.size();
+    }
+
+    // Pages held in segment files rather than on the heap
+    public int getColdPageCount() {
+        int count = 0;
+        for (int[] page : ids) {
+            if (page == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Heap held by the columns and dictionaries (excluding the dictionary strings)
+    public long estimatedBytes() {
+        long pageBytes = (long) (ids.length - getColdPageCount()) * PAGE_SIZE * (4 + 8 + 8 + 8 + 4 + 4 + 4 + 4 + 4);
+        long dayBytes;
+        synchronized (this) {
+            dayBytes = (long) size * 4 + days.length * 8L;
+        }
+        return pageBytes + dayBytes + (long) lastRowForAccount.length * 4
+            + (long) (accountCodes.size() + typeCodes.size() + descriptionCodes.size()) * 48;
+    }
+}
@@ -0,0 +1,155 @@
+package banking;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Posts deposits, withdrawals and transfers safely from many threads.
+// Single-account deposits and withdrawals are lock-free compare-and-set updates
+// on the account balance. Transfers are guarded by a fixed set of striped locks;
+// a transfer always takes the lower stripe first, so two transfers can never
+// wait on each other. Closing takes the account's stripe too, so a transfer
+// that has debited its source can always refund it if the target turns out
+// not to take deposits.
+class TransferEngine {
+    private static final int STRIPES = 1024;
+    private static final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    private static int stripeOf(Account account) {
+        int h = account.getAccountNumber().hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    // A posted change: its transactions and the future that completes once they are journaled
+    static final class Posting {
+        final Transaction[] transactions;
+        final CompletableFuture<Void> durable; // null when journaling is off
+
+        Posting(Transaction[] transactions, CompletableFuture<Void> durable) {
+            this.transactions = transactions;
+            this.durable = durable;
+        }
+    }
+
+    public static Transaction deposit(Account account, double amount, String type, String description) {
+        Posting posting = postDeposit(account, amount, type, description);
+        if (posting == null) {
+            return null;
+        }
+        BankingManagementSystem.awaitDurable(posting.durable);
+        return posting.transactions[0];
+    }
+
+    public static Transaction withdraw(Account account, double amount, String description) {
+        Posting posting = postWithdrawal(account, amount, description);
+        if (posting == null) {
+            return null;
+        }
+        BankingManagementSystem.awaitDurable(posting.durable);
+        return posting.transactions[0];
+    }
+
+    // Returns the source and target transactions, or null if the transfer failed
+    public static Transaction[] transfer(Account source, Account target, double amount) {
+        Posting posting = postTransfer(source, target, amount);
+        if (posting == null) {
+            return null;
+        }
+        BankingManagementSystem.awaitDurable(posting.durable);
+        return posting.transactions;
+    }
+
+    // The post* variants apply the change and queue its journal record without
+    // waiting for it, so batch callers can wait once for many postings.
+    // They return null if the change was rejected.
+    public static Posting postDeposit(Account account, double amount, String type, String description) {
+        long paise = Account.toPaise(amount);
+        long balanceAfter = account.depositPaise(paise);
+        if (balanceAfter == Account.REJECTED) {
+            return null;
+        }
+        Transaction transaction = new Transaction(BankingManagementSystem.nextTransactionId(),
+            account.getAccountNumber(), type, paise / 100.0, description, balanceAfter / 100.0);
+        return new Posting(new Transaction[] { transaction },
+            BankingManagementSystem.postTransactions(new long[] { paise }, transaction));
+    }
+
+    public static Posting postWithdrawal(Account account, double amount, String description) {
+        long paise = Account.toPaise(amount);
+        long balanceAfter = account.withdrawPaise(paise);
+        if (balanceAfter == Account.REJECTED) {
+            return null;
+        }
+        Transaction transaction = new Transaction(BankingManagementSystem.nextTransactionId(),
+            account.getAccountNumber(), "Withdrawal", paise / 100.0, description, balanceAfter / 100.0);
+        return new Posting(new Transaction[] { transaction },
+            BankingManagementSystem.postTransactions(new long[] { -paise }, transaction));
+    }
+
+    // Closes the account if its balance is zero, under its stripe lock
+    public static boolean close(Account account) {
+        ReentrantLock lock = locks[stripeOf(account)];
+        lock.lock();
+        try {
+            return account.closeIfEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The journal record is queued under the locks; callers wait for it after the
+    // locks are released, so concurrent transfers share one fsync.
+    public static Posting postTransfer(Account source, Account target, double amount) {
+        // Compared by number: every lookup makes a new view, so one account can come as two objects
+        if (source.getAccountNumber().equals(target.getAccountNumber())) {
+            return null;
+        }
+        int first = stripeOf(source);
+        int second = stripeOf(target);
+        if (first > second) {
+            int tmp = first;
+            first = second;
+            second = tmp;
+        }
+        locks[first].lock();
+        if (second != first) {
+            locks[second].lock();
+        }
+        try {
+            long paise = Account.toPaise(amount);
+            long sourceBalanceAfter = source.withdrawPaise(paise);
+            if (sourceBalanceAfter == Account.REJECTED) {
+                return null;
+            }
+            long targetBalanceAfter = target.depositPaise(paise);
+            if (targetBalanceAfter == Account.REJECTED) {
+                source.adjustBalancePaise(paise); // the source is still open: closing needs its stripe
+                return null;
+            }
+            amount = paise / 100.0;
+            String sourceNumber = source.getAccountNumber();
+            String targetNumber = target.getAccountNumber();
+
+            Transaction sourceTransaction = new Transaction(BankingManagementSystem.nextTransactionId(),
+                sourceNumber, "Transfer", amount, "Transfer to " + targetNumber, sourceBalanceAfter / 100.0);
+            sourceTransaction.setTargetAccount(targetNumber);
+
+            Transaction targetTransaction = new Transaction(BankingManagementSystem.nextTransactionId(),
+                targetNumber, "Transfer", amount, "Transfer from " + sourceNumber, targetBalanceAfter / 100.0);
+            targetTransaction.setTargetAccount(sourceNumber);
+
+            Transaction[] posted = { sourceTransaction, targetTransaction };
+            return new Posting(posted, BankingManagementSystem.postTransactions(new long[] { -paise, paise }, posted));
+        } finally {
+            if (second != first) {
+                locks[second].unlock();
+            }
+            locks[first].unlock();
+        }
+    }
+}
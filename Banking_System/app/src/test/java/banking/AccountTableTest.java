@@ -0,0 +1,235 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AccountTableTest {
+    private static final int ACCOUNTS = 100_000;
+    private static final int OPERATIONS = 300_000;
+
+    // The same accounts as Account objects and as table records get the same
+    // seeded deposits, withdrawals and transfers (single-threaded, so the
+    // outcomes must match exactly) and a month's interest, the records through
+    // InterestEngine on their views; every account must agree
+    @Test
+    void recordsMatchAccountObjects() {
+        Account[] objects = new Account[ACCOUNTS];
+        AccountTable table = new AccountTable(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            objects[i] = new Account("ACC" + (1000000001L + i), 1001 + i / 2, i % 5 == 0 ? "Current" : "Savings",
+                1000 + i % 100000, 3.5 + (i % 4) * 0.25);
+            table.add(objects[i]);
+        }
+        Random random = new Random(11);
+        for (int i = 0; i < OPERATIONS; i++) {
+            int a = random.nextInt(ACCOUNTS);
+            int b = random.nextInt(ACCOUNTS);
+            long paise = 1 + random.nextInt(500000);
+            switch (i % 3) {
+                case 0:
+                    objects[a].depositPaise(paise);
+                    table.depositPaise(a, paise);
+                    break;
+                case 1:
+                    objects[a].withdrawPaise(paise);
+                    table.withdrawPaise(a, paise);
+                    break;
+                default:
+                    objects[a].transfer(objects[b], paise / 100.0);
+                    table.transferPaise(a, b, paise);
+            }
+        }
+
+        int objectCredits = 0;
+        for (Account account : objects) {
+            if ("Savings".equals(account.getAccountType()) && "Active".equals(account.getStatus())) {
+                long interest = Account.toPaise(account.getBalance() * account.getInterestRate() / 12 / 100);
+                if (interest > 0) {
+                    account.depositPaise(interest);
+                    objectCredits++;
+                }
+            }
+        }
+        InterestEngine.Result credited = InterestEngine.run(table.asList().toArray(new Account[0]), YearMonth.now());
+        assertEquals(objectCredits, credited.getCredited());
+
+        for (Account object : objects) {
+            Account view = table.view(object.getAccountNumber());
+            assertNotNull(view, object.getAccountNumber());
+            assertEquals(object.getBalancePaise(), view.getBalancePaise(), object.getAccountNumber());
+            assertEquals(object.getAccountType(), view.getAccountType());
+            assertEquals(object.getCustomerId(), view.getCustomerId());
+        }
+    }
+
+    // A table sized for two accounts takes many more, rebuilding its index as
+    // it fills, while readers keep finding the accounts added before they looked
+    @Test
+    void indexGrowsWhileReadersLookUp() throws InterruptedException {
+        AccountTable table = new AccountTable(2);
+        AtomicInteger missed = new AtomicInteger();
+        AtomicBoolean adding = new AtomicBoolean(true);
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            Thread reader = new Thread(() -> {
+                ThreadLocalRandom local = ThreadLocalRandom.current();
+                while (adding.get()) {
+                    int added = table.size();
+                    if (added > 0) {
+                        int record = local.nextInt(added);
+                        if (table.find("ACC" + (1000000001L + record)) != record) {
+                            missed.incrementAndGet();
+                        }
+                    }
+                }
+            }, "table-reader-" + t);
+            readers.add(reader);
+            reader.start();
+        }
+        for (int i = 0; i < ACCOUNTS; i++) {
+            table.add("ACC" + (1000000001L + i), 1001, "Savings", 0, 3.5, 0L, "Active");
+        }
+        adding.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(0, missed.get());
+        assertEquals(ACCOUNTS, table.asList().size());
+        for (int i = 0; i < ACCOUNTS; i += 97) {
+            assertEquals("ACC" + (1000000001L + i), table.asList().get(i).getAccountNumber());
+        }
+        assertNull(table.view("ACC" + (1000000001L + ACCOUNTS)));
+    }
+
+    // The bank keeps its accounts in the table: an opened account comes back
+    // as a view, and the monthly interest run credits it and posts the row
+    @Test
+    void bankAccountsAreTableRows() {
+        int customerId = BankingEngine.registerCustomer("Table", "Customer", "table@email.com", "9800000000",
+            "Table Street", "TABLE", new Date(0), "Regular").getValue().getCustomerId();
+        Account opened = BankingEngine.openAccount(customerId, "Savings", 120_000.00).getValue();
+        assertInstanceOf(AccountTable.Row.class, opened);
+        String accountNumber = opened.getAccountNumber();
+        assertTrue(BankingEngine.deposit(accountNumber, 1_000.00).isSuccess());
+        assertEquals(Account.toPaise(121_000.00), BankingEngine.findAccount(accountNumber).get().getBalancePaise());
+
+        YearMonth period = YearMonth.now();
+        BankingEngine.OperationResult<InterestEngine.Result> run = BankingEngine.applyMonthlyInterest(period);
+        assertTrue(run.isSuccess(), run.getError());
+        long interest = Account.toPaise(121_000.00 * opened.getInterestRate() / 12 / 100);
+        assertEquals(Account.toPaise(121_000.00) + interest, opened.getBalancePaise());
+        TransactionStore store = BankingManagementSystem.getTransactionStore();
+        int[] rows = store.rowsForAccount(accountNumber);
+        assertEquals(InterestEngine.descriptionFor(period), store.getDescription(rows[rows.length - 1]));
+        assertEquals(interest, store.getAmountPaise(rows[rows.length - 1]));
+    }
+
+    // Only the bank's four account types open, in any casing, so free-text
+    // types can never fill the table's type codes; a table that is full of
+    // types refuses an account before writing any of it
+    @Test
+    void unknownAccountTypesAreRefused() {
+        int customerId = BankingEngine.registerCustomer("Typed", "Customer", "typed@email.com", "9800000000",
+            "Type Street", "TYPED", new Date(0), "Regular").getValue().getCustomerId();
+        for (int i = 0; i < 200; i++) {
+            assertFalse(BankingEngine.openAccount(customerId, "Type " + i, 0).isSuccess());
+        }
+        assertEquals(0, BankingManagementSystem.findAccountsByCustomer(customerId).size());
+        Account deposit = BankingEngine.openAccount(customerId, " fixed DEPOSIT ", 500.00).getValue();
+        assertEquals("Fixed Deposit", deposit.getAccountType());
+        assertEquals(6.5, deposit.getInterestRate());
+
+        AccountTable table = new AccountTable(2);
+        for (int i = 0; i < 123; i++) { // with the four built in, 127 types: every code a byte holds
+            table.registerType("Type " + i);
+        }
+        assertThrows(IllegalStateException.class,
+            () -> table.add("ACC1000000001", 1001, "One type too many", 0, 3.5, 0L, "Active"));
+        assertEquals(0, table.size());
+        assertEquals(-1, table.find("ACC1000000001"));
+    }
+
+    // A deposit that would take a balance past Long.MAX_VALUE paise is refused,
+    // on Account objects and on records, and leaves the account as it was (a
+    // wrapped balance could even land on Account.CLOSED); amounts no balance
+    // can hold never become paise at all
+    @Test
+    void depositThatWouldOverflowIsRefused() {
+        Account object = new Account("ACC1000000001", 1001, "Savings", 0, 3.5);
+        AccountTable table = new AccountTable(2);
+        int record = table.add("ACC1000000002", 1001, "Savings", 0L, 3.5, 0L, "Active");
+        long nearlyFull = Long.MAX_VALUE - 100;
+        object.adjustBalancePaise(nearlyFull);
+        table.adjustBalancePaise(record, nearlyFull);
+
+        assertEquals(Account.REJECTED, object.depositPaise(101));
+        assertEquals(Account.REJECTED, table.depositPaise(record, 101));
+        assertEquals(Account.REJECTED, table.view(record).depositPaise(Long.MAX_VALUE));
+        assertFalse(table.transferPaise(table.add("ACC1000000003", 1001, "Savings", 500L, 3.5, 0L, "Active"),
+            record, 500));
+        assertThrows(ArithmeticException.class, () -> object.adjustBalancePaise(101));
+        assertThrows(ArithmeticException.class, () -> table.adjustBalancePaise(record, 101));
+        assertEquals(nearlyFull, object.getBalancePaise());
+        assertEquals(nearlyFull, table.getBalancePaise(record));
+        assertEquals("Active", object.getStatus());
+        assertEquals("Active", table.getStatus(record));
+        assertEquals(500, table.getBalancePaise(table.find("ACC1000000003")));
+        assertEquals(Long.MAX_VALUE, object.depositPaise(100));
+
+        for (double amount : new double[] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1e300,
+                Long.MAX_VALUE / 100.0 + 1e6 }) {
+            assertThrows(IllegalArgumentException.class, () -> Account.toPaise(amount), Double.toString(amount));
+        }
+        assertEquals(-123, Account.toPaise(-1.23));
+    }
+
+    // Threads transfer at random on the table, through views and straight on
+    // the records; the total must be unchanged
+    @Test
+    void concurrentTransfersConserveMoney() throws InterruptedException {
+        AccountTable table = new AccountTable(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            table.add("ACC" + (1000000001L + i), 1001, "Savings", 100_000, 3.5, 0L, "Active");
+        }
+        long totalBefore = table.totalBalancePaise();
+        int threadCount = 4;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            boolean throughViews = t % 2 == 0;
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom local = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS / threadCount; i++) {
+                    int a = local.nextInt(ACCOUNTS);
+                    int b = local.nextInt(ACCOUNTS);
+                    long paise = 1 + local.nextInt(500000);
+                    if (throughViews) {
+                        table.view(a).transfer(table.view(b), paise / 100.0);
+                    } else {
+                        table.transferPaise(a, b, paise);
+                    }
+                }
+            }, "table-transfer-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(totalBefore, table.totalBalancePaise());
+    }
+}
@@ -0,0 +1,73 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BankSnapshotTest {
+    @TempDir
+    Path directory;
+
+    // Each compaction appends only the new segments' rows to the history and
+    // leaves the bytes already there alone; a restart still sees every row, in order
+    @Test
+    void compactionAppendsToTheHistory() throws IOException {
+        Path base = directory.resolve("bank.journal");
+        Path snapshot = directory.resolve("bank.snapshot");
+        Path history = BankSnapshot.historyPath(snapshot);
+        TransactionJournal journal = TransactionJournal.open(base);
+        Account account = new Account("ACC1000000001", 1001, "Savings", 0, 3.5);
+        journal.append(TransactionJournal.ACCOUNT, out -> EntityCodec.writeAccount(out, account));
+        for (int id = 1; id <= 100; id++) {
+            post(journal, id, account.getAccountNumber());
+        }
+        BankSnapshot.compact(snapshot, base, journal.rotate().join());
+        byte[] firstHistory = Files.readAllBytes(history);
+        long firstImage = Files.size(snapshot);
+
+        for (int id = 101; id <= 150; id++) {
+            post(journal, id, account.getAccountNumber());
+        }
+        long sealedBefore = journal.rotate().join();
+        // Rows a compaction wrote before failing are not covered by the snapshot
+        Files.write(history, new byte[] { 1, 2, 3 }, StandardOpenOption.APPEND);
+        assertEquals(50, BankSnapshot.compact(snapshot, base, sealedBefore));
+        TransactionJournal.deleteSegmentsBefore(base, sealedBefore);
+        journal.close();
+
+        byte[] secondHistory = Files.readAllBytes(history);
+        assertArrayEquals(firstHistory, Arrays.copyOf(secondHistory, firstHistory.length));
+        assertEquals(firstHistory.length * 3 / 2, secondHistory.length);
+        assertEquals(firstImage, Files.size(snapshot));
+
+        List<Integer> ids = new ArrayList<>();
+        BankSnapshot loaded = new SnapshotManager(snapshot, base).recover(t -> ids.add(t.getTransactionId()));
+        assertEquals(150, loaded.transactionCount);
+        assertEquals(150, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 1, ids.get(i));
+        }
+        assertEquals(150 * 100, loaded.accounts.get(account.getAccountNumber()).getBalancePaise());
+        assertTrue(BankSnapshot.load(snapshot, null).accounts.containsKey(account.getAccountNumber()));
+    }
+
+    // A deposit of 1.00 as a one-row posting record
+    private static void post(TransactionJournal journal, int id, String accountNumber) {
+        Transaction transaction = new Transaction(id, accountNumber, "Deposit", 1.00, "Cash deposit", id);
+        journal.append(TransactionJournal.POSTING, out -> {
+            out.writeInt(1);
+            EntityCodec.writeTransaction(out, transaction);
+            out.writeLong(100);
+        });
+    }
+}
@@ -0,0 +1,153 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchIngestionTest {
+    @TempDir
+    Path directory;
+
+    // A transfer row naming the same account twice is rejected in validation,
+    // even though each lookup hands back a different view of the account, and
+    // posts nothing; the other rows still apply
+    @Test
+    void transferToTheSameAccountIsRejected() throws IOException, InterruptedException {
+        int customerId = BankingEngine.registerCustomer("Batch", "Customer", "batch@email.com", "9800000000",
+            "Batch Street", "BATCH", new Date(0), "Regular").getValue().getCustomerId();
+        String first = BankingEngine.openAccount(customerId, "Savings", 1_000.00).getValue().getAccountNumber();
+        String second = BankingEngine.openAccount(customerId, "Current", 0).getValue().getAccountNumber();
+        Path input = directory.resolve("settlement.csv");
+        Path rejects = directory.resolve("rejects.csv");
+        Files.write(input, List.of(
+            "type,account,amount,target,description",
+            "transfer," + first + ",100.00," + first + ",Self",
+            "transfer," + first + ",250.00," + second + ",Settlement"), StandardCharsets.UTF_8);
+
+        BatchIngestion.Result result = BatchIngestion.run(input, rejects);
+
+        assertEquals(2, result.getRows());
+        assertEquals(1, result.getApplied());
+        assertEquals(1, result.getRejected());
+        List<String> rejected = Files.readAllLines(rejects, StandardCharsets.UTF_8);
+        assertEquals(2, rejected.size());
+        assertTrue(rejected.get(1).startsWith("2,Cannot transfer to the same account,"), rejected.get(1));
+        assertEquals(Account.toPaise(750.00), BankingEngine.findAccount(first).get().getBalancePaise());
+        assertEquals(Account.toPaise(250.00), BankingEngine.findAccount(second).get().getBalancePaise());
+        assertEquals(1, BankingManagementSystem.getTransactionStore().rowsForAccount(first).length);
+    }
+
+    // A seeded file of deposits, withdrawals and transfers, some of them bound
+    // to fail for want of funds, leaves its accounts exactly as the same
+    // operations leave twin accounts when called one by one through BankingEngine
+    @Test
+    void batchMatchesOneByOneCalls() throws IOException, InterruptedException {
+        int customerId = BankingEngine.registerCustomer("Twin", "Customer", "twin@email.com", "9800000000",
+            "Twin Street", "TWIN", new Date(0), "Regular").getValue().getCustomerId();
+        int accountCount = 20;
+        String[] batch = new String[accountCount];
+        String[] single = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            batch[i] = BankingEngine.openAccount(customerId, "Savings", 500.00).getValue().getAccountNumber();
+            single[i] = BankingEngine.openAccount(customerId, "Savings", 500.00).getValue().getAccountNumber();
+        }
+        Random random = new Random(5);
+        List<String> lines = new ArrayList<>();
+        long succeeded = 0;
+        for (int i = 0; i < 3_000; i++) {
+            int a = random.nextInt(accountCount);
+            int b = (a + 1 + random.nextInt(accountCount - 1)) % accountCount;
+            double amount = (1 + random.nextInt(50_000)) / 100.0;
+            boolean ok;
+            switch (i % 3) {
+                case 0:
+                    lines.add("deposit," + batch[a] + "," + amount);
+                    ok = BankingEngine.deposit(single[a], amount).isSuccess();
+                    break;
+                case 1:
+                    lines.add("withdrawal," + batch[a] + "," + amount);
+                    ok = BankingEngine.withdraw(single[a], amount).isSuccess();
+                    break;
+                default:
+                    lines.add("transfer," + batch[a] + "," + amount + "," + batch[b]);
+                    ok = BankingEngine.transfer(single[a], single[b], amount).isSuccess();
+            }
+            if (ok) {
+                succeeded++;
+            }
+        }
+        Path input = directory.resolve("twins.csv");
+        Files.write(input, lines, StandardCharsets.UTF_8);
+
+        BatchIngestion.Result result = BatchIngestion.run(input, directory.resolve("twins.rejects.csv"));
+
+        assertEquals(lines.size(), result.getRows());
+        assertEquals(succeeded, result.getApplied());
+        assertEquals(lines.size() - succeeded, result.getRejected());
+        assertTrue(result.getRejected() > 0, "no row failed; the file does not test refusals");
+        TransactionStore store = BankingManagementSystem.getTransactionStore();
+        for (int i = 0; i < accountCount; i++) {
+            assertEquals(BankingEngine.findAccount(single[i]).get().getBalancePaise(),
+                BankingEngine.findAccount(batch[i]).get().getBalancePaise(), batch[i]);
+            assertEquals(store.rowsForAccount(single[i]).length, store.rowsForAccount(batch[i]).length, batch[i]);
+        }
+    }
+
+    // Every refused row is written to the reject file in input order, with its
+    // line number and the reason; amounts parseDouble accepts but no balance
+    // can take (NaN, Infinity, 1e300) are refused as invalid before they post,
+    // so the statistics still match the balances
+    @Test
+    void rejectedRowsComeBackInFileOrderWithTheirReasons() throws IOException, InterruptedException {
+        int customerId = BankingEngine.registerCustomer("Reject", "Customer", "reject@email.com", "9800000000",
+            "Reject Street", "REJECT", new Date(0), "Regular").getValue().getCustomerId();
+        String account = BankingEngine.openAccount(customerId, "Savings", 100.00).getValue().getAccountNumber();
+        List<String> lines = List.of(
+            "type,account,amount,target,description",
+            "deposit," + account + ",Infinity",
+            "deposit," + account + ",1",
+            "deposit," + account + ",NaN",
+            "withdrawal," + account + ",1e300",
+            "deposit," + account + ",-5",
+            "deposit," + account + ",ten",
+            "withdrawal," + account + ",500",
+            "refund," + account + ",5",
+            "deposit,ACC999,5",
+            "transfer," + account + ",5,ACC999",
+            "deposit",
+            "withdrawal," + account + ",50,,Rent");
+        Path input = directory.resolve("mixed.csv");
+        Path rejects = directory.resolve("mixed.rejects.csv");
+        Files.write(input, lines, StandardCharsets.UTF_8);
+
+        BatchIngestion.Result result = BatchIngestion.run(input, rejects);
+
+        assertEquals(12, result.getRows());
+        assertEquals(2, result.getApplied());
+        assertEquals(10, result.getRejected());
+        String[] reasons = { null, null, "Invalid amount", null, "Invalid amount", "Invalid amount",
+            "Amount must be positive", "Invalid amount", "Insufficient funds or account inactive",
+            "Unknown transaction type", "Account not found", "Target account not found",
+            "Expected type,account,amount", null };
+        List<String> expected = new ArrayList<>();
+        expected.add("line,reason,row");
+        for (int line = 1; line <= lines.size(); line++) {
+            if (reasons[line] != null) {
+                expected.add(line + "," + reasons[line] + "," + lines.get(line - 1));
+            }
+        }
+        assertEquals(expected, Files.readAllLines(rejects, StandardCharsets.UTF_8));
+        assertEquals(Account.toPaise(51.00), BankingEngine.findAccount(account).get().getBalancePaise());
+        assertTrue(BankingManagementSystem.checkStatistics());
+    }
+}
@@ -0,0 +1,84 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class CustomerNameIndexTest {
+
+    // IDs indexed out of order come back in ID order, and a rename drops the
+    // customer from the old name's trigrams only
+    @Test
+    void renameMovesTheCustomerBetweenPostings() {
+        Map<Integer, Customer> customers = new ConcurrentHashMap<>();
+        CustomerNameIndex index = new CustomerNameIndex(customers::get);
+        for (int id : new int[] { 5, 1, 9, 3, 7 }) {
+            customers.put(id, customer(id, "Asha", "Verma"));
+            index.add(id, "Asha Verma");
+        }
+        assertEquals(List.of(1, 3, 5, 7, 9), ids(index.search("verma", 10)));
+
+        customers.put(3, customer(3, "Asha", "Kapoor"));
+        index.update(3, "Asha Verma", "Asha Kapoor");
+        assertEquals(List.of(1, 5, 7, 9), ids(index.search("verma", 10)));
+        assertEquals(List.of(3), ids(index.search("kapoor", 10)));
+        assertEquals(List.of(1, 3, 5), ids(index.search("asha", 3)));
+    }
+
+    // Searches keep running while other threads register and rename customers
+    @Test
+    void searchesRunAlongsideRenames() throws InterruptedException {
+        Map<Integer, Customer> customers = new ConcurrentHashMap<>();
+        CustomerNameIndex index = new CustomerNameIndex(customers::get);
+        int count = 20_000;
+        for (int id = 1; id <= count; id++) {
+            customers.put(id, customer(id, "Ravi", "Sharma" + id));
+            index.add(id, "Ravi Sharma" + id);
+        }
+        Thread renamer = new Thread(() -> {
+            for (int id = 1; id <= count; id += 2) {
+                customers.put(id, customer(id, "Ravi", "Mehta" + id));
+                index.update(id, "Ravi Sharma" + id, "Ravi Mehta" + id);
+            }
+        });
+        AtomicInteger wrongNames = new AtomicInteger();
+        Thread[] searchers = new Thread[4];
+        for (int t = 0; t < searchers.length; t++) {
+            searchers[t] = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    for (Customer found : index.search("sharma", 50)) {
+                        if (!found.getLastName().startsWith("Sharma")) {
+                            wrongNames.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        renamer.start();
+        for (Thread searcher : searchers) {
+            searcher.start();
+        }
+        renamer.join();
+        for (Thread searcher : searchers) {
+            searcher.join();
+        }
+        assertEquals(0, wrongNames.get());
+        assertEquals(count / 2, index.search("sharma", count).size());
+        assertEquals(count / 2, index.search("mehta", count).size());
+    }
+
+    private static Customer customer(int id, String first, String last) {
+        return new Customer(id, first, last, "c" + id + "@email.com", "9800000000", "Street", "ID" + id,
+            new Date(0), "Regular");
+    }
+
+    private static List<Integer> ids(List<Customer> found) {
+        return found.stream().map(Customer::getCustomerId).collect(Collectors.toList());
+    }
+}
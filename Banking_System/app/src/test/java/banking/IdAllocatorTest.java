@@ -0,0 +1,154 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class IdAllocatorTest {
+
+    // Threads open accounts and post deposits through BankingEngine (journaling
+    // off); no account number or transaction ID may be handed out twice
+    @Test
+    void concurrentAllocationsAreUnique() throws InterruptedException {
+        int threadCount = 8;
+        int accountsPerThread = 20_000;
+        int depositsPerThread = 50_000;
+        int customerId = BankingEngine.registerCustomer("Stress", "Customer", "stress@email.com", "9800000000",
+            "Stress Test Street", "STRESS", new Date(0), "Regular").getValue().getCustomerId();
+        long[][] accountNumbers = new long[threadCount][accountsPerThread];
+        long[][] transactionIds = new long[threadCount][depositsPerThread];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            long[] myAccounts = accountNumbers[t];
+            long[] myTransactions = transactionIds[t];
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < myAccounts.length; i++) {
+                    Account account = BankingEngine.openAccount(customerId, "Savings", 0).getValue();
+                    myAccounts[i] = Long.parseLong(account.getAccountNumber().substring(3));
+                }
+                for (int i = 0; i < myTransactions.length; i++) {
+                    String accountNumber = "ACC" + myAccounts[i % myAccounts.length];
+                    myTransactions[i] = BankingEngine.deposit(accountNumber, 1.00).getValue().getTransactionId();
+                }
+            }, "id-stress-" + t);
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(0, countDuplicates(accountNumbers), "duplicate account numbers");
+        assertEquals(0, countDuplicates(transactionIds), "duplicate transaction IDs");
+    }
+
+    // Allocates from journaled sequences on several threads, replays the journal
+    // into a fresh state as a restart would; every sequence must resume past
+    // everything handed out
+    @Test
+    void sequencesResumePastEveryIdAfterRestart() throws IOException, InterruptedException {
+        int threadCount = 8;
+        Path dir = Files.createTempDirectory("bank-id-restart");
+        Path journalBase = dir.resolve("bank.journal");
+        try {
+            TransactionJournal journal = TransactionJournal.open(journalBase);
+            IdAllocator[] sequences = new IdAllocator[IdAllocator.ACCOUNT_NUMBER + 1];
+            long[] highest = new long[sequences.length];
+            for (byte s = IdAllocator.CUSTOMER; s <= IdAllocator.ACCOUNT_NUMBER; s++) {
+                sequences[s] = new IdAllocator(s, s == IdAllocator.ACCOUNT_NUMBER ? 1_000_000_001L : 1,
+                    Long.MAX_VALUE, (sequence, end) -> IdAllocator.journalBlock(journal, sequence, end));
+            }
+            Thread[] workers = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                workers[t] = new Thread(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        for (int s = 0; s < sequences.length; s++) {
+                            long id = sequences[s].next();
+                            synchronized (highest) {
+                                highest[s] = Math.max(highest[s], id);
+                            }
+                        }
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            journal.close();
+
+            BankSnapshot restarted = new BankSnapshot(null);
+            TransactionJournal.replay(journalBase, 1, restarted::apply);
+            long[] marks = { restarted.customerIdCounter, restarted.transactionIdCounter, restarted.loanIdCounter,
+                restarted.accountNumberMark };
+            for (int s = 0; s < marks.length; s++) {
+                assertTrue(marks[s] > highest[s], "sequence " + s + " resumes at " + marks[s]
+                    + ", highest ID handed out " + highest[s]);
+            }
+        } finally {
+            try (var files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    // Far more virtual threads than stripes: no ID is handed out twice, and the
+    // blocks left over by lost refill races cost well under half the IDs reserved
+    @Test
+    void virtualThreadsSharingStripesGetUniqueIds() throws InterruptedException {
+        int threadCount = 10_000;
+        int idsPerThread = 200;
+        IdAllocator allocator = new IdAllocator(IdAllocator.TRANSACTION, 1, Long.MAX_VALUE, (sequence, end) -> { });
+        long[][] ids = new long[threadCount][idsPerThread];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            long[] mine = ids[t];
+            workers[t] = Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < mine.length; i++) {
+                    mine[i] = allocator.next();
+                }
+            });
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(0, countDuplicates(ids), "duplicate IDs");
+        long issued = (long) threadCount * idsPerThread;
+        long reserved = allocator.reserve(1) - 1;
+        assertTrue(reserved < issued * 2, "reserved " + reserved + " IDs to issue " + issued);
+    }
+
+    private static int countDuplicates(long[][] perThread) {
+        long[] all = Arrays.stream(perThread).flatMapToLong(Arrays::stream).toArray();
+        Arrays.parallelSort(all);
+        int duplicates = 0;
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                duplicates++;
+            }
+        }
+        return duplicates;
+    }
+}
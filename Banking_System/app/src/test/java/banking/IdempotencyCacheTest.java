@@ -0,0 +1,140 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyCacheTest {
+
+    // Threads post keyed deposits and transfers through BankingEngine, every
+    // request sent three times (the repeats racing the first send); the
+    // balances must show each request applied exactly once
+    @Test
+    void retriedRequestsApplyOnce() throws InterruptedException {
+        int threadCount = 4;
+        int requestsPerThread = 20_000;
+        int accountCount = 1000;
+        long seedPaise = Account.toPaise(1_000_000.00);
+        int customerId = BankingEngine.registerCustomer("Retry", "Customer", "retry@email.com", "9800000000",
+            "Retry Street", "RETRY", new Date(0), "Regular").getValue().getCustomerId();
+        String[] accountNumbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountNumbers[i] = BankingEngine.openAccount(customerId, "Savings", seedPaise / 100.0).getValue()
+                .getAccountNumber();
+        }
+
+        // Every request is a deposit to account r % n or a transfer from it,
+        // with an amount derived from r, so the expected balances are known
+        long[] expected = new long[accountCount];
+        Arrays.fill(expected, seedPaise);
+        int requestCount = threadCount * requestsPerThread;
+        for (int r = 0; r < requestCount; r++) {
+            long paise = 100 + r % 900;
+            if (r % 2 == 0) {
+                expected[r % accountCount] += paise;
+            } else {
+                expected[r % accountCount] -= paise;
+                expected[(r + 7) % accountCount] += paise;
+            }
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong mismatchedRepeats = new AtomicLong();
+        Thread[] workers = new Thread[threadCount * 3];
+        for (int t = 0; t < workers.length; t++) {
+            int first = t % threadCount * requestsPerThread;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int r = first; r < first + requestsPerThread; r++) {
+                    String key = "check-" + r;
+                    double amount = (100 + r % 900) / 100.0;
+                    String account = accountNumbers[r % accountCount];
+                    String target = accountNumbers[(r + 7) % accountCount];
+                    int transactionId = r % 2 == 0
+                        ? BankingEngine.deposit(key, account, amount).getValue().getTransactionId()
+                        : BankingEngine.transfer(key, account, target, amount).getValue()[0].getTransactionId();
+                    // A repeat must see the very transaction the first send posted
+                    int again = r % 2 == 0
+                        ? BankingEngine.deposit(key, account, amount).getValue().getTransactionId()
+                        : BankingEngine.transfer(key, account, target, amount).getValue()[0].getTransactionId();
+                    if (again != transactionId) {
+                        mismatchedRepeats.incrementAndGet();
+                    }
+                }
+            }, "retry-" + t);
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long[] actual = new long[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            actual[i] = BankingManagementSystem.findAccountByNumber(accountNumbers[i]).get().getBalancePaise();
+        }
+        assertArrayEquals(expected, actual);
+        assertEquals(0, mismatchedRepeats.get(), "repeats with a different result");
+    }
+
+    // Many more distinct keys than the limit, through a small cache: it never
+    // holds more than the limit, keys past it are refused without running, and
+    // every key it took still answers with its first result
+    @Test
+    void fullCacheRefusesNewKeysAndKeepsLiveOnes() {
+        int limit = 10_000;
+        IdempotencyCache bounded = new IdempotencyCache(TimeUnit.HOURS.toMillis(1), limit);
+        AtomicLong runs = new AtomicLong();
+        int refused = 0;
+        for (int i = 0; i < 500_000; i++) {
+            int value = i;
+            BankingEngine.OperationResult<Integer> result = bounded.execute("load-" + i, i, () -> {
+                runs.incrementAndGet();
+                return BankingEngine.OperationResult.ok(value);
+            });
+            if (!result.isSuccess()) {
+                refused++;
+            }
+            assertTrue(bounded.size() <= limit, "size " + bounded.size());
+        }
+        assertEquals(limit, runs.get());
+        assertEquals(500_000 - limit, refused);
+        assertEquals(refused, bounded.getRefusals());
+        for (int i = 0; i < limit; i++) {
+            BankingEngine.OperationResult<Integer> repeat = bounded.execute("load-" + i, i, () -> {
+                runs.incrementAndGet();
+                return BankingEngine.OperationResult.ok(-1);
+            });
+            assertEquals(i, repeat.getValue());
+        }
+        assertEquals(limit, runs.get(), "a live key ran twice");
+    }
+
+    // Once the retention time is up the sweeper frees the room, and new keys are taken again
+    @Test
+    void expiredKeysMakeRoom() throws InterruptedException {
+        IdempotencyCache bounded = new IdempotencyCache(160, 100);
+        BankingEngine.OperationResult<Integer> done = BankingEngine.OperationResult.ok(1);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(bounded.execute("early-" + i, i, () -> done).isSuccess());
+        }
+        assertFalse(bounded.execute("late-0", 0, () -> done).isSuccess());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (bounded.size() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, bounded.size());
+        assertTrue(bounded.execute("late-0", 0, () -> done).isSuccess());
+    }
+}
@@ -0,0 +1,78 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InterestEngineTest {
+
+    // A second run for the same period credits nothing and finds every account
+    // of the first run already credited
+    @Test
+    void repeatedRunIsNoOp() {
+        Account[] table = new Account[50_000];
+        long expectedPaise = 0;
+        int expectedCredits = 0;
+        for (int i = 0; i < table.length; i++) {
+            table[i] = new Account("INT" + (1000000000L + i), 0, i % 5 == 0 ? "Current" : "Savings",
+                1000 + i % 100000, 3.5 + (i % 4) * 0.25);
+            if (i % 5 != 0) {
+                expectedPaise += Account.toPaise(table[i].getBalance() * table[i].getInterestRate() / 12 / 100);
+                expectedCredits++;
+            }
+        }
+        YearMonth period = YearMonth.of(2026, 10);
+        InterestEngine.Result first = InterestEngine.run(table, period);
+        assertEquals(expectedCredits, first.getCredited());
+        assertEquals(expectedPaise, first.getCreditedPaise());
+
+        InterestEngine.Result second = InterestEngine.run(table, period);
+        assertEquals(0, second.getCredited());
+        assertEquals(first.getCredited(), second.getAlreadyCredited());
+    }
+
+    // A settlement row whose description copies the interest credit's is a
+    // deposit, not a credit: the account still gets its interest, once
+    @Test
+    void depositWithTheCreditsDescriptionIsNotACredit(@TempDir Path directory)
+            throws IOException, InterruptedException {
+        int customerId = BankingEngine.registerCustomer("Forged", "Customer", "forged@email.com", "9800000000",
+            "Forged Street", "FORGED", new Date(0), "Regular").getValue().getCustomerId();
+        String accountNumber = BankingEngine.openAccount(customerId, "Savings", 12_000.00).getValue()
+            .getAccountNumber();
+        YearMonth period = YearMonth.now();
+        Path input = directory.resolve("settlement.csv");
+        Files.write(input, List.of("deposit," + accountNumber + ",100.00,," + InterestEngine.descriptionFor(period)),
+            StandardCharsets.UTF_8);
+        assertEquals(1, BatchIngestion.run(input, directory.resolve("rejects.csv")).getApplied());
+
+        BankingEngine.OperationResult<InterestEngine.Result> first = BankingEngine.applyMonthlyInterest(period);
+        assertTrue(first.isSuccess(), first.getError());
+        assertEquals(1, first.getValue().getCredited());
+        assertEquals(0, first.getValue().getAlreadyCredited());
+        long interest = Account.toPaise(12_100.00 * BankingEngine.accountInterestRate("Savings") / 12 / 100);
+        assertEquals(interest, first.getValue().getCreditedPaise());
+        BankingEngine.OperationResult<InterestEngine.Result> second = BankingEngine.applyMonthlyInterest(period);
+        assertEquals(0, second.getValue().getCredited());
+        assertEquals(1, second.getValue().getAlreadyCredited());
+    }
+
+    // Interest for a month that has not started is refused, not posted
+    @Test
+    void futurePeriodIsRefused() {
+        YearMonth next = YearMonth.now().plusMonths(1);
+        assertThrows(IllegalArgumentException.class, () -> InterestEngine.run(new Account[0], next));
+        assertFalse(BankingEngine.applyMonthlyInterest(next).isSuccess());
+    }
+}
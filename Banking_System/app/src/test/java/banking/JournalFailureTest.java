@@ -0,0 +1,200 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalFailureTest {
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void journalingOff() {
+        BankingManagementSystem.setJournal(null);
+    }
+
+    // Once the disk starts failing, a change is not acknowledged, the journal
+    // holds nothing of it, and later changes are refused even if the disk recovers
+    @Test
+    void changeIsNotAcknowledgedWhenTheJournalCannotWriteIt() throws IOException {
+        Path base = directory.resolve("bank.journal");
+        FailingChannel[] segment = new FailingChannel[1];
+        TransactionJournal journal = TransactionJournal.open(base, file -> segment[0] = new FailingChannel(
+            FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)));
+        BankingManagementSystem.setJournal(journal);
+
+        int customerId = BankingEngine.registerCustomer("Disk", "Customer", "disk@email.com", "9800000000",
+            "Disk Street", "DISK", new Date(0), "Regular").getValue().getCustomerId();
+        String accountNumber = BankingEngine.openAccount(customerId, "Savings", 1000.00).getValue().getAccountNumber();
+        assertTrue(BankingEngine.deposit(accountNumber, 10.00).isSuccess());
+
+        segment[0].failing = true;
+        BankingEngine.OperationResult<Transaction> lost = BankingEngine.deposit(accountNumber, 500.00);
+        assertFalse(lost.isSuccess(), "deposit acknowledged although the journal failed");
+        assertTrue(lost.getError().contains("journal"), lost.getError());
+
+        segment[0].failing = false;
+        assertFalse(BankingEngine.deposit(accountNumber, 20.00).isSuccess(), "deposit taken after the journal failed");
+        assertFalse(BankingEngine.closeAccount(accountNumber).isSuccess());
+        assertThrows(UncheckedIOException.class, BankingManagementSystem::requireWritable);
+        journal.close();
+
+        // A restart sees the opening balance and the one acknowledged deposit
+        BankSnapshot restarted = new BankSnapshot(null);
+        TransactionJournal.replay(base, 1, restarted::apply);
+        assertEquals(Account.toPaise(1010.00), restarted.accounts.get(accountNumber).getBalancePaise());
+    }
+
+    // A teller registering a customer after the journal failed gets an error
+    // reply, and the session carries on serving reads
+    @Test
+    void tellerRegistrationIsRefusedOnceTheJournalHasFailed() throws IOException {
+        FailingChannel[] segment = new FailingChannel[1];
+        TransactionJournal journal = TransactionJournal.open(directory.resolve("bank.journal"), file -> segment[0] =
+            new FailingChannel(FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)));
+        BankingManagementSystem.setJournal(journal);
+        String[] registered = send("REGISTER|Before|Failure|before@email.com|9800000000|Disk Street|BEFORE"
+            + "|1990-01-01|Regular").split("\\|");
+        assertEquals("OK", registered[0]);
+
+        segment[0].failing = true;
+        assertTrue(send("REGISTER|Lost|Customer|lost@email.com|9800000000|Disk Street|LOST|1990-01-01|Regular")
+            .startsWith("ERR|"));
+        segment[0].failing = false;
+        String refused = send("REGISTER|After|Failure|after@email.com|9800000000|Disk Street|AFTER"
+            + "|1990-01-01|Regular");
+        assertTrue(refused.startsWith("ERR|Changes are stopped"), refused);
+        assertTrue(send("ACCOUNT|" + registered[2]).startsWith("OK|" + registered[2] + "|"));
+        journal.close();
+    }
+
+    private static String send(String line) {
+        StringBuilder reply = new StringBuilder();
+        TellerServer.handle(line, reply);
+        return reply.substring(0, reply.length() - 1);
+    }
+
+    // A segment whose writes and fsyncs throw while failing is set
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel file;
+        volatile boolean failing;
+
+        FailingChannel(FileChannel file) {
+            this.file = file;
+        }
+
+        private void check() throws IOException {
+            if (failing) {
+                throw new IOException("No space left on device");
+            }
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            check();
+            return file.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            check();
+            return file.write(srcs, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            check();
+            return file.write(src, position);
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            check();
+            file.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return file.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return file.read(dsts, offset, length);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return file.read(dst, position);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return file.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            file.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return file.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            file.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return file.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            check();
+            return file.transferFrom(src, position, count);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return file.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return file.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return file.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LoanLifecycleTest {
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void journalingOff() {
+        BankingManagementSystem.setJournal(null);
+    }
+
+    // A loan only pays out once approved; the payout counts it as active and
+    // reaches the journal, so a restart sees it active too
+    @Test
+    void disbursedLoanIsActiveAndJournaled() throws IOException {
+        Path base = directory.resolve("bank.journal");
+        TransactionJournal journal = TransactionJournal.open(base);
+        BankingManagementSystem.setJournal(journal);
+
+        int customerId = BankingEngine.registerCustomer("Loan", "Customer", "loan@email.com", "9800000000",
+            "Loan Street", "LOAN", new Date(0), "Regular").getValue().getCustomerId();
+        int loanId = BankingEngine.applyForLoan(customerId, "Personal", 500_000.00, 60).getValue().getLoanId();
+        assertFalse(BankingEngine.disburseLoan(loanId).isSuccess(), "pending loan paid out");
+        assertTrue(BankingEngine.approveLoan(loanId).isSuccess());
+
+        long activeBefore = BankStatistics.getActiveLoans();
+        BankingEngine.OperationResult<Loan> disbursed = BankingEngine.disburseLoan(loanId);
+        assertTrue(disbursed.isSuccess(), disbursed.getError());
+        assertEquals("Active", disbursed.getValue().getStatus());
+        assertEquals(activeBefore + 1, BankStatistics.getActiveLoans());
+        assertFalse(BankingEngine.disburseLoan(loanId).isSuccess(), "loan paid out twice");
+        journal.close();
+
+        BankSnapshot restarted = new BankSnapshot(null);
+        TransactionJournal.replay(base, 1, restarted::apply);
+        assertEquals("Active", restarted.loans.get(loanId).getStatus());
+    }
+
+    // A rate change survives a restart from the journal and from a snapshot
+    // folded out of it
+    @Test
+    void loanRateChangeIsJournaledAndSnapshotted() throws IOException {
+        Path base = directory.resolve("bank.journal");
+        TransactionJournal journal = TransactionJournal.open(base);
+        BankingManagementSystem.setJournal(journal);
+        assertTrue(BankingEngine.changeLoanRate("Home", 7.25).isSuccess());
+        assertTrue(BankingEngine.changeLoanRate("home", 7.75).isSuccess());
+        journal.close();
+
+        BankSnapshot replayed = new BankSnapshot(null);
+        TransactionJournal.replay(base, 1, replayed::apply);
+        assertEquals(7.75, replayed.loanRates.get("home"));
+
+        Path snapshot = directory.resolve("bank.snapshot");
+        BankSnapshot.compact(snapshot, base, Long.MAX_VALUE);
+        assertEquals(Map.of("home", 7.75), BankSnapshot.load(snapshot, null).loanRates);
+    }
+
+    // Paying a loan off drops its cached schedule; asking for it again does not bring it back
+    @Test
+    void paidLoanLeavesTheScheduleCache() {
+        int customerId = BankingEngine.registerCustomer("Paid", "Customer", "paid@email.com", "9800000000",
+            "Paid Street", "PAID", new Date(0), "Regular").getValue().getCustomerId();
+        Loan loan = BankingEngine.applyForLoan(customerId, "Auto", 120_000.00, 12).getValue();
+        BankingEngine.approveLoan(loan.getLoanId());
+        BankingEngine.disburseLoan(loan.getLoanId());
+        int cachedBefore = AmortizationEngine.getCachedScheduleCount();
+        AmortizationEngine.scheduleFor(loan);
+        assertEquals(cachedBefore + 1, AmortizationEngine.getCachedScheduleCount());
+
+        assertTrue(BankingEngine.makeLoanPayment(loan.getLoanId(), 120_000.00).isSuccess());
+        assertEquals("Paid", loan.getStatus());
+        assertEquals(cachedBefore, AmortizationEngine.getCachedScheduleCount());
+        AmortizationEngine.scheduleFor(loan);
+        assertEquals(cachedBefore, AmortizationEngine.getCachedScheduleCount());
+    }
+}
@@ -0,0 +1,98 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+class OperationMetricsTest {
+
+    // Threads post deposits, withdrawals and transfers through BankingEngine,
+    // every tenth naming an account that does not exist, plus account lookups;
+    // the counters read back over the platform MBean server must match what
+    // was sent
+    @Test
+    void countersOverJmxMatchTheCallsMade() throws InterruptedException, JMException {
+        assumeTrue(OperationMetrics.ENABLED, "metrics are turned off (-Dbank.metrics=false)");
+        int threadCount = 4;
+        int callsPerThread = 20_000;
+        OperationMetrics.registerMBeans();
+        int customerId = BankingEngine.registerCustomer("Metrics", "Customer", "metrics@email.com", "9800000000",
+            "Metrics Street", "METRICS", new Date(0), "Regular").getValue().getCustomerId();
+        String[] accountNumbers = new String[100];
+        for (int i = 0; i < accountNumbers.length; i++) {
+            accountNumbers[i] = BankingEngine.openAccount(customerId, "Savings", 1_000_000.00).getValue()
+                .getAccountNumber();
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        OperationMetrics.Timer[] timers = { OperationMetrics.DEPOSIT, OperationMetrics.WITHDRAW,
+            OperationMetrics.TRANSFER, OperationMetrics.FIND_ACCOUNT };
+        long[] callsBefore = new long[timers.length];
+        long[] failuresBefore = new long[timers.length];
+        for (int i = 0; i < timers.length; i++) {
+            callsBefore[i] = (Long) server.getAttribute(OperationMetrics.objectName(timers[i]), "Calls");
+            failuresBefore[i] = (Long) server.getAttribute(OperationMetrics.objectName(timers[i]), "Failures");
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < callsPerThread; i++) {
+                    String account = i % 10 == 9 ? "ACC0" : accountNumbers[random.nextInt(accountNumbers.length)];
+                    String target = accountNumbers[random.nextInt(accountNumbers.length)];
+                    BankingEngine.deposit(account, 1.00);
+                    BankingEngine.withdraw(account, 1.00);
+                    BankingEngine.transfer(account.equals(target) ? "ACC0" : account, target, 1.00);
+                    BankingEngine.findAccount(account);
+                }
+            }, "metrics-" + t);
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long calls = (long) threadCount * callsPerThread;
+        long missing = (long) threadCount * (callsPerThread / 10);
+        long[] sent = new long[timers.length];
+        long[] failed = new long[timers.length];
+        for (int i = 0; i < timers.length; i++) {
+            sent[i] = (Long) server.getAttribute(OperationMetrics.objectName(timers[i]), "Calls") - callsBefore[i];
+            failed[i] = (Long) server.getAttribute(OperationMetrics.objectName(timers[i]), "Failures")
+                - failuresBefore[i];
+        }
+        assertEquals(calls, sent[0], "deposits");
+        assertEquals(missing, failed[0], "failed deposits");
+        assertEquals(calls, sent[1], "withdrawals");
+        assertEquals(missing, failed[1], "failed withdrawals");
+        assertEquals(calls, sent[2], "transfers");
+        // Transfers also fail when source and target came out the same
+        long transferFailures = failed[2];
+        assertTrue(transferFailures >= missing, "failed transfers " + transferFailures);
+
+        // Lookups: one per deposit, withdrawal and loop pass, and two per transfer
+        // except the failed ones, which all stop at a missing source account.
+        // A pass naming no account misses four times, a pass that had to send
+        // its transfer from no account once.
+        assertEquals(calls * 5 - transferFailures, sent[3], "lookups");
+        assertEquals(missing * 3 + transferFailures, failed[3], "missed lookups");
+        assertTrue((Double) server.getAttribute(OperationMetrics.objectName(OperationMetrics.DEPOSIT), "P99Micros") > 0);
+    }
+}
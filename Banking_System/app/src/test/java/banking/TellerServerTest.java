@@ -0,0 +1,88 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import org.junit.jupiter.api.Test;
+
+class TellerServerTest {
+
+    // A customer renamed over the wire is found by the new name, and a
+    // statement for the month or the day range holds what was posted today
+    @Test
+    void customerUpdateAndStatements() {
+        String[] registered = send("REGISTER|Teller|Customer|teller@email.com|9800000000|Teller Street|TELLER"
+            + "|1990-01-01|Regular").split("\\|");
+        String customerId = registered[1];
+        String accountNumber = registered[2];
+
+        assertEquals("OK|" + customerId + "|Teller|Renamedcustomer|teller@email.com|9800000000|Regular",
+            send("CUSTOMER_UPDATE|" + customerId + "|last|Renamedcustomer"));
+        assertTrue(send("FIND|Renamedcustomer").startsWith("OK|1\n" + customerId + "|"));
+        assertEquals("OK|0", send("FIND|Teller Customer"));
+        assertTrue(send("CUSTOMER_UPDATE|" + customerId + "|type|Premium").endsWith("|Premium"));
+        assertTrue(send("CUSTOMER_UPDATE|" + customerId + "|nickname|Tel").startsWith("ERR|Unknown field"));
+
+        assertTrue(send("DEPOSIT|" + accountNumber + "|2500.00").startsWith("OK|"));
+        assertTrue(send("WITHDRAW|" + accountNumber + "|500.00").startsWith("OK|"));
+        LocalDate today = LocalDate.now();
+        String month = send("STATEMENT_MONTH|" + accountNumber + "|" + YearMonth.now());
+        assertTrue(month.startsWith("OK|2\n"), month);
+        assertTrue(month.endsWith("|2000.00"), month);
+        assertEquals(month, send("STATEMENT_RANGE|" + accountNumber + "|" + today + "|" + today));
+        assertEquals("OK|0", send("STATEMENT_RANGE|" + accountNumber + "|" + today.minusDays(9) + "|"
+            + today.minusDays(1)));
+        assertTrue(send("STATEMENT_RANGE|" + accountNumber + "|" + today + "|" + today.minusDays(1))
+            .startsWith("ERR|"));
+    }
+
+    // STATEMENT takes a row count of at least 1 and never returns more than
+    // the cap, however many rows are asked for
+    @Test
+    void statementRowCountIsChecked() {
+        String accountNumber = send("REGISTER|Statement|Customer|statement@email.com|9800000002|Statement Street"
+            + "|STATEMENT|1990-01-01|Regular").split("\\|")[2];
+        for (int i = 0; i < 3; i++) {
+            assertTrue(send("DEPOSIT|" + accountNumber + "|100.00").startsWith("OK|"));
+        }
+        assertTrue(send("STATEMENT|" + accountNumber + "|2").startsWith("OK|2\n"));
+        assertTrue(send("STATEMENT|" + accountNumber + "|" + Integer.MAX_VALUE).startsWith("OK|3\n"));
+        assertTrue(send("STATEMENT|" + accountNumber + "|0").startsWith("ERR|Invalid row count"));
+        assertTrue(send("STATEMENT|" + accountNumber + "|-5").startsWith("ERR|Invalid row count"));
+        assertTrue(send("STATEMENT|" + accountNumber + "|" + Integer.MIN_VALUE).startsWith("ERR|Invalid row count"));
+    }
+
+    // The interest run credits a month once, and the report commands answer
+    @Test
+    void interestRunAndReports() {
+        String accountNumber = send("REGISTER|Interest|Customer|interest@email.com|9800000001|Interest Street"
+            + "|INTEREST|1990-01-01|Regular").split("\\|")[2];
+        assertTrue(send("DEPOSIT|" + accountNumber + "|100000.00").startsWith("OK|"));
+
+        String[] first = send("INTEREST_RUN|" + YearMonth.now()).split("\\|");
+        assertEquals("OK", first[0]);
+        assertTrue(Integer.parseInt(first[1]) >= 1, "nothing credited");
+        String[] second = send("INTEREST_RUN|" + YearMonth.now()).split("\\|");
+        assertEquals("0", second[1]);
+        assertEquals(first[1], second[2]);
+        assertTrue(send("INTEREST_RUN|2024-13").startsWith("ERR|Invalid month"));
+
+        String customerId = send("ACCOUNT|" + accountNumber).split("\\|")[2];
+        String loanId = send("LOAN_APPLY|" + customerId + "|Personal|120000.00|24").split("\\|")[1];
+        assertTrue(send("LOAN_APPROVE|" + loanId).startsWith("OK|"));
+        assertTrue(send("LOAN_DISBURSE|" + loanId).startsWith("OK|"));
+        assertEquals("OK|1|120000.00|120000.00", send("LOAN_REPORT"));
+
+        String projection = send("PROJECTION|24");
+        assertTrue(projection.startsWith("OK|1\nPersonal|Regular|1|120000.00|"), projection);
+        assertTrue(send("PROJECTION|6").startsWith("ERR|Invalid horizon"));
+    }
+
+    private static String send(String line) {
+        StringBuilder reply = new StringBuilder();
+        TellerServer.handle(line, reply);
+        return reply.substring(0, reply.length() - 1);
+    }
+}
@@ -0,0 +1,180 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TransactionStoreTest {
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    // Two years of synthetic transactions, read in full, per account and by
+    // date range; then everything older than 90 days is moved to segment files
+    // and the same reads must give the same answers
+    @Test
+    void tieredPagesReadBackUnchanged(@TempDir Path directory) throws IOException {
+        int count = 1_000_000;
+        int accountCount = 20_000;
+        TransactionStore store = new TransactionStore();
+        fill(count, accountCount, 2 * 365 * DAY_MILLIS / count, store::append);
+        long cutoff = System.currentTimeMillis() - 90 * DAY_MILLIS;
+
+        long[] before = readEverything(store, accountCount, cutoff);
+        store.useTierDirectory(directory);
+        int moved = store.tierPagesBefore(cutoff);
+        assertTrue(moved > 0, "no page was old enough to move");
+        assertTrue(store.getColdPageCount() == moved);
+        assertArrayEquals(before, readEverything(store, accountCount, cutoff));
+    }
+
+    // A settlement file where every row carries its own reference: the
+    // dictionary stops growing, and the overflow reads back, is found by
+    // description, and survives its page moving to a segment file
+    @Test
+    void overflowDescriptionsAreKeptVerbatim(@TempDir Path directory) throws IOException {
+        int count = 200_000;
+        long start = System.currentTimeMillis() - 365 * DAY_MILLIS;
+        TransactionStore store = new TransactionStore();
+        for (int i = 0; i < count; i++) {
+            store.append(i + 1, "ACC" + (1000000000 + i % 1000), null, "Deposit", "Settlement ref " + i,
+                100, 100, start + i);
+        }
+        assertEquals(1 << 16, store.getDescriptionCodeCount());
+        long cutoff = System.currentTimeMillis() - 90 * DAY_MILLIS;
+        long[] before = readEverything(store, 1000, cutoff);
+
+        store.useTierDirectory(directory);
+        assertTrue(store.tierPagesBefore(cutoff) > 0);
+        assertArrayEquals(before, readEverything(store, 1000, cutoff));
+        for (int row : new int[] { 0, 65_535, 65_536, 150_001, count - 1 }) {
+            assertEquals("Settlement ref " + row, store.getDescription(row));
+        }
+        assertEquals(BitSet.valueOf(new long[] { 1L << 1 }),
+            store.accountsWithPosting("Deposit", "Settlement ref 150001", start));
+        assertTrue(store.accountsWithPosting("Interest", "Settlement ref 150001", start).isEmpty());
+    }
+
+    // A restart maps the segments the last run wrote and, as recovery appends
+    // the same rows again, keeps the ones they hold instead of adding them;
+    // reads then agree with the store that wrote the segments
+    @Test
+    void segmentsAreMappedAgainAfterARestart(@TempDir Path directory) throws IOException {
+        int count = 300_000;
+        int accountCount = 5_000;
+        TransactionStore written = new TransactionStore();
+        fill(count, accountCount, 2 * 365 * DAY_MILLIS / count, written::append);
+        long cutoff = System.currentTimeMillis() - 90 * DAY_MILLIS;
+        written.useTierDirectory(directory);
+        int moved = written.tierPagesBefore(cutoff);
+        assertTrue(moved > 0, "no page was old enough to move");
+        List<Transaction> history = new ArrayList<>(count);
+        written.forEach(history::add);
+
+        TransactionStore restarted = new TransactionStore();
+        assertEquals(moved, restarted.openSegments(directory));
+        history.forEach(restarted::append);
+        assertTrue(restarted.finishRecovery());
+        assertEquals(count, restarted.size());
+        assertEquals(moved, restarted.getColdPageCount());
+        assertArrayEquals(readEverything(written, accountCount, cutoff), readEverything(restarted, accountCount, cutoff));
+
+        // Tiering again leaves the mapped segments alone and moves nothing new
+        restarted.useTierDirectory(directory);
+        assertEquals(0, restarted.tierPagesBefore(cutoff));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(moved, files.count());
+        }
+    }
+
+    // Segments that do not hold what recovery supplies (a changed row, or a
+    // row the journal never had) are reported, so the caller can rebuild
+    @Test
+    void segmentsThatDisagreeWithRecoveryAreReported(@TempDir Path directory) throws IOException {
+        int count = 150_000;
+        TransactionStore written = new TransactionStore();
+        fill(count, 1_000, 2 * 365 * DAY_MILLIS / count, written::append);
+        written.useTierDirectory(directory);
+        assertTrue(written.tierPagesBefore(System.currentTimeMillis()) > 0);
+        List<Transaction> history = new ArrayList<>(count);
+        written.forEach(history::add);
+
+        TransactionStore changed = new TransactionStore();
+        changed.openSegments(directory);
+        Transaction original = history.get(1234);
+        Transaction altered = new Transaction(original.getTransactionId(), original.getAccountNumber(),
+            original.getTransactionType(), original.getAmount() + 1, original.getDescription(),
+            original.getBalanceAfter());
+        altered.setTransactionDate(original.getTransactionDate());
+        altered.setTargetAccount(original.getTargetAccount());
+        history.set(1234, altered);
+        history.forEach(changed::append);
+        assertFalse(changed.finishRecovery());
+
+        TransactionStore missingRow = new TransactionStore();
+        missingRow.openSegments(directory);
+        history.subList(1, count).forEach(missingRow::append);
+        assertFalse(missingRow.finishRecovery());
+    }
+
+    // Checksums of every row (materialized), of every 97th account's statement
+    // and of the rows in a window either side of the cutoff
+    static long[] readEverything(TransactionStore store, int accountCount, long cutoff) {
+        long[] scan = new long[1];
+        store.forEach(t -> scan[0] = scan[0] * 31 + t.getTransactionId() + Account.toPaise(t.getAmount())
+            + Account.toPaise(t.getBalanceAfter()) + t.getTransactionDate().getTime() + t.getDescription().hashCode()
+            + t.getTransactionType().hashCode() + t.getAccountNumber().hashCode()
+            + (t.getTargetAccount() == null ? 0 : t.getTargetAccount().hashCode()));
+        long statements = 0;
+        for (int i = 0; i < accountCount; i += 97) {
+            for (int row : store.rowsForAccount("ACC" + (1000000000 + i))) {
+                statements = statements * 31 + store.getTransactionId(row) + store.getBalanceAfterPaise(row);
+            }
+        }
+        long ranges = 0;
+        for (int row : store.rowsBetween(cutoff - 30 * DAY_MILLIS, cutoff + 30 * DAY_MILLIS)) {
+            ranges = ranges * 31 + store.getTransactionId(row) + store.getDescription(row).hashCode();
+        }
+        return new long[] { scan[0], statements, ranges };
+    }
+
+    // Synthetic transactions stepMillis apart, ending about now
+    private static void fill(int count, int accountCount, long stepMillis, Consumer<Transaction> sink) {
+        Random random = new Random(7);
+        long time = System.currentTimeMillis() - count * stepMillis;
+        for (int i = 0; i < count; i++) {
+            String accountNumber = "ACC" + (1000000000 + random.nextInt(accountCount));
+            double amount = (1 + random.nextInt(5000000)) / 100.0;
+            double balanceAfter = (1 + random.nextInt(100000000)) / 100.0;
+            Transaction transaction;
+            switch (i % 3) {
+                case 0:
+                    transaction = new Transaction(i + 1, accountNumber, "Deposit", amount, "Cash deposit", balanceAfter);
+                    break;
+                case 1:
+                    transaction = new Transaction(i + 1, accountNumber, "Withdrawal", amount, "Cash withdrawal", balanceAfter);
+                    break;
+                default:
+                    String target = "ACC" + (1000000000 + random.nextInt(accountCount));
+                    transaction = new Transaction(i + 1, accountNumber, "Transfer", amount, "Transfer to " + target, balanceAfter);
+                    transaction.setTargetAccount(target);
+            }
+            time += stepMillis;
+            transaction.setTransactionDate(new Date(time));
+            sink.accept(transaction);
+        }
+    }
+}
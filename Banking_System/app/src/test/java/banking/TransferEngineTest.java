@@ -0,0 +1,139 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TransferEngineTest {
+
+    // NaN, infinities and amounts of MAX_AMOUNT or more never reach an account,
+    // whichever operation carries them; nothing is posted and the balances stay
+    @Test
+    void outOfRangeAmountsAreRefused() {
+        int customerId = BankingEngine.registerCustomer("Range", "Customer", "range@email.com", "9800000000",
+            "Range Street", "RANGE", new Date(0), "Regular").getValue().getCustomerId();
+        String first = BankingEngine.openAccount(customerId, "Savings", 1_000.00).getValue().getAccountNumber();
+        String second = BankingEngine.openAccount(customerId, "Current", 0).getValue().getAccountNumber();
+        TransactionStore store = BankingManagementSystem.getTransactionStore();
+        int rowsBefore = store.size();
+        for (double amount : new double[] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1e300,
+                BankingEngine.MAX_AMOUNT }) {
+            assertThrows(IllegalArgumentException.class, () -> BankingEngine.deposit(first, amount));
+            assertThrows(IllegalArgumentException.class, () -> BankingEngine.withdraw(first, amount));
+            assertThrows(IllegalArgumentException.class, () -> BankingEngine.transfer(first, second, amount));
+            assertThrows(IllegalArgumentException.class, () -> BankingEngine.deposit("range-key", first, amount));
+            assertThrows(IllegalArgumentException.class, () -> BankingEngine.openAccount(customerId, "Savings", amount));
+            assertThrows(IllegalArgumentException.class,
+                () -> BankingEngine.applyForLoan(customerId, "Personal", amount, 12));
+        }
+        assertEquals(Account.toPaise(1_000.00), BankingEngine.findAccount(first).get().getBalancePaise());
+        assertEquals(0, BankingEngine.findAccount(second).get().getBalancePaise());
+        assertEquals(2, BankingManagementSystem.findAccountsByCustomer(customerId).size());
+        assertEquals(rowsBefore, store.size());
+        assertTrue(BankingEngine.deposit("range-key", first, 1.00).isSuccess());
+    }
+
+    // Random transfers, plus matched withdraw/deposit pairs, between a shared
+    // set of accounts from several threads: no money may be created or lost
+    @Test
+    void concurrentTransfersConserveMoney() throws InterruptedException {
+        int threadCount = 8;
+        int accountCount = 100;
+        int transfersPerThread = 50_000;
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < accountCount; i++) {
+            accounts.add(new Account("STRESS" + (1000000 + i), 0, "Current", 10000.00, 0.0));
+        }
+        long expectedTotal = totalBalancePaise(accounts);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            long seed = 42L + t;
+            Thread worker = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < transfersPerThread; i++) {
+                    Account source = accounts.get(random.nextInt(accountCount));
+                    Account target = accounts.get(random.nextInt(accountCount));
+                    double amount = (1 + random.nextInt(50000)) / 100.0;
+                    if ((i & 1) == 0) {
+                        TransferEngine.transfer(source, target, amount);
+                    } else if (source.withdraw(amount)) {
+                        target.deposit(amount);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(expectedTotal, totalBalancePaise(accounts));
+    }
+
+    // Deposits, withdrawals and transfers in both directions race with closing
+    // the account: nothing lands once it is closed, and a transfer the closed
+    // account refused leaves its source whole
+    @Test
+    void nothingIsPostedToAClosedAccount() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            Account closing = new Account("CLOSE" + round, 0, "Savings", 0.0, 0.0);
+            Account other = new Account("OTHER" + round, 0, "Savings", 10000.00, 0.0);
+            AtomicLong depositedNet = new AtomicLong();
+            Thread depositor = new Thread(() -> {
+                while (!"Closed".equals(closing.getStatus())) {
+                    if (closing.depositPaise(100) != Account.REJECTED) {
+                        depositedNet.addAndGet(100);
+                        if (closing.withdrawPaise(100) != Account.REJECTED) {
+                            depositedNet.addAndGet(-100);
+                        }
+                    }
+                }
+            });
+            Thread transferrer = new Thread(() -> {
+                while (!"Closed".equals(closing.getStatus())) {
+                    TransferEngine.postTransfer(other, closing, 1.00);
+                    TransferEngine.postTransfer(closing, other, 1.00);
+                }
+            });
+            depositor.start();
+            transferrer.start();
+            while (!TransferEngine.close(closing)) {
+                Thread.onSpinWait();
+            }
+            depositor.join();
+            transferrer.join();
+
+            assertEquals("Closed", closing.getStatus());
+            assertEquals(0, closing.getBalancePaise());
+            assertEquals(Account.REJECTED, closing.depositPaise(100));
+            assertFalse(closing.closeIfEmpty());
+            assertEquals(Account.toPaise(10000.00) + depositedNet.get(), other.getBalancePaise());
+        }
+    }
+
+    private static long totalBalancePaise(List<Account> accounts) {
+        long total = 0;
+        for (Account account : accounts) {
+            total += account.getBalancePaise();
+        }
+        return total;
+    }
+}
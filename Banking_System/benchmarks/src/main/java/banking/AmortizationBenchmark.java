@@ -0,0 +1,75 @@
+package banking;
+
+import java.util.concurrent.ForkJoinPool;
+
+// EMIs for the given number of loans with Math.pow on every call and through
+// AmortizationEngine's factor cache, full schedules for all of them, then a
+// rate change for one loan type and the parallel rebuild it triggers. Every
+// schedule is checked to repay exactly the loan amount; exits with 1 if one
+// does not.
+//
+//     java -cp benchmarks/target/benchmarks.jar banking.AmortizationBenchmark [loans]
+public class AmortizationBenchmark {
+    public static void main(String[] args) {
+        int loanCount = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        String[] types = { "Personal", "Home", "Auto", "Business", "Education" };
+        int[] terms = { 36, 240, 60, 84, 120 };
+        Loan[] loans = new Loan[loanCount];
+        for (int i = 0; i < loanCount; i++) {
+            int type = i % types.length;
+            loans[i] = new Loan(i + 1, 0, types[type], 50_000 + (i % 1000) * 1_000.50,
+                BankingManagementSystem.determineInterestRate(types[type]), terms[type] + (i / 5 % 3) * 12);
+        }
+        System.out.printf("Amortization over %,d loans on %d worker threads%n",
+            loanCount, ForkJoinPool.commonPool().getParallelism());
+
+        long start = System.nanoTime();
+        double powTotal = 0;
+        for (Loan loan : loans) {
+            double monthlyRate = loan.getInterestRate() / 12 / 100;
+            powTotal += (loan.getLoanAmount() * monthlyRate * Math.pow(1 + monthlyRate, loan.getTermMonths()))
+                / (Math.pow(1 + monthlyRate, loan.getTermMonths()) - 1);
+        }
+        long powNanos = System.nanoTime() - start;
+        long hitsBefore = AmortizationEngine.getFactorHits();
+        long missesBefore = AmortizationEngine.getFactorMisses();
+        start = System.nanoTime();
+        double cachedTotal = 0;
+        for (Loan loan : loans) {
+            cachedTotal += loan.calculateMonthlyPayment();
+        }
+        long cachedNanos = System.nanoTime() - start;
+        long hits = AmortizationEngine.getFactorHits() - hitsBefore;
+        long misses = AmortizationEngine.getFactorMisses() - missesBefore;
+        System.out.printf("EMI with Math.pow: %d ms, from cached factors: %d ms (hit rate %.4f%%, %d misses)%n",
+            powNanos / 1_000_000, cachedNanos / 1_000_000, 100.0 * hits / Math.max(1, hits + misses), misses);
+
+        start = System.nanoTime();
+        int built = AmortizationEngine.buildAll(loans);
+        System.out.printf("Built %,d schedules in %d ms%n", built, (System.nanoTime() - start) / 1_000_000);
+
+        String repriced = types[0];
+        double newRate = BankingManagementSystem.determineInterestRate(repriced) + 0.25;
+        for (Loan loan : loans) {
+            if (repriced.equals(loan.getLoanType())) {
+                loan.setInterestRate(newRate);
+            }
+        }
+        start = System.nanoTime();
+        int rebuilt = AmortizationEngine.recompute(loans);
+        System.out.printf("Repriced %s loans to %.2f%%: rebuilt %,d schedules in %d ms%n",
+            repriced, newRate, rebuilt, (System.nanoTime() - start) / 1_000_000);
+
+        boolean ok = Math.abs(powTotal - cachedTotal) <= 1e-6 * Math.abs(powTotal);
+        for (Loan loan : loans) {
+            AmortizationEngine.Schedule schedule = AmortizationEngine.scheduleFor(loan);
+            long repaid = 0;
+            for (int month = 1; month <= schedule.getMonths(); month++) {
+                repaid += schedule.getPrincipalPaise(month);
+            }
+            ok &= repaid == Account.toPaise(loan.getLoanAmount()) && schedule.getBalancePaise(schedule.getMonths()) == 0;
+        }
+        System.out.println(ok ? "EMIs agree and every schedule repays its loan | OK" : "Schedule check failed | MISMATCH");
+        System.exit(ok ? 0 : 1);
+    }
+}
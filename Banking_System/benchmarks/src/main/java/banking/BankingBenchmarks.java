@@ -0,0 +1,270 @@
+package banking;
+
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Hot paths of the banking engine, each run against a bank of the given size.
+// Every parameter value gets its own fork, so the static bank state is built
+// once per fork by the seeded DataGenerator; the journal is never opened, so
+// nothing touches the disk.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx16g" })
+public class BankingBenchmarks {
+    private static final long SEED = 42L;
+    private static final int HISTORY_PER_ACCOUNT = 2;
+    private static final int LISTING_PAGE = 100;
+
+    private static final String[] LAST_NAMES = { "Sharma", "Patel", "Kumar", "Iyer", "Reddy", "Singh", "Nair" };
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({ "1000", "100000", "1000000", "10000000" })
+        public int accounts;
+
+        Account[] table;
+        String[] accountNumbers;
+        Customer[] customers;
+        Loan[] loans;
+
+        // Customers hold two accounts on average, so the bank ends up with about this many accounts
+        @Setup(Level.Trial)
+        public void populate() {
+            DataGenerator.Result generated = DataGenerator.generate(SEED, Math.max(1, accounts / 2), HISTORY_PER_ACCOUNT);
+            customers = generated.getCustomers();
+            table = generated.getAccounts();
+            loans = generated.getLoans();
+            accountNumbers = new String[table.length];
+            for (int i = 0; i < table.length; i++) {
+                accountNumbers[i] = table[i].getAccountNumber();
+            }
+        }
+
+        Account randomAccount() {
+            return table[ThreadLocalRandom.current().nextInt(table.length)];
+        }
+    }
+
+    // Each iteration starts from an empty transaction store so posting
+    // benchmarks do not grow the heap without bound
+    @State(Scope.Benchmark)
+    public static class Postings {
+        private YearMonth period = YearMonth.of(2000, 1);
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            BankingManagementSystem.resetTransactionStore();
+            period = period.plusMonths(1);
+        }
+    }
+
+    // Request keys for the keyed deposit benchmarks: a counter for new keys, and
+    // a pool of keys already used once, each with the account it was used for
+    @State(Scope.Benchmark)
+    public static class RequestKeys {
+        private static final int POOL = 1024;
+
+        final AtomicLong next = new AtomicLong();
+        final String[] used = new String[POOL];
+        final String[] usedAccounts = new String[POOL];
+
+        @Setup(Level.Trial)
+        public void populate(Bank bank) {
+            for (int i = 0; i < POOL; i++) {
+                used[i] = "repeat-" + i;
+                usedAccounts[i] = bank.accountNumbers[i % bank.accountNumbers.length];
+                BankingEngine.deposit(used[i], usedAccounts[i], 1.00);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean findAccountByNumber(Bank bank) {
+        String accountNumber = bank.accountNumbers[ThreadLocalRandom.current().nextInt(bank.accountNumbers.length)];
+        return BankingManagementSystem.findAccountByNumber(accountNumber).isPresent();
+    }
+
+    @Benchmark
+    public boolean accountTransfer(Bank bank) {
+        return bank.randomAccount().transfer(bank.randomAccount(), 1.00);
+    }
+
+    @Benchmark
+    public Object engineTransfer(Bank bank, Postings postings) {
+        Account source = bank.randomAccount();
+        Account target = bank.randomAccount();
+        return source == target ? null : TransferEngine.transfer(source, target, 1.00);
+    }
+
+    @Benchmark
+    public Object engineDeposit(Bank bank, Postings postings) {
+        String accountNumber = bank.accountNumbers[ThreadLocalRandom.current().nextInt(bank.accountNumbers.length)];
+        return BankingEngine.deposit(accountNumber, 1.00);
+    }
+
+    // The same deposit under a request key never seen before, built per call as a client would
+    @Benchmark
+    public Object engineDepositWithNewKey(Bank bank, Postings postings, RequestKeys keys) {
+        String accountNumber = bank.accountNumbers[ThreadLocalRandom.current().nextInt(bank.accountNumbers.length)];
+        return BankingEngine.deposit("bench-" + keys.next.incrementAndGet(), accountNumber, 1.00);
+    }
+
+    // A retry: the key is known, so the first result comes back and nothing is posted
+    @Benchmark
+    public Object engineDepositWithRepeatedKey(RequestKeys keys) {
+        int i = ThreadLocalRandom.current().nextInt(RequestKeys.POOL);
+        return BankingEngine.deposit(keys.used[i], keys.usedAccounts[i], 1.00);
+    }
+
+    // One full month-end run per invocation, each for a new period
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int applyMonthlyInterest(Bank bank, Postings postings) {
+        return InterestEngine.run(bank.table, postings.period).getCredited();
+    }
+
+    // The statistics screen as it used to be: full stream passes over every list
+    @Benchmark
+    public Object statisticsByFullScan(Bank bank) {
+        double totalDeposits = Arrays.stream(bank.table).mapToDouble(Account::getBalance).sum();
+        long activeLoans = Arrays.stream(bank.loans).filter(loan -> "Active".equals(loan.getStatus())).count();
+        double totalLoanAmount = Arrays.stream(bank.loans).mapToDouble(Loan::getLoanAmount).sum();
+        Map<String, Long> accountsByType = Arrays.stream(bank.table)
+            .collect(Collectors.groupingBy(Account::getAccountType, Collectors.counting()));
+        Map<String, Long> customersByType = Arrays.stream(bank.customers)
+            .collect(Collectors.groupingBy(Customer::getCustomerType, Collectors.counting()));
+        return new Object[] { totalDeposits, activeLoans, totalLoanAmount, accountsByType, customersByType };
+    }
+
+    // The statistics screen as it is now: reads of incrementally maintained counters
+    @Benchmark
+    public Object statisticsFromCounters(Bank bank) {
+        return new Object[] { BankStatistics.getTotalDepositsPaise(), BankStatistics.getActiveLoans(),
+            BankStatistics.getTotalLoanAmountPaise(), BankStatistics.getAccountsByType(),
+            BankStatistics.getCustomersByType(), BankStatistics.getRecentTransactions() };
+    }
+
+    // Name search as it used to be: lowercase every full name and test contains
+    @Benchmark
+    public int searchCustomersByFullScan(Bank bank) {
+        String query = ("a " + LAST_NAMES[ThreadLocalRandom.current().nextInt(LAST_NAMES.length)]).toLowerCase();
+        return (int) Arrays.stream(bank.customers).filter(c -> c.getFullName().toLowerCase().contains(query)).count();
+    }
+
+    @Benchmark
+    public int searchCustomersByName(Bank bank) {
+        String last = LAST_NAMES[ThreadLocalRandom.current().nextInt(LAST_NAMES.length)];
+        return BankingManagementSystem.findCustomersByName("a " + last).size();
+    }
+
+    // A call-center lookup: one screenful of matches
+    @Benchmark
+    public int searchCustomersByNameLimited(Bank bank) {
+        String last = LAST_NAMES[ThreadLocalRandom.current().nextInt(LAST_NAMES.length)];
+        return BankingManagementSystem.findCustomersByName("a " + last, 20).size();
+    }
+
+    @Benchmark
+    public int accountStatement(Bank bank) {
+        String accountNumber = bank.accountNumbers[ThreadLocalRandom.current().nextInt(bank.accountNumbers.length)];
+        return BankingManagementSystem.getAccountLedger(accountNumber).size();
+    }
+
+    // EMI as it used to be computed: two Math.pow calls per loan
+    @Benchmark
+    public double loanMonthlyPaymentByPow(Bank bank) {
+        Loan loan = bank.loans[ThreadLocalRandom.current().nextInt(bank.loans.length)];
+        double monthlyRate = loan.getInterestRate() / 12 / 100;
+        return (loan.getLoanAmount() * monthlyRate * Math.pow(1 + monthlyRate, loan.getTermMonths()))
+            / (Math.pow(1 + monthlyRate, loan.getTermMonths()) - 1);
+    }
+
+    @Benchmark
+    public double loanMonthlyPayment(Bank bank) {
+        return bank.loans[ThreadLocalRandom.current().nextInt(bank.loans.length)].calculateMonthlyPayment();
+    }
+
+    // A page of the account listing as it used to be rendered: a DecimalFormat
+    // and a SimpleDateFormat plus String.format for every row
+    @Benchmark
+    public int renderAccountsByFormatter(Bank bank) {
+        int length = 0;
+        int first = ThreadLocalRandom.current().nextInt(Math.max(1, bank.table.length - LISTING_PAGE));
+        for (int i = first; i < Math.min(bank.table.length, first + LISTING_PAGE); i++) {
+            Account account = bank.table[i];
+            DecimalFormat df = new DecimalFormat("#,##0.00");
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+            length += String.format("Account: %-12s Type: %-10s Balance: ₹%-12s Status: %-8s",
+                account.getAccountNumber(), account.getAccountType(), df.format(account.getBalance()),
+                account.getStatus()).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int renderAccounts(Bank bank) {
+        EntityRenderer renderer = EntityRenderer.get();
+        int first = ThreadLocalRandom.current().nextInt(Math.max(1, bank.table.length - LISTING_PAGE));
+        int end = Math.min(bank.table.length, first + LISTING_PAGE);
+        for (int i = first; i < end; i++) {
+            renderer.account(bank.table[i]).newLine();
+        }
+        renderer.discard();
+        return end - first;
+    }
+
+    // An account statement as it used to be rendered: Transaction objects built
+    // from the store, each formatted with fresh formatters
+    @Benchmark
+    public int renderStatementByFormatter(Bank bank) {
+        String accountNumber = bank.accountNumbers[ThreadLocalRandom.current().nextInt(bank.accountNumbers.length)];
+        int length = 0;
+        for (Transaction transaction : BankingManagementSystem.getAccountLedger(accountNumber)) {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            DecimalFormat df = new DecimalFormat("#,##0.00");
+            String targetInfo = transaction.getTargetAccount() != null ? " to " + transaction.getTargetAccount() : "";
+            length += String.format("TX%d | %s | %-10s | ₹%-10s | %s%s | Balance: ₹%s",
+                transaction.getTransactionId(), sdf.format(transaction.getTransactionDate()),
+                transaction.getTransactionType(), df.format(transaction.getAmount()), transaction.getDescription(),
+                targetInfo, df.format(transaction.getBalanceAfter())).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int renderStatement(Bank bank) {
+        String accountNumber = bank.accountNumbers[ThreadLocalRandom.current().nextInt(bank.accountNumbers.length)];
+        TransactionStore store = BankingManagementSystem.getTransactionStore();
+        EntityRenderer renderer = EntityRenderer.get();
+        int[] rows = store.rowsForAccount(accountNumber);
+        for (int row : rows) {
+            renderer.transaction(store, row).newLine();
+        }
+        renderer.discard();
+        return rows.length;
+    }
+}
@@ -0,0 +1,23 @@
+package banking;
+
+// Builds a seeded synthetic bank in parallel with DataGenerator (the same one
+// the JMH benchmarks start from), prints its size and the heap it takes, then
+// compares the live statistics with a full recomputation; exits with 1 if they
+// differ.
+//
+//     java -cp benchmarks/target/benchmarks.jar banking.GenerateData [customers seed history]
+public class GenerateData {
+    public static void main(String[] args) {
+        int customerCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        int historyPerAccount = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        DataGenerator.Result result = DataGenerator.generate(seed, customerCount, historyPerAccount);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.out.printf("Generated %,d customers, %,d accounts, %,d loans and %,d transactions in %d ms "
+            + "(seed %d, heap in use %,d MB)%n", result.getCustomers().length, result.getAccounts().length,
+            result.getLoans().length, result.getTransactions(), result.getElapsedMillis(), seed,
+            (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+        System.exit(BankingManagementSystem.checkStatistics() ? 0 : 1);
+    }
+}
@@ -0,0 +1,33 @@
+package banking;
+
+import java.time.YearMonth;
+import java.util.concurrent.ForkJoinPool;
+
+// Credits interest to the given number of in-memory savings accounts
+// (journaling off), then repeats the run to check that it is a no-op; exits
+// with 1 if the repeat posted anything.
+//
+//     java -cp benchmarks/target/benchmarks.jar banking.InterestRunBenchmark [accounts]
+public class InterestRunBenchmark {
+    public static void main(String[] args) {
+        int accountCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        Account[] table = new Account[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            table[i] = new Account("INT" + (1000000000L + i), 0, i % 5 == 0 ? "Current" : "Savings",
+                1000 + i % 100000, 3.5 + (i % 4) * 0.25);
+        }
+        YearMonth period = YearMonth.now();
+        System.out.printf("Interest run over %,d accounts on %d worker threads%n",
+            accountCount, ForkJoinPool.commonPool().getParallelism());
+
+        InterestEngine.Result first = InterestEngine.run(table, period);
+        System.out.printf("First run:  %,d accounts credited (%,d paise) in %d ms%n",
+            first.getCredited(), first.getCreditedPaise(), first.getElapsedMillis());
+        InterestEngine.Result second = InterestEngine.run(table, period);
+        System.out.printf("Second run: %,d accounts credited, %,d already credited, in %d ms%n",
+            second.getCredited(), second.getAlreadyCredited(), second.getElapsedMillis());
+        boolean idempotent = second.getCredited() == 0 && second.getAlreadyCredited() == first.getCredited();
+        System.out.println(idempotent ? "Repeated run was a no-op | OK" : "Repeated run posted interest | MISMATCH");
+        System.exit(idempotent ? 0 : 1);
+    }
+}
@@ -0,0 +1,207 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Synthetic load against BankingEngine: N threads run a weighted mix of
+// operations for a fixed time, then throughput and latency percentiles are
+// printed per operation. Runs against the in-memory bank with journaling off.
+//
+// The mix is given as name=weight pairs, e.g.
+//     deposit=40,withdraw=25,transfer=30,open=2,register=1,loan=1,payment=1
+// where loan means apply and approve, and payment pays on a seeded active loan.
+//
+//     java -cp benchmarks/target/benchmarks.jar banking.LoadDriver [threads seconds accounts mix]
+public class LoadDriver {
+    static final String DEFAULT_MIX = "deposit=40,withdraw=25,transfer=30,open=2,register=1,loan=1,payment=1";
+
+    private static final String[] OPERATIONS = { "deposit", "withdraw", "transfer", "open", "register", "loan", "payment" };
+
+    private final int threadCount;
+    private final long durationNanos;
+    private final int[] cumulativeWeights = new int[OPERATIONS.length];
+    private final int totalWeight;
+
+    private final List<String> accountNumbers = new ArrayList<>();
+    private final List<Integer> customerIds = new ArrayList<>();
+    private final List<Integer> activeLoanIds = new ArrayList<>();
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int accountCount = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        LoadDriver driver = new LoadDriver(threads, seconds, args.length > 3 ? args[3] : DEFAULT_MIX);
+        driver.seed(accountCount);
+        System.out.println("Load test: " + threads + " threads for " + seconds + " s over "
+            + accountCount + " seeded accounts (journaling off)");
+        driver.run();
+    }
+
+    public LoadDriver(int threadCount, int seconds, String mix) {
+        this.threadCount = threadCount;
+        this.durationNanos = seconds * 1_000_000_000L;
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected name=weight in mix: " + entry);
+            }
+            weights.put(pair[0].trim().toLowerCase(), Integer.parseInt(pair[1].trim()));
+        }
+        int total = 0;
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            total += weights.getOrDefault(OPERATIONS[i], 0);
+            cumulativeWeights[i] = total;
+            weights.remove(OPERATIONS[i]);
+        }
+        if (!weights.isEmpty()) {
+            throw new IllegalArgumentException("Unknown operations in mix: " + weights.keySet());
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Mix has no operations");
+        }
+        this.totalWeight = total;
+    }
+
+    // Seeds customers, funded accounts and active loans for the mix to work on
+    public void seed(int accountCount) {
+        for (int i = 0; i < Math.max(1, accountCount / 2); i++) {
+            Customer customer = BankingEngine.registerCustomer("Load", "Customer" + i, "load" + i + "@email.com",
+                "9800000000", "Load Test Street", "LOAD" + i, new Date(0), "Regular").getValue();
+            customerIds.add(customer.getCustomerId());
+        }
+        for (int i = 0; i < accountCount; i++) {
+            Account account = BankingEngine.openAccount(customerIds.get(i % customerIds.size()),
+                i % 3 == 0 ? "Current" : "Savings", 1_000_000.00).getValue();
+            accountNumbers.add(account.getAccountNumber());
+        }
+        for (int i = 0; i < Math.max(1, accountCount / 10); i++) {
+            Loan loan = BankingEngine.applyForLoan(customerIds.get(i % customerIds.size()), "Personal",
+                10_000_000.00, 240).getValue();
+            BankingEngine.approveLoan(loan.getLoanId());
+            BankingEngine.disburseLoan(loan.getLoanId());
+            activeLoanIds.add(loan.getLoanId());
+        }
+    }
+
+    public void run() throws InterruptedException {
+        int opCount = OPERATIONS.length;
+        LatencyHistogram[][] histograms = new LatencyHistogram[threadCount][opCount];
+        long[][] failures = new long[threadCount][opCount];
+        AtomicLong elapsed = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            LatencyHistogram[] mine = histograms[t];
+            long[] myFailures = failures[t];
+            for (int op = 0; op < opCount; op++) {
+                mine[op] = new LatencyHistogram();
+            }
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long begin = System.nanoTime();
+                long deadline = begin + durationNanos;
+                long now = begin;
+                while (now < deadline) {
+                    int op = pickOperation(random.nextInt(totalWeight));
+                    boolean ok = execute(op, random);
+                    long end = System.nanoTime();
+                    mine[op].record(end - now);
+                    if (!ok) {
+                        myFailures[op]++;
+                    }
+                    now = end;
+                }
+                elapsed.accumulateAndGet(now - begin, Math::max);
+            }, "load-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        double seconds = elapsed.get() / 1_000_000_000.0;
+        LatencyHistogram all = new LatencyHistogram();
+        long allFailures = 0;
+        System.out.printf("%-10s %12s %12s %10s %10s %10s %10s %10s%n",
+            "Operation", "Count", "Ops/sec", "Failed", "p50 (us)", "p99 (us)", "p999 (us)", "max (us)");
+        for (int op = 0; op < opCount; op++) {
+            LatencyHistogram merged = new LatencyHistogram();
+            long failed = 0;
+            for (int t = 0; t < threadCount; t++) {
+                merged.merge(histograms[t][op]);
+                failed += failures[t][op];
+            }
+            if (merged.getCount() > 0) {
+                printRow(OPERATIONS[op], merged, failed, seconds);
+            }
+            all.merge(merged);
+            allFailures += failed;
+        }
+        printRow("total", all, allFailures, seconds);
+    }
+
+    static void printRow(String name, LatencyHistogram histogram, long failed, double seconds) {
+        System.out.printf("%-10s %,12d %,12.0f %10d %10.1f %10.1f %10.1f %10.1f%n", name, histogram.getCount(),
+            histogram.getCount() / seconds, failed, histogram.percentile(50) / 1000.0,
+            histogram.percentile(99) / 1000.0, histogram.percentile(99.9) / 1000.0, histogram.getMax() / 1000.0);
+    }
+
+    private int pickOperation(int roll) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    // Seeded lists are only read once the run starts, so workers share them without locking
+    private boolean execute(int op, ThreadLocalRandom random) {
+        double amount = (1 + random.nextInt(100000)) / 100.0;
+        switch (OPERATIONS[op]) {
+            case "deposit":
+                return BankingEngine.deposit(randomAccount(random), amount).isSuccess();
+            case "withdraw":
+                return BankingEngine.withdraw(randomAccount(random), amount).isSuccess();
+            case "transfer":
+                return BankingEngine.transfer(randomAccount(random), randomAccount(random), amount).isSuccess();
+            case "open":
+                return BankingEngine.openAccount(randomCustomer(random), "Savings", amount).isSuccess();
+            case "register":
+                return BankingEngine.registerCustomer("Load", "Customer", "load@email.com", "9800000000",
+                    "Load Test Street", "LOAD", new Date(0), "Regular").isSuccess();
+            case "loan": {
+                BankingEngine.OperationResult<Loan> applied =
+                    BankingEngine.applyForLoan(randomCustomer(random), "Home", amount * 100, 120);
+                return applied.isSuccess() && BankingEngine.approveLoan(applied.getValue().getLoanId()).isSuccess();
+            }
+            default:
+                return BankingEngine.makeLoanPayment(activeLoanIds.get(random.nextInt(activeLoanIds.size())),
+                    amount).isSuccess();
+        }
+    }
+
+    private String randomAccount(ThreadLocalRandom random) {
+        return accountNumbers.get(random.nextInt(accountNumbers.size()));
+    }
+
+    private int randomCustomer(ThreadLocalRandom random) {
+        return customerIds.get(random.nextInt(customerIds.size()));
+    }
+}
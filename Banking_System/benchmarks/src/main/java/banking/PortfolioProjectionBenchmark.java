@@ -0,0 +1,69 @@
+package banking;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Projects the active loans of a seeded synthetic bank in parallel, checks the
+// figures against a month-by-month run of every loan, then streams payments
+// through BankingEngine and checks the live projection against a full
+// recomputation; exits with 1 if either check fails.
+//
+//     java -cp benchmarks/target/benchmarks.jar banking.PortfolioProjectionBenchmark [customers months]
+public class PortfolioProjectionBenchmark {
+    public static void main(String[] args) {
+        int customerCount = args.length > 0 ? Integer.parseInt(args[0]) : 4000000;
+        int horizon = args.length > 1 ? Integer.parseInt(args[1]) : PortfolioProjection.MAX_HORIZON;
+        DataGenerator.generate(42L, customerCount, 0);
+        Loan[] loans = BankingManagementSystem.getLoanTable();
+        System.out.printf("Projecting %,d loans over %d months on %d worker threads%n",
+            loans.length, horizon, ForkJoinPool.commonPool().getParallelism());
+
+        PortfolioProjection.Projection projection = null;
+        for (int run = 1; run <= 3; run++) {
+            long start = System.nanoTime();
+            projection = PortfolioProjection.compute(loans, horizon);
+            System.out.printf("Parallel projection, run %d: %,d active loans in %d ms%n",
+                run, projection.getTotal().getLoans(), (System.nanoTime() - start) / 1_000_000);
+        }
+
+        long start = System.nanoTime();
+        double[] simulated = new double[horizon];
+        for (Loan loan : loans) {
+            if ("Active".equals(loan.getStatus())) {
+                simulate(loan, simulated);
+            }
+        }
+        System.out.printf("Month-by-month simulation (one thread): %d ms%n", (System.nanoTime() - start) / 1_000_000);
+        boolean ok = true;
+        for (int month = 1; month <= horizon; month++) {
+            ok &= Math.abs(simulated[month - 1] - projection.getTotal().getOutstanding(month))
+                <= 1 + 1e-8 * simulated[month - 1];
+        }
+        System.out.println(ok ? "Projection matches the simulation | OK" : "Projection differs from the simulation | MISMATCH");
+
+        int paid = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < loans.length && paid < 10000; i += 7) {
+            Loan loan = loans[i];
+            if ("Active".equals(loan.getStatus())) {
+                double payment = i % 3 == 0 ? loan.getRemainingBalance() : Math.min(loan.getRemainingBalance(), 1000);
+                if (BankingEngine.makeLoanPayment(loan.getLoanId(), payment).isSuccess()) {
+                    paid++;
+                }
+            }
+        }
+        System.out.printf("Streamed %,d payments in %d ms%n", paid, (System.nanoTime() - start) / 1_000_000);
+        System.exit(PortfolioProjection.check(loans) && ok ? 0 : 1);
+    }
+
+    // Outstanding balance after each month of one loan, added into the array
+    private static void simulate(Loan loan, double[] outstanding) {
+        double rate = loan.getInterestRate() / 12 / 100;
+        double emi = loan.calculateMonthlyPayment();
+        double balance = loan.getRemainingBalance();
+        for (int month = 0; month < outstanding.length && balance > 0; month++) {
+            double due = balance * (1 + rate);
+            balance = due - Math.min(emi, due);
+            outstanding[month] += balance;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+
+// Startup benchmark: journals the given number of account openings, then
+// compares restarting by full journal replay against snapshot load + tail.
+//
+//     java -cp benchmarks/target/benchmarks.jar banking.SnapshotStartupBenchmark [accounts]
+public class SnapshotStartupBenchmark {
+    public static void main(String[] args) throws IOException {
+        run(args.length > 0 ? Integer.parseInt(args[0]) : 10000000);
+    }
+
+    static void run(int accountCount) throws IOException {
+        Path dir = Files.createTempDirectory("bank-snapshot-bench");
+        Path journalBase = dir.resolve("bank.journal");
+        Path snapshotPath = dir.resolve("bank.snapshot");
+        try {
+            long start = System.nanoTime();
+            TransactionJournal journal = TransactionJournal.open(journalBase);
+            CompletableFuture<Void> last = null;
+            for (int i = 0; i < accountCount; i++) {
+                Account account = new Account("ACC" + (1000000000L + i), 1001 + i / 2,
+                    i % 4 == 0 ? "Current" : "Savings", 1000 + i % 50000, i % 4 == 0 ? 0.0 : 3.5);
+                last = journal.append(TransactionJournal.ACCOUNT, out -> EntityCodec.writeAccount(out, account));
+            }
+            if (last != null) {
+                last.join();
+            }
+            long sealedBefore = journal.rotate().join();
+            System.out.printf("Journaled %,d account openings in %d ms (%,d bytes)%n", accountCount,
+                (System.nanoTime() - start) / 1_000_000, Files.size(TransactionJournal.segmentPath(journalBase, 1)));
+
+            start = System.nanoTime();
+            BankSnapshot replayed = new BankSnapshot(null);
+            TransactionJournal.replay(journalBase, 1, replayed::apply);
+            System.out.printf("Startup by full journal replay: %d ms (%,d accounts)%n",
+                (System.nanoTime() - start) / 1_000_000, replayed.accounts.size());
+            replayed = null;
+
+            start = System.nanoTime();
+            BankSnapshot.compact(snapshotPath, journalBase, sealedBefore);
+            TransactionJournal.deleteSegmentsBefore(journalBase, sealedBefore);
+            System.out.printf("Snapshot written in %d ms (%,d bytes)%n",
+                (System.nanoTime() - start) / 1_000_000, Files.size(snapshotPath));
+            journal.close();
+
+            start = System.nanoTime();
+            BankSnapshot loaded = new SnapshotManager(snapshotPath, journalBase).recover(null);
+            System.out.printf("Startup from snapshot + journal tail: %d ms (%,d accounts)%n",
+                (System.nanoTime() - start) / 1_000_000, loaded.accounts.size());
+        } finally {
+            try (var files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package banking;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Seeds funded accounts through BankingEngine (journaling off), starts the
+// teller server on a free localhost port and connects the given number of teller
+// sessions, each on its own virtual thread sending one request at a time from
+// a deposit/withdraw/transfer/balance mix for the given time. Prints throughput
+// and latency percentiles as seen by the tellers, then checks that no money
+// was created or lost: the seeded total plus deposits minus withdrawals must
+// equal the sum of the account balances. Exits with 1 if it does not, or if a
+// session failed.
+//
+//     java -cp benchmarks/target/benchmarks.jar banking.TellerLoadTest [sessions seconds accounts]
+public class TellerLoadTest {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int accountCount = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        System.exit(run(sessions, seconds, accountCount) ? 0 : 1);
+    }
+
+    static boolean run(int sessionCount, int seconds, int accountCount) throws IOException, InterruptedException {
+        String[] operations = { "deposit", "withdraw", "transfer", "balance" };
+        int[] cumulativeWeights = { 40, 65, 90, 100 };
+        long seedPaise = Account.toPaise(1_000_000.00);
+        String[] accountNumbers = new String[accountCount];
+        int customerId = 0;
+        for (int i = 0; i < accountCount; i++) {
+            if (i % 2 == 0) {
+                customerId = BankingEngine.registerCustomer("Teller", "Customer" + i, "teller" + i + "@email.com",
+                    "9800000000", "Teller Load Street", "TELLER" + i, new Date(0), "Regular").getValue()
+                    .getCustomerId();
+            }
+            accountNumbers[i] = BankingEngine.openAccount(customerId, "Savings", seedPaise / 100.0).getValue()
+                .getAccountNumber();
+        }
+
+        // Latencies go to a few striped histograms rather than one per session
+        int stripes = 64;
+        LatencyHistogram[][] histograms = new LatencyHistogram[stripes][operations.length];
+        long[][] failures = new long[stripes][operations.length];
+        for (LatencyHistogram[] stripe : histograms) {
+            for (int op = 0; op < operations.length; op++) {
+                stripe[op] = new LatencyHistogram();
+            }
+        }
+        LongAdder movedInPaise = new LongAdder();
+        AtomicLong connectErrors = new AtomicLong();
+        long durationNanos = seconds * 1_000_000_000L;
+
+        try (TellerServer server = TellerServer.start(InetAddress.getLoopbackAddress(), 0)) {
+            System.out.printf("Teller load test: %,d sessions for %d s over %,d accounts on localhost:%d "
+                + "(journaling off)%n", sessionCount, seconds, accountCount, server.getPort());
+            CountDownLatch connected = new CountDownLatch(sessionCount);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicLong elapsed = new AtomicLong();
+            List<Thread> tellers = new ArrayList<>(sessionCount);
+            for (int s = 0; s < sessionCount; s++) {
+                LatencyHistogram[] mine = histograms[s % stripes];
+                long[] myFailures = failures[s % stripes];
+                tellers.add(Thread.ofVirtual().name("teller-" + s).start(() -> {
+                    boolean counted = false;
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                        socket.setTcpNoDelay(true);
+                        TellerServer.LineReader in = new TellerServer.LineReader(socket.getInputStream());
+                        OutputStream out = socket.getOutputStream();
+                        connected.countDown();
+                        counted = true;
+                        start.await();
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        long begin = System.nanoTime();
+                        long deadline = begin + durationNanos;
+                        long now = begin;
+                        while (now < deadline) {
+                            int roll = random.nextInt(100);
+                            int op = 0;
+                            while (roll >= cumulativeWeights[op]) {
+                                op++;
+                            }
+                            long paise = 1 + random.nextInt(100000);
+                            String account = accountNumbers[random.nextInt(accountNumbers.length)];
+                            StringBuilder request = new StringBuilder(64);
+                            switch (op) {
+                                case 0:
+                                    request.append("DEPOSIT|").append(account).append('|');
+                                    TellerServer.amount(request, paise);
+                                    break;
+                                case 1:
+                                    request.append("WITHDRAW|").append(account).append('|');
+                                    TellerServer.amount(request, paise);
+                                    break;
+                                case 2:
+                                    request.append("TRANSFER|").append(account).append('|')
+                                        .append(accountNumbers[random.nextInt(accountNumbers.length)]).append('|');
+                                    TellerServer.amount(request, paise);
+                                    break;
+                                default:
+                                    request.append("ACCOUNT|").append(account);
+                            }
+                            out.write(request.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+                            out.flush();
+                            String reply = in.readLine();
+                            if (reply == null) {
+                                throw new IOException("Server closed the session");
+                            }
+                            boolean succeeded = reply.startsWith("OK");
+                            if (succeeded && op < 2) {
+                                movedInPaise.add(op == 0 ? paise : -paise);
+                            }
+                            long end = System.nanoTime();
+                            synchronized (mine) {
+                                mine[op].record(end - now);
+                                if (!succeeded) {
+                                    myFailures[op]++;
+                                }
+                            }
+                            now = end;
+                        }
+                        elapsed.accumulateAndGet(now - begin, Math::max);
+                        out.write("QUIT\n".getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                        in.readLine();
+                    } catch (IOException e) {
+                        if (connectErrors.getAndIncrement() == 0) {
+                            System.out.println("Teller session failed: " + e.getMessage());
+                        }
+                        if (!counted) {
+                            connected.countDown();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+            }
+            connected.await();
+            System.out.printf("%,d sessions connected (%,d open on the server)%n",
+                sessionCount - connectErrors.get(), server.getSessionCount());
+            start.countDown();
+            for (Thread teller : tellers) {
+                teller.join();
+            }
+
+            double elapsedSeconds = elapsed.get() / 1_000_000_000.0;
+            LatencyHistogram all = new LatencyHistogram();
+            long allFailures = 0;
+            System.out.printf("%-10s %12s %12s %10s %10s %10s %10s %10s%n",
+                "Operation", "Count", "Ops/sec", "Failed", "p50 (us)", "p99 (us)", "p999 (us)", "max (us)");
+            for (int op = 0; op < operations.length; op++) {
+                LatencyHistogram merged = new LatencyHistogram();
+                long failed = 0;
+                for (int s = 0; s < stripes; s++) {
+                    merged.merge(histograms[s][op]);
+                    failed += failures[s][op];
+                }
+                LoadDriver.printRow(operations[op], merged, failed, elapsedSeconds);
+                all.merge(merged);
+                allFailures += failed;
+            }
+            LoadDriver.printRow("total", all, allFailures, elapsedSeconds);
+            System.out.printf("Server handled %,d requests%n", server.getRequestCount());
+        }
+
+        long expected = seedPaise * accountCount + movedInPaise.sum();
+        long actual = 0;
+        for (String accountNumber : accountNumbers) {
+            actual += BankingManagementSystem.findAccountByNumber(accountNumber).get().getBalancePaise();
+        }
+        boolean ok = connectErrors.get() == 0 && expected == actual;
+        System.out.printf("Balances: expected %,d paise, found %,d paise, %d failed sessions%s%n",
+            expected, actual, connectErrors.get(), ok ? " | OK" : " | MISMATCH");
+        return ok;
+    }
+}
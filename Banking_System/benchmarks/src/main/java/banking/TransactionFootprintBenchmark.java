@@ -0,0 +1,69 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+// Footprint comparison: the same synthetic transactions held as an
+// ArrayList<Transaction> and as a TransactionStore, measured as retained heap.
+//
+//     java -cp benchmarks/target/benchmarks.jar banking.TransactionFootprintBenchmark [transactions accounts]
+public class TransactionFootprintBenchmark {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+        int accountCount = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        System.out.printf("Building %,d transactions over %,d accounts%n", count, accountCount);
+        long baseline = usedHeap();
+        List<Transaction> list = new ArrayList<>();
+        fill(count, accountCount, 1000, list::add);
+        long listBytes = usedHeap() - baseline;
+        System.out.printf("ArrayList<Transaction>: %,d bytes (%.1f bytes/transaction)%n",
+            listBytes, (double) listBytes / count);
+        list = null;
+
+        baseline = usedHeap();
+        TransactionStore store = new TransactionStore();
+        fill(count, accountCount, 1000, store::append);
+        long storeBytes = usedHeap() - baseline;
+        System.out.printf("TransactionStore:       %,d bytes (%.1f bytes/transaction)%n",
+            storeBytes, (double) storeBytes / count);
+        System.out.printf("Reduction: %.1fx (store holds %,d rows)%n", (double) listBytes / storeBytes, store.size());
+    }
+
+    // Synthetic transactions stepMillis apart, ending about now
+    private static void fill(int count, int accountCount, long stepMillis, Consumer<Transaction> sink) {
+        Random random = new Random(7);
+        long time = System.currentTimeMillis() - count * stepMillis;
+        for (int i = 0; i < count; i++) {
+            String accountNumber = "ACC" + (1000000000 + random.nextInt(accountCount));
+            double amount = (1 + random.nextInt(5000000)) / 100.0;
+            double balanceAfter = (1 + random.nextInt(100000000)) / 100.0;
+            Transaction transaction;
+            switch (i % 3) {
+                case 0:
+                    transaction = new Transaction(i + 1, accountNumber, "Deposit", amount, "Cash deposit", balanceAfter);
+                    break;
+                case 1:
+                    transaction = new Transaction(i + 1, accountNumber, "Withdrawal", amount, "Cash withdrawal", balanceAfter);
+                    break;
+                default:
+                    String target = "ACC" + (1000000000 + random.nextInt(accountCount));
+                    transaction = new Transaction(i + 1, accountNumber, "Transfer", amount, "Transfer to " + target, balanceAfter);
+                    transaction.setTargetAccount(target);
+            }
+            time += stepMillis;
+            transaction.setTransactionDate(new Date(time));
+            sink.accept(transaction);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}